@@ -6,7 +6,9 @@ public enum CliType {
   ENCLAVE,
   CONFIG_MIGRATION,
   DATA_MIGRATION,
-  MULTITENANCY_MIGRATION;
+  MULTITENANCY_MIGRATION,
+  PARTY_INDEX_MIGRATION,
+  TRANSACTION_LOG_MIGRATION;
 
   public static final String CLI_TYPE_KEY = "tessera.cli.type";
 }
@@ -1,9 +1,12 @@
 package com.quorum.tessera.config;
 
+import com.quorum.tessera.config.adapters.PathAdapter;
 import jakarta.validation.constraints.NotNull;
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
 import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.nio.file.Path;
 
 @XmlAccessorType(XmlAccessType.FIELD)
 public class JdbcConfig extends ConfigItem {
@@ -22,6 +25,23 @@ public class JdbcConfig extends ConfigItem {
 
   @XmlElement private int fetchSize;
 
+  /** Total size in bytes of the transaction payloads held in memory once read, zero for none */
+  @XmlElement private long payloadCacheSize;
+
+  /** The most payloads from other nodes to store in one database transaction, zero for one each */
+  @XmlElement private int storeBatchSize;
+
+  /** How long in milliseconds to wait for more payloads before storing a batch that is not full */
+  @XmlElement private long storeBatchDelay;
+
+  /**
+   * Directory of an embedded log to store encrypted transactions in instead of the database, none
+   * if not set. Everything else is still stored in the database.
+   */
+  @XmlElement(type = String.class)
+  @XmlJavaTypeAdapter(PathAdapter.class)
+  private Path transactionLogPath;
+
   public JdbcConfig(String username, String password, String url) {
     this.username = username;
     this.password = password;
@@ -71,4 +91,36 @@ public class JdbcConfig extends ConfigItem {
   public void setFetchSize(int fetchSize) {
     this.fetchSize = fetchSize;
   }
+
+  public long getPayloadCacheSize() {
+    return payloadCacheSize;
+  }
+
+  public void setPayloadCacheSize(long payloadCacheSize) {
+    this.payloadCacheSize = payloadCacheSize;
+  }
+
+  public int getStoreBatchSize() {
+    return storeBatchSize;
+  }
+
+  public void setStoreBatchSize(int storeBatchSize) {
+    this.storeBatchSize = storeBatchSize;
+  }
+
+  public long getStoreBatchDelay() {
+    return storeBatchDelay;
+  }
+
+  public void setStoreBatchDelay(long storeBatchDelay) {
+    this.storeBatchDelay = storeBatchDelay;
+  }
+
+  public Path getTransactionLogPath() {
+    return transactionLogPath;
+  }
+
+  public void setTransactionLogPath(Path transactionLogPath) {
+    this.transactionLogPath = transactionLogPath;
+  }
 }
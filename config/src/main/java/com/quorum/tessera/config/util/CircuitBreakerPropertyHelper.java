@@ -0,0 +1,34 @@
+package com.quorum.tessera.config.util;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CircuitBreakerPropertyHelper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerPropertyHelper.class);
+
+  private final Map<String, String> properties;
+
+  public CircuitBreakerPropertyHelper(final Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public int circuitBreakerFailureThreshold() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("circuitBreakerFailureThreshold", "5"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 5;
+    }
+  }
+
+  public long circuitBreakerOpenDuration() {
+    try {
+      return Long.parseLong(properties.getOrDefault("circuitBreakerOpenDuration", "10000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 10000L;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.quorum.tessera.config.util;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ConnectionPoolPropertyHelper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolPropertyHelper.class);
+
+  private final Map<String, String> properties;
+
+  public ConnectionPoolPropertyHelper(final Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public boolean pooledConnections() {
+    return Boolean.parseBoolean(properties.getOrDefault("pooledConnections", "false"));
+  }
+
+  public int maxConnectionsPerDestination() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("maxConnectionsPerDestination", "64"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 64;
+    }
+  }
+
+  public int maxRequestsQueuedPerDestination() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("maxRequestsQueuedPerDestination", "1024"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 1024;
+    }
+  }
+
+  public long connectionIdleTimeout() {
+    try {
+      return Long.parseLong(properties.getOrDefault("connectionIdleTimeout", "30000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 30000L;
+    }
+  }
+}
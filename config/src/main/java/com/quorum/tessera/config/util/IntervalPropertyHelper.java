@@ -32,6 +32,24 @@ public class IntervalPropertyHelper {
     }
   }
 
+  public long enclaveKeyRefreshInterval() {
+    try {
+      return Long.parseLong(properties.getOrDefault("enclaveKeyRefreshInterval", "2000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 2000L;
+    }
+  }
+
+  public long enclaveHealthCheckInterval() {
+    try {
+      return Long.parseLong(properties.getOrDefault("enclaveHealthCheckInterval", "5000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 5000L;
+    }
+  }
+
   public long syncInterval() {
     try {
       return Long.parseLong(properties.getOrDefault("syncInterval", "60000"));
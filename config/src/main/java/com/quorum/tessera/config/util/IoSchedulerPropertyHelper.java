@@ -0,0 +1,47 @@
+package com.quorum.tessera.config.util;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class IoSchedulerPropertyHelper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IoSchedulerPropertyHelper.class);
+
+  private final Map<String, String> properties;
+
+  public IoSchedulerPropertyHelper(final Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public int ioThreads() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("ioThreads", "64"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 64;
+    }
+  }
+
+  public int ioTasksPerDestination() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("ioTasksPerDestination", "8"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 8;
+    }
+  }
+
+  public int ioQueueCapacity() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("ioQueueCapacity", "10000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 10000;
+    }
+  }
+
+  public boolean ioVirtualThreads() {
+    return Boolean.parseBoolean(properties.getOrDefault("ioVirtualThreads", "false"));
+  }
+}
@@ -0,0 +1,65 @@
+package com.quorum.tessera.config.util;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class OutboxPropertyHelper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPropertyHelper.class);
+
+  private final Map<String, String> properties;
+
+  public OutboxPropertyHelper(final Map<String, String> properties) {
+    this.properties = properties;
+  }
+
+  public boolean outbox() {
+    return Boolean.parseBoolean(properties.getOrDefault("outbox", "false"));
+  }
+
+  public long outboxDispatchInterval() {
+    try {
+      return Long.parseLong(properties.getOrDefault("outboxDispatchInterval", "1000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 1000L;
+    }
+  }
+
+  public int outboxBatchSize() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("outboxBatchSize", "500"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 500;
+    }
+  }
+
+  public long outboxMaxBackoff() {
+    try {
+      return Long.parseLong(properties.getOrDefault("outboxMaxBackoff", "300000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 300000L;
+    }
+  }
+
+  public int outboxMaxAttempts() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("outboxMaxAttempts", "50"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 50;
+    }
+  }
+
+  public long outboxRetention() {
+    try {
+      return Long.parseLong(properties.getOrDefault("outboxRetention", "86400000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 86400000L;
+    }
+  }
+}
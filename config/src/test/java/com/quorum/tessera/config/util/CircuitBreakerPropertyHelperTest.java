@@ -0,0 +1,44 @@
+package com.quorum.tessera.config.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class CircuitBreakerPropertyHelperTest {
+
+  @Test
+  public void testDefaultValues() {
+    final CircuitBreakerPropertyHelper util =
+        new CircuitBreakerPropertyHelper(Collections.emptyMap());
+
+    assertThat(util.circuitBreakerFailureThreshold()).isEqualTo(5);
+    assertThat(util.circuitBreakerOpenDuration()).isEqualTo(10000L);
+  }
+
+  @Test
+  public void getValues() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("circuitBreakerFailureThreshold", "3");
+    props.put("circuitBreakerOpenDuration", "2000");
+
+    final CircuitBreakerPropertyHelper util = new CircuitBreakerPropertyHelper(props);
+
+    assertThat(util.circuitBreakerFailureThreshold()).isEqualTo(3);
+    assertThat(util.circuitBreakerOpenDuration()).isEqualTo(2000L);
+  }
+
+  @Test
+  public void testExceptions() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("circuitBreakerFailureThreshold", "three");
+    props.put("circuitBreakerOpenDuration", null);
+
+    final CircuitBreakerPropertyHelper util = new CircuitBreakerPropertyHelper(props);
+
+    assertThat(util.circuitBreakerFailureThreshold()).isEqualTo(5);
+    assertThat(util.circuitBreakerOpenDuration()).isEqualTo(10000L);
+  }
+}
@@ -0,0 +1,54 @@
+package com.quorum.tessera.config.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConnectionPoolPropertyHelperTest {
+
+  @Test
+  public void testDefaultValues() {
+    final ConnectionPoolPropertyHelper util =
+        new ConnectionPoolPropertyHelper(Collections.emptyMap());
+
+    assertThat(util.pooledConnections()).isFalse();
+    assertThat(util.maxConnectionsPerDestination()).isEqualTo(64);
+    assertThat(util.maxRequestsQueuedPerDestination()).isEqualTo(1024);
+    assertThat(util.connectionIdleTimeout()).isEqualTo(30000);
+  }
+
+  @Test
+  public void getValues() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("pooledConnections", "true");
+    props.put("maxConnectionsPerDestination", "8");
+    props.put("maxRequestsQueuedPerDestination", "100");
+    props.put("connectionIdleTimeout", "5000");
+
+    final ConnectionPoolPropertyHelper util = new ConnectionPoolPropertyHelper(props);
+
+    assertThat(util.pooledConnections()).isTrue();
+    assertThat(util.maxConnectionsPerDestination()).isEqualTo(8);
+    assertThat(util.maxRequestsQueuedPerDestination()).isEqualTo(100);
+    assertThat(util.connectionIdleTimeout()).isEqualTo(5000);
+  }
+
+  @Test
+  public void testExceptions() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("pooledConnections", "yes");
+    props.put("maxConnectionsPerDestination", "abc");
+    props.put("maxRequestsQueuedPerDestination", null);
+    props.put("connectionIdleTimeout", "5s");
+
+    final ConnectionPoolPropertyHelper util = new ConnectionPoolPropertyHelper(props);
+
+    assertThat(util.pooledConnections()).isFalse();
+    assertThat(util.maxConnectionsPerDestination()).isEqualTo(64);
+    assertThat(util.maxRequestsQueuedPerDestination()).isEqualTo(1024);
+    assertThat(util.connectionIdleTimeout()).isEqualTo(30000);
+  }
+}
@@ -15,6 +15,8 @@ public class IntervalPropertyHelperTest {
 
     assertThat(util.partyInfoInterval()).isEqualTo(5000);
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(2000);
+    assertThat(util.enclaveKeyRefreshInterval()).isEqualTo(2000);
+    assertThat(util.enclaveHealthCheckInterval()).isEqualTo(5000);
     assertThat(util.syncInterval()).isEqualTo(60000);
     assertThat(util.resendWaitTime()).isEqualTo("7200000");
   }
@@ -24,6 +26,8 @@ public class IntervalPropertyHelperTest {
     final Map<String, String> props = new HashMap<>();
     props.put("partyInfoInterval", "2000");
     props.put("enclaveKeySyncInterval", "3000");
+    props.put("enclaveKeyRefreshInterval", "0");
+    props.put("enclaveHealthCheckInterval", "1000");
     props.put("syncInterval", "4000");
     props.put("resendWaitTime", "4000");
 
@@ -31,6 +35,8 @@ public class IntervalPropertyHelperTest {
 
     assertThat(util.partyInfoInterval()).isEqualTo(2000);
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(3000);
+    assertThat(util.enclaveKeyRefreshInterval()).isZero();
+    assertThat(util.enclaveHealthCheckInterval()).isEqualTo(1000);
     assertThat(util.syncInterval()).isEqualTo(4000);
     assertThat(util.resendWaitTime()).isEqualTo("4000");
   }
@@ -40,6 +46,8 @@ public class IntervalPropertyHelperTest {
     final Map<String, String> props = new HashMap<>();
     props.put("partyInfoInterval", null);
     props.put("enclaveKeySyncInterval", "abc");
+    props.put("enclaveKeyRefreshInterval", "1s");
+    props.put("enclaveHealthCheckInterval", "5s");
     props.put("syncInterval", "4000L");
     props.put("resendWaitTime", "4000L");
 
@@ -47,6 +55,8 @@ public class IntervalPropertyHelperTest {
 
     assertThat(util.partyInfoInterval()).isEqualTo(5000);
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(2000);
+    assertThat(util.enclaveKeyRefreshInterval()).isEqualTo(2000);
+    assertThat(util.enclaveHealthCheckInterval()).isEqualTo(5000);
     assertThat(util.syncInterval()).isEqualTo(60000);
     assertThat(util.resendWaitTime()).isEqualTo("7200000");
   }
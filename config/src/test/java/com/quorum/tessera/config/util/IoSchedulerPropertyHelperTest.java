@@ -0,0 +1,53 @@
+package com.quorum.tessera.config.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class IoSchedulerPropertyHelperTest {
+
+  @Test
+  public void testDefaultValues() {
+    final IoSchedulerPropertyHelper util = new IoSchedulerPropertyHelper(Collections.emptyMap());
+
+    assertThat(util.ioThreads()).isEqualTo(64);
+    assertThat(util.ioTasksPerDestination()).isEqualTo(8);
+    assertThat(util.ioQueueCapacity()).isEqualTo(10000);
+    assertThat(util.ioVirtualThreads()).isFalse();
+  }
+
+  @Test
+  public void getValues() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("ioThreads", "16");
+    props.put("ioTasksPerDestination", "2");
+    props.put("ioQueueCapacity", "100");
+    props.put("ioVirtualThreads", "true");
+
+    final IoSchedulerPropertyHelper util = new IoSchedulerPropertyHelper(props);
+
+    assertThat(util.ioThreads()).isEqualTo(16);
+    assertThat(util.ioTasksPerDestination()).isEqualTo(2);
+    assertThat(util.ioQueueCapacity()).isEqualTo(100);
+    assertThat(util.ioVirtualThreads()).isTrue();
+  }
+
+  @Test
+  public void testExceptions() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("ioThreads", "abc");
+    props.put("ioTasksPerDestination", null);
+    props.put("ioQueueCapacity", "10k");
+    props.put("ioVirtualThreads", "yes");
+
+    final IoSchedulerPropertyHelper util = new IoSchedulerPropertyHelper(props);
+
+    assertThat(util.ioThreads()).isEqualTo(64);
+    assertThat(util.ioTasksPerDestination()).isEqualTo(8);
+    assertThat(util.ioQueueCapacity()).isEqualTo(10000);
+    assertThat(util.ioVirtualThreads()).isFalse();
+  }
+}
@@ -0,0 +1,63 @@
+package com.quorum.tessera.config.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class OutboxPropertyHelperTest {
+
+  @Test
+  public void testDefaultValues() {
+    final OutboxPropertyHelper util = new OutboxPropertyHelper(Collections.emptyMap());
+
+    assertThat(util.outbox()).isFalse();
+    assertThat(util.outboxDispatchInterval()).isEqualTo(1000L);
+    assertThat(util.outboxBatchSize()).isEqualTo(500);
+    assertThat(util.outboxMaxBackoff()).isEqualTo(300000L);
+    assertThat(util.outboxMaxAttempts()).isEqualTo(50);
+    assertThat(util.outboxRetention()).isEqualTo(86400000L);
+  }
+
+  @Test
+  public void getValues() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("outbox", "true");
+    props.put("outboxDispatchInterval", "250");
+    props.put("outboxBatchSize", "20");
+    props.put("outboxMaxBackoff", "60000");
+    props.put("outboxMaxAttempts", "0");
+    props.put("outboxRetention", "3600000");
+
+    final OutboxPropertyHelper util = new OutboxPropertyHelper(props);
+
+    assertThat(util.outbox()).isTrue();
+    assertThat(util.outboxDispatchInterval()).isEqualTo(250L);
+    assertThat(util.outboxBatchSize()).isEqualTo(20);
+    assertThat(util.outboxMaxBackoff()).isEqualTo(60000L);
+    assertThat(util.outboxMaxAttempts()).isZero();
+    assertThat(util.outboxRetention()).isEqualTo(3600000L);
+  }
+
+  @Test
+  public void testExceptions() {
+    final Map<String, String> props = new HashMap<>();
+    props.put("outbox", "yes");
+    props.put("outboxDispatchInterval", "1s");
+    props.put("outboxBatchSize", null);
+    props.put("outboxMaxBackoff", "5m");
+    props.put("outboxMaxAttempts", "many");
+    props.put("outboxRetention", "1d");
+
+    final OutboxPropertyHelper util = new OutboxPropertyHelper(props);
+
+    assertThat(util.outbox()).isFalse();
+    assertThat(util.outboxDispatchInterval()).isEqualTo(1000L);
+    assertThat(util.outboxBatchSize()).isEqualTo(500);
+    assertThat(util.outboxMaxBackoff()).isEqualTo(300000L);
+    assertThat(util.outboxMaxAttempts()).isEqualTo(50);
+    assertThat(util.outboxRetention()).isEqualTo(86400000L);
+  }
+}
@@ -0,0 +1,5 @@
+CREATE TABLE OUTBOX_ENTRY (ID BIGINT NOT NULL, HASH VARBINARY(100) NOT NULL, RECIPIENT_KEY VARBINARY(100) NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS INT, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(255), TIMESTAMP BIGINT, PRIMARY KEY (ID));
+ALTER TABLE OUTBOX_ENTRY ADD INDEX OUTBOX_ENTRY_DUE (STATUS, NEXT_ATTEMPT);
+ALTER TABLE OUTBOX_ENTRY ADD INDEX OUTBOX_ENTRY_HASH (HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT BIGINT, PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
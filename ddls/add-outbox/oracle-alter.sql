@@ -0,0 +1,5 @@
+CREATE TABLE OUTBOX_ENTRY (ID NUMBER(19) NOT NULL, HASH RAW(100) NOT NULL, RECIPIENT_KEY RAW(100) NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS NUMBER(10), NEXT_ATTEMPT NUMBER(19), LAST_ERROR VARCHAR(255), TIMESTAMP NUMBER(19), PRIMARY KEY (ID));
+CREATE INDEX OUTBOX_ENTRY_DUE ON OUTBOX_ENTRY(STATUS, NEXT_ATTEMPT);
+CREATE INDEX OUTBOX_ENTRY_HASH ON OUTBOX_ENTRY(HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT NUMBER(19), PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
@@ -0,0 +1,5 @@
+CREATE TABLE OUTBOX_ENTRY (ID BIGINT NOT NULL, HASH BYTEA NOT NULL, RECIPIENT_KEY BYTEA NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(255), TIMESTAMP BIGINT, PRIMARY KEY (ID));
+CREATE INDEX IF NOT EXISTS OUTBOX_ENTRY_DUE ON OUTBOX_ENTRY (STATUS, NEXT_ATTEMPT);
+CREATE INDEX IF NOT EXISTS OUTBOX_ENTRY_HASH ON OUTBOX_ENTRY (HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT BIGINT, PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
@@ -0,0 +1,2 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_PARTY (HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, PARTY_ROLE VARCHAR(20) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY, PARTY_ROLE), CONSTRAINT FK_ENCRYPTED_TX_PARTY_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+ALTER TABLE ENCRYPTED_TRANSACTION_PARTY ADD INDEX ENCRYPTED_TX_PARTY_KEY (PUBLIC_KEY, PARTY_ROLE);
@@ -0,0 +1,2 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_PARTY (HASH BYTEA NOT NULL, PUBLIC_KEY BYTEA NOT NULL, PARTY_ROLE VARCHAR(20) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY, PARTY_ROLE), CONSTRAINT FK_ENCRYPTED_TX_PARTY_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TX_PARTY_KEY ON ENCRYPTED_TRANSACTION_PARTY (PUBLIC_KEY, PARTY_ROLE);
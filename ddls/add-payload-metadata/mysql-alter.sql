@@ -0,0 +1,4 @@
+ALTER TABLE ENCRYPTED_TRANSACTION ADD SENDER_KEY VARBINARY(100);
+ALTER TABLE ENCRYPTED_TRANSACTION ADD PRIVACY_MODE VARCHAR(50);
+ALTER TABLE ENCRYPTED_TRANSACTION ADD RECIPIENT_COUNT INT;
+ALTER TABLE ENCRYPTED_TRANSACTION ADD PRIVACY_GROUP_ID VARBINARY(100);
@@ -0,0 +1,4 @@
+ALTER TABLE ENCRYPTED_TRANSACTION ADD SENDER_KEY BLOB;
+ALTER TABLE ENCRYPTED_TRANSACTION ADD PRIVACY_MODE VARCHAR(50);
+ALTER TABLE ENCRYPTED_TRANSACTION ADD RECIPIENT_COUNT INTEGER;
+ALTER TABLE ENCRYPTED_TRANSACTION ADD PRIVACY_GROUP_ID BLOB;
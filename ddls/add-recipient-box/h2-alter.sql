@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH LONGVARBINARY NOT NULL, BOX LONGVARBINARY NOT NULL, RECIPIENT_KEY LONGVARBINARY, PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
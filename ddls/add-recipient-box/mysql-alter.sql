@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH VARBINARY(100) NOT NULL, BOX VARBINARY(255) NOT NULL, RECIPIENT_KEY VARBINARY(100), PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH RAW(100) NOT NULL, BOX RAW(255) NOT NULL, RECIPIENT_KEY RAW(100), PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
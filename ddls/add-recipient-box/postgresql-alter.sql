@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH BYTEA NOT NULL, BOX BYTEA NOT NULL, RECIPIENT_KEY BYTEA, PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
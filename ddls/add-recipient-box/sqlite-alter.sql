@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH BLOB NOT NULL, BOX BLOB NOT NULL, RECIPIENT_KEY BLOB, PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
@@ -0,0 +1 @@
+ALTER TABLE ENCRYPTED_TRANSACTION ADD INDEX ENCRYPTED_TX_TIMESTAMP_HASH (TIMESTAMP, HASH);
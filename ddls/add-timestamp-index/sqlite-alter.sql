@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TX_TIMESTAMP_HASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
@@ -1,6 +1,15 @@
-CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD LONGVARBINARY NOT NULL, PAYLOAD_CODEC VARCHAR(50), TIMESTAMP BIGINT, HASH LONGVARBINARY NOT NULL, PRIMARY KEY (HASH));
+CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD LONGVARBINARY NOT NULL, PAYLOAD_CODEC VARCHAR(50), TIMESTAMP BIGINT, HASH LONGVARBINARY NOT NULL, SENDER_KEY LONGVARBINARY, PRIVACY_MODE VARCHAR(50), RECIPIENT_COUNT INTEGER, PRIVACY_GROUP_ID LONGVARBINARY, PRIMARY KEY (HASH));
 CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY LONGVARBINARY NOT NULL, ENCRYPTED_PAYLOAD LONGVARBINARY NOT NULL, NONCE LONGVARBINARY NOT NULL, SENDER LONGVARBINARY NOT NULL, TIMESTAMP BIGINT, HASH LONGVARBINARY NOT NULL, PRIMARY KEY (HASH));
 CREATE TABLE PRIVACY_GROUP(ID LONGVARBINARY NOT NULL, LOOKUP_ID LONGVARBINARY NOT NULL, DATA LONGVARBINARY NOT NULL, TIMESTAMP BIGINT, PRIMARY KEY (ID));
 CREATE TABLE ST_TRANSACTION(ID BIGINT NOT NULL PRIMARY KEY, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR NOT NULL, PAYLOAD LONGVARBINARY, PRIVACY_MODE INTEGER, TIMESTAMP BIGINT, VALIDATION_STAGE BIGINT);
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID BIGINT NOT NULL PRIMARY KEY, AFFECTED_HASH VARCHAR NOT NULL, TXN_ID BIGINT NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION (ID));
 CREATE INDEX IF NOT EXISTS ST_TRANSACTION_VALSTG ON ST_TRANSACTION(VALIDATION_STAGE);
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TX_TIMESTAMP_HASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_PARTY (HASH LONGVARBINARY NOT NULL, PUBLIC_KEY LONGVARBINARY NOT NULL, PARTY_ROLE VARCHAR(20) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY, PARTY_ROLE), CONSTRAINT FK_ENCRYPTED_TX_PARTY_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TX_PARTY_KEY ON ENCRYPTED_TRANSACTION_PARTY(PUBLIC_KEY, PARTY_ROLE);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH LONGVARBINARY NOT NULL, BOX LONGVARBINARY NOT NULL, RECIPIENT_KEY LONGVARBINARY, PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE TABLE OUTBOX_ENTRY (ID BIGINT NOT NULL, HASH LONGVARBINARY NOT NULL, RECIPIENT_KEY LONGVARBINARY NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(255), TIMESTAMP BIGINT, PRIMARY KEY (ID));
+CREATE INDEX IF NOT EXISTS OUTBOX_ENTRY_DUE ON OUTBOX_ENTRY(STATUS, NEXT_ATTEMPT);
+CREATE INDEX IF NOT EXISTS OUTBOX_ENTRY_HASH ON OUTBOX_ENTRY(HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT BIGINT, PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
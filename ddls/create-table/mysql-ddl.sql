@@ -1,6 +1,15 @@
-CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH VARBINARY(100) NOT NULL, TIMESTAMP BIGINT, PRIMARY KEY (HASH));
+CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH VARBINARY(100) NOT NULL, TIMESTAMP BIGINT, SENDER_KEY VARBINARY(100), PRIVACY_MODE VARCHAR(50), RECIPIENT_COUNT INT, PRIVACY_GROUP_ID VARBINARY(100), PRIMARY KEY (HASH));
 CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY BLOB NOT NULL, ENCRYPTED_PAYLOAD BLOB NOT NULL, NONCE BLOB NOT NULL, SENDER BLOB NOT NULL, TIMESTAMP BIGINT, HASH VARBINARY(100) NOT NULL, PRIMARY KEY (HASH));
 CREATE TABLE PRIVACY_GROUP(ID VARBINARY(100) NOT NULL, LOOKUP_ID BLOB NOT NULL, DATA BLOB NOT NULL, TIMESTAMP BIGINT, PRIMARY KEY (ID));
 CREATE TABLE ST_TRANSACTION(ID BIGINT(19) NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR(100) NOT NULL, PAYLOAD BLOB, PRIVACY_MODE BIGINT(10), TIMESTAMP BIGINT(19), VALIDATION_STAGE BIGINT(19), PRIMARY KEY (ID));
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID BIGINT(19) NOT NULL, AFFECTED_HASH VARCHAR(100) NOT NULL, TXN_ID BIGINT(19) NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION(ID), PRIMARY KEY (ID));
 ALTER TABLE ST_TRANSACTION ADD INDEX ST_TRANSACTION_VALSTG (VALIDATION_STAGE);
+ALTER TABLE ENCRYPTED_TRANSACTION ADD INDEX ENCRYPTED_TX_TIMESTAMP_HASH (TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_PARTY (HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, PARTY_ROLE VARCHAR(20) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY, PARTY_ROLE), CONSTRAINT FK_ENCRYPTED_TX_PARTY_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+ALTER TABLE ENCRYPTED_TRANSACTION_PARTY ADD INDEX ENCRYPTED_TX_PARTY_KEY (PUBLIC_KEY, PARTY_ROLE);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH VARBINARY(100) NOT NULL, BOX VARBINARY(255) NOT NULL, RECIPIENT_KEY VARBINARY(100), PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE TABLE OUTBOX_ENTRY (ID BIGINT NOT NULL, HASH VARBINARY(100) NOT NULL, RECIPIENT_KEY VARBINARY(100) NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS INT, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(255), TIMESTAMP BIGINT, PRIMARY KEY (ID));
+ALTER TABLE OUTBOX_ENTRY ADD INDEX OUTBOX_ENTRY_DUE (STATUS, NEXT_ATTEMPT);
+ALTER TABLE OUTBOX_ENTRY ADD INDEX OUTBOX_ENTRY_HASH (HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT BIGINT, PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
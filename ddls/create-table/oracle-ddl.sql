@@ -1,6 +1,15 @@
-CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH RAW(100) NOT NULL, TIMESTAMP NUMBER(19), PRIMARY KEY (HASH));
+CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH RAW(100) NOT NULL, TIMESTAMP NUMBER(19), SENDER_KEY RAW(100), PRIVACY_MODE VARCHAR(50), RECIPIENT_COUNT NUMBER(10), PRIVACY_GROUP_ID RAW(100), PRIMARY KEY (HASH));
 CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY BLOB NOT NULL, ENCRYPTED_PAYLOAD BLOB NOT NULL, NONCE BLOB NOT NULL, SENDER BLOB NOT NULL, TIMESTAMP NUMBER(19), HASH RAW(100) NOT NULL, PRIMARY KEY (HASH));
 CREATE TABLE PRIVACY_GROUP(ID RAW(100) NOT NULL, LOOKUP_ID BLOB NOT NULL, DATA BLOB NOT NULL, TIMESTAMP NUMBER(19), PRIMARY KEY (ID));
 CREATE TABLE ST_TRANSACTION(ID NUMBER(19) NOT NULL PRIMARY KEY, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR(100) NOT NULL, PAYLOAD BLOB, PRIVACY_MODE INTEGER, TIMESTAMP NUMBER(19), VALIDATION_STAGE NUMBER(19));
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID NUMBER(19) NOT NULL PRIMARY KEY, AFFECTED_HASH VARCHAR(100) NOT NULL, TXN_ID NUMBER(19) NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION (ID));
 CREATE INDEX ST_TRANSACTION_VALSTG ON ST_TRANSACTION(VALIDATION_STAGE);
+CREATE INDEX ENCRYPTED_TX_TIMESTAMP_HASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_PARTY (HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, PARTY_ROLE VARCHAR(20) NOT NULL, PRIMARY KEY (HASH, PUBLIC_KEY, PARTY_ROLE), CONSTRAINT FK_ENCRYPTED_TX_PARTY_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE INDEX ENCRYPTED_TX_PARTY_KEY ON ENCRYPTED_TRANSACTION_PARTY(PUBLIC_KEY, PARTY_ROLE);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH RAW(100) NOT NULL, BOX RAW(255) NOT NULL, RECIPIENT_KEY RAW(100), PRIMARY KEY (HASH, BOX), CONSTRAINT FK_ENCRYPTED_TX_BOX_HASH FOREIGN KEY (HASH) REFERENCES ENCRYPTED_TRANSACTION (HASH));
+CREATE TABLE OUTBOX_ENTRY (ID NUMBER(19) NOT NULL, HASH RAW(100) NOT NULL, RECIPIENT_KEY RAW(100) NOT NULL, STATUS VARCHAR(20) NOT NULL, ATTEMPTS NUMBER(10), NEXT_ATTEMPT NUMBER(19), LAST_ERROR VARCHAR(255), TIMESTAMP NUMBER(19), PRIMARY KEY (ID));
+CREATE INDEX OUTBOX_ENTRY_DUE ON OUTBOX_ENTRY(STATUS, NEXT_ATTEMPT);
+CREATE INDEX OUTBOX_ENTRY_HASH ON OUTBOX_ENTRY(HASH);
+CREATE TABLE OUTBOX_SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT NUMBER(19), PRIMARY KEY (SEQ_NAME));
+INSERT INTO OUTBOX_SEQUENCE (SEQ_NAME, SEQ_COUNT) VALUES ('OUTBOX_ENTRY', 0);
@@ -1,15 +1,26 @@
 package com.quorum.tessera.enclave;
 
+import static java.util.stream.Collectors.toList;
+
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
 import com.fasterxml.jackson.dataformat.cbor.CBORParser;
 import com.quorum.tessera.encryption.PublicKey;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CBOREncoder implements PayloadEncoder {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CBOREncoder.class);
+
   final CBORFactory cborFactory = new CBORFactory();
 
   @Override
@@ -17,62 +28,176 @@ public class CBOREncoder implements PayloadEncoder {
 
     ByteArrayOutputStream output = new ByteArrayOutputStream();
 
+    try {
+      encodeTo(payload, output);
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encodeTo(EncodedPayload payload, OutputStream output) throws IOException {
+
     try (CBORGenerator generator = cborFactory.createGenerator(output)) {
+      // the stream belongs to the caller, so is left open once the payload is written
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
-      generator.writeStartObject(11);
-      generator.writeBinaryField("sender", payload.getSenderKey().getKeyBytes());
-      generator.writeBinaryField("cipherText", payload.getCipherText());
-      generator.writeBinaryField("nonce", payload.getCipherTextNonce().getNonceBytes());
-      generator.writeBinaryField("recipientNonce", payload.getRecipientNonce().getNonceBytes());
+      writeHead(generator, payload);
+      writeRecipients(
+          generator,
+          payload.getRecipientBoxes().stream().map(RecipientBox::getData).collect(toList()),
+          payload.getRecipientKeys().stream().map(PublicKey::getKeyBytes).collect(toList()));
+      writeTail(generator, payload);
 
-      generator.writeFieldName("recipientBoxes");
-      generator.writeStartArray(payload.getRecipientBoxes().size());
-      for (RecipientBox box : payload.getRecipientBoxes()) {
-        generator.writeBinary(box.getData());
-      }
-      generator.writeEndArray();
+      generator.flush();
+    }
+  }
 
-      generator.writeFieldName("recipients");
-      generator.writeStartArray(payload.getRecipientKeys().size());
-      for (PublicKey key : payload.getRecipientKeys()) {
-        generator.writeBinary(key.getKeyBytes());
-      }
-      generator.writeEndArray();
+  @Override
+  public PayloadTemplate template(EncodedPayload payload) {
+    // built the same way as the payload stripped for each recipient, so that the affected
+    // transactions are written in the same order
+    final EncodedPayload shared = EncodedPayload.Builder.from(payload).build();
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final int headLength;
+    final int tailOffset;
+    try (CBORGenerator generator = cborFactory.createGenerator(output)) {
+      writeHead(generator, shared);
+      generator.flush();
+      headLength = output.size();
 
-      generator.writeNumberField("privacyFlag", payload.getPrivacyMode().getPrivacyFlag());
+      // written empty to keep the generator's count of map entries, then left out
+      writeRecipients(generator, List.of(), List.of());
+      generator.flush();
+      tailOffset = output.size();
 
-      generator.writeFieldName("affected");
-      generator.writeStartObject(payload.getAffectedContractTransactions().size());
-      for (Map.Entry<TxHash, SecurityHash> entry :
-          payload.getAffectedContractTransactions().entrySet()) {
-        generator.writeFieldName(entry.getKey().encodeToBase64());
-        generator.writeBinary(entry.getValue().getData());
-      }
+      writeTail(generator, shared);
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    final byte[] encoded = output.toByteArray();
+    final ByteBuffer head = ByteBuffer.wrap(encoded, 0, headLength).slice();
+    final ByteBuffer tail =
+        ByteBuffer.wrap(encoded, tailOffset, encoded.length - tailOffset).slice();
+
+    return recipient -> {
+      final int recipientIndex = EncodedPayload.Builder.recipientIndex(payload, recipient);
+      final byte[] recipientBox = payload.getRecipientBoxes().get(recipientIndex).getData();
+      final List<byte[]> recipientKeys =
+          EncodedPayload.Builder.recipientKeys(payload, recipientIndex).stream()
+              .map(PublicKey::getKeyBytes)
+              .collect(toList());
+
+      return List.of(
+          head.duplicate(),
+          ByteBuffer.wrap(encodeRecipients(List.of(recipientBox), recipientKeys)),
+          tail.duplicate());
+    };
+  }
+
+  /** Encodes the recipient boxes and keys on their own, as they appear within a payload */
+  private byte[] encodeRecipients(List<byte[]> recipientBoxes, List<byte[]> recipientKeys) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    // the generator only writes field names within a map, so the fields are written as a map of
+    // their own and its one byte header then left out
+    try (CBORGenerator generator = cborFactory.createGenerator(output)) {
+      generator.writeStartObject(2);
+      writeRecipients(generator, recipientBoxes, recipientKeys);
       generator.writeEndObject();
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    final byte[] encoded = output.toByteArray();
+    return Arrays.copyOfRange(encoded, 1, encoded.length);
+  }
 
-      generator.writeBinaryField("execHash", payload.getExecHash());
+  /** Writes the start of the payload, up to the recipient boxes */
+  private static void writeHead(CBORGenerator generator, EncodedPayload payload)
+      throws IOException {
+    generator.writeStartObject(11);
+    generator.writeBinaryField("sender", payload.getSenderKey().getKeyBytes());
+
+    generator.writeFieldName("cipherText");
+    final ByteBuffer cipherText = payload.getCipherTextBuffer();
+    if (cipherText.hasArray()) {
+      generator.writeBinary(
+          cipherText.array(),
+          cipherText.arrayOffset() + cipherText.position(),
+          cipherText.remaining());
+    } else {
+      final byte[] data = new byte[cipherText.remaining()];
+      cipherText.duplicate().get(data);
+      generator.writeBinary(data);
+    }
 
-      generator.writeFieldName("mandatoryFor");
-      generator.writeStartArray(payload.getMandatoryRecipients().size());
-      for (PublicKey recipient : payload.getMandatoryRecipients()) {
-        generator.writeBinary(recipient.getKeyBytes());
-      }
-      generator.writeEndArray();
+    generator.writeBinaryField("nonce", payload.getCipherTextNonce().getNonceBytes());
+    generator.writeBinaryField("recipientNonce", payload.getRecipientNonce().getNonceBytes());
+  }
 
-      final byte[] privacyGroupId =
-          payload.getPrivacyGroupId().map(PrivacyGroup.Id::getBytes).orElse(new byte[0]);
+  private static void writeRecipients(
+      CBORGenerator generator, List<byte[]> recipientBoxes, List<byte[]> recipientKeys)
+      throws IOException {
+    generator.writeFieldName("recipientBoxes");
+    generator.writeStartArray(recipientBoxes.size());
+    for (byte[] box : recipientBoxes) {
+      generator.writeBinary(box);
+    }
+    generator.writeEndArray();
 
-      generator.writeBinaryField("privacyGroupId", privacyGroupId);
+    generator.writeFieldName("recipients");
+    generator.writeStartArray(recipientKeys.size());
+    for (byte[] key : recipientKeys) {
+      generator.writeBinary(key);
+    }
+    generator.writeEndArray();
+  }
 
-      generator.writeEndObject();
+  /** Writes the rest of the payload, after the recipient keys */
+  private static void writeTail(CBORGenerator generator, EncodedPayload payload)
+      throws IOException {
+    generator.writeNumberField("privacyFlag", payload.getPrivacyMode().getPrivacyFlag());
+
+    generator.writeFieldName("affected");
+    generator.writeStartObject(payload.getAffectedContractTransactions().size());
+    for (Map.Entry<TxHash, SecurityHash> entry :
+        payload.getAffectedContractTransactions().entrySet()) {
+      generator.writeFieldName(entry.getKey().encodeToBase64());
+      generator.writeBinary(entry.getValue().getData());
+    }
+    generator.writeEndObject();
 
-      generator.flush();
+    generator.writeBinaryField("execHash", payload.getExecHash());
+
+    generator.writeFieldName("mandatoryFor");
+    generator.writeStartArray(payload.getMandatoryRecipients().size());
+    for (PublicKey recipient : payload.getMandatoryRecipients()) {
+      generator.writeBinary(recipient.getKeyBytes());
+    }
+    generator.writeEndArray();
 
+    final byte[] privacyGroupId =
+        payload.getPrivacyGroupId().map(PrivacyGroup.Id::getBytes).orElse(new byte[0]);
+
+    generator.writeBinaryField("privacyGroupId", privacyGroupId);
+
+    generator.writeEndObject();
+  }
+
+  @Override
+  public long sizeOf(EncodedPayload payload) {
+    final CountingOutputStream output = new CountingOutputStream();
+    try {
+      encodeTo(payload, output);
     } catch (Exception ex) {
       throw new RuntimeException("Unable to encode payload. ", ex);
     }
-
-    return output.toByteArray();
+    return output.count;
   }
 
   @Override
@@ -145,7 +270,9 @@ public class CBOREncoder implements PayloadEncoder {
             final TxHash txHash = new TxHash(parser.currentName());
             validateToken(JsonToken.VALUE_EMBEDDED_OBJECT, parser.nextToken());
             final byte[] securityHashBytes = parser.getBinaryValue();
-            affectedTxs.put(txHash, securityHashBytes);
+            if (affectedTxs.put(txHash, securityHashBytes) != null) {
+              throw new IllegalArgumentException(PayloadEncoderImpl.DUPLICATE_AFFECTED_TRANSACTION);
+            }
           }
           payloadBuilder.withAffectedContractTransactions(affectedTxs);
           continue;
@@ -183,6 +310,23 @@ public class CBOREncoder implements PayloadEncoder {
     return payloadBuilder.build();
   }
 
+  /**
+   * Finds the location of each field with a minimal reader for the subset of CBOR written by {@link
+   * #encode(EncodedPayload)}. Anything outside of that subset, such as indefinite length items, is
+   * left to {@link #decode(byte[])}.
+   */
+  @Override
+  public EncodedPayload decodeLazily(byte[] input) {
+    final LazyEncodedPayload.Layout layout;
+    try {
+      layout = new LayoutReader(input).read();
+    } catch (RuntimeException ex) {
+      LOGGER.debug("Unable to create view of payload data, decoding in full", ex);
+      return decode(input);
+    }
+    return new LazyEncodedPayload(input, layout);
+  }
+
   @Override
   public EncodedPayloadCodec encodedPayloadCodec() {
     return EncodedPayloadCodec.CBOR;
@@ -193,4 +337,160 @@ public class CBOREncoder implements PayloadEncoder {
       throw new IllegalArgumentException("Invalid payload data");
     }
   }
+
+  private static final class LayoutReader {
+
+    private static final int UNSIGNED_INTEGER = 0;
+
+    private static final int BYTE_STRING = 2;
+
+    private static final int TEXT_STRING = 3;
+
+    private static final int ARRAY = 4;
+
+    private static final int MAP = 5;
+
+    private final byte[] input;
+
+    private int position;
+
+    private LayoutReader(final byte[] input) {
+      this.input = input;
+    }
+
+    private LazyEncodedPayload.Layout read() {
+      final LazyEncodedPayload.Layout layout = new LazyEncodedPayload.Layout();
+      layout.textTxHashes = true;
+
+      final int fields = readHead(MAP);
+      for (int i = 0; i < fields; i++) {
+        final String name = readText();
+        switch (name) {
+          case "sender":
+            layout.senderKey = readBytes();
+            break;
+          case "cipherText":
+            layout.cipherText = readBytes();
+            break;
+          case "nonce":
+            layout.cipherTextNonce = readBytes();
+            break;
+          case "recipientNonce":
+            layout.recipientNonce = readBytes();
+            break;
+          case "recipients":
+            readBytesArray(layout.recipientKeys);
+            break;
+          case "recipientBoxes":
+            readBytesArray(layout.recipientBoxes);
+            break;
+          case "privacyFlag":
+            layout.privacyMode = PrivacyMode.fromFlag(readHead(UNSIGNED_INTEGER));
+            break;
+          case "affected":
+            // compared as decoded, as more than one text can decode to the same hash
+            final Set<TxHash> txHashes = new HashSet<>();
+            final int entries = readHead(MAP);
+            for (int j = 0; j < entries; j++) {
+              final LazyEncodedPayload.Region txHash = region(readHead(TEXT_STRING));
+              final String text =
+                  new String(input, txHash.offset, txHash.length, StandardCharsets.UTF_8);
+              if (!txHashes.add(new TxHash(text))) {
+                throw new IllegalArgumentException(
+                    PayloadEncoderImpl.DUPLICATE_AFFECTED_TRANSACTION);
+              }
+              layout.affectedTxHashes.add(txHash);
+              layout.affectedSecurityHashes.add(readBytes());
+            }
+            break;
+          case "execHash":
+            layout.execHash = readBytes();
+            break;
+          case "mandatoryFor":
+            readBytesArray(layout.mandatoryRecipients);
+            break;
+          case "privacyGroupId":
+            layout.privacyGroupId = readBytes();
+            break;
+          default:
+            throw new IllegalArgumentException("Unexpected field " + name);
+        }
+      }
+      return layout;
+    }
+
+    private int readHead(final int expectedMajorType) {
+      final int initial = input[position++] & 0xff;
+      if (initial >>> 5 != expectedMajorType) {
+        throw new IllegalArgumentException("Unexpected CBOR item type " + (initial >>> 5));
+      }
+
+      final int additional = initial & 0x1f;
+      if (additional < 24) {
+        return additional;
+      }
+      final int size;
+      switch (additional) {
+        case 24:
+          size = 1;
+          break;
+        case 25:
+          size = 2;
+          break;
+        case 26:
+          size = 4;
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported CBOR item length " + additional);
+      }
+      long value = 0;
+      for (int i = 0; i < size; i++) {
+        value = (value << 8) | (input[position++] & 0xff);
+      }
+      return Math.toIntExact(value);
+    }
+
+    private LazyEncodedPayload.Region readBytes() {
+      return region(readHead(BYTE_STRING));
+    }
+
+    private String readText() {
+      final int length = readHead(TEXT_STRING);
+      final int start = position;
+      region(length);
+      return new String(input, start, length, StandardCharsets.UTF_8);
+    }
+
+    private void readBytesArray(final List<LazyEncodedPayload.Region> regions) {
+      final int size = readHead(ARRAY);
+      for (int i = 0; i < size; i++) {
+        regions.add(readBytes());
+      }
+    }
+
+    private LazyEncodedPayload.Region region(final int length) {
+      if (length > input.length - position) {
+        throw new IllegalArgumentException("CBOR item extends past the end of the input");
+      }
+      final LazyEncodedPayload.Region region = new LazyEncodedPayload.Region(position, length);
+      position += length;
+      return region;
+    }
+  }
+
+  /** Discards what is written to it, keeping only a count of the bytes */
+  private static final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
 }
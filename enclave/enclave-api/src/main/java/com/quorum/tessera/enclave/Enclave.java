@@ -1,10 +1,16 @@
 package com.quorum.tessera.enclave;
 
+import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * An {@link Enclave} provides encryption/decryption functions and keeps hold of all the nodes
@@ -117,6 +123,142 @@ public interface Enclave extends Service {
    */
   byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey);
 
+  /**
+   * Decrypts many transactions in one call. Each payload is decrypted using the key at the same
+   * position in the list of provided keys, as per {@link #unencryptTransaction(EncodedPayload,
+   * PublicKey)}. If any payload cannot be decrypted then the whole operation fails.
+   *
+   * @param payloads the encrypted payloads
+   * @param providedKeys the keys to use for decryption, one per payload
+   * @return the original, decrypted messages in the same order as the payloads
+   */
+  default List<byte[]> unencryptTransactions(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    if (payloads.size() != providedKeys.size()) {
+      throw new IllegalArgumentException("A provided key is required for each payload");
+    }
+    final List<byte[]> results = new ArrayList<>(payloads.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      results.add(unencryptTransaction(payloads.get(i), providedKeys.get(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Searches the keys managed by this Enclave for one that is able to decrypt each of the given
+   * payloads.
+   *
+   * @param payloads the encrypted payloads to find a recipient key for
+   * @return for each payload, in the same order, the first managed key that can decrypt it, or
+   *     empty if none can
+   */
+  default List<Optional<PublicKey>> findRecipientKeys(List<EncodedPayload> payloads) {
+    final Set<PublicKey> publicKeys = getPublicKeys();
+    return payloads.stream()
+        .map(
+            payload -> {
+              for (final PublicKey potentialMatchingKey : publicKeys) {
+                try {
+                  unencryptTransaction(payload, potentialMatchingKey);
+                  return Optional.of(potentialMatchingKey);
+                } catch (EnclaveNotAvailableException ex) {
+                  throw ex;
+                } catch (EnclaveException | IndexOutOfBoundsException | EncryptorException ex) {
+                  // wrong key, try the next one
+                }
+              }
+              return Optional.<PublicKey>empty();
+            })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Creates new recipient boxes for each of the given keys, as per {@link
+   * #createNewRecipientBox(EncodedPayload, PublicKey)}.
+   *
+   * @param payload the payload to add recipients to
+   * @param recipientKeys the new recipient keys to add
+   * @return the new recipient boxes, in the same order as the keys
+   */
+  default List<byte[]> createNewRecipientBoxes(
+      EncodedPayload payload, List<PublicKey> recipientKeys) {
+    return recipientKeys.stream()
+        .map(recipientKey -> createNewRecipientBox(payload, recipientKey))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Asynchronous form of {@link #encryptPayload(byte[], PublicKey, List, PrivacyMetadata)}.
+   *
+   * <p>This and the other asynchronous operations let a caller keep several enclave calls in
+   * progress, or carry on with other work while a call is made. A local enclave performs the
+   * operation on the calling thread and returns a completed future, whereas a remote enclave client
+   * returns as soon as the request has been sent. Failures are reported through the returned future
+   * rather than thrown.
+   *
+   * @return a future holding the encrypted payload
+   */
+  default CompletableFuture<EncodedPayload> encryptPayloadAsync(
+      byte[] message,
+      PublicKey senderPublicKey,
+      List<PublicKey> recipientPublicKeys,
+      PrivacyMetadata privacyMetadata) {
+    return completed(
+        () -> encryptPayload(message, senderPublicKey, recipientPublicKeys, privacyMetadata));
+  }
+
+  /**
+   * Asynchronous form of {@link #unencryptTransaction(EncodedPayload, PublicKey)}.
+   *
+   * @return a future holding the original, decrypted message
+   * @see #encryptPayloadAsync(byte[], PublicKey, List, PrivacyMetadata)
+   */
+  default CompletableFuture<byte[]> unencryptTransactionAsync(
+      EncodedPayload payload, PublicKey providedKey) {
+    return completed(() -> unencryptTransaction(payload, providedKey));
+  }
+
+  /**
+   * Asynchronous form of {@link #unencryptTransactions(List, List)}.
+   *
+   * @return a future holding the original, decrypted messages in the same order as the payloads
+   * @see #encryptPayloadAsync(byte[], PublicKey, List, PrivacyMetadata)
+   */
+  default CompletableFuture<List<byte[]>> unencryptTransactionsAsync(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    return completed(() -> unencryptTransactions(payloads, providedKeys));
+  }
+
+  /**
+   * Asynchronous form of {@link #findRecipientKeys(List)}.
+   *
+   * @return a future holding the first managed key able to decrypt each payload
+   * @see #encryptPayloadAsync(byte[], PublicKey, List, PrivacyMetadata)
+   */
+  default CompletableFuture<List<Optional<PublicKey>>> findRecipientKeysAsync(
+      List<EncodedPayload> payloads) {
+    return completed(() -> findRecipientKeys(payloads));
+  }
+
+  /**
+   * Asynchronous form of {@link #createNewRecipientBoxes(EncodedPayload, List)}.
+   *
+   * @return a future holding the new recipient boxes, in the same order as the keys
+   * @see #encryptPayloadAsync(byte[], PublicKey, List, PrivacyMetadata)
+   */
+  default CompletableFuture<List<byte[]>> createNewRecipientBoxesAsync(
+      EncodedPayload payload, List<PublicKey> recipientKeys) {
+    return completed(() -> createNewRecipientBoxes(payload, recipientKeys));
+  }
+
+  private static <T> CompletableFuture<T> completed(Supplier<T> operation) {
+    try {
+      return CompletableFuture.completedFuture(operation.get());
+    } catch (RuntimeException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+  }
+
   @Override
   default void start() {}
 
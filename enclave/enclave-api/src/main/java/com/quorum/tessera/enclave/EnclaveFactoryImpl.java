@@ -10,8 +10,11 @@ import com.quorum.tessera.config.util.EnvironmentVariableProvider;
 import com.quorum.tessera.config.util.KeyDataUtil;
 import com.quorum.tessera.encryption.*;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +23,16 @@ public class EnclaveFactoryImpl {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EnclaveFactoryImpl.class);
 
+  static final String SHARED_KEY_CACHE_SIZE = "sharedKeyCacheSize";
+
+  static final String SHARED_KEY_CACHE_EXPIRY = "sharedKeyCacheExpiry";
+
+  static final String PARALLEL_THRESHOLD = "enclaveParallelThreshold";
+
+  static final String PARALLEL_POOL_SIZE = "enclaveParallelPoolSize";
+
+  static final String MASTER_KEY_CACHE_SIZE = "masterKeyCacheSize";
+
   private final Config config;
 
   public EnclaveFactoryImpl(Config config) {
@@ -55,7 +68,10 @@ public class EnclaveFactoryImpl {
     EncryptorConfig encryptorConfig = config.getEncryptor();
     EncryptorFactory encryptorFactory =
         EncryptorFactory.newFactory(encryptorConfig.getType().name());
-    Encryptor encryptor = encryptorFactory.create(encryptorConfig.getProperties());
+    Encryptor encryptor =
+        withSharedKeyCache(
+            encryptorFactory.create(encryptorConfig.getProperties()),
+            encryptorConfig.getProperties());
     KeyEncryptor keyEncryptor = KeyEncryptorFactory.newFactory().create(encryptorConfig);
 
     final KeyPairConverter keyPairConverter =
@@ -70,10 +86,53 @@ public class EnclaveFactoryImpl {
 
     LOGGER.debug("Creating enclave");
 
-    Enclave enclave = new EnclaveImpl(encryptor, new KeyManagerImpl(keys, forwardKeys));
+    final KeyManager keyManager = new KeyManagerImpl(keys, forwardKeys);
+
+    Enclave enclave = createEnclaveImpl(encryptor, keyManager, encryptorConfig.getProperties());
 
     LOGGER.debug("Created enclave {}", enclave);
 
     return enclave;
   }
+
+  static EnclaveImpl createEnclaveImpl(
+      Encryptor encryptor, KeyManager keyManager, Map<String, String> properties) {
+    final Map<String, String> props =
+        Optional.ofNullable(properties).orElse(Collections.emptyMap());
+
+    final int masterKeyCacheSize = Integer.parseInt(props.getOrDefault(MASTER_KEY_CACHE_SIZE, "0"));
+    if (masterKeyCacheSize > 0) {
+      LOGGER.info("Caching up to {} affected transaction master keys", masterKeyCacheSize);
+    }
+
+    final int threshold = Integer.parseInt(props.getOrDefault(PARALLEL_THRESHOLD, "0"));
+    if (threshold <= 0) {
+      return new EnclaveImpl(
+          encryptor, keyManager, Runnable::run, Integer.MAX_VALUE, masterKeyCacheSize);
+    }
+    final int poolSize =
+        Integer.parseInt(
+            props.getOrDefault(
+                PARALLEL_POOL_SIZE, String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+    LOGGER.info("Using {} threads for enclave operations on {} or more items", poolSize, threshold);
+
+    return new EnclaveImpl(
+        encryptor, keyManager, new ForkJoinPool(poolSize), threshold, masterKeyCacheSize);
+  }
+
+  static Encryptor withSharedKeyCache(Encryptor encryptor, Map<String, String> properties) {
+    final Map<String, String> props =
+        Optional.ofNullable(properties).orElse(Collections.emptyMap());
+
+    final int cacheSize = Integer.parseInt(props.getOrDefault(SHARED_KEY_CACHE_SIZE, "0"));
+    if (cacheSize <= 0) {
+      return encryptor;
+    }
+    final long cacheExpiry = Long.parseLong(props.getOrDefault(SHARED_KEY_CACHE_EXPIRY, "0"));
+
+    LOGGER.info("Caching up to {} shared keys with an expiry of {} ms", cacheSize, cacheExpiry);
+
+    return new SharedKeyCachingEncryptor(encryptor, cacheSize, cacheExpiry);
+  }
 }
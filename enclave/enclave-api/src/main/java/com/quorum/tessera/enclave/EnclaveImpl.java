@@ -3,7 +3,13 @@ package com.quorum.tessera.enclave;
 import com.quorum.tessera.encryption.*;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.bouncycastle.jcajce.provider.digest.SHA3;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,9 +22,45 @@ public class EnclaveImpl implements Enclave {
 
   private final KeyManager keyManager;
 
+  private final Executor parallelExecutor;
+
+  private final int parallelThreshold;
+
+  private final MasterKeyCache masterKeyCache;
+
   public EnclaveImpl(Encryptor encryptor, KeyManager keyManager) {
+    this(encryptor, keyManager, Runnable::run, Integer.MAX_VALUE);
+  }
+
+  public EnclaveImpl(
+      Encryptor encryptor,
+      KeyManager keyManager,
+      Executor parallelExecutor,
+      int parallelThreshold) {
+    this(encryptor, keyManager, parallelExecutor, parallelThreshold, 0);
+  }
+
+  /**
+   * @param encryptor the encryptor used for all cryptographic operations
+   * @param keyManager the keys this enclave manages
+   * @param parallelExecutor the executor used to seal recipient boxes and process batches in
+   *     parallel, shut down when the enclave is stopped if it is an {@link ExecutorService}
+   * @param parallelThreshold the minimum number of recipients (or batch items) before work is done
+   *     in parallel, smaller lists are processed on the calling thread
+   * @param masterKeyCacheSize the number of affected contract transaction master keys to remember,
+   *     or zero to resolve them every time
+   */
+  public EnclaveImpl(
+      Encryptor encryptor,
+      KeyManager keyManager,
+      Executor parallelExecutor,
+      int parallelThreshold,
+      int masterKeyCacheSize) {
     this.encryptor = Objects.requireNonNull(encryptor);
     this.keyManager = Objects.requireNonNull(keyManager);
+    this.parallelExecutor = Objects.requireNonNull(parallelExecutor);
+    this.parallelThreshold = parallelThreshold;
+    this.masterKeyCache = new MasterKeyCache(masterKeyCacheSize);
   }
 
   @Override
@@ -70,14 +112,16 @@ public class EnclaveImpl implements Enclave {
       // TODO - remove extra logs
       LOGGER.info("Calculating hash for TxKey {}", entry.getKey().encodeToBase64());
       affectedContractTransactionHashes.put(
-          entry.getKey(), computeAffectedContractTransactionHash(cipherText, entry.getValue()));
+          entry.getKey(),
+          computeAffectedContractTransactionHash(cipherText, entry.getKey(), entry.getValue()));
     }
     return affectedContractTransactionHashes;
   }
 
   private byte[] computeAffectedContractTransactionHash(
-      byte[] cipherText, EncodedPayload affectedTransaction) {
-    MasterKey masterKey = getMasterKey(affectedTransaction);
+      byte[] cipherText, TxHash txHash, EncodedPayload affectedTransaction) {
+    MasterKey masterKey =
+        masterKeyCache.getMasterKey(txHash, () -> resolveMasterKey(affectedTransaction));
     return computeCAHash(cipherText, affectedTransaction.getCipherText(), masterKey);
   }
 
@@ -94,21 +138,25 @@ public class EnclaveImpl implements Enclave {
 
   @Override
   public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey publicKey) {
+    return createNewRecipientBoxes(payload, List.of(publicKey)).get(0);
+  }
+
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
 
     if (payload.getRecipientKeys().isEmpty() || payload.getRecipientBoxes().isEmpty()) {
       throw new RuntimeException("No key or recipient-box to use");
     }
 
+    // the master key only needs to be opened once, however many boxes are being added
     final MasterKey master =
         this.getMasterKey(
             payload.getRecipientKeys().get(0), payload.getSenderKey(),
             payload.getRecipientNonce(), payload.getRecipientBoxes().get(0).getData());
 
-    final List<byte[]> sealedMasterKeyList =
-        this.buildRecipientMasterKeys(
-            payload.getSenderKey(), List.of(publicKey), payload.getRecipientNonce(), master);
-
-    return sealedMasterKeyList.get(0);
+    return this.buildRecipientMasterKeys(
+        payload.getSenderKey(), recipientKeys, payload.getRecipientNonce(), master);
   }
 
   @Override
@@ -157,23 +205,25 @@ public class EnclaveImpl implements Enclave {
   @Override
   public Set<TxHash> findInvalidSecurityHashes(
       EncodedPayload encodedPayload, List<AffectedTransaction> affectedContractTransactions) {
+    final Map<TxHash, EncodedPayload> affectedTransactionsByHash =
+        affectedContractTransactions.stream()
+            .collect(
+                Collectors.toMap(
+                    AffectedTransaction::getHash, AffectedTransaction::getPayload, (t1, t2) -> t1));
+
     return encodedPayload.getAffectedContractTransactions().entrySet().stream()
         .filter(
             entry -> {
               LOGGER.debug("Verifying hash for TxKey {}", entry.getKey().encodeToBase64());
               TxHash txHash = entry.getKey();
 
-              final Optional<EncodedPayload> affectedTransaction =
-                  affectedContractTransactions.stream()
-                      .filter(t -> Objects.equals(t.getHash(), txHash))
-                      .findFirst()
-                      .map(AffectedTransaction::getPayload);
-              if (affectedTransaction.isEmpty()) {
+              final EncodedPayload affectedTransaction = affectedTransactionsByHash.get(txHash);
+              if (affectedTransaction == null) {
                 return true;
               }
               byte[] calculatedHash =
                   computeAffectedContractTransactionHash(
-                      encodedPayload.getCipherText(), affectedTransaction.get());
+                      encodedPayload.getCipherText(), txHash, affectedTransaction);
               return !Arrays.equals(entry.getValue().getData(), calculatedHash);
             })
         .map(Map.Entry::getKey)
@@ -187,13 +237,42 @@ public class EnclaveImpl implements Enclave {
       final MasterKey masterKey) {
     final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(senderPublicKey);
 
-    return recipientPublicKeys.stream()
-        .map(publicKey -> encryptor.computeSharedKey(publicKey, privateKey))
-        .map(
-            sharedKey ->
-                encryptor.sealAfterPrecomputation(
-                    masterKey.getKeyBytes(), recipientNonce, sharedKey))
-        .collect(Collectors.toList());
+    final Function<PublicKey, byte[]> sealForRecipient =
+        publicKey -> {
+          final SharedKey sharedKey = encryptor.computeSharedKey(publicKey, privateKey);
+          return encryptor.sealAfterPrecomputation(
+              masterKey.getKeyBytes(), recipientNonce, sharedKey);
+        };
+
+    return applyAll(recipientPublicKeys, sealForRecipient);
+  }
+
+  /**
+   * Applies the function to each item, returning the results in the same order as the items. Once
+   * the number of items reaches the parallel threshold the work is spread over the parallel
+   * executor, otherwise it is done on the calling thread.
+   */
+  private <T, R> List<R> applyAll(final List<T> items, final Function<T, R> function) {
+    if (items.size() < parallelThreshold) {
+      return items.stream().map(function).collect(Collectors.toList());
+    }
+
+    LOGGER.debug("Processing {} items in parallel", items.size());
+
+    final List<CompletableFuture<R>> futures =
+        items.stream()
+            .map(
+                item -> CompletableFuture.supplyAsync(() -> function.apply(item), parallelExecutor))
+            .collect(Collectors.toList());
+
+    try {
+      return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
   }
 
   @Override
@@ -300,6 +379,38 @@ public class EnclaveImpl implements Enclave {
     return encryptor.openAfterPrecomputation(cipherText, cipherTextNonce, masterKey);
   }
 
+  @Override
+  public List<byte[]> unencryptTransactions(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    if (payloads.size() != providedKeys.size()) {
+      throw new IllegalArgumentException("A provided key is required for each payload");
+    }
+
+    final List<Integer> indexes =
+        IntStream.range(0, payloads.size()).boxed().collect(Collectors.toList());
+
+    return applyAll(indexes, i -> unencryptTransaction(payloads.get(i), providedKeys.get(i)));
+  }
+
+  @Override
+  public List<Optional<PublicKey>> findRecipientKeys(final List<EncodedPayload> payloads) {
+    final Set<PublicKey> publicKeys = getPublicKeys();
+    return applyAll(payloads, payload -> findRecipientKey(payload, publicKeys));
+  }
+
+  private Optional<PublicKey> findRecipientKey(
+      final EncodedPayload payload, final Set<PublicKey> publicKeys) {
+    for (final PublicKey potentialMatchingKey : publicKeys) {
+      try {
+        unencryptTransaction(payload, potentialMatchingKey);
+        return Optional.of(potentialMatchingKey);
+      } catch (EnclaveException | IndexOutOfBoundsException | EncryptorException ex) {
+        LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
+      }
+    }
+    return Optional.empty();
+  }
+
   @Override
   public byte[] unencryptRawPayload(RawTransaction payload) {
 
@@ -338,7 +449,7 @@ public class EnclaveImpl implements Enclave {
     return getMasterKey(recipient, sender, nonce, encryptedKey.getData());
   }
 
-  private MasterKey getMasterKey(EncodedPayload encodedPayload) {
+  private MasterKeyCache.ResolvedMasterKey resolveMasterKey(EncodedPayload encodedPayload) {
 
     final PublicKey senderPubKey;
 
@@ -355,11 +466,13 @@ public class EnclaveImpl implements Enclave {
       recipientPubKey = encodedPayload.getSenderKey();
       for (final PublicKey potentialMatchingKey : getPublicKeys()) {
         try {
-          return getMasterKey(
-              recipientPubKey,
-              potentialMatchingKey,
-              encodedPayload.getRecipientNonce(),
-              recipientBox);
+          final MasterKey masterKey =
+              getMasterKey(
+                  recipientPubKey,
+                  potentialMatchingKey,
+                  encodedPayload.getRecipientNonce(),
+                  recipientBox);
+          return new MasterKeyCache.ResolvedMasterKey(potentialMatchingKey, masterKey);
         } catch (EncryptorException ex) {
           LOGGER.debug("Attempted payload decryption using wrong key, discarding.", ex);
         }
@@ -370,8 +483,10 @@ public class EnclaveImpl implements Enclave {
     senderPubKey = encodedPayload.getSenderKey();
     recipientPubKey = encodedPayload.getRecipientKeys().get(0);
 
-    return getMasterKey(
-        recipientPubKey, senderPubKey, encodedPayload.getRecipientNonce(), recipientBox);
+    final MasterKey masterKey =
+        getMasterKey(
+            recipientPubKey, senderPubKey, encodedPayload.getRecipientNonce(), recipientBox);
+    return new MasterKeyCache.ResolvedMasterKey(senderPubKey, masterKey);
   }
 
   @Override
@@ -389,8 +504,23 @@ public class EnclaveImpl implements Enclave {
     return keyManager.getPublicKeys();
   }
 
+  @Override
+  public void stop() {
+    if (parallelExecutor instanceof ExecutorService) {
+      ((ExecutorService) parallelExecutor).shutdown();
+    }
+  }
+
   @Override
   public Status status() {
     return Status.STARTED;
   }
+
+  Executor getParallelExecutor() {
+    return parallelExecutor;
+  }
+
+  int getParallelThreshold() {
+    return parallelThreshold;
+  }
 }
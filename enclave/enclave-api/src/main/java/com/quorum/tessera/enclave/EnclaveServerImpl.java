@@ -4,7 +4,9 @@ import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 class EnclaveServerImpl implements EnclaveServer {
 
@@ -72,6 +74,57 @@ class EnclaveServerImpl implements EnclaveServer {
     return enclave.createNewRecipientBox(payload, recipientKey);
   }
 
+  @Override
+  public List<byte[]> unencryptTransactions(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    return enclave.unencryptTransactions(payloads, providedKeys);
+  }
+
+  @Override
+  public List<Optional<PublicKey>> findRecipientKeys(List<EncodedPayload> payloads) {
+    return enclave.findRecipientKeys(payloads);
+  }
+
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      EncodedPayload payload, List<PublicKey> recipientKeys) {
+    return enclave.createNewRecipientBoxes(payload, recipientKeys);
+  }
+
+  @Override
+  public CompletableFuture<EncodedPayload> encryptPayloadAsync(
+      byte[] message,
+      PublicKey senderPublicKey,
+      List<PublicKey> recipientPublicKeys,
+      PrivacyMetadata privacyMetadata) {
+    return enclave.encryptPayloadAsync(
+        message, senderPublicKey, recipientPublicKeys, privacyMetadata);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> unencryptTransactionAsync(
+      EncodedPayload payload, PublicKey providedKey) {
+    return enclave.unencryptTransactionAsync(payload, providedKey);
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> unencryptTransactionsAsync(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    return enclave.unencryptTransactionsAsync(payloads, providedKeys);
+  }
+
+  @Override
+  public CompletableFuture<List<Optional<PublicKey>>> findRecipientKeysAsync(
+      List<EncodedPayload> payloads) {
+    return enclave.findRecipientKeysAsync(payloads);
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> createNewRecipientBoxesAsync(
+      EncodedPayload payload, List<PublicKey> recipientKeys) {
+    return enclave.createNewRecipientBoxesAsync(payload, recipientKeys);
+  }
+
   @Override
   public void start() {
     enclave.start();
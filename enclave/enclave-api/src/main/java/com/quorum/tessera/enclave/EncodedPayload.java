@@ -4,6 +4,7 @@ import static java.util.Collections.singletonList;
 
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -57,6 +58,11 @@ public class EncodedPayload {
     this.mandatoryRecipients = mandatoryRecipients;
   }
 
+  /** For views over an encoded payload, which provide each field themselves */
+  EncodedPayload() {
+    this(null, null, null, List.of(), null, List.of(), null, Map.of(), null, null, Set.of());
+  }
+
   public PublicKey getSenderKey() {
     return senderKey;
   }
@@ -65,6 +71,16 @@ public class EncodedPayload {
     return cipherText;
   }
 
+  /**
+   * Provides the cipher text without copying it where possible, such as when this payload is a view
+   * over its encoded form.
+   *
+   * @return a buffer holding the cipher text between its position and limit
+   */
+  public ByteBuffer getCipherTextBuffer() {
+    return ByteBuffer.wrap(getCipherText());
+  }
+
   public Nonce getCipherTextNonce() {
     return cipherTextNonce;
   }
@@ -73,6 +89,16 @@ public class EncodedPayload {
     return Collections.unmodifiableList(recipientBoxes);
   }
 
+  /**
+   * The number of recipient boxes, found without copying the boxes where possible, such as when
+   * this payload is a view over its encoded form.
+   *
+   * @return the size of {@link #getRecipientBoxes()}
+   */
+  public int getRecipientBoxCount() {
+    return getRecipientBoxes().size();
+  }
+
   public Nonce getRecipientNonce() {
     return recipientNonce;
   }
@@ -149,13 +175,67 @@ public class EncodedPayload {
 
       final Builder builder = from(payload);
 
+      final int recipientIndex = recipientIndex(payload, recipient);
+      final byte[] recipientBox = payload.getRecipientBoxes().get(recipientIndex).getData();
+
+      builder.withRecipientBoxes(singletonList(recipientBox));
+      builder.withNewRecipientKeys(recipientKeys(payload, recipientIndex));
+
+      return builder;
+    }
+
+    /**
+     * Strips a payload of any data that isn't relevant to the given recipients, all of which are
+     * hosted by the same node, so that it can be sent to that node once. Each recipient's box is
+     * kept at the same position as its key.
+     *
+     * @param payload the full payload from which data needs to be stripped
+     * @param recipients the recipients to retain information about
+     * @return a payload which contains a subset of data from the input, which is relevant to the
+     *     recipients
+     */
+    public static Builder forRecipients(
+        final EncodedPayload payload, final List<PublicKey> recipients) {
+      if (recipients.size() == 1) {
+        return forRecipient(payload, recipients.get(0));
+      }
+
+      final Builder builder = from(payload);
+
+      final List<byte[]> recipientBoxes = new ArrayList<>();
+      for (final PublicKey recipient : recipients) {
+        final int recipientIndex = recipientIndex(payload, recipient);
+        recipientBoxes.add(payload.getRecipientBoxes().get(recipientIndex).getData());
+      }
+      builder.withRecipientBoxes(recipientBoxes);
+
+      // PSV recipients are told of every other party, after the ones whose boxes they are sent
+      final List<PublicKey> recipientKeys = new ArrayList<>(recipients);
+      if (PrivacyMode.PRIVATE_STATE_VALIDATION == payload.getPrivacyMode()) {
+        payload.getRecipientKeys().stream()
+            .filter(key -> !recipients.contains(key))
+            .forEach(recipientKeys::add);
+      }
+      builder.withNewRecipientKeys(recipientKeys);
+
+      return builder;
+    }
+
+    /**
+     * @return the position of the recipient's key and box in the payload
+     * @throws InvalidRecipientException if the key is not a recipient of the payload
+     */
+    static int recipientIndex(final EncodedPayload payload, final PublicKey recipient) {
       if (!payload.getRecipientKeys().contains(recipient)) {
         throw new InvalidRecipientException(
             "Recipient " + recipient.encodeToBase64() + " is not a recipient of transaction ");
       }
+      return payload.getRecipientKeys().indexOf(recipient);
+    }
 
-      final int recipientIndex = payload.getRecipientKeys().indexOf(recipient);
-      final byte[] recipientBox = payload.getRecipientBoxes().get(recipientIndex).getData();
+    /** @return the recipient keys left in a payload once it is stripped for one recipient */
+    static List<PublicKey> recipientKeys(final EncodedPayload payload, final int recipientIndex) {
+      final PublicKey recipient = payload.getRecipientKeys().get(recipientIndex);
 
       List<PublicKey> recipientList;
 
@@ -167,10 +247,7 @@ public class EncodedPayload {
         recipientList = singletonList(recipient);
       }
 
-      builder.withRecipientBoxes(singletonList(recipientBox));
-      builder.withNewRecipientKeys(recipientList);
-
-      return builder;
+      return recipientList;
     }
 
     private PublicKey senderKey;
@@ -321,34 +398,35 @@ public class EncodedPayload {
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
+    // compared using the accessors, so that a payload is equal to a view of the same payload
+    if (!(o instanceof EncodedPayload)) return false;
     EncodedPayload that = (EncodedPayload) o;
-    return Objects.equals(senderKey, that.senderKey)
-        && Arrays.equals(cipherText, that.cipherText)
-        && Objects.equals(cipherTextNonce, that.cipherTextNonce)
-        && Objects.equals(recipientBoxes, that.recipientBoxes)
-        && Objects.equals(recipientNonce, that.recipientNonce)
-        && Objects.equals(recipientKeys, that.recipientKeys)
-        && privacyMode == that.privacyMode
-        && Arrays.equals(execHash, that.execHash)
-        && Objects.equals(privacyGroupId, that.privacyGroupId)
-        && Objects.equals(mandatoryRecipients, that.mandatoryRecipients);
+    return Objects.equals(getSenderKey(), that.getSenderKey())
+        && Arrays.equals(getCipherText(), that.getCipherText())
+        && Objects.equals(getCipherTextNonce(), that.getCipherTextNonce())
+        && Objects.equals(getRecipientBoxes(), that.getRecipientBoxes())
+        && Objects.equals(getRecipientNonce(), that.getRecipientNonce())
+        && Objects.equals(getRecipientKeys(), that.getRecipientKeys())
+        && getPrivacyMode() == that.getPrivacyMode()
+        && Arrays.equals(getExecHash(), that.getExecHash())
+        && Objects.equals(getPrivacyGroupId(), that.getPrivacyGroupId())
+        && Objects.equals(getMandatoryRecipients(), that.getMandatoryRecipients());
   }
 
   @Override
   public int hashCode() {
     int result =
         Objects.hash(
-            senderKey,
-            cipherTextNonce,
-            recipientBoxes,
-            recipientNonce,
-            recipientKeys,
-            privacyMode,
-            privacyGroupId,
-            mandatoryRecipients);
-    result = 31 * result + Arrays.hashCode(cipherText);
-    result = 31 * result + Arrays.hashCode(execHash);
+            getSenderKey(),
+            getCipherTextNonce(),
+            getRecipientBoxes(),
+            getRecipientNonce(),
+            getRecipientKeys(),
+            getPrivacyMode(),
+            getPrivacyGroupId(),
+            getMandatoryRecipients());
+    result = 31 * result + Arrays.hashCode(getCipherText());
+    result = 31 * result + Arrays.hashCode(getExecHash());
     return result;
   }
 }
@@ -0,0 +1,228 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * An {@link EncodedPayload} that is a view over its encoded form. The location of each field is
+ * found when the view is created, but the fields themselves are only copied out of the encoded
+ * bytes the first time they are requested, so callers that need only some of the fields do not pay
+ * for the rest.
+ *
+ * <p>The cipher text is available through {@link #getCipherTextBuffer()} without being copied. The
+ * encoded bytes must not be changed while the view is in use.
+ */
+final class LazyEncodedPayload extends EncodedPayload {
+
+  private final byte[] source;
+
+  private final Layout layout;
+
+  private volatile PublicKey senderKey;
+
+  private volatile byte[] cipherText;
+
+  private volatile Nonce cipherTextNonce;
+
+  private volatile List<RecipientBox> recipientBoxes;
+
+  private volatile Nonce recipientNonce;
+
+  private volatile List<PublicKey> recipientKeys;
+
+  private volatile Map<TxHash, SecurityHash> affectedContractTransactions;
+
+  private volatile byte[] execHash;
+
+  private volatile Set<PublicKey> mandatoryRecipients;
+
+  LazyEncodedPayload(final byte[] source, final Layout layout) {
+    this.source = Objects.requireNonNull(source);
+    this.layout = Objects.requireNonNull(layout);
+
+    // the same checks as when building a payload, which only need the size of each field
+    final boolean hasExecHash = layout.execHash != null && layout.execHash.length > 0;
+    if ((layout.privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) != hasExecHash) {
+      throw new RuntimeException("ExecutionHash data is invalid");
+    }
+
+    if ((layout.privacyMode == PrivacyMode.MANDATORY_RECIPIENTS)
+        == layout.mandatoryRecipients.isEmpty()) {
+      throw new RuntimeException(
+          "Mandatory recipients data only applicable for Mandatory Recipients privacy mode. "
+              + "In case no mandatory recipient is required, consider using Party Protection privacy mode");
+    }
+  }
+
+  @Override
+  public PublicKey getSenderKey() {
+    if (senderKey == null && layout.senderKey != null) {
+      senderKey = PublicKey.from(copy(layout.senderKey));
+    }
+    return senderKey;
+  }
+
+  @Override
+  public byte[] getCipherText() {
+    if (cipherText == null && layout.cipherText != null) {
+      cipherText = copy(layout.cipherText);
+    }
+    return cipherText;
+  }
+
+  @Override
+  public ByteBuffer getCipherTextBuffer() {
+    if (layout.cipherText == null) {
+      return super.getCipherTextBuffer();
+    }
+    return ByteBuffer.wrap(source, layout.cipherText.offset, layout.cipherText.length).slice();
+  }
+
+  @Override
+  public Nonce getCipherTextNonce() {
+    if (cipherTextNonce == null && layout.cipherTextNonce != null) {
+      cipherTextNonce = new Nonce(copy(layout.cipherTextNonce));
+    }
+    return cipherTextNonce;
+  }
+
+  @Override
+  public List<RecipientBox> getRecipientBoxes() {
+    if (recipientBoxes == null) {
+      recipientBoxes =
+          layout.recipientBoxes.stream()
+              .map(this::copy)
+              .map(RecipientBox::from)
+              .collect(Collectors.toUnmodifiableList());
+    }
+    return recipientBoxes;
+  }
+
+  @Override
+  public int getRecipientBoxCount() {
+    return layout.recipientBoxes.size();
+  }
+
+  @Override
+  public Nonce getRecipientNonce() {
+    if (recipientNonce == null && layout.recipientNonce != null) {
+      recipientNonce = new Nonce(copy(layout.recipientNonce));
+    }
+    return recipientNonce;
+  }
+
+  @Override
+  public List<PublicKey> getRecipientKeys() {
+    if (recipientKeys == null) {
+      recipientKeys =
+          layout.recipientKeys.stream()
+              .map(this::copy)
+              .map(PublicKey::from)
+              .collect(Collectors.toUnmodifiableList());
+    }
+    return recipientKeys;
+  }
+
+  @Override
+  public PrivacyMode getPrivacyMode() {
+    return layout.privacyMode;
+  }
+
+  @Override
+  public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
+    if (affectedContractTransactions == null) {
+      final Map<TxHash, SecurityHash> affected = new HashMap<>();
+      for (int i = 0; i < layout.affectedTxHashes.size(); i++) {
+        final Region txHash = layout.affectedTxHashes.get(i);
+        final TxHash key =
+            layout.textTxHashes
+                ? new TxHash(
+                    new String(source, txHash.offset, txHash.length, StandardCharsets.UTF_8))
+                : new TxHash(copy(txHash));
+        affected.put(key, SecurityHash.from(copy(layout.affectedSecurityHashes.get(i))));
+      }
+      affectedContractTransactions = Collections.unmodifiableMap(affected);
+    }
+    return affectedContractTransactions;
+  }
+
+  @Override
+  public byte[] getExecHash() {
+    if (execHash == null) {
+      execHash = layout.execHash == null ? new byte[0] : copy(layout.execHash);
+    }
+    return execHash;
+  }
+
+  @Override
+  public Optional<PrivacyGroup.Id> getPrivacyGroupId() {
+    return Optional.ofNullable(layout.privacyGroupId)
+        .filter(region -> region.length > 0)
+        .map(this::copy)
+        .map(PrivacyGroup.Id::fromBytes);
+  }
+
+  @Override
+  public Set<PublicKey> getMandatoryRecipients() {
+    if (mandatoryRecipients == null) {
+      mandatoryRecipients =
+          layout.mandatoryRecipients.stream()
+              .map(this::copy)
+              .map(PublicKey::from)
+              .collect(Collectors.toUnmodifiableSet());
+    }
+    return mandatoryRecipients;
+  }
+
+  private byte[] copy(final Region region) {
+    return Arrays.copyOfRange(source, region.offset, region.offset + region.length);
+  }
+
+  /** The location of a field within the encoded bytes */
+  static final class Region {
+
+    final int offset;
+
+    final int length;
+
+    Region(final int offset, final int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /** The location of each field of a payload, as found by the codec that encoded it */
+  static final class Layout {
+
+    Region senderKey;
+
+    Region cipherText;
+
+    Region cipherTextNonce;
+
+    Region recipientNonce;
+
+    final List<Region> recipientBoxes = new ArrayList<>();
+
+    final List<Region> recipientKeys = new ArrayList<>();
+
+    PrivacyMode privacyMode = PrivacyMode.STANDARD_PRIVATE;
+
+    final List<Region> affectedTxHashes = new ArrayList<>();
+
+    final List<Region> affectedSecurityHashes = new ArrayList<>();
+
+    /** Whether affected transaction hashes are encoded as base64 text rather than raw bytes */
+    boolean textTxHashes;
+
+    Region execHash;
+
+    final List<Region> mandatoryRecipients = new ArrayList<>();
+
+    Region privacyGroupId;
+  }
+}
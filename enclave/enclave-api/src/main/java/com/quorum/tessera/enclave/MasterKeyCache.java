@@ -0,0 +1,135 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.MasterKey;
+import com.quorum.tessera.encryption.PublicKey;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers which local key and master key were used to open a transaction, so that repeated
+ * security hash calculations for the same affected contract transaction do not need to search
+ * through every local key again.
+ *
+ * <p>Master keys are held in direct (off-heap) buffers, which the garbage collector never copies,
+ * and are overwritten with zeroes when they are evicted. Only a bounded number of entries are kept,
+ * with the least recently used being evicted first. A cache with a size of zero holds nothing and
+ * resolves every request.
+ */
+class MasterKeyCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MasterKeyCache.class);
+
+  private final int maxSize;
+
+  private final Map<TxHash, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  MasterKeyCache(final int maxSize) {
+    this.maxSize = Math.max(0, maxSize);
+  }
+
+  static MasterKeyCache disabled() {
+    return new MasterKeyCache(0);
+  }
+
+  /**
+   * Fetches the master key for the given transaction, resolving and storing it if it is not already
+   * known.
+   *
+   * @param txHash the hash of the transaction the master key opens
+   * @param resolver finds the local key and master key if they are not cached
+   * @return the master key for the transaction
+   */
+  MasterKey getMasterKey(final TxHash txHash, final Supplier<ResolvedMasterKey> resolver) {
+    if (maxSize == 0) {
+      return resolver.get().getMasterKey();
+    }
+
+    synchronized (entries) {
+      final Entry entry = entries.get(txHash);
+      if (entry != null) {
+        LOGGER.debug("Found cached master key for {}", txHash);
+        return MasterKey.from(entry.copyKeyBytes());
+      }
+    }
+
+    final ResolvedMasterKey resolved = resolver.get();
+
+    LOGGER.debug("Resolved master key for {} using local key {}", txHash, resolved.getLocalKey());
+
+    synchronized (entries) {
+      final Entry previous =
+          entries.put(txHash, new Entry(resolved.getLocalKey(), resolved.getMasterKey()));
+      if (previous != null) {
+        previous.clear();
+      }
+      final Iterator<Entry> iterator = entries.values().iterator();
+      while (entries.size() > maxSize && iterator.hasNext()) {
+        final Entry eldest = iterator.next();
+        iterator.remove();
+        eldest.clear();
+      }
+    }
+
+    return resolved.getMasterKey();
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** The local key that was able to open a transaction, and the master key it revealed. */
+  static final class ResolvedMasterKey {
+
+    private final PublicKey localKey;
+
+    private final MasterKey masterKey;
+
+    ResolvedMasterKey(final PublicKey localKey, final MasterKey masterKey) {
+      this.localKey = Objects.requireNonNull(localKey);
+      this.masterKey = Objects.requireNonNull(masterKey);
+    }
+
+    PublicKey getLocalKey() {
+      return localKey;
+    }
+
+    MasterKey getMasterKey() {
+      return masterKey;
+    }
+  }
+
+  private static final class Entry {
+
+    private final PublicKey localKey;
+
+    private final ByteBuffer keyBytes;
+
+    private Entry(final PublicKey localKey, final MasterKey masterKey) {
+      this.localKey = localKey;
+      final byte[] bytes = masterKey.getKeyBytes();
+      this.keyBytes = ByteBuffer.allocateDirect(bytes.length);
+      this.keyBytes.put(bytes).flip();
+    }
+
+    private byte[] copyKeyBytes() {
+      final byte[] copy = new byte[keyBytes.remaining()];
+      keyBytes.duplicate().get(copy);
+      return copy;
+    }
+
+    private void clear() {
+      LOGGER.debug("Evicting cached master key held for local key {}", localKey);
+      while (keyBytes.hasRemaining()) {
+        keyBytes.put((byte) 0);
+      }
+    }
+  }
+}
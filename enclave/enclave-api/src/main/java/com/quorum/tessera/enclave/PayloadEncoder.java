@@ -1,5 +1,11 @@
 package com.quorum.tessera.enclave;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 
 /** Encodes and decodes a {@link EncodedPayload} to and from its binary representation */
@@ -13,6 +19,56 @@ public interface PayloadEncoder {
    */
   byte[] encode(EncodedPayload payload);
 
+  /**
+   * Writes the encoded payload to a stream, without first building the whole of it in memory. The
+   * stream is flushed but not closed.
+   *
+   * @param payload the payload to encode
+   * @param output the stream to write the encoded payload to
+   * @throws IOException if the payload could not be written to the stream
+   */
+  default void encodeTo(EncodedPayload payload, OutputStream output) throws IOException {
+    output.write(encode(payload));
+    output.flush();
+  }
+
+  /**
+   * Writes the encoded payload to a channel, without first building the whole of it in memory. The
+   * channel is not closed.
+   *
+   * @param payload the payload to encode
+   * @param channel the channel to write the encoded payload to
+   * @throws IOException if the payload could not be written to the channel
+   */
+  default void encodeTo(EncodedPayload payload, WritableByteChannel channel) throws IOException {
+    encodeTo(payload, new BufferedOutputStream(Channels.newOutputStream(channel)));
+  }
+
+  /**
+   * Finds the number of bytes the payload takes up once encoded, for example to give the length of
+   * a request before it is written
+   *
+   * @param payload the payload to measure
+   * @return the length of the encoded payload
+   */
+  default long sizeOf(EncodedPayload payload) {
+    return encode(payload).length;
+  }
+
+  /**
+   * Encodes the parts of a payload that are the same for each of its recipients, so that the
+   * payload can then be encoded for each recipient without encoding those parts again
+   *
+   * @param payload the full payload, before it is stripped for any recipient
+   * @return a template that gives the same encoding as stripping then encoding the payload
+   */
+  default PayloadTemplate template(EncodedPayload payload) {
+    return recipient ->
+        List.of(
+            ByteBuffer.wrap(
+                encode(EncodedPayload.Builder.forRecipient(payload, recipient).build())));
+  }
+
   /**
    * Decodes a byte array back into an encrypted payload
    *
@@ -21,6 +77,18 @@ public interface PayloadEncoder {
    */
   EncodedPayload decode(byte[] input);
 
+  /**
+   * Decodes a byte array into a payload that only copies each field out of the input when it is
+   * first requested, for callers that will often need only some of the fields. The input must not
+   * be changed while the payload is in use.
+   *
+   * @param input The byte array to decode into an EncodedPayload
+   * @return the decoded payload
+   */
+  default EncodedPayload decodeLazily(byte[] input) {
+    return decode(input);
+  }
+
   EncodedPayloadCodec encodedPayloadCodec();
 
   static PayloadEncoder create(EncodedPayloadCodec encodedPayloadCodec) {
@@ -4,95 +4,223 @@ import static java.util.Collections.*;
 import static java.util.stream.Collectors.toList;
 
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
 
+  static final String DUPLICATE_AFFECTED_TRANSACTION =
+      "Affected contract transaction hash appears more than once";
+
   @Override
   public byte[] encode(final EncodedPayload payload) {
+    final int size = Math.toIntExact(sizeOf(payload));
+    final ByteArrayOutputStream output =
+        new ByteArrayOutputStream(size) {
+          // the buffer is already the exact size, so it does not need copying
+          @Override
+          public synchronized byte[] toByteArray() {
+            return count == buf.length ? buf : super.toByteArray();
+          }
+        };
+    try {
+      encodeTo(payload, output);
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encodeTo(final EncodedPayload payload, final OutputStream output) throws IOException {
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+
+    writeHead(out, payload);
+    writeArray(
+        out,
+        payload.getRecipientBoxes().stream()
+            .map(RecipientBox::getData)
+            .collect(Collectors.toUnmodifiableList()));
+    writeField(out, payload.getRecipientNonce().getNonceBytes());
+    writeArray(
+        out, payload.getRecipientKeys().stream().map(PublicKey::getKeyBytes).collect(toList()));
+    writeTail(out, payload);
+
+    out.flush();
+  }
 
-    final byte[] senderKey = encodeField(payload.getSenderKey().getKeyBytes());
-    final byte[] cipherText = encodeField(payload.getCipherText());
-    final byte[] nonce = encodeField(payload.getCipherTextNonce().getNonceBytes());
-    final byte[] recipientNonce = encodeField(payload.getRecipientNonce().getNonceBytes());
-    final byte[] recipients =
-        encodeArray(
-            payload.getRecipientBoxes().stream()
-                .map(RecipientBox::getData)
-                .collect(Collectors.toUnmodifiableList()));
-    final byte[] recipientBytes =
-        encodeArray(
-            payload.getRecipientKeys().stream().map(PublicKey::getKeyBytes).collect(toList()));
-    final PrivacyMode privacyMode =
-        Optional.ofNullable(payload.getPrivacyMode()).orElse(PrivacyMode.STANDARD_PRIVATE);
-    final byte[] privacyModeByte = encodeField(new byte[] {(byte) privacyMode.getPrivacyFlag()});
-
-    final int affectedContractsPayloadLength =
-        payload.getAffectedContractTransactions().entrySet().stream()
-                .mapToInt(
-                    entry -> entry.getKey().getBytes().length + entry.getValue().getData().length)
-                .sum() // total size of all keys and values
-            + Long.BYTES
-            + // the number of entries in the map
-            payload.getAffectedContractTransactions().size()
-                * 2
-                * Long.BYTES; // sizes of key and value lengths (for each entry)
-    final ByteBuffer affectedContractTxs = ByteBuffer.allocate(affectedContractsPayloadLength);
-    affectedContractTxs.putLong(payload.getAffectedContractTransactions().size());
+  @Override
+  public PayloadTemplate template(final EncodedPayload payload) {
+    // built the same way as the payload stripped for each recipient, so that the affected
+    // transactions are written in the same order
+    final EncodedPayload shared = EncodedPayload.Builder.from(payload).build();
+
+    final ByteBuffer head = section(out -> writeHead(out, shared));
+    final ByteBuffer recipientNonce =
+        section(out -> writeField(out, shared.getRecipientNonce().getNonceBytes()));
+    final ByteBuffer tail = section(out -> writeTail(out, shared));
+
+    return recipient -> {
+      final int recipientIndex = EncodedPayload.Builder.recipientIndex(payload, recipient);
+      final byte[] recipientBox = payload.getRecipientBoxes().get(recipientIndex).getData();
+      final List<byte[]> recipientKeys =
+          EncodedPayload.Builder.recipientKeys(payload, recipientIndex).stream()
+              .map(PublicKey::getKeyBytes)
+              .collect(toList());
+
+      return List.of(
+          head.duplicate(),
+          ByteBuffer.wrap(encodeArray(List.of(recipientBox))),
+          recipientNonce.duplicate(),
+          ByteBuffer.wrap(encodeArray(recipientKeys)),
+          tail.duplicate());
+    };
+  }
+
+  /** Writes the fields that come before the recipient boxes */
+  private static void writeHead(final DataOutputStream out, final EncodedPayload payload)
+      throws IOException {
+    writeField(out, payload.getSenderKey().getKeyBytes());
+    writeField(out, payload.getCipherTextBuffer());
+    writeField(out, payload.getCipherTextNonce().getNonceBytes());
+  }
+
+  /** Writes the fields that come after the recipient keys */
+  private static void writeTail(final DataOutputStream out, final EncodedPayload payload)
+      throws IOException {
+    writeField(out, new byte[] {(byte) privacyMode(payload).getPrivacyFlag()});
+
+    out.writeLong(payload.getAffectedContractTransactions().size());
     for (Map.Entry<TxHash, SecurityHash> entry :
         payload.getAffectedContractTransactions().entrySet()) {
-      affectedContractTxs.putLong(entry.getKey().getBytes().length);
-      affectedContractTxs.put(entry.getKey().getBytes());
-      affectedContractTxs.putLong(entry.getValue().getData().length);
-      affectedContractTxs.put(entry.getValue().getData());
+      writeField(out, entry.getKey().getBytes());
+      writeField(out, entry.getValue().getData());
     }
-    byte[] executionHash = new byte[0];
+
+    if (Objects.nonNull(payload.getExecHash()) && payload.getExecHash().length > 0) {
+      writeField(out, payload.getExecHash());
+    }
+
+    if (payload.getPrivacyMode() == PrivacyMode.MANDATORY_RECIPIENTS) {
+      writeArray(
+          out,
+          payload.getMandatoryRecipients().stream()
+              .map(PublicKey::getKeyBytes)
+              .collect(Collectors.toUnmodifiableList()));
+    }
+
+    final Optional<byte[]> privacyGroupId =
+        payload.getPrivacyGroupId().map(PrivacyGroup.Id::getBytes);
+    if (privacyGroupId.isPresent()) {
+      writeField(out, privacyGroupId.get());
+    }
+  }
+
+  private static ByteBuffer section(final Section section) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(output)) {
+      section.writeTo(out);
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return ByteBuffer.wrap(output.toByteArray());
+  }
+
+  /** Part of an encoded payload */
+  @FunctionalInterface
+  private interface Section {
+    void writeTo(DataOutputStream out) throws IOException;
+  }
+
+  @Override
+  public long sizeOf(final EncodedPayload payload) {
+    long size = fieldSize(payload.getSenderKey().getKeyBytes().length);
+    size += fieldSize(payload.getCipherTextBuffer().remaining());
+    size += fieldSize(payload.getCipherTextNonce().getNonceBytes().length);
+    size +=
+        arraySize(
+            payload.getRecipientBoxes().stream().mapToInt(box -> box.getData().length).sum(),
+            payload.getRecipientBoxes().size());
+    size += fieldSize(payload.getRecipientNonce().getNonceBytes().length);
+    size +=
+        arraySize(
+            payload.getRecipientKeys().stream().mapToInt(key -> key.getKeyBytes().length).sum(),
+            payload.getRecipientKeys().size());
+    size += fieldSize(1);
+
+    size += Long.BYTES;
+    for (Map.Entry<TxHash, SecurityHash> entry :
+        payload.getAffectedContractTransactions().entrySet()) {
+      size += fieldSize(entry.getKey().getBytes().length);
+      size += fieldSize(entry.getValue().getData().length);
+    }
+
     if (Objects.nonNull(payload.getExecHash()) && payload.getExecHash().length > 0) {
-      executionHash = encodeField(payload.getExecHash());
+      size += fieldSize(payload.getExecHash().length);
     }
 
-    byte[] mandatoryRecipients = new byte[0];
     if (payload.getPrivacyMode() == PrivacyMode.MANDATORY_RECIPIENTS) {
-      mandatoryRecipients =
-          encodeArray(
+      size +=
+          arraySize(
               payload.getMandatoryRecipients().stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toUnmodifiableList()));
+                  .mapToInt(key -> key.getKeyBytes().length)
+                  .sum(),
+              payload.getMandatoryRecipients().size());
     }
 
-    byte[] privacyGroupId =
+    size +=
         payload
             .getPrivacyGroupId()
             .map(PrivacyGroup.Id::getBytes)
-            .map(this::encodeField)
-            .orElse(new byte[0]);
-
-    return ByteBuffer.allocate(
-            senderKey.length
-                + cipherText.length
-                + nonce.length
-                + recipients.length
-                + recipientNonce.length
-                + recipientBytes.length
-                + privacyModeByte.length
-                + affectedContractsPayloadLength
-                + executionHash.length
-                + mandatoryRecipients.length
-                + privacyGroupId.length)
-        .put(senderKey)
-        .put(cipherText)
-        .put(nonce)
-        .put(recipients)
-        .put(recipientNonce)
-        .put(recipientBytes)
-        .put(privacyModeByte)
-        .put(affectedContractTxs.array())
-        .put(executionHash)
-        .put(mandatoryRecipients)
-        .put(privacyGroupId)
-        .array();
+            .map(id -> fieldSize(id.length))
+            .orElse(0L);
+
+    return size;
+  }
+
+  private static PrivacyMode privacyMode(final EncodedPayload payload) {
+    return Optional.ofNullable(payload.getPrivacyMode()).orElse(PrivacyMode.STANDARD_PRIVATE);
+  }
+
+  private static void writeField(final DataOutputStream out, final byte[] data) throws IOException {
+    out.writeLong(data.length);
+    out.write(data);
+  }
+
+  private static void writeField(final DataOutputStream out, final ByteBuffer data)
+      throws IOException {
+    out.writeLong(data.remaining());
+    if (data.hasArray()) {
+      out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    } else {
+      final byte[] copy = new byte[data.remaining()];
+      data.duplicate().get(copy);
+      out.write(copy);
+    }
+  }
+
+  private static void writeArray(final DataOutputStream out, final List<byte[]> data)
+      throws IOException {
+    out.writeLong(data.size());
+    for (final byte[] element : data) {
+      writeField(out, element);
+    }
+  }
+
+  private static long fieldSize(final int length) {
+    return Long.BYTES + length;
+  }
+
+  private static long arraySize(final long totalLength, final int count) {
+    return Long.BYTES + count * (long) Long.BYTES + totalLength;
   }
 
   @Override
@@ -180,7 +308,9 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
       final byte[] txSecHash = new byte[Math.toIntExact(txSecHashSize)];
       buffer.get(txSecHash);
 
-      affectedContractTransactions.put(new TxHash(txHash), txSecHash);
+      if (affectedContractTransactions.put(new TxHash(txHash), txSecHash) != null) {
+        throw new IllegalArgumentException(DUPLICATE_AFFECTED_TRANSACTION);
+      }
     }
 
     final PrivacyMode privacyMode = PrivacyMode.fromFlag(privacyFlag[0]);
@@ -230,6 +360,78 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
     return payloadBuilder.build();
   }
 
+  @Override
+  public EncodedPayload decodeLazily(final byte[] input) {
+    final ByteBuffer buffer = ByteBuffer.wrap(input);
+    final LazyEncodedPayload.Layout layout = new LazyEncodedPayload.Layout();
+
+    layout.senderKey = skipField(buffer);
+    layout.cipherText = skipField(buffer);
+    layout.cipherTextNonce = skipField(buffer);
+    layout.recipientBoxes.addAll(skipArray(buffer));
+    layout.recipientNonce = skipField(buffer);
+
+    // as with decode, older payloads may end after any of the following sections
+    if (buffer.hasRemaining()) {
+      layout.recipientKeys.addAll(skipArray(buffer));
+    }
+
+    if (buffer.hasRemaining()) {
+      // read as decode reads it, so that an empty flag is rejected rather than the next byte used
+      final LazyEncodedPayload.Region privacyFlagRegion = skipField(buffer);
+      final byte[] privacyFlag =
+          Arrays.copyOfRange(
+              input, privacyFlagRegion.offset, privacyFlagRegion.offset + privacyFlagRegion.length);
+      layout.privacyMode = PrivacyMode.fromFlag(privacyFlag[0]);
+
+      final Set<ByteBuffer> txHashes = new HashSet<>();
+      final long affectedContractTransactionsLength = buffer.getLong();
+      for (long i = 0; i < affectedContractTransactionsLength; i++) {
+        final LazyEncodedPayload.Region txHash = skipField(buffer);
+        if (!txHashes.add(ByteBuffer.wrap(input, txHash.offset, txHash.length))) {
+          throw new IllegalArgumentException(DUPLICATE_AFFECTED_TRANSACTION);
+        }
+        layout.affectedTxHashes.add(txHash);
+        layout.affectedSecurityHashes.add(skipField(buffer));
+      }
+
+      if (buffer.hasRemaining() && layout.privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) {
+        layout.execHash = skipField(buffer);
+      }
+
+      if (buffer.hasRemaining() && layout.privacyMode == PrivacyMode.MANDATORY_RECIPIENTS) {
+        layout.mandatoryRecipients.addAll(skipArray(buffer));
+      }
+
+      if (buffer.hasRemaining()) {
+        layout.privacyGroupId = skipField(buffer);
+      }
+    }
+
+    return new LazyEncodedPayload(input, layout);
+  }
+
+  private static LazyEncodedPayload.Region skipField(final ByteBuffer buffer) {
+    final int length = Math.toIntExact(buffer.getLong());
+    final LazyEncodedPayload.Region region =
+        new LazyEncodedPayload.Region(buffer.position(), length);
+    // moving past the end of the input fails in the same way as reading it would
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    buffer.position(buffer.position() + length);
+    return region;
+  }
+
+  private static List<LazyEncodedPayload.Region> skipArray(final ByteBuffer buffer) {
+    final long size = buffer.getLong();
+    final List<LazyEncodedPayload.Region> regions = new ArrayList<>();
+    for (long i = 0; i < size; i++) {
+      regions.add(skipField(buffer));
+    }
+    return regions;
+  }
+
   @Override
   public EncodedPayloadCodec encodedPayloadCodec() {
     return EncodedPayloadCodec.LEGACY;
@@ -0,0 +1,41 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A payload encoded once for all of its recipients, from which the encoding sent to each recipient
+ * is put together without encoding the parts they share again
+ *
+ * @see PayloadEncoder#template(EncodedPayload)
+ */
+@FunctionalInterface
+public interface PayloadTemplate {
+
+  /**
+   * Gives the encoding of the payload stripped for one recipient, as by {@link
+   * EncodedPayload.Builder#forRecipient(EncodedPayload, PublicKey)}. The parts shared by all
+   * recipients are not copied, so the buffers should be written out in order, for example with a
+   * single gathering write, rather than joined together.
+   *
+   * @param recipient the recipient to encode the payload for
+   * @return the buffers that together make up the encoded payload
+   * @throws InvalidRecipientException if the key is not a recipient of the payload
+   */
+  List<ByteBuffer> forRecipient(PublicKey recipient);
+
+  /**
+   * Encodes the payload stripped for one recipient to a byte array
+   *
+   * @param recipient the recipient to encode the payload for
+   * @return the byte array representing the encoded payload
+   */
+  default byte[] encode(PublicKey recipient) {
+    final List<ByteBuffer> buffers = forRecipient(recipient);
+    final ByteBuffer encoded =
+        ByteBuffer.allocate(buffers.stream().mapToInt(ByteBuffer::remaining).sum());
+    buffers.forEach(buffer -> encoded.put(buffer.duplicate()));
+    return encoded.array();
+  }
+}
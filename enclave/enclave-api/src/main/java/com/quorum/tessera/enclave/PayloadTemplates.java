@@ -0,0 +1,33 @@
+package com.quorum.tessera.enclave;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The templates for one payload that is being sent to several recipients, made the first time each
+ * codec is needed and then shared by every recipient that uses it
+ */
+public final class PayloadTemplates {
+
+  private final EncodedPayload payload;
+
+  private final Map<EncodedPayloadCodec, PayloadTemplate> templates = new ConcurrentHashMap<>();
+
+  public PayloadTemplates(final EncodedPayload payload) {
+    this.payload = Objects.requireNonNull(payload);
+  }
+
+  /** @return the full payload, before it is stripped for any recipient */
+  public EncodedPayload getPayload() {
+    return payload;
+  }
+
+  /**
+   * @param codec the codec the payload is to be encoded with
+   * @return the template of the payload encoded with the given codec
+   */
+  public PayloadTemplate forCodec(final EncodedPayloadCodec codec) {
+    return templates.computeIfAbsent(codec, c -> PayloadEncoder.create(c).template(payload));
+  }
+}
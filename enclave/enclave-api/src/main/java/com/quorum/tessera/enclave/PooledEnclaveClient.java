@@ -0,0 +1,343 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.threading.TesseraScheduledExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EnclaveClient} that spreads calls across several remote enclaves holding the same keys,
+ * so that enclave capacity can be added without the rest of the node being aware of it.
+ *
+ * <p>Each call is sent to one available member, chosen either in turn or as the member with the
+ * fewest calls in progress. If a member cannot be reached its status is checked, and a stopped
+ * member is removed from the pool and the call retried on another. Errors from a member that is
+ * still running are passed to the caller, as every other member would fail in the same way.
+ * Asynchronous calls are retried in the same way once the failed call completes.
+ *
+ * <p>Once started, every member is asked for its status at a fixed interval, so that stopped
+ * members are removed and members that have started again are re-admitted.
+ */
+public class PooledEnclaveClient implements EnclaveClient {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledEnclaveClient.class);
+
+  /** How a member is chosen for each call. */
+  public enum Routing {
+    ROUND_ROBIN,
+    LEAST_OUTSTANDING
+  }
+
+  private final List<Member> members;
+
+  private final Routing routing;
+
+  private final AtomicInteger counter = new AtomicInteger();
+
+  private final TesseraScheduledExecutor healthCheck;
+
+  /**
+   * @param clients a client for each enclave in the pool
+   * @param routing how to choose a member for each call
+   * @param healthCheckInterval how often to check the status of each member in milliseconds
+   */
+  public PooledEnclaveClient(
+      List<? extends EnclaveClient> clients, Routing routing, long healthCheckInterval) {
+    this(clients, routing, Executors.newSingleThreadScheduledExecutor(), healthCheckInterval);
+  }
+
+  PooledEnclaveClient(
+      List<? extends EnclaveClient> clients,
+      Routing routing,
+      ScheduledExecutorService executor,
+      long healthCheckInterval) {
+    if (clients.isEmpty()) {
+      throw new IllegalArgumentException("At least one enclave client is required");
+    }
+    this.members =
+        IntStream.range(0, clients.size())
+            .mapToObj(i -> new Member(i + 1, clients.get(i)))
+            .collect(Collectors.toUnmodifiableList());
+    this.routing = Objects.requireNonNull(routing);
+    this.healthCheck =
+        new TesseraScheduledExecutor(
+            executor, this::checkMembers, healthCheckInterval, healthCheckInterval);
+  }
+
+  @Override
+  public void start() {
+    members.forEach(member -> member.client.start());
+    healthCheck.start();
+  }
+
+  @Override
+  public void stop() {
+    healthCheck.stop();
+    members.forEach(member -> member.client.stop());
+  }
+
+  /** @return started if any member is available, as of the last check */
+  @Override
+  public Status status() {
+    return members.stream().anyMatch(member -> member.available) ? Status.STARTED : Status.STOPPED;
+  }
+
+  /** Asks each member for its status, removing or re-admitting it to match. */
+  void checkMembers() {
+    for (final Member member : members) {
+      final boolean available = isStarted(member);
+      if (available && !member.available) {
+        LOGGER.info("Enclave {} is available again, adding it back to the pool", member.id);
+      } else if (!available && member.available) {
+        LOGGER.warn("Enclave {} is not available, removing it from the pool", member.id);
+      }
+      member.available = available;
+    }
+  }
+
+  @Override
+  public PublicKey defaultPublicKey() {
+    return call(EnclaveClient::defaultPublicKey);
+  }
+
+  @Override
+  public Set<PublicKey> getForwardingKeys() {
+    return call(EnclaveClient::getForwardingKeys);
+  }
+
+  @Override
+  public Set<PublicKey> getPublicKeys() {
+    return call(EnclaveClient::getPublicKeys);
+  }
+
+  @Override
+  public EncodedPayload encryptPayload(
+      final byte[] message,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetadata) {
+    return call(
+        client ->
+            client.encryptPayload(message, senderPublicKey, recipientPublicKeys, privacyMetadata));
+  }
+
+  @Override
+  public EncodedPayload encryptPayload(
+      final RawTransaction rawTransaction,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetadata) {
+    return call(
+        client -> client.encryptPayload(rawTransaction, recipientPublicKeys, privacyMetadata));
+  }
+
+  @Override
+  public Set<TxHash> findInvalidSecurityHashes(
+      final EncodedPayload encodedPayload,
+      final List<AffectedTransaction> affectedContractTransactions) {
+    return call(
+        client -> client.findInvalidSecurityHashes(encodedPayload, affectedContractTransactions));
+  }
+
+  @Override
+  public RawTransaction encryptRawPayload(final byte[] message, final PublicKey sender) {
+    return call(client -> client.encryptRawPayload(message, sender));
+  }
+
+  @Override
+  public byte[] unencryptTransaction(final EncodedPayload payload, final PublicKey providedKey) {
+    return call(client -> client.unencryptTransaction(payload, providedKey));
+  }
+
+  @Override
+  public byte[] unencryptRawPayload(final RawTransaction payload) {
+    return call(client -> client.unencryptRawPayload(payload));
+  }
+
+  @Override
+  public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey recipientKey) {
+    return call(client -> client.createNewRecipientBox(payload, recipientKey));
+  }
+
+  @Override
+  public List<byte[]> unencryptTransactions(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    return call(client -> client.unencryptTransactions(payloads, providedKeys));
+  }
+
+  @Override
+  public List<Optional<PublicKey>> findRecipientKeys(final List<EncodedPayload> payloads) {
+    return call(client -> client.findRecipientKeys(payloads));
+  }
+
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+    return call(client -> client.createNewRecipientBoxes(payload, recipientKeys));
+  }
+
+  @Override
+  public CompletableFuture<EncodedPayload> encryptPayloadAsync(
+      final byte[] message,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetadata) {
+    return callAsync(
+        client ->
+            client.encryptPayloadAsync(
+                message, senderPublicKey, recipientPublicKeys, privacyMetadata));
+  }
+
+  @Override
+  public CompletableFuture<byte[]> unencryptTransactionAsync(
+      final EncodedPayload payload, final PublicKey providedKey) {
+    return callAsync(client -> client.unencryptTransactionAsync(payload, providedKey));
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> unencryptTransactionsAsync(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    return callAsync(client -> client.unencryptTransactionsAsync(payloads, providedKeys));
+  }
+
+  @Override
+  public CompletableFuture<List<Optional<PublicKey>>> findRecipientKeysAsync(
+      final List<EncodedPayload> payloads) {
+    return callAsync(client -> client.findRecipientKeysAsync(payloads));
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> createNewRecipientBoxesAsync(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+    return callAsync(client -> client.createNewRecipientBoxesAsync(payload, recipientKeys));
+  }
+
+  private <T> T call(final Function<EnclaveClient, T> operation) {
+    final List<Member> tried = new ArrayList<>(members.size());
+
+    EnclaveNotAvailableException failure = null;
+    for (Member member = select(tried); member != null; member = select(tried)) {
+      tried.add(member);
+      member.outstanding.incrementAndGet();
+      try {
+        return operation.apply(member.client);
+      } catch (final EnclaveNotAvailableException ex) {
+        if (isStarted(member)) {
+          throw ex;
+        }
+        LOGGER.warn("Enclave {} is not available, removing it from the pool", member.id);
+        member.available = false;
+        failure = ex;
+      } finally {
+        member.outstanding.decrementAndGet();
+      }
+    }
+
+    throw failure != null ? failure : new EnclaveNotAvailableException();
+  }
+
+  private <T> CompletableFuture<T> callAsync(
+      final Function<EnclaveClient, CompletableFuture<T>> operation) {
+    return callAsync(operation, new ArrayList<>(members.size()), null);
+  }
+
+  private <T> CompletableFuture<T> callAsync(
+      final Function<EnclaveClient, CompletableFuture<T>> operation,
+      final List<Member> tried,
+      final EnclaveNotAvailableException failure) {
+    final Member member = select(tried);
+    if (member == null) {
+      return CompletableFuture.failedFuture(
+          failure != null ? failure : new EnclaveNotAvailableException());
+    }
+    tried.add(member);
+    member.outstanding.incrementAndGet();
+
+    CompletableFuture<T> result;
+    try {
+      result = operation.apply(member.client);
+    } catch (final RuntimeException ex) {
+      result = CompletableFuture.failedFuture(ex);
+    }
+
+    return result
+        .handle(
+            (value, ex) -> {
+              member.outstanding.decrementAndGet();
+              if (ex == null) {
+                return CompletableFuture.completedFuture(value);
+              }
+              final Throwable cause =
+                  ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+              if (!(cause instanceof EnclaveNotAvailableException) || isStarted(member)) {
+                return CompletableFuture.<T>failedFuture(cause);
+              }
+              LOGGER.warn("Enclave {} is not available, removing it from the pool", member.id);
+              member.available = false;
+              return callAsync(operation, tried, (EnclaveNotAvailableException) cause);
+            })
+        .thenCompose(Function.identity());
+  }
+
+  private Member select(final List<Member> excluded) {
+    final List<Member> candidates =
+        members.stream()
+            .filter(member -> member.available && !excluded.contains(member))
+            .collect(Collectors.toList());
+    if (candidates.isEmpty()) {
+      return null;
+    }
+
+    // starting from the next member in turn spreads calls across members that are equally busy
+    final int start = Math.floorMod(counter.getAndIncrement(), candidates.size());
+    if (routing == Routing.ROUND_ROBIN) {
+      return candidates.get(start);
+    }
+
+    Member selected = candidates.get(start);
+    for (int i = 1; i < candidates.size(); i++) {
+      final Member candidate = candidates.get((start + i) % candidates.size());
+      if (candidate.outstanding.get() < selected.outstanding.get()) {
+        selected = candidate;
+      }
+    }
+    return selected;
+  }
+
+  private static boolean isStarted(final Member member) {
+    try {
+      return member.client.status() == Status.STARTED;
+    } catch (final RuntimeException ex) {
+      LOGGER.debug("Unable to check status of enclave {}", member.id, ex);
+      return false;
+    }
+  }
+
+  private static final class Member {
+
+    private final int id;
+
+    private final EnclaveClient client;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean available = true;
+
+    private Member(final int id, final EnclaveClient client) {
+      this.id = id;
+      this.client = Objects.requireNonNull(client);
+    }
+  }
+}
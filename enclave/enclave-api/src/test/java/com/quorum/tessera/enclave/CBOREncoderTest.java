@@ -6,10 +6,12 @@ import static org.mockito.Mockito.mock;
 
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -182,6 +184,40 @@ public class CBOREncoderTest {
     assertThat(result.getPrivacyGroupId()).isPresent().get().isEqualTo(groupId);
   }
 
+  @Test
+  public void encodeToWritesSameBytesAsEncodeAndLeavesStreamOpen() throws Exception {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+            .build();
+
+    final byte[] encoded = encoder.encode(payload);
+
+    final AtomicBoolean closed = new AtomicBoolean();
+    final ByteArrayOutputStream output =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+    encoder.encodeTo(payload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(encoded);
+    assertThat(closed).isFalse();
+    assertThat(encoder.sizeOf(payload)).isEqualTo(encoded.length);
+  }
+
+  @Test
+  public void sizeOfError() {
+    EncodedPayload payload = mock(EncodedPayload.class);
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.sizeOf(payload))
+        .withMessageContaining("Unable to encode payload");
+  }
+
   @Test
   public void encodeError() {
     EncodedPayload payload = mock(EncodedPayload.class);
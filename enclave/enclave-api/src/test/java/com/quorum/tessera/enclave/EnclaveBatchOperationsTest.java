@@ -0,0 +1,182 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.EncryptorException;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EnclaveBatchOperationsTest {
+
+  private static final PublicKey KEY = PublicKey.from("key".getBytes());
+
+  private static final PublicKey OTHER_KEY = PublicKey.from("other-key".getBytes());
+
+  private Enclave enclave;
+
+  @Before
+  public void onSetUp() {
+    this.enclave = mock(Enclave.class);
+
+    doCallRealMethod().when(enclave).unencryptTransactions(anyList(), anyList());
+    doCallRealMethod().when(enclave).findRecipientKeys(anyList());
+    doCallRealMethod().when(enclave).createNewRecipientBoxes(any(), anyList());
+  }
+
+  @After
+  public void onTearDown() {
+    verifyNoMoreInteractions(enclave);
+  }
+
+  @Test
+  public void unencryptTransactionsDecryptsEachPayloadInOrder() {
+    final EncodedPayload first = mock(EncodedPayload.class);
+    final EncodedPayload second = mock(EncodedPayload.class);
+    when(enclave.unencryptTransaction(first, KEY)).thenReturn("first".getBytes());
+    when(enclave.unencryptTransaction(second, OTHER_KEY)).thenReturn("second".getBytes());
+
+    final List<byte[]> results =
+        enclave.unencryptTransactions(List.of(first, second), List.of(KEY, OTHER_KEY));
+
+    assertThat(results).containsExactly("first".getBytes(), "second".getBytes());
+
+    verify(enclave).unencryptTransactions(List.of(first, second), List.of(KEY, OTHER_KEY));
+    verify(enclave).unencryptTransaction(first, KEY);
+    verify(enclave).unencryptTransaction(second, OTHER_KEY);
+  }
+
+  @Test
+  public void unencryptTransactionsRequiresAKeyForEachPayload() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    final Throwable throwable =
+        catchThrowable(() -> enclave.unencryptTransactions(List.of(payload), List.of()));
+
+    assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+
+    verify(enclave).unencryptTransactions(List.of(payload), List.of());
+  }
+
+  @Test
+  public void findRecipientKeysSkipsKeysThatCannotDecrypt() {
+    final List<Class<? extends Exception>> handledExceptionTypes =
+        List.of(
+            EnclaveException.class,
+            IndexOutOfBoundsException.class,
+            EncryptorException.class);
+
+    for (final Class<? extends Exception> exceptionType : handledExceptionTypes) {
+      final EncodedPayload payload = mock(EncodedPayload.class);
+
+      when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(KEY, OTHER_KEY)));
+      when(enclave.unencryptTransaction(payload, KEY)).thenThrow(exceptionType);
+      when(enclave.unencryptTransaction(payload, OTHER_KEY)).thenReturn(new byte[0]);
+
+      final List<Optional<PublicKey>> results = enclave.findRecipientKeys(List.of(payload));
+
+      assertThat(results).containsExactly(Optional.of(OTHER_KEY));
+
+      verify(enclave).findRecipientKeys(List.of(payload));
+      verify(enclave).getPublicKeys();
+      verify(enclave).unencryptTransaction(payload, KEY);
+      verify(enclave).unencryptTransaction(payload, OTHER_KEY);
+      verifyNoMoreInteractions(enclave);
+      clearInvocations(enclave);
+    }
+  }
+
+  @Test
+  public void findRecipientKeysFailsWhenEnclaveIsNotAvailable() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(KEY, OTHER_KEY)));
+    when(enclave.unencryptTransaction(payload, KEY))
+        .thenThrow(new EnclaveNotAvailableException());
+
+    final Throwable throwable = catchThrowable(() -> enclave.findRecipientKeys(List.of(payload)));
+
+    assertThat(throwable).isExactlyInstanceOf(EnclaveNotAvailableException.class);
+
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(payload, KEY);
+  }
+
+  @Test
+  public void findRecipientKeysIsEmptyWhenNoKeyMatches() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(KEY)));
+    when(enclave.unencryptTransaction(payload, KEY)).thenThrow(EncryptorException.class);
+
+    final List<Optional<PublicKey>> results = enclave.findRecipientKeys(List.of(payload));
+
+    assertThat(results).containsExactly(Optional.empty());
+
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(payload, KEY);
+  }
+
+  @Test
+  public void createNewRecipientBoxesCreatesABoxForEachKey() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(enclave.createNewRecipientBox(payload, KEY)).thenReturn("box".getBytes());
+    when(enclave.createNewRecipientBox(payload, OTHER_KEY)).thenReturn("other-box".getBytes());
+
+    final List<byte[]> results = enclave.createNewRecipientBoxes(payload, List.of(KEY, OTHER_KEY));
+
+    assertThat(results).containsExactly("box".getBytes(), "other-box".getBytes());
+
+    verify(enclave).createNewRecipientBoxes(payload, List.of(KEY, OTHER_KEY));
+    verify(enclave).createNewRecipientBox(payload, KEY);
+    verify(enclave).createNewRecipientBox(payload, OTHER_KEY);
+  }
+
+  @Test
+  public void asyncOperationsCompleteWithResultOfSyncOperation() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final PrivacyMetadata privacyMetadata = mock(PrivacyMetadata.class);
+    final byte[] message = "message".getBytes();
+    doCallRealMethod()
+        .when(enclave)
+        .encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata);
+    doCallRealMethod().when(enclave).unencryptTransactionAsync(payload, KEY);
+    when(enclave.encryptPayload(message, KEY, List.of(KEY), privacyMetadata)).thenReturn(payload);
+    when(enclave.unencryptTransaction(payload, KEY)).thenReturn("result".getBytes());
+
+    assertThat(enclave.encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata))
+        .isCompletedWithValue(payload);
+    assertThat(enclave.unencryptTransactionAsync(payload, KEY).join())
+        .isEqualTo("result".getBytes());
+
+    verify(enclave).encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata);
+    verify(enclave).encryptPayload(message, KEY, List.of(KEY), privacyMetadata);
+    verify(enclave).unencryptTransactionAsync(payload, KEY);
+    verify(enclave).unencryptTransaction(payload, KEY);
+  }
+
+  @Test
+  public void asyncOperationFailureIsHeldInFuture() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    doCallRealMethod().when(enclave).unencryptTransactionsAsync(anyList(), anyList());
+
+    final CompletableFuture<List<byte[]>> result =
+        enclave.unencryptTransactionsAsync(List.of(payload), List.of());
+
+    assertThat(result).isCompletedExceptionally();
+    assertThat(catchThrowable(result::join))
+        .hasCauseExactlyInstanceOf(IllegalArgumentException.class);
+
+    verify(enclave).unencryptTransactionsAsync(List.of(payload), List.of());
+    verify(enclave).unencryptTransactions(List.of(payload), List.of());
+  }
+}
@@ -6,7 +6,13 @@ import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.config.*;
+import com.quorum.tessera.encryption.Encryptor;
+import com.quorum.tessera.encryption.KeyManager;
+import com.quorum.tessera.encryption.SharedKeyCachingEncryptor;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import org.junit.Test;
 
@@ -159,4 +165,53 @@ public class EnclaveFactoryTest {
       assertThat(ex).hasMessage("OUCH");
     }
   }
+
+  @Test
+  public void sharedKeyCacheIsDisabledByDefault() {
+    Encryptor encryptor = mock(Encryptor.class);
+
+    assertThat(EnclaveFactoryImpl.withSharedKeyCache(encryptor, null)).isSameAs(encryptor);
+    assertThat(EnclaveFactoryImpl.withSharedKeyCache(encryptor, Map.of())).isSameAs(encryptor);
+  }
+
+  @Test
+  public void sharedKeyCacheIsAppliedWhenSizeConfigured() {
+    Encryptor encryptor = mock(Encryptor.class);
+
+    Encryptor result =
+        EnclaveFactoryImpl.withSharedKeyCache(
+            encryptor, Map.of("sharedKeyCacheSize", "100", "sharedKeyCacheExpiry", "60000"));
+
+    assertThat(result).isInstanceOf(SharedKeyCachingEncryptor.class);
+  }
+
+  @Test
+  public void enclaveIsSequentialByDefault() {
+    EnclaveImpl enclave =
+        EnclaveFactoryImpl.createEnclaveImpl(
+            mock(Encryptor.class), mock(KeyManager.class), Map.of());
+
+    assertThat(enclave.getParallelThreshold()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(enclave.getParallelExecutor()).isNotInstanceOf(ExecutorService.class);
+
+    enclave.stop();
+  }
+
+  @Test
+  public void enclaveIsParallelWhenThresholdConfigured() {
+    EnclaveImpl enclave =
+        EnclaveFactoryImpl.createEnclaveImpl(
+            mock(Encryptor.class),
+            mock(KeyManager.class),
+            Map.of("enclaveParallelThreshold", "10", "enclaveParallelPoolSize", "2"));
+
+    assertThat(enclave.getParallelThreshold()).isEqualTo(10);
+    assertThat(enclave.getParallelExecutor()).isInstanceOf(ForkJoinPool.class);
+    final ForkJoinPool pool = (ForkJoinPool) enclave.getParallelExecutor();
+    assertThat(pool.getParallelism()).isEqualTo(2);
+
+    enclave.stop();
+
+    assertThat(pool.isShutdown()).isTrue();
+  }
 }
@@ -8,6 +8,8 @@ import com.quorum.tessera.encryption.*;
 import com.quorum.tessera.service.Service;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.bouncycastle.jcajce.provider.digest.SHA3;
 import org.junit.After;
 import org.junit.Before;
@@ -606,6 +608,96 @@ public class EnclaveTest {
     verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
   }
 
+  @Test
+  public void encryptPayloadSealsRecipientBoxesInParallelInRecipientOrder() {
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    final Enclave parallelEnclave = new EnclaveImpl(nacl, keyManager, executorService, 2);
+
+    byte[] message = "MESSAGE".getBytes();
+
+    PublicKey senderPublicKey = mock(PublicKey.class);
+    List<PublicKey> recipients =
+        List.of(mock(PublicKey.class), mock(PublicKey.class), mock(PublicKey.class));
+
+    byte[] masterKeyBytes = "masterKeyBytes".getBytes();
+    MasterKey masterKey = MasterKey.from(masterKeyBytes);
+    Nonce cipherNonce = mock(Nonce.class);
+    Nonce recipientNonce = mock(Nonce.class);
+
+    when(nacl.createMasterKey()).thenReturn(masterKey);
+    when(nacl.randomNonce()).thenReturn(cipherNonce, recipientNonce);
+    when(nacl.sealAfterPrecomputation(message, cipherNonce, masterKey))
+        .thenReturn("cipherText".getBytes());
+
+    PrivateKey senderPrivateKey = mock(PrivateKey.class);
+    when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+
+    final List<RecipientBox> expectedBoxes = new ArrayList<>();
+    for (int i = 0; i < recipients.size(); i++) {
+      SharedKey sharedKey = mock(SharedKey.class);
+      byte[] box = ("box" + i).getBytes();
+      when(nacl.computeSharedKey(recipients.get(i), senderPrivateKey)).thenReturn(sharedKey);
+      when(nacl.sealAfterPrecomputation(masterKeyBytes, recipientNonce, sharedKey)).thenReturn(box);
+      expectedBoxes.add(RecipientBox.from(box));
+    }
+
+    final PrivacyMetadata metaData =
+        PrivacyMetadata.Builder.create().withPrivacyMode(PrivacyMode.STANDARD_PRIVATE).build();
+
+    EncodedPayload result =
+        parallelEnclave.encryptPayload(message, senderPublicKey, recipients, metaData);
+
+    executorService.shutdown();
+
+    assertThat(result.getRecipientKeys()).containsExactlyElementsOf(recipients);
+    assertThat(result.getRecipientBoxes()).containsExactlyElementsOf(expectedBoxes);
+
+    verify(nacl).createMasterKey();
+    verify(nacl, times(2)).randomNonce();
+    verify(nacl).sealAfterPrecomputation(message, cipherNonce, masterKey);
+    verify(nacl, times(3))
+        .sealAfterPrecomputation(eq(masterKeyBytes), eq(recipientNonce), any(SharedKey.class));
+    recipients.forEach(r -> verify(nacl).computeSharedKey(r, senderPrivateKey));
+    verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
+  }
+
+  @Test
+  public void parallelSealingFailureIsPropagated() {
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    final Enclave parallelEnclave = new EnclaveImpl(nacl, keyManager, executorService, 1);
+
+    PublicKey senderPublicKey = mock(PublicKey.class);
+    PublicKey recipientPublicKey = mock(PublicKey.class);
+    PrivateKey senderPrivateKey = mock(PrivateKey.class);
+    when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+
+    EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(senderPublicKey)
+            .withRecipientKey(recipientPublicKey)
+            .withRecipientBox("box".getBytes())
+            .withRecipientNonce(mock(Nonce.class))
+            .build();
+
+    SharedKey sharedKey = mock(SharedKey.class);
+    when(nacl.computeSharedKey(recipientPublicKey, senderPrivateKey))
+        .thenReturn(sharedKey)
+        .thenThrow(new EncryptorException("OUCH"));
+    when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), eq(sharedKey)))
+        .thenReturn("masterKey".getBytes());
+
+    final Throwable throwable =
+        catchThrowable(() -> parallelEnclave.createNewRecipientBox(payload, recipientPublicKey));
+
+    executorService.shutdown();
+
+    assertThat(throwable).isInstanceOf(EncryptorException.class).hasMessage("OUCH");
+
+    verify(nacl, times(2)).computeSharedKey(recipientPublicKey, senderPrivateKey);
+    verify(nacl).openAfterPrecomputation(any(byte[].class), any(Nonce.class), eq(sharedKey));
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderPublicKey);
+  }
+
   @Test
   public void encryptPayloadWithAffectedTransactions() {
 
@@ -1115,6 +1207,162 @@ public class EnclaveTest {
     verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderKey);
   }
 
+  @Test
+  public void createNewRecipientBoxesOpensMasterKeyOnce() {
+
+    final PublicKey publicKey = PublicKey.from("recipient".getBytes());
+    final PublicKey otherKey = PublicKey.from("other".getBytes());
+    final PublicKey senderKey = PublicKey.from("sender".getBytes());
+    final PrivateKey privateKey = PrivateKey.from("sender-priv".getBytes());
+    final SharedKey recipientSenderShared = SharedKey.from("shared-one".getBytes());
+    final SharedKey otherShared = SharedKey.from("shared-two".getBytes());
+    final RecipientBox closedbox = RecipientBox.from("closed".getBytes());
+    final byte[] openbox = "open".getBytes();
+    final Nonce nonce = new Nonce("nonce".getBytes());
+
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(senderKey);
+    when(payload.getRecipientBoxes()).thenReturn(singletonList(closedbox));
+    when(payload.getRecipientNonce()).thenReturn(nonce);
+    when(payload.getRecipientKeys()).thenReturn(singletonList(publicKey));
+
+    when(nacl.computeSharedKey(publicKey, privateKey)).thenReturn(recipientSenderShared);
+    when(nacl.computeSharedKey(otherKey, privateKey)).thenReturn(otherShared);
+    when(nacl.openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared))
+        .thenReturn(openbox);
+    when(nacl.sealAfterPrecomputation(openbox, nonce, recipientSenderShared))
+        .thenReturn("newbox".getBytes());
+    when(nacl.sealAfterPrecomputation(openbox, nonce, otherShared))
+        .thenReturn("otherbox".getBytes());
+    when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(privateKey);
+
+    final List<byte[]> newRecipientBoxes =
+        enclave.createNewRecipientBoxes(payload, List.of(publicKey, otherKey));
+
+    assertThat(newRecipientBoxes).containsExactly("newbox".getBytes(), "otherbox".getBytes());
+
+    verify(nacl, times(2)).computeSharedKey(publicKey, privateKey);
+    verify(nacl).computeSharedKey(otherKey, privateKey);
+    verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared);
+    verify(nacl).sealAfterPrecomputation(openbox, nonce, recipientSenderShared);
+    verify(nacl).sealAfterPrecomputation(openbox, nonce, otherShared);
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderKey);
+  }
+
+  @Test
+  public void unencryptTransactionsDecryptsEachPayloadWithItsKey() {
+    final PublicKey senderKey = PublicKey.from("senderKey".getBytes());
+    final PublicKey recipientKey = PublicKey.from("recipientKey".getBytes());
+    final Nonce cipherTextNonce = mock(Nonce.class);
+    final Nonce recipientNonce = mock(Nonce.class);
+
+    final EncodedPayload first =
+        singleBoxPayload(senderKey, "first", cipherTextNonce, recipientNonce);
+    final EncodedPayload second =
+        singleBoxPayload(senderKey, "second", cipherTextNonce, recipientNonce);
+
+    final PrivateKey recipientPrivateKey = PrivateKey.from("private-key".getBytes());
+    when(keyManager.getPrivateKeyForPublicKey(recipientKey)).thenReturn(recipientPrivateKey);
+
+    final SharedKey sharedKey = SharedKey.from("shared-key".getBytes());
+    when(nacl.computeSharedKey(senderKey, recipientPrivateKey)).thenReturn(sharedKey);
+    when(nacl.openAfterPrecomputation(any(byte[].class), eq(recipientNonce), eq(sharedKey)))
+        .thenReturn("masterKeyBytes".getBytes());
+    when(nacl.openAfterPrecomputation(
+            eq("first".getBytes()), eq(cipherTextNonce), any(MasterKey.class)))
+        .thenReturn("FIRST".getBytes());
+    when(nacl.openAfterPrecomputation(
+            eq("second".getBytes()), eq(cipherTextNonce), any(MasterKey.class)))
+        .thenReturn("SECOND".getBytes());
+
+    final List<byte[]> results =
+        enclave.unencryptTransactions(List.of(first, second), List.of(recipientKey, recipientKey));
+
+    assertThat(results).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(recipientKey);
+    verify(nacl, times(2)).computeSharedKey(senderKey, recipientPrivateKey);
+    verify(nacl, times(2))
+        .openAfterPrecomputation(any(byte[].class), eq(recipientNonce), eq(sharedKey));
+    verify(nacl, times(2))
+        .openAfterPrecomputation(any(byte[].class), eq(cipherTextNonce), any(MasterKey.class));
+  }
+
+  @Test
+  public void unencryptTransactionsRequiresAKeyForEachPayload() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    final Throwable throwable =
+        catchThrowable(() -> enclave.unencryptTransactions(List.of(payload), List.of()));
+
+    assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void findRecipientKeysTriesEachKeyForEachPayload() {
+    final PublicKey senderKey = PublicKey.from("senderKey".getBytes());
+    final PublicKey wrongKey = PublicKey.from("wrongKey".getBytes());
+    final PublicKey recipientKey = PublicKey.from("recipientKey".getBytes());
+    final Nonce cipherTextNonce = mock(Nonce.class);
+    final Nonce recipientNonce = mock(Nonce.class);
+
+    final EncodedPayload forUs =
+        singleBoxPayload(senderKey, "ours", cipherTextNonce, recipientNonce);
+    final EncodedPayload notForUs =
+        singleBoxPayload(senderKey, "theirs", cipherTextNonce, recipientNonce);
+
+    // defined iteration order, so the wrong key is always tried first
+    final Set<PublicKey> publicKeys = new LinkedHashSet<>(List.of(wrongKey, recipientKey));
+    when(keyManager.getPublicKeys()).thenReturn(publicKeys);
+
+    final PrivateKey wrongPrivateKey = PrivateKey.from("wrong-private".getBytes());
+    final PrivateKey recipientPrivateKey = PrivateKey.from("recipient-private".getBytes());
+    when(keyManager.getPrivateKeyForPublicKey(wrongKey)).thenReturn(wrongPrivateKey);
+    when(keyManager.getPrivateKeyForPublicKey(recipientKey)).thenReturn(recipientPrivateKey);
+
+    final SharedKey wrongSharedKey = SharedKey.from("wrong-shared".getBytes());
+    final SharedKey sharedKey = SharedKey.from("shared".getBytes());
+    when(nacl.computeSharedKey(senderKey, wrongPrivateKey)).thenReturn(wrongSharedKey);
+    when(nacl.computeSharedKey(senderKey, recipientPrivateKey)).thenReturn(sharedKey);
+
+    when(nacl.openAfterPrecomputation(any(byte[].class), eq(recipientNonce), eq(wrongSharedKey)))
+        .thenThrow(EncryptorException.class);
+    when(nacl.openAfterPrecomputation("ours-box".getBytes(), recipientNonce, sharedKey))
+        .thenReturn("masterKeyBytes".getBytes());
+    when(nacl.openAfterPrecomputation("theirs-box".getBytes(), recipientNonce, sharedKey))
+        .thenThrow(EncryptorException.class);
+    when(nacl.openAfterPrecomputation(any(byte[].class), eq(cipherTextNonce), any(MasterKey.class)))
+        .thenReturn("SUCCESS".getBytes());
+
+    final List<Optional<PublicKey>> results = enclave.findRecipientKeys(List.of(forUs, notForUs));
+
+    assertThat(results).containsExactly(Optional.of(recipientKey), Optional.empty());
+
+    verify(keyManager).getPublicKeys();
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(wrongKey);
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(recipientKey);
+    verify(nacl, times(2)).computeSharedKey(senderKey, wrongPrivateKey);
+    verify(nacl, times(2)).computeSharedKey(senderKey, recipientPrivateKey);
+    verify(nacl, times(2))
+        .openAfterPrecomputation(any(byte[].class), eq(recipientNonce), eq(wrongSharedKey));
+    verify(nacl).openAfterPrecomputation("ours-box".getBytes(), recipientNonce, sharedKey);
+    verify(nacl).openAfterPrecomputation("theirs-box".getBytes(), recipientNonce, sharedKey);
+    verify(nacl)
+        .openAfterPrecomputation(any(byte[].class), eq(cipherTextNonce), any(MasterKey.class));
+  }
+
+  private static EncodedPayload singleBoxPayload(
+      PublicKey senderKey, String name, Nonce cipherTextNonce, Nonce recipientNonce) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(senderKey)
+        .withCipherText(name.getBytes())
+        .withCipherTextNonce(cipherTextNonce)
+        .withRecipientBox((name + "-box").getBytes())
+        .withRecipientNonce(recipientNonce)
+        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+        .build();
+  }
+
   @Test
   public void findInvalidSecurityHashesTransactionSentToCurrentNode() {
 
@@ -1399,6 +1647,64 @@ public class EnclaveTest {
     verify(keyManager).getPrivateKeyForPublicKey(senderKey);
   }
 
+  @Test
+  public void findInvalidSecurityHashesResolvesMasterKeyOnceWhenCached() {
+    final Enclave cachingEnclave =
+        new EnclaveImpl(nacl, keyManager, Runnable::run, Integer.MAX_VALUE, 10);
+
+    final PublicKey recipientKey = PublicKey.from("recipient".getBytes());
+    final PublicKey senderKey = PublicKey.from("sender".getBytes());
+    final PrivateKey privateKey = PrivateKey.from("sender-priv".getBytes());
+
+    final SharedKey sharedKey = SharedKey.from("shared".getBytes());
+    final RecipientBox closedbox = RecipientBox.from("closed".getBytes());
+    final byte[] openbox = "open".getBytes();
+    final Nonce nonce = new Nonce("nonce".getBytes());
+    final byte[] cipherText = "cipherText".getBytes();
+
+    when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(privateKey);
+    when(nacl.computeSharedKey(recipientKey, privateKey)).thenReturn(sharedKey);
+    when(nacl.openAfterPrecomputation(closedbox.getData(), nonce, sharedKey)).thenReturn(openbox);
+    when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(senderKey));
+
+    ByteBuffer byteBuffer = ByteBuffer.allocate(2 * cipherText.length + openbox.length);
+    byteBuffer.put(cipherText);
+    byteBuffer.put(cipherText);
+    byteBuffer.put(openbox);
+    final byte[] securityHash = new SHA3.Digest512().digest(byteBuffer.array());
+
+    final TxHash txHash = new TxHash("affected".getBytes());
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getCipherText()).thenReturn(cipherText);
+    when(payload.getAffectedContractTransactions())
+        .thenReturn(Map.of(txHash, SecurityHash.from(securityHash)));
+
+    final EncodedPayload affectedTxPayload = mock(EncodedPayload.class);
+    when(affectedTxPayload.getSenderKey()).thenReturn(senderKey);
+    when(affectedTxPayload.getCipherText()).thenReturn(cipherText);
+    when(affectedTxPayload.getRecipientBoxes()).thenReturn(singletonList(closedbox));
+    when(affectedTxPayload.getRecipientNonce()).thenReturn(nonce);
+    when(affectedTxPayload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
+
+    AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
+    when(affectedTransaction.getHash()).thenReturn(txHash);
+    when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
+
+    Set<TxHash> first =
+        cachingEnclave.findInvalidSecurityHashes(payload, List.of(affectedTransaction));
+    Set<TxHash> second =
+        cachingEnclave.findInvalidSecurityHashes(payload, List.of(affectedTransaction));
+
+    assertThat(first).isEmpty();
+    assertThat(second).isEmpty();
+
+    verify(nacl).computeSharedKey(recipientKey, privateKey);
+    verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, sharedKey);
+    verify(keyManager).getPublicKeys();
+    verify(keyManager).getPrivateKeyForPublicKey(senderKey);
+  }
+
   @Test
   public void notAbleToDecryptMasterKey() {
     final PublicKey recipientKey = PublicKey.from("recipient".getBytes());
@@ -8,6 +8,7 @@ import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import java.util.*;
 import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
 import org.junit.Test;
 
 public class EncodedPayloadBuilderTest {
@@ -103,7 +104,7 @@ public class EncodedPayloadBuilderTest {
 
     EqualsVerifier.forClass(EncodedPayload.class)
         .withIgnoredFields("affectedContractTransactions")
-        .usingGetClass()
+        .suppress(Warning.NULL_FIELDS, Warning.STRICT_INHERITANCE)
         .verify();
   }
 
@@ -147,7 +148,7 @@ public class EncodedPayloadBuilderTest {
 
     EqualsVerifier.forClass(EncodedPayload.class)
         .withIgnoredFields("affectedContractTransactions")
-        .usingGetClass()
+        .suppress(Warning.NULL_FIELDS, Warning.STRICT_INHERITANCE)
         .verify();
 
     assertThat(result.getPrivacyGroupId()).isPresent();
@@ -347,6 +348,63 @@ public class EncodedPayloadBuilderTest {
     assertThat(payload1.getPrivacyGroupId()).isPresent().get().isEqualTo(groupId);
   }
 
+  @Test
+  public void forRecipientsKeepsEachBoxWithItsKey() {
+    final PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+    final PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+    final PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+    final EncodedPayload.Builder original =
+        EncodedPayload.Builder.create()
+            .withSenderKey(senderKey)
+            .withCipherText(cipherText)
+            .withCipherTextNonce(cipherTextNonce)
+            .withRecipientBoxes(
+                List.of("box1".getBytes(), "box2".getBytes(), "box3".getBytes()))
+            .withRecipientNonce(recipientNonce)
+            .withRecipientKeys(List.of(recipient1, recipient2, recipient3));
+
+    final EncodedPayload standard =
+        EncodedPayload.Builder.forRecipients(original.build(), List.of(recipient3, recipient1))
+            .build();
+
+    assertThat(standard.getCipherText()).isEqualTo(cipherText);
+    assertThat(standard.getRecipientKeys()).containsExactly(recipient3, recipient1);
+    assertThat(standard.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box3".getBytes()), RecipientBox.from("box1".getBytes()));
+
+    final EncodedPayload psv =
+        EncodedPayload.Builder.forRecipients(
+                original
+                    .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+                    .withExecHash("execHash".getBytes())
+                    .build(),
+                List.of(recipient3, recipient1))
+            .build();
+
+    assertThat(psv.getRecipientKeys()).containsExactly(recipient3, recipient1, recipient2);
+    assertThat(psv.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box3".getBytes()), RecipientBox.from("box1".getBytes()));
+  }
+
+  @Test
+  public void forRecipientsWithOneRecipientIsForRecipient() {
+    final EncodedPayload original =
+        EncodedPayload.Builder.create()
+            .withSenderKey(senderKey)
+            .withCipherText(cipherText)
+            .withCipherTextNonce(cipherTextNonce)
+            .withRecipientBox(recipientBox)
+            .withRecipientNonce(recipientNonce)
+            .withRecipientKey(recipientKey)
+            .build();
+
+    assertThat(EncodedPayload.Builder.forRecipients(original, List.of(recipientKey)).build())
+        .isEqualTo(EncodedPayload.Builder.forRecipient(original, recipientKey).build());
+  }
+
   @Test(expected = InvalidRecipientException.class)
   public void encodeForSpecificRecipientNotContainedInPayload() {
 
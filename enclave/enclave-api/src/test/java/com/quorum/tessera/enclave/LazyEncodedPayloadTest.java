@@ -0,0 +1,229 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class LazyEncodedPayloadTest {
+
+  private final PayloadEncoder encoder;
+
+  public LazyEncodedPayloadTest(PayloadEncoder encoder) {
+    this.encoder = encoder;
+  }
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<PayloadEncoder> encoders() {
+    return List.of(new PayloadEncoderImpl(), new CBOREncoder());
+  }
+
+  private static EncodedPayload.Builder standardPayload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("sender".getBytes()))
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+        .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+        .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+        .withRecipientKeys(
+            List.of(
+                PublicKey.from("recipient1".getBytes()), PublicKey.from("recipient2".getBytes())));
+  }
+
+  private static List<EncodedPayload> payloads() {
+    final Map<TxHash, byte[]> affected =
+        Map.of(
+            TxHash.from("txHash1".getBytes()), "securityHash1".getBytes(),
+            TxHash.from("txHash2".getBytes()), "securityHash2".getBytes());
+
+    return List.of(
+        standardPayload().build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+            .withAffectedContractTransactions(affected)
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withAffectedContractTransactions(affected)
+            .withExecHash("execHash".getBytes())
+            .build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient1".getBytes())))
+            .build());
+  }
+
+  @Test
+  public void viewHasSameFieldsAsDecodedPayload() {
+    for (final EncodedPayload payload : payloads()) {
+      final byte[] encoded = encoder.encode(payload);
+
+      final EncodedPayload view = encoder.decodeLazily(encoded);
+      final EncodedPayload decoded = encoder.decode(encoded);
+
+      assertThat(view).isExactlyInstanceOf(LazyEncodedPayload.class);
+      assertThat(view).isEqualTo(decoded).isEqualTo(payload).hasSameHashCodeAs(decoded);
+      assertThat(decoded).isEqualTo(view);
+      assertThat(view.getAffectedContractTransactions())
+          .isEqualTo(decoded.getAffectedContractTransactions());
+      assertThat(view.getPrivacyGroupId()).isEqualTo(decoded.getPrivacyGroupId());
+      assertThat(view.getMandatoryRecipients()).isEqualTo(decoded.getMandatoryRecipients());
+      // affected transactions are written in map order, so compare what is read back
+      final EncodedPayload reencoded = encoder.decode(encoder.encode(view));
+      assertThat(reencoded).isEqualTo(decoded);
+      assertThat(reencoded.getAffectedContractTransactions())
+          .isEqualTo(decoded.getAffectedContractTransactions());
+    }
+  }
+
+  @Test
+  public void fieldsAreOnlyCopiedOnce() {
+    final EncodedPayload view = encoder.decodeLazily(encoder.encode(standardPayload().build()));
+
+    assertThat(view.getSenderKey()).isSameAs(view.getSenderKey());
+    assertThat(view.getCipherText()).isSameAs(view.getCipherText());
+    assertThat(view.getRecipientKeys()).isSameAs(view.getRecipientKeys());
+    assertThat(view.getRecipientBoxes()).isSameAs(view.getRecipientBoxes());
+  }
+
+  @Test
+  public void recipientBoxesAreCounted() {
+    for (final EncodedPayload payload : payloads()) {
+      final EncodedPayload view = encoder.decodeLazily(encoder.encode(payload));
+
+      assertThat(view.getRecipientBoxCount()).isEqualTo(2);
+      assertThat(payload.getRecipientBoxCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void cipherTextBufferIsNotCopied() {
+    final byte[] encoded = encoder.encode(standardPayload().build());
+
+    final ByteBuffer cipherText = encoder.decodeLazily(encoded).getCipherTextBuffer();
+
+    assertThat(cipherText.array()).isSameAs(encoded);
+    final byte[] contents = new byte[cipherText.remaining()];
+    cipherText.duplicate().get(contents);
+    assertThat(contents).isEqualTo("cipherText".getBytes());
+  }
+
+  @Test
+  public void invalidPayloadIsRejectedAsWhenDecoding() {
+    final byte[] encoded = encoder.encode(standardPayload().build());
+    final byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+    final Throwable fromView = catchThrowable(() -> encoder.decodeLazily(truncated));
+    final Throwable fromDecode = catchThrowable(() -> encoder.decode(truncated));
+
+    assertThat(fromView).isNotNull().isExactlyInstanceOf(fromDecode.getClass());
+  }
+
+  @Test
+  public void duplicateAffectedTransactionIsRejectedAsWhenDecoding() {
+    final Map<TxHash, byte[]> affected =
+        Map.of(
+            TxHash.from("txHash1".getBytes()), "securityHash1".getBytes(),
+            TxHash.from("txHash2".getBytes()), "securityHash2".getBytes());
+    final byte[] encoded =
+        encoder.encode(standardPayload().withAffectedContractTransactions(affected).build());
+    final byte[] duplicated = replace(encoded, encodedTxHash("txHash2"), encodedTxHash("txHash1"));
+
+    final Throwable fromView = catchThrowable(() -> encoder.decodeLazily(duplicated));
+    final Throwable fromDecode = catchThrowable(() -> encoder.decode(duplicated));
+
+    assertThat(fromDecode).hasStackTraceContaining("appears more than once");
+    assertThat(fromView).isExactlyInstanceOf(fromDecode.getClass());
+  }
+
+  @Test
+  public void emptyPrivacyFlagIsRejectedAsWhenDecoding() throws Exception {
+    if (encoder instanceof CBOREncoder) {
+      return;
+    }
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(output)) {
+      writeField(out, "sender".getBytes());
+      writeField(out, "cipherText".getBytes());
+      writeField(out, "cipherTextNonce".getBytes());
+      out.writeLong(1);
+      writeField(out, "box1".getBytes());
+      writeField(out, "recipientNonce".getBytes());
+      out.writeLong(1);
+      writeField(out, "recipient1".getBytes());
+      // an empty privacy flag, followed by no affected transactions
+      writeField(out, new byte[0]);
+      out.writeLong(0);
+    }
+    final byte[] encoded = output.toByteArray();
+
+    final Throwable fromView = catchThrowable(() -> encoder.decodeLazily(encoded));
+    final Throwable fromDecode = catchThrowable(() -> encoder.decode(encoded));
+
+    assertThat(fromDecode).isNotNull();
+    assertThat(fromView).isExactlyInstanceOf(fromDecode.getClass());
+  }
+
+  @Test
+  public void cborOutsideOfSupportedSubsetIsDecodedInFull() throws Exception {
+    if (!(encoder instanceof CBOREncoder)) {
+      return;
+    }
+
+    // an indefinite length map, which the encoder itself never writes
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (CBORGenerator generator = new CBORFactory().createGenerator(output)) {
+      generator.writeStartObject();
+      generator.writeBinaryField("sender", "sender".getBytes());
+      generator.writeBinaryField("cipherText", "cipherText".getBytes());
+      generator.writeEndObject();
+    }
+
+    final EncodedPayload payload = encoder.decodeLazily(output.toByteArray());
+
+    assertThat(payload).isNotInstanceOf(LazyEncodedPayload.class);
+    assertThat(payload.getSenderKey()).isEqualTo(PublicKey.from("sender".getBytes()));
+    assertThat(payload.getCipherText()).isEqualTo("cipherText".getBytes());
+  }
+
+  private static void writeField(final DataOutputStream out, final byte[] data)
+      throws IOException {
+    out.writeLong(data.length);
+    out.write(data);
+  }
+
+  /** The bytes of a transaction hash as they appear in a payload encoded by the encoder */
+  private byte[] encodedTxHash(final String hash) {
+    final TxHash txHash = TxHash.from(hash.getBytes());
+    return encoder instanceof CBOREncoder ? txHash.encodeToBase64().getBytes() : txHash.getBytes();
+  }
+
+  private static byte[] replace(final byte[] data, final byte[] target, final byte[] replacement) {
+    final byte[] result = data.clone();
+    for (int i = 0; i + target.length <= result.length; i++) {
+      if (Arrays.equals(result, i, i + target.length, target, 0, target.length)) {
+        System.arraycopy(replacement, 0, result, i, replacement.length);
+        return result;
+      }
+    }
+    throw new AssertionError("Not found");
+  }
+}
@@ -0,0 +1,70 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.MasterKey;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class MasterKeyCacheTest {
+
+  private static final PublicKey LOCAL_KEY = PublicKey.from("local".getBytes());
+
+  @Test
+  public void resolvesOnceAndServesCopiesAfterwards() {
+    final MasterKeyCache cache = new MasterKeyCache(2);
+    final TxHash txHash = new TxHash("hash".getBytes());
+
+    final Supplier<MasterKeyCache.ResolvedMasterKey> resolver = mock(Supplier.class);
+    when(resolver.get())
+        .thenReturn(
+            new MasterKeyCache.ResolvedMasterKey(LOCAL_KEY, MasterKey.from("master".getBytes())));
+
+    final MasterKey first = cache.getMasterKey(txHash, resolver);
+    final MasterKey second = cache.getMasterKey(txHash, resolver);
+
+    assertThat(first.getKeyBytes()).isEqualTo("master".getBytes());
+    assertThat(second).isEqualTo(first).isNotSameAs(first);
+    assertThat(cache.size()).isEqualTo(1);
+
+    verify(resolver).get();
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvicted() {
+    final MasterKeyCache cache = new MasterKeyCache(1);
+
+    final Supplier<MasterKeyCache.ResolvedMasterKey> resolver = mock(Supplier.class);
+    when(resolver.get())
+        .thenReturn(
+            new MasterKeyCache.ResolvedMasterKey(LOCAL_KEY, MasterKey.from("master".getBytes())));
+
+    cache.getMasterKey(new TxHash("first".getBytes()), resolver);
+    cache.getMasterKey(new TxHash("second".getBytes()), resolver);
+    cache.getMasterKey(new TxHash("first".getBytes()), resolver);
+
+    assertThat(cache.size()).isEqualTo(1);
+
+    verify(resolver, times(3)).get();
+  }
+
+  @Test
+  public void disabledCacheAlwaysResolves() {
+    final MasterKeyCache cache = MasterKeyCache.disabled();
+    final TxHash txHash = new TxHash("hash".getBytes());
+
+    final Supplier<MasterKeyCache.ResolvedMasterKey> resolver = mock(Supplier.class);
+    when(resolver.get())
+        .thenReturn(
+            new MasterKeyCache.ResolvedMasterKey(LOCAL_KEY, MasterKey.from("master".getBytes())));
+
+    cache.getMasterKey(txHash, resolver);
+    cache.getMasterKey(txHash, resolver);
+
+    assertThat(cache.size()).isZero();
+
+    verify(resolver, times(2)).get();
+  }
+}
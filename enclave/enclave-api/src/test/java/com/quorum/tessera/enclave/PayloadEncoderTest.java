@@ -9,6 +9,9 @@ import com.quorum.tessera.enclave.encoder.LegacyEncodedPayload;
 import com.quorum.tessera.enclave.encoder.LegacyPayloadEncoder;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.*;
 import java.util.stream.Stream;
 import org.junit.Test;
@@ -2194,6 +2197,55 @@ public class PayloadEncoderTest {
     verifyNoMoreInteractions(payloadEncoder, payloadEncoderProvider);
   }
 
+  @Test
+  public void encodeToWritesSameBytesAsEncode() throws Exception {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("sender".getBytes()))
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+            .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+            .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+            .withRecipientKeys(
+                List.of(
+                    PublicKey.from("recipient1".getBytes()),
+                    PublicKey.from("recipient2".getBytes())))
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient1".getBytes())))
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build();
+
+    final byte[] encoded = payloadEncoder.encode(payload);
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    payloadEncoder.encodeTo(payload, output);
+    assertThat(output.toByteArray()).isEqualTo(encoded);
+
+    final ByteArrayOutputStream channelOutput = new ByteArrayOutputStream();
+    payloadEncoder.encodeTo(payload, Channels.newChannel(channelOutput));
+    assertThat(channelOutput.toByteArray()).isEqualTo(encoded);
+
+    assertThat(payloadEncoder.sizeOf(payload)).isEqualTo(encoded.length);
+    assertThat(payloadEncoder.decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  public void encodeToAndSizeOfDefaultToEncode() throws Exception {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final PayloadEncoder encoder = mock(PayloadEncoder.class);
+    when(encoder.encode(payload)).thenReturn("encoded".getBytes());
+    doCallRealMethod().when(encoder).encodeTo(any(EncodedPayload.class), any(OutputStream.class));
+    when(encoder.sizeOf(payload)).thenCallRealMethod();
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    encoder.encodeTo(payload, output);
+
+    assertThat(output.toByteArray()).isEqualTo("encoded".getBytes());
+    assertThat(encoder.sizeOf(payload)).isEqualTo(7);
+  }
+
   @Test
   public void createWithDuplicateEncoders() {
 
@@ -0,0 +1,132 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class PayloadTemplateTest {
+
+  private static final List<PublicKey> RECIPIENTS =
+      List.of(
+          PublicKey.from("recipient1".getBytes()),
+          PublicKey.from("recipient2".getBytes()),
+          PublicKey.from("recipient3".getBytes()));
+
+  private final PayloadEncoder encoder;
+
+  public PayloadTemplateTest(PayloadEncoder encoder) {
+    this.encoder = encoder;
+  }
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<PayloadEncoder> encoders() {
+    return List.of(new PayloadEncoderImpl(), new CBOREncoder());
+  }
+
+  private static EncodedPayload.Builder standardPayload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("sender".getBytes()))
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+        .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+        .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes(), "box3".getBytes()))
+        .withRecipientKeys(RECIPIENTS);
+  }
+
+  private static List<EncodedPayload> payloads() {
+    final Map<TxHash, byte[]> affected =
+        Map.of(
+            TxHash.from("txHash1".getBytes()), "securityHash1".getBytes(),
+            TxHash.from("txHash2".getBytes()), "securityHash2".getBytes(),
+            TxHash.from("txHash3".getBytes()), "securityHash3".getBytes());
+
+    return List.of(
+        standardPayload().build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+            .withAffectedContractTransactions(affected)
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withAffectedContractTransactions(affected)
+            .withExecHash("execHash".getBytes())
+            .build(),
+        standardPayload()
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(RECIPIENTS.get(0), RECIPIENTS.get(2)))
+            .build());
+  }
+
+  @Test
+  public void templateGivesSameBytesAsEncodingStrippedPayload() {
+    for (final EncodedPayload payload : payloads()) {
+      final PayloadTemplate template = encoder.template(payload);
+
+      for (final PublicKey recipient : RECIPIENTS) {
+        final byte[] expected =
+            encoder.encode(EncodedPayload.Builder.forRecipient(payload, recipient).build());
+
+        assertThat(template.encode(recipient)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void sharedPartsAreNotCopiedForEachRecipient() {
+    final PayloadTemplate template = encoder.template(payloads().get(1));
+
+    final List<ByteBuffer> first = template.forRecipient(RECIPIENTS.get(0));
+    final List<ByteBuffer> second = template.forRecipient(RECIPIENTS.get(1));
+
+    assertThat(first).hasSameSizeAs(second);
+    assertThat(first.get(0).array()).isSameAs(second.get(0).array());
+    assertThat(first.get(first.size() - 1).array()).isSameAs(second.get(second.size() - 1).array());
+  }
+
+  @Test
+  public void buffersCanBeWrittenMoreThanOnce() {
+    final PayloadTemplate template = encoder.template(payloads().get(0));
+
+    final byte[] first = template.encode(RECIPIENTS.get(0));
+    template.forRecipient(RECIPIENTS.get(0)).forEach(buffer -> buffer.position(buffer.limit()));
+
+    assertThat(template.encode(RECIPIENTS.get(0))).isEqualTo(first);
+  }
+
+  @Test
+  public void keyThatIsNotRecipientIsRejected() {
+    final PayloadTemplate template = encoder.template(payloads().get(0));
+
+    assertThatExceptionOfType(InvalidRecipientException.class)
+        .isThrownBy(() -> template.forRecipient(PublicKey.from("other".getBytes())));
+  }
+
+  @Test
+  public void defaultTemplateEncodesStrippedPayload() {
+    final EncodedPayload payload = payloads().get(0);
+    final PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    when(payloadEncoder.template(payload)).thenCallRealMethod();
+    when(payloadEncoder.encode(any(EncodedPayload.class)))
+        .thenAnswer(i -> encoder.encode(i.getArgument(0)));
+
+    final byte[] encoded = payloadEncoder.template(payload).encode(RECIPIENTS.get(1));
+
+    assertThat(encoded)
+        .isEqualTo(
+            encoder.encode(
+                EncodedPayload.Builder.forRecipient(payload, RECIPIENTS.get(1)).build()));
+  }
+}
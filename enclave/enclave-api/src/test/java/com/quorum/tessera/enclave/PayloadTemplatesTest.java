@@ -0,0 +1,45 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class PayloadTemplatesTest {
+
+  @Test
+  public void templateIsMadeOncePerCodec() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final PayloadEncoder cborEncoder = mock(PayloadEncoder.class);
+    final PayloadEncoder legacyEncoder = mock(PayloadEncoder.class);
+    final PayloadTemplate cborTemplate = mock(PayloadTemplate.class);
+    final PayloadTemplate legacyTemplate = mock(PayloadTemplate.class);
+    when(cborEncoder.template(payload)).thenReturn(cborTemplate);
+    when(legacyEncoder.template(payload)).thenReturn(legacyTemplate);
+
+    try (var payloadEncoderMockedStatic = mockStatic(PayloadEncoder.class)) {
+      payloadEncoderMockedStatic
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR))
+          .thenReturn(cborEncoder);
+      payloadEncoderMockedStatic
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY))
+          .thenReturn(legacyEncoder);
+
+      final PayloadTemplates templates = new PayloadTemplates(payload);
+
+      assertThat(templates.getPayload()).isSameAs(payload);
+      assertThat(templates.forCodec(EncodedPayloadCodec.CBOR)).isSameAs(cborTemplate);
+      assertThat(templates.forCodec(EncodedPayloadCodec.CBOR)).isSameAs(cborTemplate);
+      assertThat(templates.forCodec(EncodedPayloadCodec.LEGACY)).isSameAs(legacyTemplate);
+
+      payloadEncoderMockedStatic.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+      payloadEncoderMockedStatic.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
+      payloadEncoderMockedStatic.verifyNoMoreInteractions();
+    }
+
+    verify(cborEncoder).template(payload);
+    verify(legacyEncoder).template(payload);
+    verifyNoMoreInteractions(cborEncoder, legacyEncoder);
+    verifyNoInteractions(payload, cborTemplate, legacyTemplate);
+  }
+}
@@ -0,0 +1,335 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.service.Service;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledEnclaveClientTest {
+
+  private static final PublicKey KEY = PublicKey.from("key".getBytes());
+
+  private EnclaveClient first;
+
+  private EnclaveClient second;
+
+  private ScheduledExecutorService executor;
+
+  @Before
+  public void onSetUp() {
+    first = mock(EnclaveClient.class);
+    second = mock(EnclaveClient.class);
+    executor = mock(ScheduledExecutorService.class);
+
+    when(first.defaultPublicKey()).thenReturn(KEY);
+    when(second.defaultPublicKey()).thenReturn(KEY);
+  }
+
+  @After
+  public void onTearDown() {
+    verifyNoMoreInteractions(first, second, executor);
+  }
+
+  private PooledEnclaveClient pool(PooledEnclaveClient.Routing routing) {
+    return new PooledEnclaveClient(List.of(first, second), routing, executor, 1000L);
+  }
+
+  @Test
+  public void roundRobinAlternatesBetweenMembers() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+    }
+
+    verify(first, times(2)).defaultPublicKey();
+    verify(second, times(2)).defaultPublicKey();
+  }
+
+  @Test
+  public void leastOutstandingAvoidsBusyMember() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.LEAST_OUTSTANDING);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    // while the first member is busy, calls that would be its turn are sent to the second
+    when(first.unencryptTransaction(payload, KEY))
+        .thenAnswer(
+            invocation -> {
+              pool.defaultPublicKey();
+              pool.defaultPublicKey();
+              return "result".getBytes();
+            });
+
+    assertThat(pool.unencryptTransaction(payload, KEY)).isEqualTo("result".getBytes());
+
+    verify(first).unencryptTransaction(payload, KEY);
+    verify(second, times(2)).defaultPublicKey();
+  }
+
+  @Test
+  public void unreachableStoppedMemberIsRemovedAndCallRetried() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    when(first.defaultPublicKey()).thenThrow(new EnclaveNotAvailableException());
+    when(first.status()).thenReturn(Service.Status.STOPPED);
+
+    assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+    assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+    assertThat(pool.status()).isEqualTo(Service.Status.STARTED);
+
+    verify(first).defaultPublicKey();
+    verify(first).status();
+    verify(second, times(2)).defaultPublicKey();
+  }
+
+  @Test
+  public void errorFromRunningMemberIsNotRetried() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EnclaveNotAvailableException exception = new EnclaveNotAvailableException("error 500");
+    when(first.defaultPublicKey()).thenThrow(exception);
+    when(first.status()).thenReturn(Service.Status.STARTED);
+
+    final Throwable throwable = catchThrowable(pool::defaultPublicKey);
+
+    // the member is kept, so the next call is sent to the other member in turn
+    assertThat(throwable).isSameAs(exception);
+    assertThat(pool.status()).isEqualTo(Service.Status.STARTED);
+    assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+
+    verify(first).defaultPublicKey();
+    verify(first).status();
+    verify(second).defaultPublicKey();
+  }
+
+  @Test
+  public void otherErrorsArePassedToCaller() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(first.findRecipientKeys(List.of(payload))).thenThrow(new IllegalStateException());
+
+    final Throwable throwable = catchThrowable(() -> pool.findRecipientKeys(List.of(payload)));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalStateException.class);
+
+    verify(first).findRecipientKeys(List.of(payload));
+  }
+
+  @Test
+  public void failsWhenNoMemberIsAvailable() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.LEAST_OUTSTANDING);
+
+    final EnclaveNotAvailableException exception = new EnclaveNotAvailableException();
+    when(first.defaultPublicKey()).thenThrow(exception);
+    when(second.defaultPublicKey()).thenThrow(exception);
+    when(first.status()).thenReturn(Service.Status.STOPPED);
+    when(second.status()).thenReturn(Service.Status.STOPPED);
+
+    assertThat(catchThrowable(pool::defaultPublicKey)).isSameAs(exception);
+    assertThat(pool.status()).isEqualTo(Service.Status.STOPPED);
+    assertThat(catchThrowable(pool::defaultPublicKey))
+        .isExactlyInstanceOf(EnclaveNotAvailableException.class);
+
+    verify(first).defaultPublicKey();
+    verify(second).defaultPublicKey();
+    verify(first).status();
+    verify(second).status();
+  }
+
+  @Test
+  public void healthCheckRemovesAndReadmitsMembers() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    when(first.status()).thenReturn(Service.Status.STOPPED, Service.Status.STARTED);
+    when(second.status()).thenThrow(new RuntimeException("unreachable"));
+
+    pool.checkMembers();
+    assertThat(pool.status()).isEqualTo(Service.Status.STOPPED);
+
+    pool.checkMembers();
+    assertThat(pool.status()).isEqualTo(Service.Status.STARTED);
+    assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+    assertThat(pool.defaultPublicKey()).isEqualTo(KEY);
+
+    verify(first, times(2)).status();
+    verify(second, times(2)).status();
+    verify(first, times(2)).defaultPublicKey();
+  }
+
+  @Test
+  public void batchOperationsAreSentToOneMember() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(first.unencryptTransactions(List.of(payload), List.of(KEY)))
+        .thenReturn(List.of("result".getBytes()));
+    when(second.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(KEY)));
+
+    assertThat(pool.unencryptTransactions(List.of(payload), List.of(KEY)))
+        .containsExactly("result".getBytes());
+    assertThat(pool.findRecipientKeys(List.of(payload))).containsExactly(Optional.of(KEY));
+    pool.createNewRecipientBoxes(payload, List.of(KEY));
+
+    verify(first).unencryptTransactions(List.of(payload), List.of(KEY));
+    verify(second).findRecipientKeys(List.of(payload));
+    verify(first).createNewRecipientBoxes(payload, List.of(KEY));
+  }
+
+  @Test
+  public void otherOperationsAreDelegated() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final RawTransaction rawTransaction = mock(RawTransaction.class);
+    final PrivacyMetadata privacyMetadata = mock(PrivacyMetadata.class);
+    final byte[] message = "message".getBytes();
+
+    pool.getPublicKeys();
+    pool.getForwardingKeys();
+    pool.encryptPayload(message, KEY, List.of(KEY), privacyMetadata);
+    pool.encryptPayload(rawTransaction, List.of(KEY), privacyMetadata);
+    pool.findInvalidSecurityHashes(payload, List.of());
+    pool.encryptRawPayload(message, KEY);
+    pool.unencryptTransaction(payload, KEY);
+    pool.unencryptRawPayload(rawTransaction);
+    pool.createNewRecipientBox(payload, KEY);
+
+    verify(first).getPublicKeys();
+    verify(second).getForwardingKeys();
+    verify(first).encryptPayload(message, KEY, List.of(KEY), privacyMetadata);
+    verify(second).encryptPayload(rawTransaction, List.of(KEY), privacyMetadata);
+    verify(first).findInvalidSecurityHashes(payload, List.of());
+    verify(second).encryptRawPayload(message, KEY);
+    verify(first).unencryptTransaction(payload, KEY);
+    verify(second).unencryptRawPayload(rawTransaction);
+    verify(first).createNewRecipientBox(payload, KEY);
+  }
+
+  @Test
+  public void asyncCallIsRetriedOnceUnreachableMemberHasFailed() throws Exception {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(first.unencryptTransactionAsync(payload, KEY))
+        .thenReturn(CompletableFuture.failedFuture(new EnclaveNotAvailableException()));
+    when(first.status()).thenReturn(Service.Status.STOPPED);
+    when(second.unencryptTransactionAsync(payload, KEY))
+        .thenReturn(CompletableFuture.completedFuture("result".getBytes()));
+
+    assertThat(pool.unencryptTransactionAsync(payload, KEY).get()).isEqualTo("result".getBytes());
+    assertThat(pool.status()).isEqualTo(Service.Status.STARTED);
+
+    verify(first).unencryptTransactionAsync(payload, KEY);
+    verify(first).status();
+    verify(second).unencryptTransactionAsync(payload, KEY);
+  }
+
+  @Test
+  public void asyncErrorFromRunningMemberIsNotRetried() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final EnclaveNotAvailableException exception = new EnclaveNotAvailableException("error 500");
+    when(first.findRecipientKeysAsync(List.of(payload)))
+        .thenReturn(CompletableFuture.failedFuture(exception));
+    when(first.status()).thenReturn(Service.Status.STARTED);
+
+    final Throwable throwable = catchThrowable(pool.findRecipientKeysAsync(List.of(payload))::join);
+
+    assertThat(throwable).isInstanceOf(CompletionException.class).hasCause(exception);
+    assertThat(pool.status()).isEqualTo(Service.Status.STARTED);
+
+    verify(first).findRecipientKeysAsync(List.of(payload));
+    verify(first).status();
+  }
+
+  @Test
+  public void asyncCallIsOutstandingUntilComplete() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.LEAST_OUTSTANDING);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final CompletableFuture<List<byte[]>> pending = new CompletableFuture<>();
+    when(first.createNewRecipientBoxesAsync(payload, List.of(KEY))).thenReturn(pending);
+
+    final CompletableFuture<List<byte[]>> result =
+        pool.createNewRecipientBoxesAsync(payload, List.of(KEY));
+
+    // the first member is busy until its call completes
+    pool.defaultPublicKey();
+    pool.defaultPublicKey();
+
+    pending.complete(List.of("box".getBytes()));
+    assertThat(result.join()).containsExactly("box".getBytes());
+
+    // once complete, calls are spread across both members again
+    pool.defaultPublicKey();
+    pool.defaultPublicKey();
+
+    verify(first).createNewRecipientBoxesAsync(payload, List.of(KEY));
+    verify(second, times(3)).defaultPublicKey();
+    verify(first).defaultPublicKey();
+  }
+
+  @Test
+  public void otherAsyncOperationsAreDelegated() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final PrivacyMetadata privacyMetadata = mock(PrivacyMetadata.class);
+    final byte[] message = "message".getBytes();
+    when(first.encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata))
+        .thenReturn(CompletableFuture.completedFuture(payload));
+    when(second.unencryptTransactionsAsync(List.of(payload), List.of(KEY)))
+        .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    assertThat(pool.encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata).join())
+        .isSameAs(payload);
+    assertThat(pool.unencryptTransactionsAsync(List.of(payload), List.of(KEY)).join()).isEmpty();
+
+    verify(first).encryptPayloadAsync(message, KEY, List.of(KEY), privacyMetadata);
+    verify(second).unencryptTransactionsAsync(List.of(payload), List.of(KEY));
+  }
+
+  @Test
+  public void startAndStop() {
+    final PooledEnclaveClient pool = pool(PooledEnclaveClient.Routing.ROUND_ROBIN);
+
+    pool.start();
+    pool.stop();
+
+    verify(first).start();
+    verify(second).start();
+    verify(executor)
+        .scheduleWithFixedDelay(
+            any(Runnable.class), eq(1000L), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    verify(executor).shutdown();
+    verify(first).stop();
+    verify(second).stop();
+  }
+
+  @Test
+  public void atLeastOneClientIsRequired() {
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                new PooledEnclaveClient(
+                    List.of(), PooledEnclaveClient.Routing.ROUND_ROBIN, executor, 1000L));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+}
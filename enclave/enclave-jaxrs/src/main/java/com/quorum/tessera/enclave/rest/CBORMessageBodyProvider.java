@@ -0,0 +1,79 @@
+package com.quorum.tessera.enclave.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes the enclave request and response types as CBOR. Byte arrays are written as
+ * binary strings instead of being base64 encoded as they are in JSON, which keeps large ciphertexts
+ * at their original size and avoids building intermediate strings on either side.
+ */
+@Provider
+@Consumes(CBORMessageBodyProvider.APPLICATION_CBOR)
+@Produces(CBORMessageBodyProvider.APPLICATION_CBOR)
+public class CBORMessageBodyProvider
+    implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+  public static final String APPLICATION_CBOR = "application/cbor";
+
+  public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+  private final ObjectMapper objectMapper =
+      CBORMapper.builder()
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+          .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .build();
+
+  @Override
+  public boolean isReadable(
+      Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return APPLICATION_CBOR_TYPE.isCompatible(mediaType);
+  }
+
+  @Override
+  public Object readFrom(
+      Class<Object> type,
+      Type genericType,
+      Annotation[] annotations,
+      MediaType mediaType,
+      MultivaluedMap<String, String> httpHeaders,
+      InputStream entityStream)
+      throws IOException {
+    return objectMapper.readValue(entityStream, objectMapper.constructType(genericType));
+  }
+
+  @Override
+  public boolean isWriteable(
+      Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return APPLICATION_CBOR_TYPE.isCompatible(mediaType);
+  }
+
+  @Override
+  public void writeTo(
+      Object value,
+      Class<?> type,
+      Type genericType,
+      Annotation[] annotations,
+      MediaType mediaType,
+      MultivaluedMap<String, Object> httpHeaders,
+      OutputStream entityStream)
+      throws IOException {
+    objectMapper.writeValue(entityStream, value);
+  }
+}
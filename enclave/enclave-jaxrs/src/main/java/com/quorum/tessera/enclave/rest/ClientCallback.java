@@ -12,10 +12,14 @@ public interface ClientCallback<T> {
     try {
       return callback.doExecute();
     } catch (ProcessingException ex) {
-      if (ConnectException.class.isInstance(ex.getCause())) {
-        throw new EnclaveNotAvailableException(ex.getCause().getMessage());
-      }
-      throw ex;
+      throw translate(ex);
     }
   }
+
+  static RuntimeException translate(ProcessingException ex) {
+    if (ConnectException.class.isInstance(ex.getCause())) {
+      return new EnclaveNotAvailableException(ex.getCause().getMessage());
+    }
+    return ex;
+  }
 }
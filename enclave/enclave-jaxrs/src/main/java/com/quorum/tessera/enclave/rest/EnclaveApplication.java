@@ -28,7 +28,11 @@ public class EnclaveApplication extends Application
 
   @Override
   public Set<Object> getSingletons() {
-    return Set.of(new EnclaveResource(enclave), new DefaultExceptionMapper());
+    return Set.of(
+        new EnclaveResource(enclave),
+        new DefaultExceptionMapper(),
+        new NotSupportedExceptionMapper(),
+        new CBORMessageBodyProvider());
   }
 
   @Override
@@ -1,10 +1,17 @@
 package com.quorum.tessera.enclave.rest;
 
 import com.quorum.tessera.config.*;
+import com.quorum.tessera.config.util.IntervalPropertyHelper;
 import com.quorum.tessera.enclave.EnclaveClient;
+import com.quorum.tessera.enclave.PooledEnclaveClient;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,17 +24,59 @@ public class EnclaveClientProvider {
     Config config = ConfigFactory.create().getConfig();
 
     LOGGER.debug("Creating RestfulEnclaveClient with {}", config);
-    Optional<ServerConfig> enclaveServerConfig =
-        config.getServerConfigs().stream().filter(sc -> sc.getApp() == AppType.ENCLAVE).findAny();
+    final List<ServerConfig> enclaveServerConfigs =
+        config.getServerConfigs().stream()
+            .filter(sc -> sc.getApp() == AppType.ENCLAVE)
+            .collect(Collectors.toList());
+
+    if (enclaveServerConfigs.isEmpty()) {
+      throw new NoSuchElementException("No enclave server has been configured");
+    }
 
     final ClientFactory clientFactory = new ClientFactory();
 
+    if (enclaveServerConfigs.size() == 1) {
+      return createClient(clientFactory, enclaveServerConfigs.get(0));
+    }
+
+    final List<RestfulEnclaveClient> clients =
+        enclaveServerConfigs.stream()
+            .map(serverConfig -> createClient(clientFactory, serverConfig))
+            .collect(Collectors.toList());
+
+    // the pool settings are taken from the first enclave server
+    final Map<String, String> properties = enclaveServerConfigs.get(0).getProperties();
+    final PooledEnclaveClient.Routing routing =
+        PooledEnclaveClient.Routing.valueOf(
+            properties.getOrDefault("enclaveRouting", "LEAST_OUTSTANDING"));
+    final long healthCheckInterval =
+        new IntervalPropertyHelper(properties).enclaveHealthCheckInterval();
+
+    LOGGER.info("Creating pool of {} remoted enclaves using {}", clients.size(), routing);
+    final PooledEnclaveClient pooledEnclaveClient =
+        new PooledEnclaveClient(clients, routing, healthCheckInterval);
+    pooledEnclaveClient.start();
+    return pooledEnclaveClient;
+  }
+
+  private static RestfulEnclaveClient createClient(
+      ClientFactory clientFactory, ServerConfig serverConfig) {
     LOGGER.debug("Creating server context from config");
-    ServerConfig serverConfig = enclaveServerConfig.get();
+    Client client = clientFactory.buildFrom(serverConfig);
     LOGGER.debug("Created server context from config");
 
-    Client client = clientFactory.buildFrom(serverConfig);
     LOGGER.info("Creating remoted enclave for {}", serverConfig.getServerUri());
-    return new RestfulEnclaveClient(client, serverConfig.getServerUri());
+    final long keyRefreshInterval =
+        new IntervalPropertyHelper(serverConfig.getProperties()).enclaveKeyRefreshInterval();
+    // enclaves without CBOR support report it as a server error rather than a 415, so the client
+    // cannot fall back to JSON by itself and CBOR has to be asked for where the enclave has it
+    final MediaType mediaType =
+        Optional.ofNullable(serverConfig.getProperties().get("enclaveMediaType"))
+            .map(MediaType::valueOf)
+            .orElse(MediaType.APPLICATION_JSON_TYPE);
+    LOGGER.debug("Sending enclave requests as {}", mediaType);
+
+    return new RestfulEnclaveClient(
+        client, serverConfig.getServerUri(), keyRefreshInterval, mediaType);
   }
 }
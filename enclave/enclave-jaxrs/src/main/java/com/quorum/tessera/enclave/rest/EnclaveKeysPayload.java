@@ -0,0 +1,53 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.xml.bind.annotation.XmlMimeType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveKeysPayload implements Serializable {
+
+  @XmlMimeType("base64Binary")
+  private byte[] defaultKey;
+
+  @XmlMimeType("base64Binary")
+  private List<byte[]> publicKeys;
+
+  @XmlMimeType("base64Binary")
+  private List<byte[]> forwardingKeys;
+
+  private String version;
+
+  public byte[] getDefaultKey() {
+    return defaultKey;
+  }
+
+  public void setDefaultKey(byte[] defaultKey) {
+    this.defaultKey = defaultKey;
+  }
+
+  public List<byte[]> getPublicKeys() {
+    return publicKeys;
+  }
+
+  public void setPublicKeys(List<byte[]> publicKeys) {
+    this.publicKeys = publicKeys;
+  }
+
+  public List<byte[]> getForwardingKeys() {
+    return forwardingKeys;
+  }
+
+  public void setForwardingKeys(List<byte[]> forwardingKeys) {
+    this.forwardingKeys = forwardingKeys;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public void setVersion(String version) {
+    this.version = version;
+  }
+}
@@ -1,5 +1,7 @@
 package com.quorum.tessera.enclave.rest;
 
+import static com.quorum.tessera.enclave.rest.CBORMessageBodyProvider.APPLICATION_CBOR;
+
 import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
@@ -10,6 +12,10 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.StreamingOutput;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -80,9 +86,43 @@ public class EnclaveResource {
         .build();
   }
 
+  @GET
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Path("keys")
+  public Response getKeys() {
+
+    final PublicKey defaultKey = enclave.defaultPublicKey();
+    final Set<PublicKey> publicKeys = enclave.getPublicKeys();
+    final Set<PublicKey> forwardingKeys = enclave.getForwardingKeys();
+
+    final EnclaveKeysPayload keysPayload = new EnclaveKeysPayload();
+    keysPayload.setDefaultKey(defaultKey.getKeyBytes());
+    keysPayload.setPublicKeys(
+        publicKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    keysPayload.setForwardingKeys(
+        forwardingKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    keysPayload.setVersion(keysVersion(defaultKey, publicKeys, forwardingKeys));
+
+    return Response.ok(keysPayload).build();
+  }
+
+  /**
+   * A short value that changes whenever any of the enclave's keys change, so that clients holding a
+   * copy of the keys can check whether it is stale without fetching them all again.
+   */
+  @GET
+  @Produces(MediaType.TEXT_PLAIN)
+  @Path("keys/version")
+  public Response getKeysVersion() {
+    final String version =
+        keysVersion(
+            enclave.defaultPublicKey(), enclave.getPublicKeys(), enclave.getForwardingKeys());
+    return Response.ok(version, MediaType.TEXT_PLAIN_TYPE).build();
+  }
+
   @POST
   @Path("encrypt")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response encryptPayload(EnclavePayload payload) {
 
@@ -119,7 +159,7 @@ public class EnclaveResource {
 
   @POST
   @Path("encrypt/raw")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response encryptPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -164,8 +204,8 @@ public class EnclaveResource {
 
   @POST
   @Path("encrypt/toraw")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   public Response encryptRawPayload(EnclavePayload payload) {
 
     RawTransaction rawTransaction =
@@ -182,8 +222,8 @@ public class EnclaveResource {
 
   @POST
   @Path("findinvalidsecurityhashes")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   public Response findInvalidSecurityHashes(
       EnclaveFindInvalidSecurityHashesRequestPayload payload) {
 
@@ -212,7 +252,7 @@ public class EnclaveResource {
 
   @POST
   @Path("unencrypt/raw")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response unencryptRawPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -231,7 +271,7 @@ public class EnclaveResource {
 
   @POST
   @Path("unencrypt")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response unencryptTransaction(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
@@ -249,7 +289,7 @@ public class EnclaveResource {
 
   @POST
   @Path("addRecipient")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response createNewRecipientBox(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
@@ -262,6 +302,90 @@ public class EnclaveResource {
     return Response.ok(streamingOutput).build();
   }
 
+  @POST
+  @Path("unencrypt/batch")
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  public Response unencryptTransactions(EnclaveUnencryptBatchPayload batchPayload) {
+
+    final List<EncodedPayload> payloads =
+        batchPayload.getData().stream().map(payloadEncoder::decode).collect(Collectors.toList());
+
+    // a missing key is sent as an empty one, which may arrive as either empty or null
+    final List<PublicKey> providedKeys =
+        batchPayload.getProvidedKeys().stream()
+            .map(key -> key == null || key.length == 0 ? null : PublicKey.from(key))
+            .collect(Collectors.toList());
+
+    final EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+    responsePayload.setResults(enclave.unencryptTransactions(payloads, providedKeys));
+
+    return Response.ok(responsePayload).build();
+  }
+
+  @POST
+  @Path("findrecipientkeys")
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  public Response findRecipientKeys(EnclaveUnencryptBatchPayload batchPayload) {
+
+    final List<EncodedPayload> payloads =
+        batchPayload.getData().stream().map(payloadEncoder::decode).collect(Collectors.toList());
+
+    // payloads for which no key was found are given an empty key
+    final List<byte[]> recipientKeys =
+        enclave.findRecipientKeys(payloads).stream()
+            .map(key -> key.map(PublicKey::getKeyBytes).orElse(new byte[0]))
+            .collect(Collectors.toList());
+
+    final EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+    responsePayload.setResults(recipientKeys);
+
+    return Response.ok(responsePayload).build();
+  }
+
+  @POST
+  @Path("addRecipients")
+  @Consumes({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, APPLICATION_CBOR})
+  public Response createNewRecipientBoxes(EnclaveAddRecipientsPayload addRecipientsPayload) {
+
+    final EncodedPayload payload = payloadEncoder.decode(addRecipientsPayload.getData());
+    final List<PublicKey> recipientKeys =
+        addRecipientsPayload.getRecipientKeys().stream()
+            .map(PublicKey::from)
+            .collect(Collectors.toList());
+
+    final EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+    responsePayload.setResults(enclave.createNewRecipientBoxes(payload, recipientKeys));
+
+    return Response.ok(responsePayload).build();
+  }
+
+  private static String keysVersion(
+      final PublicKey defaultKey,
+      final Set<PublicKey> publicKeys,
+      final Set<PublicKey> forwardingKeys) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+
+    // sorted so that the version does not depend on the iteration order of the key sets
+    digest.update(defaultKey.encodeToBase64().getBytes(StandardCharsets.UTF_8));
+    for (final Set<PublicKey> keys : List.of(publicKeys, forwardingKeys)) {
+      digest.update((byte) '|');
+      keys.stream()
+          .map(PublicKey::encodeToBase64)
+          .sorted()
+          .forEach(key -> digest.update(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+  }
+
   private List<AffectedTransaction> convertToAffectedTransactions(
       final List<KeyValuePair> keyValuePairs) {
     return keyValuePairs.stream()
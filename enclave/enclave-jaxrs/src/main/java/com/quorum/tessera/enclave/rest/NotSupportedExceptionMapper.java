@@ -0,0 +1,29 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.ws.rs.NotSupportedException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the 415 status for requests in a format the enclave does not accept, so that clients can
+ * tell it apart from an enclave error and send the request in another format.
+ */
+@Provider
+public class NotSupportedExceptionMapper implements ExceptionMapper<NotSupportedException> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NotSupportedExceptionMapper.class);
+
+  @Override
+  public Response toResponse(final NotSupportedException ex) {
+    LOGGER.debug(null, ex);
+
+    return Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
+        .entity(ex.getMessage())
+        .type(MediaType.TEXT_PLAIN)
+        .build();
+  }
+}
@@ -3,16 +3,23 @@ package com.quorum.tessera.enclave.rest;
 import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.threading.TesseraScheduledExecutor;
 import jakarta.json.JsonArray;
+import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.slf4j.Logger;
@@ -22,31 +29,116 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RestfulEnclaveClient.class);
 
-  private final Client client;
+  private static final long REFRESH_FAILURE_LOG_INTERVAL = 60000L;
 
-  private final URI uri;
+  private final WebTarget target;
 
   private final ExecutorService executorService;
 
   private final PayloadEncoder payloadEncoder;
 
+  private final long keyRefreshInterval;
+
+  private final ScheduledExecutorService keyRefreshExecutor;
+
+  private TesseraScheduledExecutor keyRefresher;
+
+  private volatile EnclaveKeys cachedKeys;
+
+  /** Cleared once the enclave is found to be an older version without the keys endpoints */
+  private volatile boolean keysEndpoints = true;
+
+  // only used by the refresh thread
+  private long lastRefreshFailureLogged;
+
+  private boolean refreshFailing;
+
+  private volatile MediaType mediaType;
+
+  /** Cleared once the enclave is found to be an older version without the batch endpoints */
+  private volatile boolean batchEndpoints = true;
+
   public RestfulEnclaveClient(Client client, URI uri) {
     this(client, uri, Executors.newSingleThreadExecutor());
   }
 
   public RestfulEnclaveClient(Client client, URI uri, ExecutorService executorService) {
-    this.client = Objects.requireNonNull(client);
-    this.uri = Objects.requireNonNull(uri);
+    this(client, uri, executorService, 0L, null, MediaType.APPLICATION_JSON_TYPE);
+  }
+
+  /**
+   * Creates a client that keeps a copy of the remote enclave's keys, so that key lookups do not
+   * require a call to the enclave. The copy is fetched when first needed and then checked against
+   * the enclave's key version at the given interval, being replaced whenever the version changes.
+   * An older enclave without the endpoints for this has its keys fetched on every request instead.
+   *
+   * @param client the client to make requests with
+   * @param uri the location of the remote enclave
+   * @param keyRefreshInterval how often to check for changed keys in milliseconds, or zero (or
+   *     less) to fetch the keys from the enclave on every request
+   */
+  public RestfulEnclaveClient(Client client, URI uri, long keyRefreshInterval) {
+    this(client, uri, keyRefreshInterval, MediaType.APPLICATION_JSON_TYPE);
+  }
+
+  /**
+   * @param client the client to make requests with
+   * @param uri the location of the remote enclave
+   * @param keyRefreshInterval how often to check for changed keys in milliseconds, or zero (or
+   *     less) to fetch the keys from the enclave on every request
+   * @param mediaType the format to send requests in, which is replaced with JSON if the enclave
+   *     does not accept it
+   */
+  public RestfulEnclaveClient(
+      Client client, URI uri, long keyRefreshInterval, MediaType mediaType) {
+    this(
+        client,
+        uri,
+        Executors.newSingleThreadExecutor(),
+        keyRefreshInterval,
+        keyRefreshInterval > 0
+            ? Executors.newSingleThreadScheduledExecutor(RestfulEnclaveClient::keyRefreshThread)
+            : null,
+        mediaType);
+  }
+
+  private static Thread keyRefreshThread(Runnable runnable) {
+    final Thread thread = new Thread(runnable, "enclave-key-refresh");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  RestfulEnclaveClient(
+      Client client,
+      URI uri,
+      ExecutorService executorService,
+      long keyRefreshInterval,
+      ScheduledExecutorService keyRefreshExecutor,
+      MediaType mediaType) {
+    this.target =
+        Objects.requireNonNull(client)
+            .target(Objects.requireNonNull(uri))
+            .register(CBORMessageBodyProvider.class);
+    this.mediaType = Objects.requireNonNull(mediaType);
     this.payloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
     this.executorService = executorService;
+    this.keyRefreshInterval = keyRefreshInterval;
+    this.keyRefreshExecutor = keyRefreshExecutor;
+    if (keyRefreshInterval > 0) {
+      Objects.requireNonNull(keyRefreshExecutor);
+    }
   }
 
   @Override
   public PublicKey defaultPublicKey() {
+    final EnclaveKeys keys = keys();
+    if (keys != null) {
+      return keys.defaultKey;
+    }
 
     return ClientCallback.execute(
         () -> {
-          Response response = client.target(uri).path("default").request().get();
+          Response response = target.path("default").request().get();
 
           validateResponseIsOk(response);
 
@@ -58,9 +150,14 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
   @Override
   public Set<PublicKey> getForwardingKeys() {
+    final EnclaveKeys keys = keys();
+    if (keys != null) {
+      return keys.forwardingKeys;
+    }
+
     return ClientCallback.execute(
         () -> {
-          Response response = client.target(uri).path("forwarding").request().get();
+          Response response = target.path("forwarding").request().get();
 
           validateResponseIsOk(response);
 
@@ -76,9 +173,14 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
   @Override
   public Set<PublicKey> getPublicKeys() {
+    final EnclaveKeys keys = keys();
+    if (keys != null) {
+      return keys.publicKeys;
+    }
+
     return ClientCallback.execute(
         () -> {
-          Response response = client.target(uri).path("public").request().get();
+          Response response = target.path("public").request().get();
 
           validateResponseIsOk(response);
 
@@ -92,6 +194,131 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
   }
 
+  /**
+   * Checks the remote enclave's key version and fetches its keys again if they have changed since
+   * they were last fetched. Does nothing if no keys are being held.
+   */
+  public void refreshKeys() {
+    final EnclaveKeys current = cachedKeys;
+    if (current == null) {
+      return;
+    }
+
+    final String version =
+        ClientCallback.execute(
+            () -> {
+              final Response response = target.path("keys").path("version").request().get();
+
+              if (keysEndpointMissing(response)) {
+                return null;
+              }
+
+              validateResponseIsOk(response);
+
+              return response.readEntity(String.class);
+            });
+
+    if (version == null) {
+      invalidateKeys();
+    } else if (!current.version.equals(version)) {
+      LOGGER.info("Enclave keys have changed, fetching new keys");
+      final EnclaveKeys latest = fetchKeys();
+      synchronized (this) {
+        if (cachedKeys != null) {
+          cachedKeys = latest;
+        }
+      }
+    }
+  }
+
+  // run by the refresher, which would otherwise log each failure as an error
+  private void refreshKeysInBackground() {
+    try {
+      refreshKeys();
+      if (refreshFailing) {
+        LOGGER.info("Enclave keys can be checked again");
+        refreshFailing = false;
+      }
+    } catch (RuntimeException ex) {
+      final long now = System.currentTimeMillis();
+      if (!refreshFailing || now - lastRefreshFailureLogged >= REFRESH_FAILURE_LOG_INTERVAL) {
+        LOGGER.warn("Unable to check the enclave keys for changes: {}", ex.getMessage());
+        LOGGER.debug(null, ex);
+        lastRefreshFailureLogged = now;
+      }
+      refreshFailing = true;
+    }
+  }
+
+  /** Discards any keys being held, so that they are fetched from the enclave on next use. */
+  public synchronized void invalidateKeys() {
+    cachedKeys = null;
+  }
+
+  /** @return the keys being held, or null if they are to be fetched on every request */
+  private EnclaveKeys keys() {
+    final EnclaveKeys current = cachedKeys;
+    if (current != null || keyRefreshInterval <= 0 || !keysEndpoints) {
+      return current;
+    }
+
+    synchronized (this) {
+      if (cachedKeys == null && !keyRefreshExecutor.isShutdown()) {
+        cachedKeys = fetchKeys();
+        if (cachedKeys != null && keyRefresher == null) {
+          keyRefresher =
+              new TesseraScheduledExecutor(
+                  keyRefreshExecutor,
+                  this::refreshKeysInBackground,
+                  keyRefreshInterval,
+                  keyRefreshInterval);
+          keyRefresher.start();
+        }
+      }
+      return cachedKeys;
+    }
+  }
+
+  private EnclaveKeys fetchKeys() {
+    return ClientCallback.execute(
+        () -> {
+          final Response response = target.path("keys").request(mediaType).get();
+
+          if (keysEndpointMissing(response)) {
+            return null;
+          }
+
+          validateResponseIsOk(response);
+
+          final EnclaveKeysPayload keysPayload = response.readEntity(EnclaveKeysPayload.class);
+
+          return new EnclaveKeys(
+              PublicKey.from(keysPayload.getDefaultKey()),
+              toPublicKeys(keysPayload.getPublicKeys()),
+              toPublicKeys(keysPayload.getForwardingKeys()),
+              keysPayload.getVersion());
+        });
+  }
+
+  private boolean keysEndpointMissing(final Response response) {
+    if (!isMissing(response)) {
+      return false;
+    }
+    if (keysEndpoints) {
+      LOGGER.warn("Remote enclave has no keys endpoints, fetching its keys on every request");
+      keysEndpoints = false;
+    }
+    return true;
+  }
+
+  private static Set<PublicKey> toPublicKeys(final List<byte[]> keys) {
+    // an empty list is not written out, so arrives as null
+    if (keys == null) {
+      return Set.of();
+    }
+    return keys.stream().map(PublicKey::from).collect(Collectors.toUnmodifiableSet());
+  }
+
   @Override
   public EncodedPayload encryptPayload(
       final byte[] message,
@@ -101,29 +328,10 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
     return ClientCallback.execute(
         () -> {
-          EnclavePayload enclavePayload = new EnclavePayload();
-          enclavePayload.setData(message);
-          enclavePayload.setSenderKey(senderPublicKey.getKeyBytes());
-          enclavePayload.setRecipientPublicKeys(
-              recipientPublicKeys.stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toList()));
-          enclavePayload.setPrivacyMode(privacyMetaData.getPrivacyMode());
-          enclavePayload.setAffectedContractTransactions(
-              convertAffectedContractTransactions(
-                  privacyMetaData.getAffectedContractTransactions()));
-          enclavePayload.setExecHash(privacyMetaData.getExecHash());
-          enclavePayload.setMandatoryRecipients(
-              privacyMetaData.getMandatoryRecipients().stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toList()));
-          privacyMetaData
-              .getPrivacyGroupId()
-              .map(PrivacyGroup.Id::getBytes)
-              .ifPresent(enclavePayload::setPrivacyGroupId);
+          EnclavePayload enclavePayload =
+              enclavePayload(message, senderPublicKey, recipientPublicKeys, privacyMetaData);
 
-          Response response =
-              client.target(uri).path("encrypt").request().post(Entity.json(enclavePayload));
+          Response response = post(target.path("encrypt"), enclavePayload);
 
           validateResponseIsOk(response);
 
@@ -133,6 +341,44 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
   }
 
+  @Override
+  public CompletableFuture<EncodedPayload> encryptPayloadAsync(
+      final byte[] message,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetaData) {
+
+    return postAsync(
+        target.path("encrypt"),
+        () -> enclavePayload(message, senderPublicKey, recipientPublicKeys, privacyMetaData),
+        response -> payloadEncoder.decode(response.readEntity(byte[].class)));
+  }
+
+  private EnclavePayload enclavePayload(
+      final byte[] message,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetaData) {
+    EnclavePayload enclavePayload = new EnclavePayload();
+    enclavePayload.setData(message);
+    enclavePayload.setSenderKey(senderPublicKey.getKeyBytes());
+    enclavePayload.setRecipientPublicKeys(
+        recipientPublicKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    enclavePayload.setPrivacyMode(privacyMetaData.getPrivacyMode());
+    enclavePayload.setAffectedContractTransactions(
+        convertAffectedContractTransactions(privacyMetaData.getAffectedContractTransactions()));
+    enclavePayload.setExecHash(privacyMetaData.getExecHash());
+    enclavePayload.setMandatoryRecipients(
+        privacyMetaData.getMandatoryRecipients().stream()
+            .map(PublicKey::getKeyBytes)
+            .collect(Collectors.toList()));
+    privacyMetaData
+        .getPrivacyGroupId()
+        .map(PrivacyGroup.Id::getBytes)
+        .ifPresent(enclavePayload::setPrivacyGroupId);
+    return enclavePayload;
+  }
+
   @Override
   public EncodedPayload encryptPayload(
       final RawTransaction rawTransaction,
@@ -168,13 +414,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
               .map(PrivacyGroup.Id::getBytes)
               .ifPresent(enclaveRawPayload::setPrivacyGroupId);
 
-          Response response =
-              client
-                  .target(uri)
-                  .path("encrypt")
-                  .path("raw")
-                  .request()
-                  .post(Entity.json(enclaveRawPayload));
+          Response response = post(target.path("encrypt").path("raw"), enclaveRawPayload);
 
           validateResponseIsOk(response);
 
@@ -193,13 +433,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
           enclavePayload.setData(message);
           enclavePayload.setSenderKey(sender.getKeyBytes());
 
-          Response response =
-              client
-                  .target(uri)
-                  .path("encrypt")
-                  .path("toraw")
-                  .request()
-                  .post(Entity.json(enclavePayload));
+          Response response = post(target.path("encrypt").path("toraw"), enclavePayload);
 
           validateResponseIsOk(response);
 
@@ -218,16 +452,9 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
     return ClientCallback.execute(
         () -> {
-          EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
+          EnclaveUnencryptPayload dto = unencryptPayload(payload, providedKey);
 
-          byte[] body = payloadEncoder.encode(payload);
-
-          dto.setData(body);
-
-          if (providedKey != null) {
-            dto.setProvidedKey(providedKey.getKeyBytes());
-          }
-          Response response = client.target(uri).path("unencrypt").request().post(Entity.json(dto));
+          Response response = post(target.path("unencrypt"), dto);
 
           validateResponseIsOk(response);
 
@@ -235,6 +462,29 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
   }
 
+  @Override
+  public CompletableFuture<byte[]> unencryptTransactionAsync(
+      EncodedPayload payload, PublicKey providedKey) {
+
+    return postAsync(
+        target.path("unencrypt"),
+        () -> unencryptPayload(payload, providedKey),
+        response -> response.readEntity(byte[].class));
+  }
+
+  private EnclaveUnencryptPayload unencryptPayload(EncodedPayload payload, PublicKey providedKey) {
+    EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
+
+    byte[] body = payloadEncoder.encode(payload);
+
+    dto.setData(body);
+
+    if (providedKey != null) {
+      dto.setProvidedKey(providedKey.getKeyBytes());
+    }
+    return dto;
+  }
+
   @Override
   public byte[] unencryptRawPayload(RawTransaction payload) {
 
@@ -246,13 +496,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
           enclaveRawPayload.setNonce(payload.getNonce().getNonceBytes());
           enclaveRawPayload.setFrom(payload.getFrom().getKeyBytes());
 
-          Response response =
-              client
-                  .target(uri)
-                  .path("unencrypt")
-                  .path("raw")
-                  .request()
-                  .post(Entity.json(enclaveRawPayload));
+          Response response = post(target.path("unencrypt").path("raw"), enclaveRawPayload);
 
           return response.readEntity(byte[].class);
         });
@@ -269,8 +513,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
           dto.setData(body);
           dto.setProvidedKey(recipientKey.getKeyBytes());
 
-          final Response response =
-              client.target(uri).path("addRecipient").request().post(Entity.json(dto));
+          final Response response = post(target.path("addRecipient"), dto);
 
           validateResponseIsOk(response);
 
@@ -278,6 +521,179 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
   }
 
+  @Override
+  public List<byte[]> unencryptTransactions(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    if (payloads.size() != providedKeys.size()) {
+      throw new IllegalArgumentException("A provided key is required for each payload");
+    }
+    if (payloads.isEmpty()) {
+      return List.of();
+    }
+    if (!batchEndpoints) {
+      return EnclaveClient.super.unencryptTransactions(payloads, providedKeys);
+    }
+
+    return ClientCallback.execute(
+        () -> {
+          final EnclaveUnencryptBatchPayload dto = unencryptBatchPayload(payloads, providedKeys);
+
+          final Response response = post(target.path("unencrypt").path("batch"), dto);
+
+          if (batchEndpointMissing(response)) {
+            return EnclaveClient.super.unencryptTransactions(payloads, providedKeys);
+          }
+
+          validateResponseIsOk(response);
+
+          return response.readEntity(EnclaveBatchResponsePayload.class).getResults();
+        });
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> unencryptTransactionsAsync(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    if (payloads.size() != providedKeys.size()) {
+      return CompletableFuture.failedFuture(
+          new IllegalArgumentException("A provided key is required for each payload"));
+    }
+    if (payloads.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    return postAsync(
+        target.path("unencrypt").path("batch"),
+        () -> unencryptBatchPayload(payloads, providedKeys),
+        response -> response.readEntity(EnclaveBatchResponsePayload.class).getResults(),
+        () -> EnclaveClient.super.unencryptTransactionsAsync(payloads, providedKeys));
+  }
+
+  private EnclaveUnencryptBatchPayload unencryptBatchPayload(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    final EnclaveUnencryptBatchPayload dto = new EnclaveUnencryptBatchPayload();
+    dto.setData(payloads.stream().map(payloadEncoder::encode).collect(Collectors.toList()));
+    dto.setProvidedKeys(
+        providedKeys.stream()
+            .map(key -> key == null ? new byte[0] : key.getKeyBytes())
+            .collect(Collectors.toList()));
+    return dto;
+  }
+
+  @Override
+  public List<Optional<PublicKey>> findRecipientKeys(final List<EncodedPayload> payloads) {
+    if (payloads.isEmpty()) {
+      return List.of();
+    }
+    if (!batchEndpoints) {
+      return findRecipientKeysOneByOne(payloads);
+    }
+
+    return ClientCallback.execute(
+        () -> {
+          final EnclaveUnencryptBatchPayload dto = unencryptBatchPayload(payloads, List.of());
+
+          final Response response = post(target.path("findrecipientkeys"), dto);
+
+          if (batchEndpointMissing(response)) {
+            return findRecipientKeysOneByOne(payloads);
+          }
+
+          validateResponseIsOk(response);
+
+          return toRecipientKeys(response);
+        });
+  }
+
+  /**
+   * Tries each of the enclave's keys against each payload in turn. An enclave without the batch
+   * endpoints answers a key that can't decrypt the payload with an error, so any response other
+   * than success means the key doesn't match, while failing to reach the enclave is thrown.
+   */
+  private List<Optional<PublicKey>> findRecipientKeysOneByOne(final List<EncodedPayload> payloads) {
+    final Set<PublicKey> publicKeys = getPublicKeys();
+    return payloads.stream()
+        .map(payload -> publicKeys.stream().filter(key -> canDecrypt(payload, key)).findFirst())
+        .collect(Collectors.toList());
+  }
+
+  private boolean canDecrypt(final EncodedPayload payload, final PublicKey key) {
+    return ClientCallback.execute(
+        () -> {
+          final Response response = post(target.path("unencrypt"), unencryptPayload(payload, key));
+          response.close();
+          return response.getStatus() == Response.Status.OK.getStatusCode();
+        });
+  }
+
+  @Override
+  public CompletableFuture<List<Optional<PublicKey>>> findRecipientKeysAsync(
+      final List<EncodedPayload> payloads) {
+    if (payloads.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    return postAsync(
+        target.path("findrecipientkeys"),
+        () -> unencryptBatchPayload(payloads, List.of()),
+        RestfulEnclaveClient::toRecipientKeys,
+        () -> EnclaveClient.super.findRecipientKeysAsync(payloads));
+  }
+
+  private static List<Optional<PublicKey>> toRecipientKeys(final Response response) {
+    return response.readEntity(EnclaveBatchResponsePayload.class).getResults().stream()
+        .map(key -> Optional.ofNullable(key).filter(k -> k.length > 0).map(PublicKey::from))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+    if (recipientKeys.isEmpty()) {
+      return List.of();
+    }
+    if (!batchEndpoints) {
+      return EnclaveClient.super.createNewRecipientBoxes(payload, recipientKeys);
+    }
+
+    return ClientCallback.execute(
+        () -> {
+          final EnclaveAddRecipientsPayload dto = addRecipientsPayload(payload, recipientKeys);
+
+          final Response response = post(target.path("addRecipients"), dto);
+
+          if (batchEndpointMissing(response)) {
+            return EnclaveClient.super.createNewRecipientBoxes(payload, recipientKeys);
+          }
+
+          validateResponseIsOk(response);
+
+          return response.readEntity(EnclaveBatchResponsePayload.class).getResults();
+        });
+  }
+
+  @Override
+  public CompletableFuture<List<byte[]>> createNewRecipientBoxesAsync(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+    if (recipientKeys.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+
+    return postAsync(
+        target.path("addRecipients"),
+        () -> addRecipientsPayload(payload, recipientKeys),
+        response -> response.readEntity(EnclaveBatchResponsePayload.class).getResults(),
+        () -> EnclaveClient.super.createNewRecipientBoxesAsync(payload, recipientKeys));
+  }
+
+  private EnclaveAddRecipientsPayload addRecipientsPayload(
+      final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+    final EnclaveAddRecipientsPayload dto = new EnclaveAddRecipientsPayload();
+    dto.setData(payloadEncoder.encode(payload));
+    dto.setRecipientKeys(
+        recipientKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    return dto;
+  }
+
   @Override
   public Set<TxHash> findInvalidSecurityHashes(
       EncodedPayload encodedPayload, List<AffectedTransaction> affectedContractTransactions) {
@@ -287,12 +703,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
     requestPayload.setAffectedContractTransactions(
         convertAffectedContractTransactions(affectedContractTransactions));
 
-    Response response =
-        client
-            .target(uri)
-            .path("findinvalidsecurityhashes")
-            .request()
-            .post(Entity.json(requestPayload));
+    Response response = post(target.path("findinvalidsecurityhashes"), requestPayload);
 
     EnclaveFindInvalidSecurityHashesResponsePayload responsePayload =
         response.readEntity(EnclaveFindInvalidSecurityHashesResponsePayload.class);
@@ -314,7 +725,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
     Future<Status> outcome =
         executorService.submit(
             () -> {
-              Response response = client.target(uri).path("ping").request().get();
+              Response response = target.path("ping").request().get();
 
               if (response.getStatus() == 200) {
                 return Status.STARTED;
@@ -331,6 +742,139 @@ public class RestfulEnclaveClient implements EnclaveClient {
     }
   }
 
+  @Override
+  public synchronized void stop() {
+    if (keyRefresher != null) {
+      keyRefresher.stop();
+    } else if (keyRefreshExecutor != null) {
+      keyRefreshExecutor.shutdown();
+    }
+    cachedKeys = null;
+  }
+
+  private Response post(final WebTarget endpoint, final Object body) {
+    final MediaType requestType = mediaType;
+    final Response response =
+        endpoint
+            .request(requestType, MediaType.APPLICATION_OCTET_STREAM_TYPE)
+            .post(Entity.entity(body, requestType));
+
+    if (fallBackToJson(response, requestType)) {
+      return post(endpoint, body);
+    }
+
+    return response;
+  }
+
+  /**
+   * Sends a request without waiting for the enclave to answer, using the client's asynchronous
+   * invoker. The request body is created on the calling thread, and the response is validated and
+   * read on the thread that receives it.
+   */
+  private <T> CompletableFuture<T> postAsync(
+      final WebTarget endpoint, final Supplier<Object> body, final Function<Response, T> reader) {
+    return postAsync(endpoint, body, reader, null);
+  }
+
+  /**
+   * As {@link #postAsync(WebTarget, Supplier, Function)} to a batch endpoint, making the calls one
+   * at a time instead, on the calling thread, if the enclave doesn't have the endpoint.
+   */
+  private <T> CompletableFuture<T> postAsync(
+      final WebTarget endpoint,
+      final Supplier<Object> body,
+      final Function<Response, T> reader,
+      final Supplier<CompletableFuture<T>> withoutBatch) {
+    if (withoutBatch != null && !batchEndpoints) {
+      return withoutBatch.get();
+    }
+
+    final Object entity;
+    try {
+      entity = body.get();
+    } catch (RuntimeException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+
+    return sendAsync(endpoint, entity)
+        .handle(
+            (response, ex) -> {
+              if (ex != null) {
+                throw translate(ex);
+              }
+              if (withoutBatch != null && batchEndpointMissing(response)) {
+                return withoutBatch.get();
+              }
+              validateResponseIsOk(response);
+              return CompletableFuture.completedFuture(reader.apply(response));
+            })
+        .thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<Response> sendAsync(final WebTarget endpoint, final Object body) {
+    final MediaType requestType = mediaType;
+    return endpoint
+        .request(requestType, MediaType.APPLICATION_OCTET_STREAM_TYPE)
+        .rx()
+        .post(Entity.entity(body, requestType))
+        .toCompletableFuture()
+        .thenCompose(
+            response ->
+                fallBackToJson(response, requestType)
+                    ? sendAsync(endpoint, body)
+                    : CompletableFuture.completedFuture(response));
+  }
+
+  private boolean fallBackToJson(final Response response, final MediaType requestType) {
+    if (response.getStatus() != Response.Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode()
+        || MediaType.APPLICATION_JSON_TYPE.isCompatible(requestType)) {
+      return false;
+    }
+    response.close();
+    LOGGER.warn(
+        "Remote enclave does not accept {}, sending requests as {} instead",
+        requestType,
+        MediaType.APPLICATION_JSON);
+    mediaType = MediaType.APPLICATION_JSON_TYPE;
+    return true;
+  }
+
+  private boolean batchEndpointMissing(final Response response) {
+    if (!isMissing(response)) {
+      return false;
+    }
+    if (batchEndpoints) {
+      LOGGER.warn("Remote enclave has no batch endpoints, calling it once for each item instead");
+      batchEndpoints = false;
+    }
+    return true;
+  }
+
+  /** Whether the enclave is a version without the endpoint, closing the response if so */
+  private static boolean isMissing(final Response response) {
+    final int status = response.getStatus();
+    if (status != Response.Status.NOT_FOUND.getStatusCode()
+        && status != Response.Status.METHOD_NOT_ALLOWED.getStatusCode()) {
+      return false;
+    }
+    response.close();
+    return true;
+  }
+
+  private static RuntimeException translate(final Throwable throwable) {
+    final Throwable cause =
+        throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable;
+    if (cause instanceof ProcessingException) {
+      return ClientCallback.translate((ProcessingException) cause);
+    }
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    return new CompletionException(cause);
+  }
+
   private static void validateResponseIsOk(Response response) {
     if (response.getStatus() != 200) {
       Response.StatusType statusInfo = response.getStatusInfo();
@@ -353,4 +897,26 @@ public class RestfulEnclaveClient implements EnclaveClient {
                     this.payloadEncoder.encode(affectedTransaction.getPayload())))
         .collect(Collectors.toList());
   }
+
+  private static final class EnclaveKeys {
+
+    private final PublicKey defaultKey;
+
+    private final Set<PublicKey> publicKeys;
+
+    private final Set<PublicKey> forwardingKeys;
+
+    private final String version;
+
+    private EnclaveKeys(
+        PublicKey defaultKey,
+        Set<PublicKey> publicKeys,
+        Set<PublicKey> forwardingKeys,
+        String version) {
+      this.defaultKey = defaultKey;
+      this.publicKeys = publicKeys;
+      this.forwardingKeys = forwardingKeys;
+      this.version = version;
+    }
+  }
 }
@@ -1,4 +1,7 @@
 module tessera.enclave.jaxrs {
+  requires com.fasterxml.jackson.core;
+  requires com.fasterxml.jackson.databind;
+  requires com.fasterxml.jackson.dataformat.cbor;
   requires jakarta.json;
   requires jakarta.ws.rs;
   requires jakarta.xml.bind;
@@ -20,6 +23,7 @@ module tessera.enclave.jaxrs {
   requires org.eclipse.persistence.asm;
 
   opens com.quorum.tessera.enclave.rest to
+      com.fasterxml.jackson.databind,
       org.eclipse.persistence.moxy,
       org.eclipse.persistence.core;
 
@@ -0,0 +1,93 @@
+package com.quorum.tessera.enclave.rest;
+
+import static com.quorum.tessera.enclave.rest.CBORMessageBodyProvider.APPLICATION_CBOR_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class CBORMessageBodyProviderTest {
+
+  private final CBORMessageBodyProvider provider = new CBORMessageBodyProvider();
+
+  @Test
+  public void onlyHandlesCbor() {
+    assertThat(
+            provider.isReadable(
+                EnclavePayload.class, EnclavePayload.class, null, APPLICATION_CBOR_TYPE))
+        .isTrue();
+    assertThat(
+            provider.isWriteable(
+                EnclavePayload.class, EnclavePayload.class, null, APPLICATION_CBOR_TYPE))
+        .isTrue();
+    assertThat(
+            provider.isReadable(
+                EnclavePayload.class, EnclavePayload.class, null, MediaType.APPLICATION_JSON_TYPE))
+        .isFalse();
+    assertThat(
+            provider.isWriteable(
+                EnclavePayload.class, EnclavePayload.class, null, MediaType.APPLICATION_JSON_TYPE))
+        .isFalse();
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final byte[] data = new byte[1024];
+    new Random().nextBytes(data);
+
+    final EnclavePayload payload = new EnclavePayload();
+    payload.setData(data);
+    payload.setSenderKey("sender".getBytes());
+    payload.setRecipientPublicKeys(List.of("recipient".getBytes(), new byte[0]));
+    payload.setPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    payload.setAffectedContractTransactions(
+        List.of(new KeyValuePair("hash".getBytes(), "payload".getBytes())));
+    payload.setExecHash("execHash".getBytes());
+    payload.setMandatoryRecipients(List.of());
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    provider.writeTo(
+        payload,
+        EnclavePayload.class,
+        EnclavePayload.class,
+        new Annotation[0],
+        APPLICATION_CBOR_TYPE,
+        new MultivaluedHashMap<>(),
+        out);
+
+    final EnclavePayload result =
+        (EnclavePayload)
+            provider.readFrom(
+                (Class) EnclavePayload.class,
+                EnclavePayload.class,
+                new Annotation[0],
+                APPLICATION_CBOR_TYPE,
+                new MultivaluedHashMap<>(),
+                new ByteArrayInputStream(out.toByteArray()));
+
+    assertThat(result.getData()).isEqualTo(data);
+    assertThat(result.getSenderKey()).isEqualTo("sender".getBytes());
+    assertThat(result.getRecipientPublicKeys())
+        .containsExactly("recipient".getBytes(), new byte[0]);
+    assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    assertThat(result.getAffectedContractTransactions()).hasSize(1);
+    assertThat(result.getAffectedContractTransactions().get(0).getKey())
+        .isEqualTo("hash".getBytes());
+    assertThat(result.getAffectedContractTransactions().get(0).getValue())
+        .isEqualTo("payload".getBytes());
+    assertThat(result.getExecHash()).isEqualTo("execHash".getBytes());
+    assertThat(result.getMandatoryRecipients()).isEmpty();
+    assertThat(result.getPrivacyGroupId()).isNull();
+
+    // binary fields are written as they are rather than base64 encoded
+    assertThat(out.size()).isLessThan(Base64.getEncoder().encode(data).length);
+  }
+}
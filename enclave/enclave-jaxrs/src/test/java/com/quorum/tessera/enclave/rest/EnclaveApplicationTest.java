@@ -91,6 +91,7 @@ public class EnclaveApplicationTest {
     EncodedPayload acoth = mock(EncodedPayload.class);
     when(acoth.getSenderKey()).thenReturn(senderPublicKey);
     when(acoth.getCipherText()).thenReturn("ciphertext".getBytes());
+    when(acoth.getCipherTextBuffer()).thenCallRealMethod();
     when(acoth.getCipherTextNonce()).thenReturn(new Nonce("0".getBytes()));
     when(acoth.getRecipientKeys()).thenReturn(Collections.emptyList());
     when(acoth.getRecipientNonce()).thenReturn(new Nonce("0".getBytes()));
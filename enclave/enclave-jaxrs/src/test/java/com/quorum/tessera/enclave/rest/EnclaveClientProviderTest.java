@@ -9,9 +9,11 @@ import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
 import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.enclave.EnclaveClient;
+import com.quorum.tessera.enclave.PooledEnclaveClient;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +28,8 @@ public class EnclaveClientProviderTest {
 
   private AppType appType;
 
+  private Config config;
+
   public EnclaveClientProviderTest(AppType appType) {
     this.appType = appType;
   }
@@ -33,7 +37,7 @@ public class EnclaveClientProviderTest {
   @Before
   public void beforeTest() {
     configFactory = mock(ConfigFactory.class);
-    Config config = mock(Config.class);
+    config = mock(Config.class);
     ServerConfig serverConfig = mock(ServerConfig.class);
     when(serverConfig.getApp()).thenReturn(appType);
     when(serverConfig.getServerUri()).thenReturn(URI.create("someEnclaveServerUri"));
@@ -65,6 +69,39 @@ public class EnclaveClientProviderTest {
     verify(configFactory).getConfig();
   }
 
+  @Test
+  public void providerWithSeveralEnclaves() {
+    final List<ServerConfig> serverConfigs =
+        List.of(
+            serverConfig(URI.create("http://enclave1")),
+            serverConfig(URI.create("http://enclave2")));
+    when(config.getServerConfigs()).thenReturn(serverConfigs);
+
+    try (var configFactoryMockedStatic = mockStatic(ConfigFactory.class)) {
+      configFactoryMockedStatic.when(ConfigFactory::create).thenReturn(configFactory);
+
+      if (appType == AppType.ENCLAVE) {
+        EnclaveClient enclaveClient = EnclaveClientProvider.provider();
+        assertThat(enclaveClient).isExactlyInstanceOf(PooledEnclaveClient.class);
+        enclaveClient.stop();
+      } else {
+        Throwable ex = catchThrowable(() -> EnclaveClientProvider.provider());
+        assertThat(ex).isExactlyInstanceOf(NoSuchElementException.class);
+      }
+      configFactoryMockedStatic.verify(ConfigFactory::create);
+      configFactoryMockedStatic.verifyNoMoreInteractions();
+    }
+    verify(configFactory).getConfig();
+  }
+
+  private ServerConfig serverConfig(URI uri) {
+    ServerConfig serverConfig = mock(ServerConfig.class);
+    when(serverConfig.getApp()).thenReturn(appType);
+    when(serverConfig.getServerUri()).thenReturn(uri);
+    when(serverConfig.getProperties()).thenReturn(Map.of("enclaveRouting", "ROUND_ROBIN"));
+    return serverConfig;
+  }
+
   @Test
   public void defaultConstructor() {
     assertThat(new EnclaveClientProvider()).isNotNull();
@@ -0,0 +1,109 @@
+package com.quorum.tessera.enclave.rest;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
+
+/**
+ * Compares the throughput of the remote enclave client when sending requests as JSON and as CBOR.
+ * Each request decrypts a payload with a ciphertext of the given size against an enclave stub, so
+ * the time measured is spent in encoding, transport and decoding.
+ *
+ * <p>Not run as part of the build. Run it with:
+ *
+ * <pre>
+ * ./gradlew :enclave:enclave-jaxrs:enclaveWireFormatBenchmark -PbenchmarkArgs="5 10"
+ * </pre>
+ *
+ * <p>where the optional arguments are the number of seconds to warm up and to measure for each
+ * case, 5 and 10 by default. The figures depend on the machine, so only compare formats within one
+ * run.
+ */
+public class EnclaveWireFormatBenchmark {
+
+  private static final int[] SIZES = {1024, 100 * 1024, 1024 * 1024};
+
+  public static void main(String... args) throws Exception {
+    final long warmupSeconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+    final long measureSeconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+
+    final Enclave enclave = mock(Enclave.class, withSettings().stubOnly());
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+        .thenReturn("result".getBytes());
+
+    // unlike the tests, traffic is not logged as that would dominate the time measured
+    final JerseyTest jersey =
+        new JerseyTest() {
+          @Override
+          protected Application configure() {
+            set(TestProperties.CONTAINER_PORT, "0");
+            return ResourceConfig.forApplication(new EnclaveApplication(enclave));
+          }
+        };
+    jersey.setUp();
+
+    try {
+      System.out.printf("%-10s %-18s %12s %12s%n", "size", "format", "ops/s", "MB/s");
+      for (final int size : SIZES) {
+        final EncodedPayload payload = payload(size);
+        for (final MediaType mediaType :
+            List.of(
+                MediaType.APPLICATION_JSON_TYPE, CBORMessageBodyProvider.APPLICATION_CBOR_TYPE)) {
+          final RestfulEnclaveClient client =
+              new RestfulEnclaveClient(jersey.client(), jersey.target().getUri(), 0L, mediaType);
+
+          run(client, payload, TimeUnit.SECONDS.toNanos(warmupSeconds));
+          final long operations = run(client, payload, TimeUnit.SECONDS.toNanos(measureSeconds));
+
+          final double opsPerSecond = operations / (double) measureSeconds;
+          System.out.printf(
+              "%-10d %-18s %12.1f %12.1f%n",
+              size, mediaType, opsPerSecond, opsPerSecond * size / (1024 * 1024));
+        }
+      }
+    } finally {
+      jersey.tearDown();
+    }
+  }
+
+  private static long run(RestfulEnclaveClient client, EncodedPayload payload, long nanos) {
+    final PublicKey providedKey = payload.getRecipientKeys().get(0);
+    final long end = System.nanoTime() + nanos;
+    long operations = 0;
+    while (System.nanoTime() < end) {
+      client.unencryptTransaction(payload, providedKey);
+      operations++;
+    }
+    return operations;
+  }
+
+  private static EncodedPayload payload(int cipherTextSize) {
+    final Random random = new Random();
+    final byte[] cipherText = new byte[cipherTextSize];
+    random.nextBytes(cipherText);
+
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from(new byte[32]))
+        .withCipherText(cipherText)
+        .withCipherTextNonce(new byte[24])
+        .withRecipientBoxes(List.of(new byte[48]))
+        .withRecipientNonce(new byte[24])
+        .withRecipientKeys(List.of(PublicKey.from(new byte[32])))
+        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+        .build();
+  }
+}
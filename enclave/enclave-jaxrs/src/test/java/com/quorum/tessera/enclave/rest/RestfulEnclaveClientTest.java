@@ -1,5 +1,6 @@
 package com.quorum.tessera.enclave.rest;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -9,13 +10,23 @@ import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service.Status;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.MediaType;
+import java.net.URI;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -130,6 +141,243 @@ public class RestfulEnclaveClientTest {
     verify(enclave).getForwardingKeys();
   }
 
+  @Test
+  public void cachedKeysAreOnlyFetchedOnce() {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+    final PublicKey forwardingKey = PublicKey.from("FORWARDING".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(defaultKey));
+    when(enclave.getForwardingKeys()).thenReturn(Set.of(forwardingKey));
+
+    final ScheduledExecutorService keyRefreshExecutor = mock(ScheduledExecutorService.class);
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            keyRefreshExecutor,
+            CBORMessageBodyProvider.APPLICATION_CBOR_TYPE);
+
+    for (int i = 0; i < 2; i++) {
+      assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+      assertThat(cachingClient.getPublicKeys()).containsExactly(defaultKey);
+      assertThat(cachingClient.getForwardingKeys()).containsExactly(forwardingKey);
+    }
+
+    verify(enclave).defaultPublicKey();
+    verify(enclave).getPublicKeys();
+    verify(enclave).getForwardingKeys();
+    verify(keyRefreshExecutor)
+        .scheduleWithFixedDelay(any(Runnable.class), eq(1000L), eq(1000L), eq(MILLISECONDS));
+
+    cachingClient.stop();
+    verify(keyRefreshExecutor).shutdown();
+  }
+
+  @Test
+  public void refreshKeysFetchesKeysAgainWhenVersionChanges() {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+    final PublicKey addedKey = PublicKey.from("ADDED".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys())
+        .thenReturn(Set.of(defaultKey))
+        .thenReturn(Set.of(defaultKey, addedKey));
+    when(enclave.getForwardingKeys()).thenReturn(Set.of());
+
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            mock(ScheduledExecutorService.class),
+            CBORMessageBodyProvider.APPLICATION_CBOR_TYPE);
+
+    assertThat(cachingClient.getPublicKeys()).containsExactly(defaultKey);
+    assertThat(cachingClient.getForwardingKeys()).isEmpty();
+
+    cachingClient.refreshKeys();
+
+    assertThat(cachingClient.getPublicKeys()).containsExactlyInAnyOrder(defaultKey, addedKey);
+
+    // initial fetch, version check and second fetch
+    verify(enclave, times(3)).defaultPublicKey();
+    verify(enclave, times(3)).getPublicKeys();
+    verify(enclave, times(3)).getForwardingKeys();
+  }
+
+  @Test
+  public void refreshKeysKeepsKeysWhenVersionIsUnchanged() {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(defaultKey));
+    when(enclave.getForwardingKeys()).thenReturn(Set.of());
+
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            mock(ScheduledExecutorService.class),
+            CBORMessageBodyProvider.APPLICATION_CBOR_TYPE);
+
+    assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+
+    cachingClient.refreshKeys();
+
+    assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+
+    verify(enclave, times(2)).defaultPublicKey();
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).getForwardingKeys();
+  }
+
+  @Test
+  public void refreshKeysDoesNothingIfNoKeysAreHeld() {
+
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            mock(ScheduledExecutorService.class),
+            CBORMessageBodyProvider.APPLICATION_CBOR_TYPE);
+
+    cachingClient.refreshKeys();
+  }
+
+  @Test
+  public void invalidatedKeysAreFetchedOnNextUse() {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(defaultKey));
+    when(enclave.getForwardingKeys()).thenReturn(Set.of());
+
+    final ScheduledExecutorService keyRefreshExecutor = mock(ScheduledExecutorService.class);
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            keyRefreshExecutor,
+            CBORMessageBodyProvider.APPLICATION_CBOR_TYPE);
+
+    assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+
+    cachingClient.invalidateKeys();
+
+    assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+
+    verify(enclave, times(2)).defaultPublicKey();
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).getForwardingKeys();
+    verify(keyRefreshExecutor)
+        .scheduleWithFixedDelay(any(Runnable.class), eq(1000L), eq(1000L), eq(MILLISECONDS));
+  }
+
+  @Test
+  public void keysAreFetchedOnEveryRequestIfEnclaveDoesNotHaveKeysEndpoints() throws Exception {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(defaultKey));
+
+    final JerseyTest olderJersey = Util.create(enclave, Set.of("keys", "keys/version"));
+    olderJersey.setUp();
+
+    final ScheduledExecutorService keyRefreshExecutor = mock(ScheduledExecutorService.class);
+    try {
+      final RestfulEnclaveClient cachingClient =
+          new RestfulEnclaveClient(
+              olderJersey.client(),
+              olderJersey.target().getUri(),
+              null,
+              1000L,
+              keyRefreshExecutor,
+              MediaType.APPLICATION_JSON_TYPE);
+
+      assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+      assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+      assertThat(cachingClient.getPublicKeys()).containsExactly(defaultKey);
+    } finally {
+      olderJersey.tearDown();
+    }
+
+    verify(enclave, times(2)).defaultPublicKey();
+    verify(enclave).getPublicKeys();
+    verify(keyRefreshExecutor).isShutdown();
+    verifyNoMoreInteractions(keyRefreshExecutor);
+  }
+
+  @Test
+  public void keysAreNoLongerHeldIfEnclaveLosesKeysVersionEndpoint() throws Exception {
+
+    final PublicKey defaultKey = PublicKey.from("DEFAULT".getBytes());
+
+    when(enclave.defaultPublicKey()).thenReturn(defaultKey);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(defaultKey));
+    when(enclave.getForwardingKeys()).thenReturn(Set.of());
+
+    final JerseyTest olderJersey = Util.create(enclave, Set.of("keys/version"));
+    olderJersey.setUp();
+
+    try {
+      final RestfulEnclaveClient cachingClient =
+          new RestfulEnclaveClient(
+              olderJersey.client(),
+              olderJersey.target().getUri(),
+              null,
+              1000L,
+              mock(ScheduledExecutorService.class),
+              MediaType.APPLICATION_JSON_TYPE);
+
+      assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+
+      cachingClient.refreshKeys();
+
+      assertThat(cachingClient.defaultPublicKey()).isEqualTo(defaultKey);
+    } finally {
+      olderJersey.tearDown();
+    }
+
+    // the initial fetch, then a request of its own once the keys are no longer held
+    verify(enclave, times(2)).defaultPublicKey();
+    verify(enclave).getPublicKeys();
+    verify(enclave).getForwardingKeys();
+  }
+
+  @Test
+  public void stopShutsDownKeyRefreshEvenIfKeysWereNeverFetched() {
+
+    final ScheduledExecutorService keyRefreshExecutor = mock(ScheduledExecutorService.class);
+    final RestfulEnclaveClient cachingClient =
+        new RestfulEnclaveClient(
+            jersey.client(),
+            jersey.target().getUri(),
+            null,
+            1000L,
+            keyRefreshExecutor,
+            MediaType.APPLICATION_JSON_TYPE);
+
+    cachingClient.stop();
+
+    verify(keyRefreshExecutor).shutdown();
+    verifyNoMoreInteractions(keyRefreshExecutor);
+  }
+
   @Test
   public void encryptPayload() {
 
@@ -392,6 +640,66 @@ public class RestfulEnclaveClientTest {
     verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
   }
 
+  @Test
+  public void unencryptTransactionAsJson() {
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+    final byte[] outcome = "SUCCESS".getBytes();
+
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(providedKey)))
+        .thenReturn(outcome);
+
+    final RestfulEnclaveClient jsonClient =
+        new RestfulEnclaveClient(
+            jersey.client(), jersey.target().getUri(), 0L, MediaType.APPLICATION_JSON_TYPE);
+
+    assertThat(jsonClient.unencryptTransaction(payload, providedKey)).isEqualTo(outcome);
+
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), eq(providedKey));
+  }
+
+  @Test
+  public void requestsAreSentAsJsonIfEnclaveDoesNotAcceptCbor() throws Exception {
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+    final byte[] outcome = "SUCCESS".getBytes();
+
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(providedKey)))
+        .thenReturn(outcome);
+
+    final JerseyTest jsonOnlyJersey =
+        new JerseyTest() {
+          @Override
+          protected Application configure() {
+            set(TestProperties.CONTAINER_PORT, "0");
+            return new ResourceConfig()
+                .register(new EnclaveResource(enclave))
+                .register(new DefaultExceptionMapper())
+                .register(new NotSupportedExceptionMapper());
+          }
+        };
+    jsonOnlyJersey.setUp();
+
+    try {
+      final RestfulEnclaveClient client =
+          new RestfulEnclaveClient(jsonOnlyJersey.client(), jsonOnlyJersey.target().getUri());
+
+      assertThat(client.unencryptTransaction(payload, providedKey)).isEqualTo(outcome);
+      assertThat(client.unencryptTransaction(payload, providedKey)).isEqualTo(outcome);
+
+      final RestfulEnclaveClient asyncClient =
+          new RestfulEnclaveClient(jsonOnlyJersey.client(), jsonOnlyJersey.target().getUri());
+      assertThat(asyncClient.unencryptTransactionAsync(payload, providedKey).get())
+          .isEqualTo(outcome);
+    } finally {
+      jsonOnlyJersey.tearDown();
+    }
+
+    verify(enclave, times(3)).unencryptTransaction(any(EncodedPayload.class), eq(providedKey));
+  }
+
   @Test
   public void unencryptRawPayload() throws Exception {
 
@@ -458,6 +766,231 @@ public class RestfulEnclaveClientTest {
     verify(enclave).createNewRecipientBox(any(EncodedPayload.class), any(PublicKey.class));
   }
 
+  @Test
+  public void unencryptTransactions() {
+
+    EncodedPayload payload = Fixtures.createSample();
+
+    PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+
+    when(enclave.unencryptTransactions(anyList(), anyList()))
+        .thenReturn(List.of("FIRST".getBytes(), "SECOND".getBytes()));
+
+    List<byte[]> result =
+        enclaveClient.unencryptTransactions(
+            List.of(payload, payload), Arrays.asList(providedKey, null));
+
+    assertThat(result).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+
+    ArgumentCaptor<List<PublicKey>> keysCaptor = ArgumentCaptor.forClass(List.class);
+    verify(enclave).unencryptTransactions(anyList(), keysCaptor.capture());
+    assertThat(keysCaptor.getValue()).containsExactly(providedKey, null);
+  }
+
+  @Test
+  public void unencryptNoTransactionsDoesNotCallEnclave() {
+    assertThat(enclaveClient.unencryptTransactions(List.of(), List.of())).isEmpty();
+  }
+
+  @Test
+  public void findRecipientKeys() {
+
+    EncodedPayload payload = Fixtures.createSample();
+
+    PublicKey recipientKey = PublicKey.from("RecipientKey".getBytes());
+
+    when(enclave.findRecipientKeys(anyList()))
+        .thenReturn(List.of(Optional.of(recipientKey), Optional.empty()));
+
+    List<Optional<PublicKey>> result = enclaveClient.findRecipientKeys(List.of(payload, payload));
+
+    assertThat(result).containsExactly(Optional.of(recipientKey), Optional.empty());
+
+    verify(enclave).findRecipientKeys(anyList());
+  }
+
+  @Test
+  public void createNewRecipientBoxes() {
+
+    EncodedPayload payload = Fixtures.createSample();
+
+    PublicKey recipientKey = PublicKey.from("RecipientKey".getBytes());
+    PublicKey otherRecipientKey = PublicKey.from("OtherRecipientKey".getBytes());
+
+    when(enclave.createNewRecipientBoxes(any(EncodedPayload.class), anyList()))
+        .thenReturn(List.of("BOX1".getBytes(), "BOX2".getBytes()));
+
+    List<byte[]> result =
+        enclaveClient.createNewRecipientBoxes(payload, List.of(recipientKey, otherRecipientKey));
+
+    assertThat(result).containsExactly("BOX1".getBytes(), "BOX2".getBytes());
+
+    verify(enclave)
+        .createNewRecipientBoxes(
+            any(EncodedPayload.class), eq(List.of(recipientKey, otherRecipientKey)));
+  }
+
+  @Test
+  public void encryptPayloadAsync() throws Exception {
+
+    final byte[] message = "HELLOW".getBytes();
+    final PublicKey senderPublicKey = PublicKey.from("PublicKey".getBytes());
+    final List<PublicKey> recipientPublicKeys =
+        List.of(PublicKey.from("RecipientPublicKey".getBytes()));
+    final EncodedPayload encodedPayload = Fixtures.createSample();
+
+    when(enclave.encryptPayload(eq(message), eq(senderPublicKey), eq(recipientPublicKeys), any()))
+        .thenReturn(encodedPayload);
+
+    final PrivacyMetadata privacyMetaData =
+        PrivacyMetadata.Builder.create().withPrivacyMode(PrivacyMode.STANDARD_PRIVATE).build();
+
+    final EncodedPayload result =
+        enclaveClient
+            .encryptPayloadAsync(message, senderPublicKey, recipientPublicKeys, privacyMetaData)
+            .get(5, TimeUnit.SECONDS);
+
+    assertThat(payloadEncoder.encode(result)).isEqualTo(payloadEncoder.encode(encodedPayload));
+
+    verify(enclave)
+        .encryptPayload(
+            eq(message), eq(senderPublicKey), eq(recipientPublicKeys), any(PrivacyMetadata.class));
+  }
+
+  @Test
+  public void unencryptTransactionAsync() throws Exception {
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(providedKey)))
+        .thenReturn("FIRST".getBytes(), "SECOND".getBytes());
+
+    final CompletableFuture<byte[]> first =
+        enclaveClient.unencryptTransactionAsync(payload, providedKey);
+    final CompletableFuture<byte[]> second =
+        enclaveClient.unencryptTransactionAsync(payload, providedKey);
+
+    assertThat(List.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS)))
+        .containsExactlyInAnyOrder("FIRST".getBytes(), "SECOND".getBytes());
+
+    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), eq(providedKey));
+  }
+
+  @Test
+  public void batchOperationsAsync() throws Exception {
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey key = PublicKey.from("Key".getBytes());
+
+    when(enclave.unencryptTransactions(anyList(), anyList()))
+        .thenReturn(List.of("RESULT".getBytes()));
+    when(enclave.findRecipientKeys(anyList())).thenReturn(List.of(Optional.of(key)));
+    when(enclave.createNewRecipientBoxes(any(EncodedPayload.class), anyList()))
+        .thenReturn(List.of("BOX".getBytes()));
+
+    assertThat(enclaveClient.unencryptTransactionsAsync(List.of(payload), List.of(key)).get())
+        .containsExactly("RESULT".getBytes());
+    assertThat(enclaveClient.findRecipientKeysAsync(List.of(payload)).get())
+        .containsExactly(Optional.of(key));
+    assertThat(enclaveClient.createNewRecipientBoxesAsync(payload, List.of(key)).get())
+        .containsExactly("BOX".getBytes());
+
+    assertThat(enclaveClient.unencryptTransactionsAsync(List.of(), List.of()).get()).isEmpty();
+    assertThat(enclaveClient.findRecipientKeysAsync(List.of()).get()).isEmpty();
+    assertThat(enclaveClient.createNewRecipientBoxesAsync(payload, List.of()).get()).isEmpty();
+    assertThat(enclaveClient.unencryptTransactionsAsync(List.of(payload), List.of()))
+        .isCompletedExceptionally();
+
+    verify(enclave).unencryptTransactions(anyList(), eq(List.of(key)));
+    verify(enclave).findRecipientKeys(anyList());
+    verify(enclave).createNewRecipientBoxes(any(EncodedPayload.class), eq(List.of(key)));
+  }
+
+  @Test
+  public void batchOperationsAreMadeOneAtATimeIfEnclaveDoesNotHaveThem() throws Exception {
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey key = PublicKey.from("Key".getBytes());
+    final PublicKey otherKey = PublicKey.from("OtherKey".getBytes());
+
+    when(enclave.getPublicKeys()).thenReturn(Set.of(key, otherKey));
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(key)))
+        .thenReturn("RESULT".getBytes());
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(otherKey)))
+        .thenThrow(new EnclaveException("Wrong key"));
+    when(enclave.createNewRecipientBox(any(EncodedPayload.class), eq(key)))
+        .thenReturn("BOX".getBytes());
+
+    final JerseyTest olderJersey =
+        Util.create(enclave, Set.of("unencrypt/batch", "findrecipientkeys", "addRecipients"));
+    olderJersey.setUp();
+
+    try {
+      final RestfulEnclaveClient client =
+          new RestfulEnclaveClient(olderJersey.client(), olderJersey.target().getUri());
+
+      assertThat(client.unencryptTransactions(List.of(payload, payload), List.of(key, key)))
+          .containsExactly("RESULT".getBytes(), "RESULT".getBytes());
+      assertThat(client.findRecipientKeys(List.of(payload))).containsExactly(Optional.of(key));
+      assertThat(client.createNewRecipientBoxes(payload, List.of(key)))
+          .containsExactly("BOX".getBytes());
+
+      final RestfulEnclaveClient asyncClient =
+          new RestfulEnclaveClient(olderJersey.client(), olderJersey.target().getUri());
+      assertThat(asyncClient.unencryptTransactionsAsync(List.of(payload), List.of(key)).get())
+          .containsExactly("RESULT".getBytes());
+      assertThat(asyncClient.findRecipientKeysAsync(List.of(payload)).get())
+          .containsExactly(Optional.of(key));
+    } finally {
+      olderJersey.tearDown();
+    }
+
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(4)).unencryptTransaction(any(EncodedPayload.class), eq(key));
+    verify(enclave, atMost(2)).unencryptTransaction(any(EncodedPayload.class), eq(otherKey));
+    verify(enclave).createNewRecipientBox(any(EncodedPayload.class), eq(key));
+  }
+
+  @Test
+  public void remoteEnclaveReturnsErrorAsync() {
+
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+        .thenThrow(new RuntimeException());
+
+    final CompletableFuture<byte[]> result =
+        enclaveClient.unencryptTransactionAsync(
+            Fixtures.createSample(), PublicKey.from("ProvidedKey".getBytes()));
+
+    assertThat(catchThrowable(() -> result.get(5, TimeUnit.SECONDS)))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseExactlyInstanceOf(EnclaveNotAvailableException.class);
+
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+  }
+
+  @Test
+  public void unreachableEnclaveAsync() throws Exception {
+
+    final URI uri = jersey.target().getUri();
+    jersey.tearDown();
+
+    final Client client = ClientBuilder.newClient();
+    try {
+      final CompletableFuture<byte[]> result =
+          new RestfulEnclaveClient(client, uri)
+              .unencryptTransactionAsync(
+                  Fixtures.createSample(), PublicKey.from("ProvidedKey".getBytes()));
+
+      assertThat(catchThrowable(() -> result.get(5, TimeUnit.SECONDS)))
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseExactlyInstanceOf(EnclaveNotAvailableException.class);
+    } finally {
+      client.close();
+      jersey.setUp();
+    }
+  }
+
   @Test
   public void statusStarted() {
     when(enclave.status()).thenReturn(Status.STARTED);
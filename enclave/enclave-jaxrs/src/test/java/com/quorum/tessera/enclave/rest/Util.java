@@ -1,7 +1,12 @@
 package com.quorum.tessera.enclave.rest;
 
 import com.quorum.tessera.enclave.Enclave;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
 import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.Response;
+import java.util.Set;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.JerseyTest;
 import org.glassfish.jersey.test.TestProperties;
@@ -10,6 +15,14 @@ import org.slf4j.bridge.SLF4JBridgeHandler;
 public class Util {
 
   public static JerseyTest create(Enclave enclave) {
+    return create(enclave, Set.of());
+  }
+
+  /**
+   * Creates an enclave server that answers requests to the given paths with a 404, as an older
+   * version without those endpoints does.
+   */
+  public static JerseyTest create(Enclave enclave, Set<String> missingPaths) {
 
     SLF4JBridgeHandler.removeHandlersForRootLogger();
     SLF4JBridgeHandler.install();
@@ -22,8 +35,26 @@ public class Util {
         enable(TestProperties.DUMP_ENTITY);
         set(TestProperties.CONTAINER_PORT, "0");
 
-        return ResourceConfig.forApplication(new EnclaveApplication(enclave));
+        return ResourceConfig.forApplication(new EnclaveApplication(enclave))
+            .register(new MissingPaths(missingPaths));
       }
     };
   }
+
+  @PreMatching
+  private static class MissingPaths implements ContainerRequestFilter {
+
+    private final Set<String> paths;
+
+    private MissingPaths(Set<String> paths) {
+      this.paths = paths;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+      if (paths.contains(requestContext.getUriInfo().getPath())) {
+        requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).build());
+      }
+    }
+  }
 }
@@ -0,0 +1,232 @@
+package com.quorum.tessera.encryption;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link Encryptor} that remembers the result of {@link Encryptor#computeSharedKey(PublicKey,
+ * PrivateKey)} for recently used key pairs, so the asymmetric step is only performed once per
+ * remote party rather than once per message.
+ *
+ * <p>The cache is bounded in size and evicts the least recently used pair first. An optional expiry
+ * removes entries that have been held longer than the configured time regardless of use. Evicted
+ * shared keys have their bytes overwritten, and callers only ever receive a copy of the cached key
+ * so that eviction cannot affect a key that is still in use.
+ *
+ * <p>All other operations are passed to the delegate unchanged.
+ */
+public class SharedKeyCachingEncryptor implements Encryptor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SharedKeyCachingEncryptor.class);
+
+  private final Encryptor delegate;
+
+  private final int maxSize;
+
+  private final long expiryNanos;
+
+  private final LongSupplier clock;
+
+  private final Map<CacheKey, CacheEntry> cache;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param delegate the encryptor that performs the actual operations
+   * @param maxSize the maximum number of shared keys to hold
+   * @param expiryMillis how long an entry may be held, or zero (or less) for no expiry
+   */
+  public SharedKeyCachingEncryptor(Encryptor delegate, int maxSize, long expiryMillis) {
+    this(delegate, maxSize, expiryMillis, System::nanoTime);
+  }
+
+  SharedKeyCachingEncryptor(
+      Encryptor delegate, int maxSize, long expiryMillis, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Shared key cache size must be at least 1");
+    }
+    this.delegate = Objects.requireNonNull(delegate);
+    this.maxSize = maxSize;
+    this.expiryNanos = expiryMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(expiryMillis) : 0;
+    this.clock = Objects.requireNonNull(clock);
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  @Override
+  public SharedKey computeSharedKey(PublicKey publicKey, PrivateKey privateKey) {
+    final CacheKey cacheKey = new CacheKey(publicKey, privateKey);
+
+    synchronized (cache) {
+      final CacheEntry entry = cache.get(cacheKey);
+      if (entry != null) {
+        if (!isExpired(entry)) {
+          hits.incrementAndGet();
+          return SharedKey.from(entry.keyBytes.clone());
+        }
+        cache.remove(cacheKey);
+        evict(entry);
+      }
+    }
+
+    misses.incrementAndGet();
+
+    // computed outside of the lock so a slow multiplication does not block other key pairs
+    final SharedKey sharedKey = delegate.computeSharedKey(publicKey, privateKey);
+    final CacheEntry created = new CacheEntry(sharedKey.getKeyBytes().clone(), clock.getAsLong());
+
+    synchronized (cache) {
+      final CacheEntry previous = cache.put(cacheKey, created);
+      if (previous != null) {
+        evict(previous);
+      }
+      final Iterator<CacheEntry> iterator = cache.values().iterator();
+      while (cache.size() > maxSize && iterator.hasNext()) {
+        final CacheEntry eldest = iterator.next();
+        iterator.remove();
+        evict(eldest);
+      }
+    }
+
+    return sharedKey;
+  }
+
+  private boolean isExpired(CacheEntry entry) {
+    return expiryNanos > 0 && clock.getAsLong() - entry.createdAt >= expiryNanos;
+  }
+
+  private void evict(CacheEntry entry) {
+    Arrays.fill(entry.keyBytes, (byte) 0);
+    evictions.incrementAndGet();
+  }
+
+  /** Removes and zeroes every cached shared key. */
+  public void clear() {
+    synchronized (cache) {
+      cache.values().forEach(this::evict);
+      cache.clear();
+    }
+    LOGGER.debug("Cleared shared key cache");
+  }
+
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  @Override
+  public byte[] seal(byte[] message, Nonce nonce, PublicKey publicKey, PrivateKey privateKey) {
+    return delegate.seal(message, nonce, publicKey, privateKey);
+  }
+
+  @Override
+  public byte[] open(byte[] cipherText, Nonce nonce, PublicKey publicKey, PrivateKey privateKey) {
+    return delegate.open(cipherText, nonce, publicKey, privateKey);
+  }
+
+  @Override
+  public byte[] sealAfterPrecomputation(byte[] message, Nonce nonce, SharedKey sharedKey) {
+    return delegate.sealAfterPrecomputation(message, nonce, sharedKey);
+  }
+
+  @Override
+  public byte[] sealAfterPrecomputation(byte[] message, Nonce nonce, MasterKey masterKey) {
+    return delegate.sealAfterPrecomputation(message, nonce, masterKey);
+  }
+
+  @Override
+  public byte[] openAfterPrecomputation(byte[] cipherText, Nonce nonce, SharedKey sharedKey) {
+    return delegate.openAfterPrecomputation(cipherText, nonce, sharedKey);
+  }
+
+  @Override
+  public byte[] openAfterPrecomputation(
+      byte[] cipherText, Nonce cipherTextNonce, MasterKey masterKey) {
+    return delegate.openAfterPrecomputation(cipherText, cipherTextNonce, masterKey);
+  }
+
+  @Override
+  public Nonce randomNonce() {
+    return delegate.randomNonce();
+  }
+
+  @Override
+  public KeyPair generateNewKeys() {
+    return delegate.generateNewKeys();
+  }
+
+  @Override
+  public SharedKey createSingleKey() {
+    return delegate.createSingleKey();
+  }
+
+  @Override
+  public MasterKey createMasterKey() {
+    return delegate.createMasterKey();
+  }
+
+  private static final class CacheKey {
+
+    private final PublicKey publicKey;
+
+    private final PrivateKey privateKey;
+
+    private CacheKey(PublicKey publicKey, PrivateKey privateKey) {
+      this.publicKey = Objects.requireNonNull(publicKey);
+      this.privateKey = Objects.requireNonNull(privateKey);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey that = (CacheKey) o;
+      return publicKey.equals(that.publicKey) && privateKey.equals(that.privateKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(publicKey, privateKey);
+    }
+  }
+
+  private static final class CacheEntry {
+
+    private final byte[] keyBytes;
+
+    private final long createdAt;
+
+    private CacheEntry(byte[] keyBytes, long createdAt) {
+      this.keyBytes = keyBytes;
+      this.createdAt = createdAt;
+    }
+  }
+}
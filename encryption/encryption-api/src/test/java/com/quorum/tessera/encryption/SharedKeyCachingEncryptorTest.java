@@ -0,0 +1,143 @@
+package com.quorum.tessera.encryption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedKeyCachingEncryptorTest {
+
+  private static final PublicKey PUBLIC_KEY = PublicKey.from("publicKey".getBytes());
+
+  private static final PublicKey OTHER_PUBLIC_KEY = PublicKey.from("otherPublicKey".getBytes());
+
+  private static final PrivateKey PRIVATE_KEY = PrivateKey.from("privateKey".getBytes());
+
+  private Encryptor delegate;
+
+  private AtomicLong clock;
+
+  private SharedKeyCachingEncryptor encryptor;
+
+  @Before
+  public void onSetUp() {
+    delegate = mock(Encryptor.class);
+    clock = new AtomicLong();
+    encryptor = new SharedKeyCachingEncryptor(delegate, 1, 1000L, clock::get);
+  }
+
+  @After
+  public void onTearDown() {
+    verifyNoMoreInteractions(delegate);
+  }
+
+  @Test
+  public void secondLookupIsServedFromCache() {
+    when(delegate.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY))
+        .thenReturn(SharedKey.from("shared".getBytes()));
+
+    final SharedKey first = encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+    final SharedKey second = encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+
+    assertThat(second).isEqualTo(first).isNotSameAs(first);
+    assertThat(encryptor.getHitCount()).isEqualTo(1);
+    assertThat(encryptor.getMissCount()).isEqualTo(1);
+    assertThat(encryptor.size()).isEqualTo(1);
+
+    verify(delegate).computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvictedAndZeroedWhenFull() {
+    final SharedKey sharedKey = SharedKey.from("shared".getBytes());
+    final SharedKey otherSharedKey = SharedKey.from("other".getBytes());
+    when(delegate.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY)).thenReturn(sharedKey);
+    when(delegate.computeSharedKey(OTHER_PUBLIC_KEY, PRIVATE_KEY)).thenReturn(otherSharedKey);
+
+    final SharedKey result = encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+    encryptor.computeSharedKey(OTHER_PUBLIC_KEY, PRIVATE_KEY);
+    encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+
+    // the key handed to the caller is never zeroed by eviction
+    assertThat(result.getKeyBytes()).isEqualTo("shared".getBytes());
+    assertThat(encryptor.getHitCount()).isZero();
+    assertThat(encryptor.getMissCount()).isEqualTo(3);
+    assertThat(encryptor.getEvictionCount()).isEqualTo(2);
+
+    verify(delegate, times(2)).computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+    verify(delegate).computeSharedKey(OTHER_PUBLIC_KEY, PRIVATE_KEY);
+  }
+
+  @Test
+  public void expiredEntryIsRecomputed() {
+    when(delegate.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY))
+        .thenReturn(SharedKey.from("shared".getBytes()));
+
+    encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000L));
+    encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+
+    assertThat(encryptor.getHitCount()).isZero();
+    assertThat(encryptor.getMissCount()).isEqualTo(2);
+    assertThat(encryptor.getEvictionCount()).isEqualTo(1);
+
+    verify(delegate, times(2)).computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+  }
+
+  @Test
+  public void clearRemovesAllEntries() {
+    when(delegate.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY))
+        .thenReturn(SharedKey.from("shared".getBytes()));
+
+    encryptor.computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+    encryptor.clear();
+
+    assertThat(encryptor.size()).isZero();
+    assertThat(encryptor.getEvictionCount()).isEqualTo(1);
+
+    verify(delegate).computeSharedKey(PUBLIC_KEY, PRIVATE_KEY);
+  }
+
+  @Test
+  public void invalidSizeIsRejected() {
+    final Throwable throwable =
+        catchThrowable(() -> new SharedKeyCachingEncryptor(delegate, 0, 0L));
+
+    assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void otherOperationsAreDelegated() {
+    final byte[] data = "data".getBytes();
+    final Nonce nonce = mock(Nonce.class);
+    final SharedKey sharedKey = mock(SharedKey.class);
+    final MasterKey masterKey = mock(MasterKey.class);
+
+    encryptor.seal(data, nonce, PUBLIC_KEY, PRIVATE_KEY);
+    encryptor.open(data, nonce, PUBLIC_KEY, PRIVATE_KEY);
+    encryptor.sealAfterPrecomputation(data, nonce, sharedKey);
+    encryptor.sealAfterPrecomputation(data, nonce, masterKey);
+    encryptor.openAfterPrecomputation(data, nonce, sharedKey);
+    encryptor.openAfterPrecomputation(data, nonce, masterKey);
+    encryptor.randomNonce();
+    encryptor.generateNewKeys();
+    encryptor.createSingleKey();
+    encryptor.createMasterKey();
+
+    verify(delegate).seal(data, nonce, PUBLIC_KEY, PRIVATE_KEY);
+    verify(delegate).open(data, nonce, PUBLIC_KEY, PRIVATE_KEY);
+    verify(delegate).sealAfterPrecomputation(data, nonce, sharedKey);
+    verify(delegate).sealAfterPrecomputation(data, nonce, masterKey);
+    verify(delegate).openAfterPrecomputation(data, nonce, sharedKey);
+    verify(delegate).openAfterPrecomputation(data, nonce, masterKey);
+    verify(delegate).randomNonce();
+    verify(delegate).generateNewKeys();
+    verify(delegate).createSingleKey();
+    verify(delegate).createMasterKey();
+  }
+}
@@ -1,6 +1,7 @@
 package com.quorum.tessera.multitenancy.migration;
 
 import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionCursor;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.enclave.RecipientBox;
@@ -8,10 +9,8 @@ import com.quorum.tessera.enclave.SecurityHash;
 import com.quorum.tessera.enclave.TxHash;
 import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class EncryptedTransactionMigrator {
 
@@ -29,21 +28,9 @@ public class EncryptedTransactionMigrator {
 
   public void migrate() {
 
-    final long secondaryTxCount =
-        secondaryEntityManager
-            .createQuery("select count(e) from EncryptedTransaction e", Long.class)
-            .getSingleResult();
-    final int batchCount = calculateBatchCount(maxBatchSize, secondaryTxCount);
-
-    IntStream.range(0, batchCount)
-        .map(i -> i * maxBatchSize)
-        .mapToObj(
-            offset ->
-                secondaryEntityManager
-                    .createNamedQuery("EncryptedTransaction.FindAll", EncryptedTransaction.class)
-                    .setFirstResult(offset)
-                    .setMaxResults(maxBatchSize))
-        .flatMap(TypedQuery::getResultStream)
+    new EncryptedTransactionCursor(
+            callback -> callback.execute(secondaryEntityManager), maxBatchSize)
+        .stream()
         .forEach(
             et -> {
               final Optional<EncryptedTransaction> existing =
@@ -193,8 +180,4 @@ public class EncryptedTransactionMigrator {
     return combinedAffectedTxs.entrySet().stream()
         .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().getData()));
   }
-
-  static int calculateBatchCount(long maxResults, long total) {
-    return (int) Math.ceil((double) total / maxResults);
-  }
 }
@@ -0,0 +1,72 @@
+package com.quorum.tessera.migration.partyindex;
+
+import com.quorum.tessera.cli.CliAdapter;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.data.TransactionMetadataBackfill;
+import com.quorum.tessera.data.TransactionPartyBackfill;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    headerHeading = "Usage:%n%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    header =
+        "Index the sender, recipients and privacy metadata of transactions stored by an earlier"
+            + " version")
+public class PartyIndexCliAdapter implements CliAdapter, Callable<CliResult> {
+
+  @CommandLine.Option(
+      names = "--configfile",
+      description = "path to node configuration file",
+      required = true)
+  private Config config;
+
+  @CommandLine.Option(
+      names = "--batchsize",
+      description = "number of transactions to index in each database transaction",
+      defaultValue = "100")
+  private int batchSize;
+
+  @Override
+  public CliType getType() {
+    return CliType.PARTY_INDEX_MIGRATION;
+  }
+
+  @Override
+  public CliResult execute(String... args) {
+    final JdbcConfig jdbcConfig = config.getJdbcConfig();
+    final EntityManagerFactory entityManagerFactory =
+        Persistence.createEntityManagerFactory(
+            "tessera",
+            Map.of(
+                "jakarta.persistence.jdbc.url", jdbcConfig.getUrl(),
+                "jakarta.persistence.jdbc.user", jdbcConfig.getUsername(),
+                "jakarta.persistence.jdbc.password", jdbcConfig.getPassword()));
+    try {
+      final long indexed = new TransactionPartyBackfill(entityManagerFactory, batchSize).run();
+      System.out.printf("Indexed %d transactions%n", indexed);
+      // the party index must be complete first, as filtered scans rely on it once described
+      final long described =
+          new TransactionMetadataBackfill(entityManagerFactory, batchSize).run();
+      System.out.printf("Described %d transactions%n", described);
+    } finally {
+      entityManagerFactory.close();
+    }
+
+    return new CliResult(0, true, null);
+  }
+
+  @Override
+  public CliResult call() {
+    return this.execute();
+  }
+}
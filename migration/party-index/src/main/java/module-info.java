@@ -0,0 +1,14 @@
+module tessera.migration.partyindex {
+  requires tessera.cli.api;
+  requires tessera.data;
+  requires tessera.config;
+  requires info.picocli;
+  requires java.sql;
+  requires jakarta.persistence;
+
+  opens com.quorum.tessera.migration.partyindex to
+      info.picocli;
+
+  exports com.quorum.tessera.migration.partyindex to
+      info.picocli;
+}
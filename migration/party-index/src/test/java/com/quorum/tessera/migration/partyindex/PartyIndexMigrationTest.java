@@ -0,0 +1,130 @@
+package com.quorum.tessera.migration.partyindex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.cli.parsers.ConfigConverter;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.util.JaxbUtil;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine;
+
+public class PartyIndexMigrationTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path configPath;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  @Before
+  public void beforeTest() throws IOException {
+    Config config = new Config();
+    config.setJdbcConfig(new JdbcConfig());
+    config.getJdbcConfig().setUsername("junit");
+    config.getJdbcConfig().setPassword("junit");
+    config
+        .getJdbcConfig()
+        .setUrl("jdbc:h2:" + workDir.getRoot().toPath().resolve("node.db").toString());
+
+    configPath = workDir.getRoot().toPath().toAbsolutePath().resolve("config.json");
+    try (OutputStream outputStream = Files.newOutputStream(configPath)) {
+      JaxbUtil.marshalWithNoValidation(config, outputStream);
+    }
+
+    entityManagerFactory =
+        Persistence.createEntityManagerFactory(
+            "tessera",
+            Map.of(
+                "jakarta.persistence.jdbc.url", config.getJdbcConfig().getUrl(),
+                "jakarta.persistence.jdbc.user", "junit",
+                "jakarta.persistence.jdbc.password", "junit",
+                "jakarta.persistence.schema-generation.database.action", "drop-and-create"));
+
+    // store some transactions, then drop their index as if stored by an earlier version
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    IntStream.range(0, 10)
+        .mapToObj(
+            i ->
+                new EncryptedTransaction(
+                    new MessageHash(UUID.randomUUID().toString().getBytes()), payload()))
+        .forEach(entityManager::persist);
+    entityManager.getTransaction().commit();
+
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager
+        .createNativeQuery("UPDATE ENCRYPTED_TRANSACTION SET PRIVACY_MODE = NULL")
+        .executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @After
+  public void afterTest() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  public void indexParties() {
+    PartyIndexCliAdapter command = new PartyIndexCliAdapter();
+    assertThat(command.getType()).isEqualTo(CliType.PARTY_INDEX_MIGRATION);
+
+    final CommandLine commandLine = new CommandLine(command);
+    commandLine
+        .registerConverter(Config.class, new ConfigConverter())
+        .setSeparator(" ")
+        .setCaseInsensitiveEnumValuesAllowed(true);
+
+    int exitCode = commandLine.execute("--configfile", configPath.toString(), "--batchsize", "3");
+    assertThat(exitCode).isZero();
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    final Number parties =
+        (Number)
+            entityManager
+                .createNativeQuery("SELECT COUNT(*) FROM ENCRYPTED_TRANSACTION_PARTY")
+                .getSingleResult();
+    // a sender and a recipient for each transaction
+    assertThat(parties.longValue()).isEqualTo(20);
+
+    final Number undescribed =
+        (Number)
+            entityManager
+                .createNativeQuery(
+                    "SELECT COUNT(*) FROM ENCRYPTED_TRANSACTION WHERE PRIVACY_MODE IS NULL")
+                .getSingleResult();
+    assertThat(undescribed.longValue()).isZero();
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("SENDER".getBytes()))
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(PublicKey.from("RECIPIENT".getBytes())))
+        .build();
+  }
+}
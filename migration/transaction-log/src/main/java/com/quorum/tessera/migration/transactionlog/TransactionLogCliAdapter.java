@@ -0,0 +1,82 @@
+package com.quorum.tessera.migration.transactionlog;
+
+import com.quorum.tessera.cli.CliAdapter;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.data.TransactionLogImport;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    headerHeading = "Usage:%n%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    header = "Copy the transactions stored in a node's database into an embedded transaction log")
+public class TransactionLogCliAdapter implements CliAdapter, Callable<CliResult> {
+
+  @CommandLine.Option(
+      names = "--configfile",
+      description = "path to node configuration file",
+      required = true)
+  private Config config;
+
+  @CommandLine.Option(
+      names = "--transactionlogpath",
+      description =
+          "directory of the transaction log to copy into, if not the one in the configuration")
+  private Path transactionLogPath;
+
+  @CommandLine.Option(
+      names = "--batchsize",
+      description = "number of transactions to read and append at once",
+      defaultValue = "100")
+  private int batchSize;
+
+  @Override
+  public CliType getType() {
+    return CliType.TRANSACTION_LOG_MIGRATION;
+  }
+
+  @Override
+  public CliResult execute(String... args) {
+    final JdbcConfig jdbcConfig = config.getJdbcConfig();
+    final Optional<Path> target =
+        Optional.ofNullable(transactionLogPath)
+            .or(() -> Optional.ofNullable(jdbcConfig.getTransactionLogPath()));
+    if (target.isEmpty()) {
+      System.err.println("No transaction log path given, or set in the configuration");
+      return new CliResult(1, true, null);
+    }
+
+    final EntityManagerFactory entityManagerFactory =
+        Persistence.createEntityManagerFactory(
+            "tessera",
+            Map.of(
+                "jakarta.persistence.jdbc.url", jdbcConfig.getUrl(),
+                "jakarta.persistence.jdbc.user", jdbcConfig.getUsername(),
+                "jakarta.persistence.jdbc.password", jdbcConfig.getPassword()));
+    try {
+      final long copied =
+          new TransactionLogImport(entityManagerFactory, target.get(), batchSize).run();
+      System.out.printf("Copied %d transactions into %s%n", copied, target.get());
+    } finally {
+      entityManagerFactory.close();
+    }
+
+    return new CliResult(0, true, null);
+  }
+
+  @Override
+  public CliResult call() {
+    return this.execute();
+  }
+}
@@ -0,0 +1,144 @@
+package com.quorum.tessera.migration.transactionlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.cli.parsers.ConfigConverter;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.util.JaxbUtil;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine;
+
+public class TransactionLogMigrationTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Config config;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  @Before
+  public void beforeTest() {
+    config = new Config();
+    config.setJdbcConfig(new JdbcConfig());
+    config.getJdbcConfig().setUsername("junit");
+    config.getJdbcConfig().setPassword("junit");
+    config
+        .getJdbcConfig()
+        .setUrl("jdbc:h2:" + workDir.getRoot().toPath().resolve("node.db").toString());
+
+    entityManagerFactory =
+        Persistence.createEntityManagerFactory(
+            "tessera",
+            Map.of(
+                "jakarta.persistence.jdbc.url", config.getJdbcConfig().getUrl(),
+                "jakarta.persistence.jdbc.user", "junit",
+                "jakarta.persistence.jdbc.password", "junit",
+                "jakarta.persistence.schema-generation.database.action", "drop-and-create"));
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    IntStream.range(0, 10)
+        .mapToObj(
+            i ->
+                new EncryptedTransaction(
+                    new MessageHash(UUID.randomUUID().toString().getBytes()), payload()))
+        .forEach(entityManager::persist);
+    entityManager.getTransaction().commit();
+  }
+
+  @After
+  public void afterTest() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  public void copiesIntoConfiguredTransactionLog() throws IOException {
+    final Path transactionLogPath = workDir.getRoot().toPath().resolve("transactions");
+    config.getJdbcConfig().setTransactionLogPath(transactionLogPath);
+
+    final int exitCode = execute("--configfile", writeConfig().toString(), "--batchsize", "3");
+
+    assertThat(exitCode).isZero();
+    assertThat(Files.list(transactionLogPath))
+        .anyMatch(file -> file.getFileName().toString().endsWith(".log"));
+  }
+
+  @Test
+  public void copiesIntoGivenTransactionLog() throws IOException {
+    final Path transactionLogPath = workDir.getRoot().toPath().resolve("elsewhere");
+
+    final int exitCode =
+        execute(
+            "--configfile",
+            writeConfig().toString(),
+            "--transactionlogpath",
+            transactionLogPath.toString());
+
+    assertThat(exitCode).isZero();
+    assertThat(Files.list(transactionLogPath))
+        .anyMatch(file -> file.getFileName().toString().endsWith(".log"));
+  }
+
+  @Test
+  public void transactionLogPathIsRequired() throws IOException {
+    final int exitCode = execute("--configfile", writeConfig().toString());
+
+    assertThat(exitCode).isEqualTo(1);
+  }
+
+  private int execute(final String... args) {
+    TransactionLogCliAdapter command = new TransactionLogCliAdapter();
+    assertThat(command.getType()).isEqualTo(CliType.TRANSACTION_LOG_MIGRATION);
+
+    final CommandLine commandLine = new CommandLine(command);
+    commandLine
+        .registerConverter(Config.class, new ConfigConverter())
+        .setSeparator(" ")
+        .setCaseInsensitiveEnumValuesAllowed(true);
+
+    commandLine.execute(args);
+    final CliResult result = commandLine.getExecutionResult();
+    return result.getStatus();
+  }
+
+  private Path writeConfig() throws IOException {
+    final Path configPath = workDir.getRoot().toPath().toAbsolutePath().resolve("config.json");
+    try (OutputStream outputStream = Files.newOutputStream(configPath)) {
+      JaxbUtil.marshalWithNoValidation(config, outputStream);
+    }
+    return configPath;
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("SENDER".getBytes()))
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(PublicKey.from("RECIPIENT".getBytes())))
+        .build();
+  }
+}
@@ -0,0 +1,97 @@
+package com.quorum.tessera.jaxrs.jetty;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.ToIntFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Totals the connection pools of every started HTTP client, so that they can be watched as one
+ * however many clients have been built.
+ */
+class HttpClientPool implements HttpClientPoolMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientPool.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=HttpClientPool";
+
+  private static HttpClientPool shared;
+
+  private final Set<HttpClient> httpClients = new CopyOnWriteArraySet<>();
+
+  /** @return the statistics shared by every HTTP client in this process */
+  static synchronized HttpClientPool shared() {
+    if (shared == null) {
+      shared = new HttpClientPool();
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(shared, new ObjectName(OBJECT_NAME));
+      } catch (final JMException ex) {
+        LOGGER.warn("Unable to register HTTP client pool statistics", ex);
+      }
+    }
+    return shared;
+  }
+
+  void add(final HttpClient httpClient) {
+    httpClients.add(httpClient);
+  }
+
+  void remove(final HttpClient httpClient) {
+    httpClients.remove(httpClient);
+  }
+
+  @Override
+  public int getDestinationCount() {
+    return httpClients.stream().mapToInt(httpClient -> httpClient.getDestinations().size()).sum();
+  }
+
+  @Override
+  public int getConnectionCount() {
+    return sumOfPools(AbstractConnectionPool::getConnectionCount);
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return sumOfPools(AbstractConnectionPool::getActiveConnectionCount);
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return sumOfPools(AbstractConnectionPool::getIdleConnectionCount);
+  }
+
+  @Override
+  public int getPendingConnectionCount() {
+    return sumOfPools(AbstractConnectionPool::getPendingConnectionCount);
+  }
+
+  @Override
+  public int getQueuedRequestCount() {
+    return sumOfDestinations(HttpDestination::getQueuedRequestCount);
+  }
+
+  private int sumOfPools(final ToIntFunction<AbstractConnectionPool> count) {
+    return sumOfDestinations(
+        destination ->
+            destination.getConnectionPool() instanceof AbstractConnectionPool
+                ? count.applyAsInt((AbstractConnectionPool) destination.getConnectionPool())
+                : 0);
+  }
+
+  private int sumOfDestinations(final ToIntFunction<HttpDestination> count) {
+    return httpClients.stream()
+        .flatMap(httpClient -> httpClient.getDestinations().stream())
+        .filter(HttpDestination.class::isInstance)
+        .map(HttpDestination.class::cast)
+        .mapToInt(count)
+        .sum();
+  }
+}
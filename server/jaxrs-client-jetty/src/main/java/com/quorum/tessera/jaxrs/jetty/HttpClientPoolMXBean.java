@@ -0,0 +1,23 @@
+package com.quorum.tessera.jaxrs.jetty;
+
+/** Statistics of the connections held by the pooled HTTP clients in this process */
+public interface HttpClientPoolMXBean {
+
+  /** @return how many hosts connections are pooled for */
+  int getDestinationCount();
+
+  /** @return how many connections are open or being opened */
+  int getConnectionCount();
+
+  /** @return how many connections are carrying a request */
+  int getActiveConnectionCount();
+
+  /** @return how many connections are open and waiting for a request */
+  int getIdleConnectionCount();
+
+  /** @return how many connections are being opened */
+  int getPendingConnectionCount();
+
+  /** @return how many requests are waiting for a connection */
+  int getQueuedRequestCount();
+}
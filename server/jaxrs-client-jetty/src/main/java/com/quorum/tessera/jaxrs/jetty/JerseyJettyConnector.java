@@ -0,0 +1,200 @@
+package com.quorum.tessera.jaxrs.jetty;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.util.BytesRequestContent;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.client.util.OutputStreamRequestContent;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends requests over a Jetty {@link HttpClient}, which keeps connections to each host open between
+ * requests and speaks HTTP/2 to hosts that offer it over TLS.
+ *
+ * <p>An entity is buffered so that its length can be sent, unless the request asks for {@link
+ * RequestEntityProcessing#CHUNKED} processing, in which case it is written to the connection as it
+ * is produced.
+ */
+public class JerseyJettyConnector implements Connector {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JerseyJettyConnector.class);
+
+  private final HttpClient httpClient;
+
+  public JerseyJettyConnector(final HttpClient httpClient) {
+    this.httpClient = httpClient;
+    try {
+      httpClient.start();
+    } catch (Exception ex) {
+      throw new RuntimeException(ex);
+    }
+    HttpClientPool.shared().add(httpClient);
+  }
+
+  @Override
+  public ClientResponse apply(final ClientRequest request) {
+    try {
+      return doApply(request);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ProcessingException(ex);
+    } catch (ExecutionException ex) {
+      throw new ProcessingException(ex.getCause());
+    } catch (Exception ex) {
+      throw new ProcessingException(ex);
+    }
+  }
+
+  private ClientResponse doApply(final ClientRequest request) throws Exception {
+    final Request jettyRequest =
+        httpClient.newRequest(request.getUri()).method(request.getMethod());
+
+    final int readTimeout = request.resolveProperty(ClientProperties.READ_TIMEOUT, 0);
+    if (readTimeout > 0) {
+      jettyRequest.idleTimeout(readTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    // the response body is streamed, so it is not held in memory however large it is
+    final InputStreamResponseListener listener = new InputStreamResponseListener();
+    if (!request.hasEntity()) {
+      copyHeaders(request, jettyRequest);
+      jettyRequest.send(listener);
+    } else if (isChunked(request)) {
+      sendStreaming(request, jettyRequest, listener);
+    } else {
+      // the entity is written first, as writing it can add headers such as its content type
+      final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+      request.setStreamProvider(contentLength -> entity);
+      request.writeEntity();
+      jettyRequest.body(new BytesRequestContent(entity.toByteArray()));
+      copyHeaders(request, jettyRequest);
+      jettyRequest.send(listener);
+    }
+    final Response response = listener.get(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+    LOGGER.trace(
+        "uri {}, method: {}, version: {}, statusCode: {}",
+        request.getUri(),
+        request.getMethod(),
+        response.getVersion(),
+        response.getStatus());
+
+    final ClientResponse clientResponse =
+        new ClientResponse(
+            response.getReason() == null
+                ? Statuses.from(response.getStatus())
+                : Statuses.from(response.getStatus(), response.getReason()),
+            request);
+    response
+        .getHeaders()
+        .forEach(field -> clientResponse.header(field.getName(), field.getValue()));
+    clientResponse.setEntityStream(listener.getInputStream());
+    return clientResponse;
+  }
+
+  private static boolean isChunked(final ClientRequest request) {
+    // set as either the enum or its name
+    final Object processing =
+        request.resolveProperty(ClientProperties.REQUEST_ENTITY_PROCESSING, Object.class);
+    return processing != null
+        && RequestEntityProcessing.CHUNKED.name().equals(processing.toString());
+  }
+
+  /**
+   * Sends the request once its entity starts to be written, when its headers can no longer change,
+   * and then writes the entity to the connection, each write waiting until Jetty has taken it.
+   */
+  private static void sendStreaming(
+      final ClientRequest request,
+      final Request jettyRequest,
+      final Response.CompleteListener listener)
+      throws IOException {
+    final OutputStreamRequestContent content = new OutputStreamRequestContent();
+    jettyRequest.body(content);
+    request.setStreamProvider(
+        contentLength -> {
+          copyHeaders(request, jettyRequest);
+          jettyRequest.send(listener);
+          // the content is only ended once the whole entity has been written, below
+          return new FilterOutputStream(content.getOutputStream()) {
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length)
+                throws IOException {
+              out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+              flush();
+            }
+          };
+        });
+    try {
+      request.writeEntity();
+    } catch (IOException | RuntimeException ex) {
+      // so that the part already sent isn't taken for the whole entity
+      jettyRequest.abort(ex);
+      throw ex;
+    }
+    content.getOutputStream().close();
+  }
+
+  private static void copyHeaders(final ClientRequest request, final Request jettyRequest) {
+    request
+        .getStringHeaders()
+        .forEach(
+            (name, values) -> {
+              if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                values.forEach(value -> jettyRequest.headers(fields -> fields.add(name, value)));
+              }
+            });
+  }
+
+  /**
+   * Sends the request on the calling thread, the same as {@link #apply(ClientRequest)}, and then
+   * calls back. Jersey makes asynchronous calls from its own executor, so this only holds up one of
+   * its threads, not the caller.
+   */
+  @Override
+  public Future<?> apply(final ClientRequest request, final AsyncConnectorCallback callback) {
+    try {
+      callback.response(apply(request));
+    } catch (Throwable t) {
+      callback.failure(t);
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public String getName() {
+    return getClass().getSimpleName();
+  }
+
+  @Override
+  public void close() {
+    HttpClientPool.shared().remove(httpClient);
+    try {
+      httpClient.stop();
+    } catch (Exception ex) {
+      LOGGER.debug("Unable to stop HTTP client", ex);
+    }
+  }
+}
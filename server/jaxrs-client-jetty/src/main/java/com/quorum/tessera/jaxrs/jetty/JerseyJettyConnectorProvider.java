@@ -0,0 +1,64 @@
+package com.quorum.tessera.jaxrs.jetty;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+import java.util.Map;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.dynamic.HttpClientTransportDynamic;
+import org.eclipse.jetty.client.http.HttpClientConnectionFactory;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.ClientConnectionFactoryOverHTTP2;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+/**
+ * Provides connectors that keep a pool of connections to each host. The pool is sized by the
+ * {@value #MAX_CONNECTIONS_PER_DESTINATION}, {@value #MAX_REQUESTS_QUEUED_PER_DESTINATION} and
+ * {@value #CONNECTION_IDLE_TIMEOUT} client properties.
+ */
+public class JerseyJettyConnectorProvider implements ConnectorProvider {
+
+  public static final String MAX_CONNECTIONS_PER_DESTINATION = "maxConnectionsPerDestination";
+
+  public static final String MAX_REQUESTS_QUEUED_PER_DESTINATION =
+      "maxRequestsQueuedPerDestination";
+
+  public static final String CONNECTION_IDLE_TIMEOUT = "connectionIdleTimeout";
+
+  @Override
+  public Connector getConnector(final Client client, final Configuration runtimeConfig) {
+    final Map<String, Object> properties = runtimeConfig.getProperties();
+
+    final SslContextFactory.Client sslContextFactory = new SslContextFactory.Client();
+    sslContextFactory.setSslContext(client.getSslContext());
+
+    final ClientConnector clientConnector = new ClientConnector();
+    clientConnector.setSslContextFactory(sslContextFactory);
+
+    // plain connections stay on HTTP/1.1, secure ones agree HTTP/2 with hosts that offer it
+    final HttpClient httpClient =
+        new HttpClient(
+            new HttpClientTransportDynamic(
+                clientConnector,
+                HttpClientConnectionFactory.HTTP11,
+                new ClientConnectionFactoryOverHTTP2.HTTP2(new HTTP2Client(clientConnector))));
+
+    final int connectTimeout =
+        ClientProperties.getValue(properties, ClientProperties.CONNECT_TIMEOUT, 0, Integer.class);
+    if (connectTimeout > 0) {
+      httpClient.setConnectTimeout(connectTimeout);
+    }
+    httpClient.setMaxConnectionsPerDestination(
+        ClientProperties.getValue(properties, MAX_CONNECTIONS_PER_DESTINATION, 64, Integer.class));
+    httpClient.setMaxRequestsQueuedPerDestination(
+        ClientProperties.getValue(
+            properties, MAX_REQUESTS_QUEUED_PER_DESTINATION, 1024, Integer.class));
+    httpClient.setIdleTimeout(
+        ClientProperties.getValue(properties, CONNECTION_IDLE_TIMEOUT, 30000L, Long.class));
+
+    return new JerseyJettyConnector(httpClient);
+  }
+}
@@ -0,0 +1,15 @@
+module tessera.server.jersey.jetty {
+  requires java.management;
+  requires jakarta.ws.rs;
+  requires jersey.client;
+  requires jersey.common;
+  requires org.eclipse.jetty.client;
+  requires org.eclipse.jetty.http;
+  requires org.eclipse.jetty.http2.client;
+  requires org.eclipse.jetty.http2.http.client.transport;
+  requires org.eclipse.jetty.io;
+  requires org.eclipse.jetty.util;
+  requires org.slf4j;
+
+  exports com.quorum.tessera.jaxrs.jetty;
+}
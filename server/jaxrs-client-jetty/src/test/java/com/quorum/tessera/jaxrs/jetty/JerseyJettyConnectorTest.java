@@ -0,0 +1,211 @@
+package com.quorum.tessera.jaxrs.jetty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.ObjectName;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JerseyJettyConnectorTest {
+
+  private final Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+
+  private final Set<String> receivedBodies = ConcurrentHashMap.newKeySet();
+
+  private HttpServer server;
+
+  private URI serverUri;
+
+  private Client client;
+
+  @Before
+  public void onSetUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/echo",
+        exchange -> {
+          remotePorts.add(exchange.getRemoteAddress().getPort());
+          final byte[] body = exchange.getRequestBody().readAllBytes();
+          receivedBodies.add(new String(body));
+          for (final String header :
+              new String[] {"X-Echo", "Transfer-Encoding", "Content-Length"}) {
+            exchange
+                .getResponseHeaders()
+                .add(
+                    "X-Request-" + header,
+                    String.valueOf(exchange.getRequestHeaders().getFirst(header)));
+          }
+          exchange.getResponseHeaders().add("Content-Type", "text/plain");
+          exchange.sendResponseHeaders(200, body.length);
+          exchange.getResponseBody().write(body);
+          exchange.close();
+        });
+    server.createContext(
+        "/slow",
+        exchange -> {
+          try {
+            Thread.sleep(1000);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.sendResponseHeaders(204, -1);
+          exchange.close();
+        });
+    server.start();
+    serverUri = URI.create("http://localhost:" + server.getAddress().getPort());
+
+    client =
+        ClientBuilder.newClient(
+            new ClientConfig()
+                .connectorProvider(new JerseyJettyConnectorProvider())
+                .property(JerseyJettyConnectorProvider.MAX_CONNECTIONS_PER_DESTINATION, 4));
+  }
+
+  @After
+  public void onTearDown() {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void requestsShareOneConnection() throws Exception {
+    for (final String value : new String[] {"one", "two", "three"}) {
+      final Response response =
+          client
+              .target(serverUri)
+              .path("echo")
+              .request()
+              .header("X-Echo", value)
+              .post(Entity.entity(value, MediaType.TEXT_PLAIN));
+
+      assertThat(response.getStatus()).isEqualTo(200);
+      assertThat(response.getHeaderString("X-Request-X-Echo")).isEqualTo(value);
+      assertThat(response.readEntity(String.class)).isEqualTo(value);
+    }
+
+    assertThat(remotePorts).hasSize(1);
+    assertThat(
+            ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(HttpClientPool.OBJECT_NAME), "ConnectionCount"))
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void entityIsBufferedToSendItsLength() {
+    final Response response =
+        client
+            .target(serverUri)
+            .path("echo")
+            .request()
+            .post(Entity.entity("value", MediaType.TEXT_PLAIN));
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeaderString("X-Request-Content-Length")).isEqualTo("5");
+    assertThat(response.getHeaderString("X-Request-Transfer-Encoding")).isEqualTo("null");
+    assertThat(response.readEntity(String.class)).isEqualTo("value");
+  }
+
+  @Test
+  public void chunkedEntityIsStreamed() {
+    final StreamingOutput entity =
+        output -> {
+          output.write("one".getBytes());
+          output.flush();
+          output.write("two".getBytes());
+        };
+
+    final Response response =
+        client
+            .target(serverUri)
+            .path("echo")
+            .request()
+            .property(ClientProperties.REQUEST_ENTITY_PROCESSING, "CHUNKED")
+            .header("X-Echo", "header")
+            .post(Entity.entity(entity, MediaType.APPLICATION_OCTET_STREAM));
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeaderString("X-Request-Transfer-Encoding")).isEqualTo("chunked");
+    assertThat(response.getHeaderString("X-Request-Content-Length")).isEqualTo("null");
+    assertThat(response.getHeaderString("X-Request-X-Echo")).isEqualTo("header");
+    assertThat(response.readEntity(String.class)).isEqualTo("onetwo");
+  }
+
+  @Test
+  public void chunkedEntityThatFailsIsNotSentAsWhole() {
+    final StreamingOutput entity =
+        output -> {
+          output.write("part".getBytes());
+          output.flush();
+          throw new IOException("failed to write the rest");
+        };
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                client
+                    .target(serverUri)
+                    .path("echo")
+                    .request()
+                    .property(
+                        ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+                    .post(Entity.entity(entity, MediaType.APPLICATION_OCTET_STREAM)));
+
+    assertThat(throwable).isInstanceOf(ProcessingException.class);
+    assertThat(receivedBodies).doesNotContain("part");
+  }
+
+  @Test
+  public void readTimeoutIsApplied() {
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                client
+                    .target(serverUri)
+                    .path("slow")
+                    .property(ClientProperties.READ_TIMEOUT, 100)
+                    .request()
+                    .get());
+
+    assertThat(throwable).isInstanceOf(ProcessingException.class);
+  }
+
+  @Test
+  public void unreachableHostFails() {
+    server.stop(0);
+
+    final Throwable throwable =
+        catchThrowable(() -> client.target(serverUri).path("echo").request().get());
+
+    assertThat(throwable).isInstanceOf(ProcessingException.class);
+  }
+
+  @Test
+  public void closedClientsAreNoLongerCounted() {
+    client.target(serverUri).path("echo").request().get().close();
+    assertThat(HttpClientPool.shared().getDestinationCount()).isEqualTo(1);
+
+    client.close();
+
+    assertThat(HttpClientPool.shared().getDestinationCount()).isZero();
+  }
+}
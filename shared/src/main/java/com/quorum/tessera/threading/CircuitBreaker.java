@@ -0,0 +1,244 @@
+package com.quorum.tessera.threading;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of which nodes can't be reached, so that calls to them fail straight away rather than
+ * each waiting for the connection to time out.
+ *
+ * <p>Each destination starts closed, and calls go through. Once the given number of calls in a row
+ * have failed to reach it, it opens, and calls are turned away. When it has been open for the given
+ * time, it is half-open, and one call is let through to find out whether the node is back: if that
+ * call reaches it, the destination is closed again, and if not, it opens for another spell. Should
+ * that call never report back, another is let through once the same time has passed again.
+ */
+public class CircuitBreaker implements CircuitBreakerMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=CircuitBreaker";
+
+  private static CircuitBreaker shared;
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+
+  private final long openDuration;
+
+  private final LongSupplier clock;
+
+  /** The destinations that have failed since a call last reached them */
+  private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+  private final AtomicLong opened = new AtomicLong();
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * @param failureThreshold the number of calls in a row that fail to reach a destination before
+   *     it is opened
+   * @param openDuration how long a destination is open before a call is let through, in
+   *     milliseconds
+   */
+  public CircuitBreaker(final int failureThreshold, final long openDuration) {
+    this(failureThreshold, openDuration, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(final int failureThreshold, final long openDuration, final LongSupplier clock) {
+    if (failureThreshold < 1 || openDuration < 0) {
+      throw new IllegalArgumentException(
+          "At least one failure, and no negative open duration, are required");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  /**
+   * The circuit breaker shared by everything in this process that calls other nodes, so that a node
+   * found to be down by one of them is skipped by all of them. The first caller's settings are
+   * used.
+   *
+   * @return the shared circuit breaker
+   */
+  public static synchronized CircuitBreaker shared(
+      final int failureThreshold, final long openDuration) {
+    if (shared == null) {
+      shared = new CircuitBreaker(failureThreshold, openDuration);
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(shared, new ObjectName(OBJECT_NAME));
+      } catch (final JMException ex) {
+        LOGGER.warn("Unable to register circuit breaker statistics", ex);
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Checks whether a call to the destination can be made. A call that is let through must report
+   * whether it reached the destination with {@link #onSuccess(String)} or {@link
+   * #onFailure(String)}, or with {@link #onAbandon(String)} if it was never made.
+   *
+   * @param destination the node to call, such as its URL
+   * @return whether to make the call, false if it should fail straight away
+   */
+  public boolean tryAcquire(final String destination) {
+    final Destination failing = destinations.get(destination);
+    if (failing == null) {
+      return true;
+    }
+    synchronized (failing) {
+      if (failing.state == State.CLOSED) {
+        return true;
+      }
+      final long now = clock.getAsLong();
+      if (now < failing.retryAt) {
+        rejected.incrementAndGet();
+        return false;
+      }
+      failing.state = State.HALF_OPEN;
+      failing.retryAt = now + openDuration;
+      return true;
+    }
+  }
+
+  /**
+   * Records that a call reached the destination, whatever its response, closing it.
+   *
+   * @param destination the node that was called
+   */
+  public void onSuccess(final String destination) {
+    final Destination failing = destinations.remove(destination);
+    if (failing != null && failing.state != State.CLOSED) {
+      LOGGER.info("{} is reachable again", destination);
+    }
+  }
+
+  /**
+   * Records that a call failed to reach the destination.
+   *
+   * @param destination the node that was called
+   * @return whether this failure opened the destination
+   */
+  public boolean onFailure(final String destination) {
+    final Destination failing = destinations.computeIfAbsent(destination, d -> new Destination());
+    synchronized (failing) {
+      failing.failures++;
+      final boolean opens =
+          failing.state == State.HALF_OPEN
+              || (failing.state == State.CLOSED && failing.failures >= failureThreshold);
+      if (!opens) {
+        return false;
+      }
+      failing.state = State.OPEN;
+      failing.retryAt = clock.getAsLong() + openDuration;
+      opened.incrementAndGet();
+      LOGGER.warn(
+          "{} could not be reached {} times in a row, failing calls to it for {} ms",
+          destination,
+          failing.failures,
+          openDuration);
+      return true;
+    }
+  }
+
+  /**
+   * Records that a call let through was given up before it could tell whether the destination is
+   * reachable, such as when its request couldn't be written. If it was the one call let through to
+   * a half-open destination, the next call is let through in its place rather than after the open
+   * time has passed again.
+   *
+   * @param destination the node that was to be called
+   */
+  public void onAbandon(final String destination) {
+    final Destination failing = destinations.get(destination);
+    if (failing == null) {
+      return;
+    }
+    synchronized (failing) {
+      if (failing.state == State.HALF_OPEN) {
+        failing.state = State.OPEN;
+        failing.retryAt = clock.getAsLong();
+      }
+    }
+  }
+
+  /**
+   * @param destination the node to check
+   * @return the state of the destination
+   */
+  public State getState(final String destination) {
+    final Destination failing = destinations.get(destination);
+    if (failing == null) {
+      return State.CLOSED;
+    }
+    synchronized (failing) {
+      return failing.state;
+    }
+  }
+
+  @Override
+  public Map<String, String> getStates() {
+    final Map<String, String> states = new TreeMap<>();
+    destinations.forEach(
+        (destination, failing) -> {
+          synchronized (failing) {
+            if (failing.state != State.CLOSED) {
+              states.put(destination, failing.state.name());
+            }
+          }
+        });
+    return states;
+  }
+
+  @Override
+  public int getOpenCount() {
+    return getStates().size();
+  }
+
+  @Override
+  public long getOpenedCount() {
+    return opened.get();
+  }
+
+  @Override
+  public long getRejectedCallCount() {
+    return rejected.get();
+  }
+
+  @Override
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  @Override
+  public long getOpenDuration() {
+    return openDuration;
+  }
+
+  /** Guarded by itself */
+  private static class Destination {
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long retryAt;
+  }
+}
@@ -0,0 +1,25 @@
+package com.quorum.tessera.threading;
+
+import java.util.Map;
+
+/** Statistics of the nodes that calls are failing to reach */
+public interface CircuitBreakerMXBean {
+
+  /** @return the state, open or half-open, of each destination that isn't closed */
+  Map<String, String> getStates();
+
+  /** @return the number of destinations that are open or half-open */
+  int getOpenCount();
+
+  /** @return the number of times a destination has been opened */
+  long getOpenedCount();
+
+  /** @return the number of calls turned away because their destination was open */
+  long getRejectedCallCount();
+
+  /** @return the number of calls in a row that fail before a destination is opened */
+  int getFailureThreshold();
+
+  /** @return how long a destination is open before a call is let through, in milliseconds */
+  long getOpenDuration();
+}
@@ -0,0 +1,272 @@
+package com.quorum.tessera.threading;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs tasks that call other nodes, keeping both the threads and the waiting tasks within fixed
+ * bounds. Each task is for a destination, and only so many tasks for the same destination run at
+ * once; the rest wait their turn, so a slow node holds on to no more threads than that. Once the
+ * given number of tasks are waiting, new ones are rejected with a {@link
+ * RejectedExecutionException} rather than queued, so that callers fail fast instead of piling up
+ * work the node can't get through.
+ *
+ * <p>Tasks run on a fixed-size pool of platform threads, or, where the JVM has them and they are
+ * asked for, each on a virtual thread of its own, in which case only the per-destination limit
+ * bounds how many run at once.
+ */
+public class IoScheduler implements IoSchedulerMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IoScheduler.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=IoScheduler";
+
+  private static IoScheduler shared;
+
+  private final ExecutorService threads;
+
+  private final boolean virtualThreads;
+
+  private final int tasksPerDestination;
+
+  private final int queueCapacity;
+
+  /** The destinations with tasks running, guarded by this */
+  private final Map<String, Destination> destinations = new HashMap<>();
+
+  /** The number of tasks waiting for their destination, guarded by this */
+  private int waiting;
+
+  private final AtomicInteger active = new AtomicInteger();
+
+  private final AtomicLong completed = new AtomicLong();
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * @param threadCount the number of platform threads to run tasks on
+   * @param tasksPerDestination the number of tasks for the same destination that can run at once
+   * @param queueCapacity the number of tasks that can wait at once
+   * @param virtualThreads whether to run each task on a virtual thread, if the JVM supports them
+   */
+  public IoScheduler(
+      final int threadCount,
+      final int tasksPerDestination,
+      final int queueCapacity,
+      final boolean virtualThreads) {
+    if (threadCount < 1 || tasksPerDestination < 1 || queueCapacity < 0) {
+      throw new IllegalArgumentException(
+          "At least one thread and one task per destination, and no negative queue, are required");
+    }
+    this.tasksPerDestination = tasksPerDestination;
+    this.queueCapacity = queueCapacity;
+
+    final ExecutorService virtualThreadExecutor = virtualThreads ? virtualThreadExecutor() : null;
+    this.virtualThreads = virtualThreadExecutor != null;
+    if (virtualThreadExecutor != null) {
+      this.threads = virtualThreadExecutor;
+    } else {
+      final ThreadPoolExecutor pool =
+          new ThreadPoolExecutor(
+              threadCount,
+              threadCount,
+              60L,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(Math.max(queueCapacity, 1)),
+              new IoThreadFactory());
+      pool.allowCoreThreadTimeOut(true);
+      this.threads = pool;
+    }
+  }
+
+  /**
+   * The scheduler shared by everything in this process that calls other nodes, so that the bounds
+   * hold for all of them together. The first caller's settings are used.
+   *
+   * @return the shared scheduler
+   */
+  public static synchronized IoScheduler shared(
+      final int threadCount,
+      final int tasksPerDestination,
+      final int queueCapacity,
+      final boolean virtualThreads) {
+    if (shared == null) {
+      shared = new IoScheduler(threadCount, tasksPerDestination, queueCapacity, virtualThreads);
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(shared, new ObjectName(OBJECT_NAME));
+      } catch (final JMException ex) {
+        LOGGER.warn("Unable to register I/O scheduler statistics", ex);
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Runs the task once its destination has room for it.
+   *
+   * @param destination the node the task calls, such as its URL
+   * @param task the task to run
+   * @throws RejectedExecutionException if the queue is full
+   */
+  public void execute(final String destination, final Runnable task) {
+    Objects.requireNonNull(destination);
+    Objects.requireNonNull(task);
+
+    synchronized (this) {
+      final Destination tasks = destinations.computeIfAbsent(destination, d -> new Destination());
+      if (tasks.running >= tasksPerDestination) {
+        if (waiting >= queueCapacity) {
+          rejected.incrementAndGet();
+          throw new RejectedExecutionException(
+              "Too many tasks are waiting to run, not running task for " + destination);
+        }
+        tasks.waiting.add(task);
+        waiting++;
+        return;
+      }
+      tasks.running++;
+    }
+
+    try {
+      threads.execute(() -> run(destination, task));
+    } catch (final RejectedExecutionException ex) {
+      // every thread is busy and the pool's own queue is full, so hand back the place taken
+      synchronized (this) {
+        finished(destination);
+      }
+      rejected.incrementAndGet();
+      throw ex;
+    }
+  }
+
+  /** Runs the task, then any others waiting for the same destination, one after the other */
+  private void run(final String destination, final Runnable task) {
+    Runnable next = task;
+    while (next != null) {
+      active.incrementAndGet();
+      try {
+        next.run();
+      } catch (final RuntimeException ex) {
+        LOGGER.warn("Task for {} failed: {}", destination, ex.getMessage());
+        LOGGER.debug(null, ex);
+      } finally {
+        active.decrementAndGet();
+        completed.incrementAndGet();
+      }
+      synchronized (this) {
+        next = destinations.get(destination).waiting.poll();
+        if (next != null) {
+          waiting--;
+        } else {
+          finished(destination);
+        }
+      }
+    }
+  }
+
+  // must hold the lock on this
+  private void finished(final String destination) {
+    final Destination tasks = destinations.get(destination);
+    tasks.running--;
+    if (tasks.running == 0 && tasks.waiting.isEmpty()) {
+      destinations.remove(destination);
+    }
+  }
+
+  /** Stops taking tasks; those already running or waiting are still run */
+  public void shutdown() {
+    threads.shutdown();
+  }
+
+  @Override
+  public int getActiveTaskCount() {
+    return active.get();
+  }
+
+  @Override
+  public synchronized int getQueuedTaskCount() {
+    if (threads instanceof ThreadPoolExecutor) {
+      return waiting + ((ThreadPoolExecutor) threads).getQueue().size();
+    }
+    return waiting;
+  }
+
+  @Override
+  public long getCompletedTaskCount() {
+    return completed.get();
+  }
+
+  @Override
+  public long getRejectedTaskCount() {
+    return rejected.get();
+  }
+
+  @Override
+  public synchronized int getDestinationCount() {
+    return destinations.size();
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public int getTasksPerDestination() {
+    return tasksPerDestination;
+  }
+
+  @Override
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /** @return an executor starting a virtual thread for each task, or null if there are none */
+  static ExecutorService virtualThreadExecutor() {
+    try {
+      // looked up by name, as virtual threads are only available from Java 21
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final ReflectiveOperationException ex) {
+      LOGGER.warn("Virtual threads are not available, platform threads will be used instead");
+      return null;
+    }
+  }
+
+  private static class Destination {
+
+    private int running;
+
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+  }
+
+  private static class IoThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, "tessera-io-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
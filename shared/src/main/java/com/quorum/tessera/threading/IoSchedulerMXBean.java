@@ -0,0 +1,29 @@
+package com.quorum.tessera.threading;
+
+/** Statistics of the tasks that call other nodes */
+public interface IoSchedulerMXBean {
+
+  /** @return the number of tasks running */
+  int getActiveTaskCount();
+
+  /** @return the number of tasks waiting for their destination or for a thread */
+  int getQueuedTaskCount();
+
+  /** @return the number of tasks that have finished */
+  long getCompletedTaskCount();
+
+  /** @return the number of tasks turned away because the queue was full */
+  long getRejectedTaskCount();
+
+  /** @return the number of destinations with tasks running or waiting */
+  int getDestinationCount();
+
+  /** @return the number of tasks that can wait at once */
+  int getQueueCapacity();
+
+  /** @return the number of tasks for the same destination that can run at once */
+  int getTasksPerDestination();
+
+  /** @return whether each task is run on a virtual thread of its own */
+  boolean isVirtualThreads();
+}
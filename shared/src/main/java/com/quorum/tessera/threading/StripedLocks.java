@@ -0,0 +1,44 @@
+package com.quorum.tessera.threading;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out between keys, so that work on different keys can run at the same
+ * time while work on the same key is done one at a time. However many keys are used, only the given
+ * number of locks is ever held in memory; keys that share a lock are serialised with each other,
+ * which becomes less likely the more locks there are.
+ */
+public class StripedLocks {
+
+  private final Lock[] locks;
+
+  /** @param stripes the least number of locks to share out, rounded up to a power of two */
+  public StripedLocks(final int stripes) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("At least one lock is required");
+    }
+    final int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    this.locks = new Lock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * @param key the key to be worked on, with a {@link Object#hashCode()} based on its value
+   * @return the lock to hold while working on the key, always the same one for equal keys
+   */
+  public Lock get(final Object key) {
+    final int hash = Objects.requireNonNull(key).hashCode();
+    // mixes the high bits into the low ones used for the index, as hash codes often differ
+    // only in their high bits
+    return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+  }
+
+  /** @return how many locks are shared out */
+  public int size() {
+    return locks.length;
+  }
+}
@@ -0,0 +1,15 @@
+package com.quorum.tessera.version;
+
+/**
+ * Nodes on this version accept a pushed payload that carries the boxes of several of their
+ * recipients at once, so a payload needs sending to each of them only once
+ */
+public class MultiRecipientPushVersion implements ApiVersion {
+
+  public static final String API_VERSION_6 = "6.0";
+
+  @Override
+  public String getVersion() {
+    return API_VERSION_6;
+  }
+}
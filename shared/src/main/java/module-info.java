@@ -2,6 +2,7 @@ module tessera.shared {
   // requires java.compiler;
 
   requires jakarta.annotation;
+  requires java.management;
   requires org.slf4j;
 
   exports com.quorum.tessera.base64;
@@ -26,5 +27,6 @@ module tessera.shared {
       com.quorum.tessera.version.MultiTenancyVersion,
       com.quorum.tessera.version.PrivacyGroupVersion,
       com.quorum.tessera.version.MandatoryRecipientsVersion,
-      com.quorum.tessera.version.CBORSupportVersion;
+      com.quorum.tessera.version.CBORSupportVersion,
+      com.quorum.tessera.version.MultiRecipientPushVersion;
 }
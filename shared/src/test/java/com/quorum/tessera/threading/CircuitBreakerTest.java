@@ -0,0 +1,152 @@
+package com.quorum.tessera.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong(1000L);
+
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, 500L, clock::get);
+
+  @Test
+  public void opensAfterFailuresInARow() {
+    assertThat(circuitBreaker.onFailure("node1")).isFalse();
+    assertThat(circuitBreaker.onFailure("node1")).isFalse();
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    assertThat(circuitBreaker.onFailure("node1")).isTrue();
+
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire("node1")).isFalse();
+    assertThat(circuitBreaker.tryAcquire("node2")).isTrue();
+    assertThat(circuitBreaker.getOpenedCount()).isEqualTo(1);
+    assertThat(circuitBreaker.getRejectedCallCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void successResetsTheFailures() {
+    circuitBreaker.onFailure("node1");
+    circuitBreaker.onFailure("node1");
+    circuitBreaker.onSuccess("node1");
+
+    assertThat(circuitBreaker.onFailure("node1")).isFalse();
+    assertThat(circuitBreaker.onFailure("node1")).isFalse();
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void letsOneCallThroughOnceOpenTimeHasPassed() {
+    open("node1");
+
+    clock.addAndGet(499L);
+    assertThat(circuitBreaker.tryAcquire("node1")).isFalse();
+
+    clock.addAndGet(1L);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThat(circuitBreaker.tryAcquire("node1")).isFalse();
+
+    circuitBreaker.onSuccess("node1");
+
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+  }
+
+  @Test
+  public void failedProbeOpensAgain() {
+    open("node1");
+    clock.addAndGet(500L);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+
+    assertThat(circuitBreaker.onFailure("node1")).isTrue();
+
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire("node1")).isFalse();
+    assertThat(circuitBreaker.getOpenedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void probeThatNeverReportsBackIsReplaced() {
+    open("node1");
+    clock.addAndGet(500L);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+
+    clock.addAndGet(500L);
+
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+  }
+
+  @Test
+  public void abandonedProbeIsReplacedStraightAway() {
+    open("node1");
+    clock.addAndGet(500L);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+    assertThat(circuitBreaker.tryAcquire("node1")).isFalse();
+
+    circuitBreaker.onAbandon("node1");
+
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire("node1")).isTrue();
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThat(circuitBreaker.getOpenedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void abandoningOtherCallsChangesNothing() {
+    circuitBreaker.onAbandon("node1");
+    assertThat(circuitBreaker.getState("node1")).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    open("node2");
+    circuitBreaker.onAbandon("node2");
+    assertThat(circuitBreaker.getState("node2")).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire("node2")).isFalse();
+  }
+
+  @Test
+  public void statisticsListDestinationsThatAreNotClosed() {
+    open("node1");
+    open("node2");
+    clock.addAndGet(500L);
+    circuitBreaker.tryAcquire("node2");
+    circuitBreaker.onFailure("node3");
+
+    assertThat(circuitBreaker.getStates())
+        .containsExactlyEntriesOf(Map.of("node1", "OPEN", "node2", "HALF_OPEN"));
+    assertThat(circuitBreaker.getOpenCount()).isEqualTo(2);
+    assertThat(circuitBreaker.getFailureThreshold()).isEqualTo(3);
+    assertThat(circuitBreaker.getOpenDuration()).isEqualTo(500L);
+  }
+
+  @Test
+  public void invalidArguments() {
+    assertThat(catchThrowable(() -> new CircuitBreaker(0, 1L)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new CircuitBreaker(1, -1L)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void sharedCircuitBreakerIsRegistered() throws Exception {
+    final CircuitBreaker shared = CircuitBreaker.shared(5, 10000L);
+
+    assertThat(CircuitBreaker.shared(1, 1L)).isSameAs(shared);
+    assertThat(
+            ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName(CircuitBreaker.OBJECT_NAME)))
+        .isTrue();
+  }
+
+  private void open(final String destination) {
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.onFailure(destination);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.quorum.tessera.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Test;
+
+public class IoSchedulerTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private IoScheduler scheduler;
+
+  @After
+  public void onTearDown() {
+    release.countDown();
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void tasksForSameDestinationWaitTheirTurn() throws Exception {
+    scheduler = new IoScheduler(4, 1, 10, false);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(2);
+    final List<String> order = new CopyOnWriteArrayList<>();
+
+    scheduler.execute(
+        "node1",
+        () -> {
+          started.countDown();
+          await(release);
+          order.add("first");
+          done.countDown();
+        });
+    scheduler.execute(
+        "node1",
+        () -> {
+          order.add("second");
+          done.countDown();
+        });
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(scheduler.getActiveTaskCount()).isEqualTo(1);
+    assertThat(scheduler.getQueuedTaskCount()).isEqualTo(1);
+    assertThat(scheduler.getDestinationCount()).isEqualTo(1);
+
+    release.countDown();
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(order).containsExactly("first", "second");
+  }
+
+  @Test
+  public void tasksForOtherDestinationsRunAtOnce() throws Exception {
+    scheduler = new IoScheduler(4, 1, 10, false);
+    final CountDownLatch started = new CountDownLatch(2);
+
+    scheduler.execute("node1", () -> blockAfter(started));
+    scheduler.execute("node2", () -> blockAfter(started));
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(scheduler.getActiveTaskCount()).isEqualTo(2);
+    assertThat(scheduler.getDestinationCount()).isEqualTo(2);
+    assertThat(scheduler.getQueuedTaskCount()).isZero();
+  }
+
+  @Test
+  public void tasksBeyondTheQueueAreRejected() throws Exception {
+    scheduler = new IoScheduler(1, 1, 1, false);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    scheduler.execute("node1", () -> blockAfter(started));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    scheduler.execute("node1", () -> {});
+
+    final Throwable throwable = catchThrowable(() -> scheduler.execute("node1", () -> {}));
+
+    assertThat(throwable).isExactlyInstanceOf(RejectedExecutionException.class);
+    assertThat(scheduler.getRejectedTaskCount()).isEqualTo(1);
+    assertThat(scheduler.getQueuedTaskCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void tasksBeyondTheThreadsWaitForOne() throws Exception {
+    scheduler = new IoScheduler(1, 1, 1, false);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    scheduler.execute("node1", () -> blockAfter(started));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    scheduler.execute("node2", () -> {});
+
+    final Throwable throwable = catchThrowable(() -> scheduler.execute("node3", () -> {}));
+
+    assertThat(throwable).isExactlyInstanceOf(RejectedExecutionException.class);
+    assertThat(scheduler.getRejectedTaskCount()).isEqualTo(1);
+    assertThat(scheduler.getQueuedTaskCount()).isEqualTo(1);
+    assertThat(scheduler.getDestinationCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void failedTaskDoesNotStopTheOthers() throws Exception {
+    scheduler = new IoScheduler(1, 1, 10, false);
+    final CountDownLatch done = new CountDownLatch(1);
+
+    scheduler.execute(
+        "node1",
+        () -> {
+          throw new IllegalStateException("failed");
+        });
+    scheduler.execute("node1", done::countDown);
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void finishedTasksAreCounted() throws Exception {
+    scheduler = new IoScheduler(2, 2, 10, false);
+    final CountDownLatch done = new CountDownLatch(3);
+
+    for (int i = 0; i < 3; i++) {
+      scheduler.execute("node1", done::countDown);
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    // the count is taken after each task returns
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while ((scheduler.getCompletedTaskCount() < 3 || scheduler.getDestinationCount() > 0)
+        && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(scheduler.getCompletedTaskCount()).isEqualTo(3);
+    assertThat(scheduler.getDestinationCount()).isZero();
+  }
+
+  @Test
+  public void virtualThreadsAreUsedWhereAvailable() throws Exception {
+    scheduler = new IoScheduler(1, 2, 10, true);
+
+    assertThat(scheduler.isVirtualThreads()).isEqualTo(Runtime.version().feature() >= 21);
+    assertThat(scheduler.getTasksPerDestination()).isEqualTo(2);
+    assertThat(scheduler.getQueueCapacity()).isEqualTo(10);
+
+    final CountDownLatch done = new CountDownLatch(1);
+    scheduler.execute("node1", done::countDown);
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void invalidSettingsAreRejected() {
+    assertThat(catchThrowable(() -> new IoScheduler(0, 1, 1, false)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new IoScheduler(1, 0, 1, false)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new IoScheduler(1, 1, -1, false)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void sharedSchedulerIsRegistered() throws Exception {
+    final IoScheduler shared = IoScheduler.shared(2, 2, 10, false);
+
+    assertThat(IoScheduler.shared(4, 4, 20, false)).isSameAs(shared);
+    assertThat(
+            ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName(IoScheduler.OBJECT_NAME)))
+        .isTrue();
+  }
+
+  private void blockAfter(final CountDownLatch started) {
+    started.countDown();
+    await(release);
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.quorum.tessera.threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares how storing pushed payloads scales with the number of pushing threads when every store
+ * is serialised behind one lock, as a synchronized method would be, and when stores are only
+ * serialised for the same transaction. Each operation picks one of many transaction hashes at
+ * random and holds its lock while waiting the given number of microseconds, standing in for the
+ * database lookup and write done under the lock.
+ *
+ * <p>Not run as part of the build. Run the main method with the test classpath, optionally passing
+ * the number of seconds to warm up and to measure for each case, and the microseconds of work
+ * done under the lock.
+ */
+public class StripedLocksContentionBenchmark {
+
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+  private static final int TRANSACTIONS = 100_000;
+
+  public static void main(String... args) throws Exception {
+    final long warmupSeconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+    final long measureSeconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+    final long workMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+    System.out.printf("%-8s %-10s %12s%n", "threads", "stripes", "ops/s");
+    for (final int threads : THREADS) {
+      for (final int stripes : new int[] {1, 256}) {
+        final StripedLocks locks = new StripedLocks(stripes);
+
+        run(locks, threads, workMicros, TimeUnit.SECONDS.toNanos(warmupSeconds));
+        final long operations =
+            run(locks, threads, workMicros, TimeUnit.SECONDS.toNanos(measureSeconds));
+
+        System.out.printf(
+            "%-8d %-10d %12.1f%n", threads, stripes, operations / (double) measureSeconds);
+      }
+    }
+  }
+
+  private static long run(StripedLocks locks, int threads, long workMicros, long nanos)
+      throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final long end = System.nanoTime() + nanos;
+      final List<Future<Long>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> store(locks, workMicros, end)));
+      }
+
+      long operations = 0;
+      for (final Future<Long> result : results) {
+        operations += result.get();
+      }
+      return operations;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static long store(StripedLocks locks, long workMicros, long end) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    long operations = 0;
+    while (System.nanoTime() < end) {
+      final Lock lock = locks.get(random.nextInt(TRANSACTIONS));
+      lock.lock();
+      try {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(workMicros));
+      } finally {
+        lock.unlock();
+      }
+      operations++;
+    }
+    return operations;
+  }
+}
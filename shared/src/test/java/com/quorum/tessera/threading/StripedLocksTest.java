@@ -0,0 +1,93 @@
+package com.quorum.tessera.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class StripedLocksTest {
+
+  @Test
+  public void sizeIsRoundedUpToPowerOfTwo() {
+    assertThat(new StripedLocks(1).size()).isEqualTo(1);
+    assertThat(new StripedLocks(2).size()).isEqualTo(2);
+    assertThat(new StripedLocks(3).size()).isEqualTo(4);
+    assertThat(new StripedLocks(256).size()).isEqualTo(256);
+    assertThat(new StripedLocks(257).size()).isEqualTo(512);
+  }
+
+  @Test
+  public void atLeastOneLockIsRequired() {
+    final Throwable throwable = catchThrowable(() -> new StripedLocks(0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void equalKeysShareLock() {
+    final StripedLocks stripedLocks = new StripedLocks(16);
+
+    assertThat(stripedLocks.get(new String("key"))).isSameAs(stripedLocks.get("key"));
+  }
+
+  @Test
+  public void keysAreSpreadAcrossLocks() {
+    final StripedLocks stripedLocks = new StripedLocks(16);
+
+    // keys whose hash codes differ only in their high bits
+    final Set<Lock> used = new HashSet<>();
+    IntStream.range(0, 64).forEach(i -> used.add(stripedLocks.get(i << 16)));
+
+    assertThat(used).hasSize(16);
+  }
+
+  @Test
+  public void differentLocksCanBeHeldAtOnce() throws Exception {
+    final StripedLocks stripedLocks = new StripedLocks(2);
+    final Lock first = stripedLocks.get(0);
+    final Lock second = stripedLocks.get(1);
+    assertThat(first).isNotSameAs(second);
+
+    first.lock();
+    try {
+      final boolean acquired =
+          CompletableFuture.supplyAsync(
+                  () -> {
+                    if (second.tryLock()) {
+                      second.unlock();
+                      return true;
+                    }
+                    return false;
+                  })
+              .get(5, TimeUnit.SECONDS);
+      assertThat(acquired).isTrue();
+
+      final boolean sameAcquired =
+          CompletableFuture.supplyAsync(
+                  () -> {
+                    if (first.tryLock()) {
+                      first.unlock();
+                      return true;
+                    }
+                    return false;
+                  })
+              .get(5, TimeUnit.SECONDS);
+      assertThat(sameAcquired).isFalse();
+    } finally {
+      first.unlock();
+    }
+  }
+
+  @Test
+  public void nullKeyIsRejected() {
+    final Throwable throwable = catchThrowable(() -> new StripedLocks(1).get(null));
+
+    assertThat(throwable).isExactlyInstanceOf(NullPointerException.class);
+  }
+}
@@ -0,0 +1,88 @@
+package com.quorum.tessera.transaction;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.Objects;
+import java.util.Optional;
+
+/** How far a sent transaction has got in being pushed to one of its remote recipients */
+public interface DeliveryStatus {
+
+  enum State {
+    PENDING,
+    DELIVERED,
+    FAILED
+  }
+
+  PublicKey getRecipient();
+
+  State getState();
+
+  int getAttempts();
+
+  Optional<String> getLastError();
+
+  class Builder {
+
+    private PublicKey recipient;
+
+    private State state;
+
+    private int attempts;
+
+    private String lastError;
+
+    private Builder() {}
+
+    public static Builder create() {
+      return new Builder();
+    }
+
+    public Builder withRecipient(final PublicKey recipient) {
+      this.recipient = recipient;
+      return this;
+    }
+
+    public Builder withState(final State state) {
+      this.state = state;
+      return this;
+    }
+
+    public Builder withAttempts(final int attempts) {
+      this.attempts = attempts;
+      return this;
+    }
+
+    public Builder withLastError(final String lastError) {
+      this.lastError = lastError;
+      return this;
+    }
+
+    public DeliveryStatus build() {
+      Objects.requireNonNull(recipient, "Recipient is required");
+      Objects.requireNonNull(state, "State is required");
+
+      return new DeliveryStatus() {
+
+        @Override
+        public PublicKey getRecipient() {
+          return recipient;
+        }
+
+        @Override
+        public State getState() {
+          return state;
+        }
+
+        @Override
+        public int getAttempts() {
+          return attempts;
+        }
+
+        @Override
+        public Optional<String> getLastError() {
+          return Optional.ofNullable(lastError);
+        }
+      };
+    }
+  }
+}
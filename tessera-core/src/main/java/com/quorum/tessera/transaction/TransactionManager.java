@@ -32,6 +32,13 @@ public interface TransactionManager {
 
   Set<PublicKey> getMandatoryRecipients(MessageHash transactionHash);
 
+  /**
+   * @param transactionHash the hash of a transaction sent from this node
+   * @return how far the transaction has got to each remote recipient, which is only known when
+   *     sent transactions are pushed from the outbox, and empty otherwise
+   */
+  List<DeliveryStatus> getDeliveryStatus(MessageHash transactionHash);
+
   /**
    * @see Enclave#defaultPublicKey()
    * @return
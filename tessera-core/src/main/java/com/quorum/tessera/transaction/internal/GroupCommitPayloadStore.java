@@ -0,0 +1,251 @@
+package com.quorum.tessera.transaction.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores payloads received from other nodes in batches, so that many payloads arriving together are
+ * written to the database in one transaction rather than one transaction each.
+ *
+ * <p>Payloads are queued as they arrive and written by a single thread, which takes everything
+ * queued up to the maximum batch size, optionally waiting a short time for more. The transactions
+ * already stored for the batch are read in one query, each payload is added to its transaction in
+ * the order it arrived, and all new and changed transactions are written in one database
+ * transaction. Callers are only answered once the batch has been committed.
+ *
+ * <p>A payload that does not match its stored transaction fails on its own, without affecting the
+ * rest of the batch. If the batch cannot be written, each of its payloads is written on its own so
+ * that a single bad payload does not fail the others.
+ */
+public class GroupCommitPayloadStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GroupCommitPayloadStore.class);
+
+  private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private final int maxBatchSize;
+
+  private final long maxDelay;
+
+  private final Executor executor;
+
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+  private final AtomicBoolean writing = new AtomicBoolean();
+
+  /**
+   * @param encryptedTransactionDAO where the payloads are stored
+   * @param maxBatchSize the most payloads to write in one database transaction
+   * @param maxDelay how long in milliseconds to wait for more payloads before writing a batch that
+   *     is not full, or zero to write whatever has been queued straight away
+   */
+  public GroupCommitPayloadStore(
+      EncryptedTransactionDAO encryptedTransactionDAO, int maxBatchSize, long maxDelay) {
+    this(
+        encryptedTransactionDAO,
+        maxBatchSize,
+        maxDelay,
+        Executors.newSingleThreadExecutor(GroupCommitPayloadStore::writerThread));
+  }
+
+  GroupCommitPayloadStore(
+      EncryptedTransactionDAO encryptedTransactionDAO,
+      int maxBatchSize,
+      long maxDelay,
+      Executor executor) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.encryptedTransactionDAO = Objects.requireNonNull(encryptedTransactionDAO);
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelay = maxDelay;
+    this.executor = Objects.requireNonNull(executor);
+  }
+
+  private static Thread writerThread(final Runnable runnable) {
+    final Thread thread = new Thread(runnable, "store-payload-writer");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Stores a payload, waiting until the batch it is written in has been committed.
+   *
+   * @param transactionHash the hash of the transaction the payload belongs to
+   * @param encodedPayload the received payload, with any invalid security hashes removed
+   * @param payload the received payload as it was sent
+   * @return the hash of the stored transaction
+   */
+  public MessageHash store(
+      final MessageHash transactionHash,
+      final EncodedPayload encodedPayload,
+      final EncodedPayload payload) {
+    try {
+      return submit(transactionHash, encodedPayload, payload).join();
+    } catch (final CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  CompletableFuture<MessageHash> submit(
+      final MessageHash transactionHash,
+      final EncodedPayload encodedPayload,
+      final EncodedPayload payload) {
+    final Pending pending = new Pending(transactionHash, encodedPayload, payload);
+    queue.add(pending);
+    if (writing.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+    return pending.result;
+  }
+
+  private void drain() {
+    while (true) {
+      final List<Pending> batch = nextBatch();
+      if (batch.isEmpty()) {
+        writing.set(false);
+        // a payload queued after the last batch was taken, but before writing stopped, is
+        // written here unless another writer has been started for it
+        if (queue.isEmpty() || !writing.compareAndSet(false, true)) {
+          return;
+        }
+        continue;
+      }
+
+      try {
+        write(batch);
+      } catch (final Throwable ex) {
+        LOGGER.error("Unable to store batch of {} payloads", batch.size(), ex);
+        batch.forEach(pending -> pending.result.completeExceptionally(ex));
+      }
+    }
+  }
+
+  private List<Pending> nextBatch() {
+    final List<Pending> batch = new ArrayList<>();
+    queue.drainTo(batch, maxBatchSize);
+    if (batch.isEmpty() || maxDelay <= 0) {
+      return batch;
+    }
+
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+    while (batch.size() < maxBatchSize) {
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+      try {
+        final Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (next == null) {
+          break;
+        }
+        batch.add(next);
+        queue.drainTo(batch, maxBatchSize - batch.size());
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return batch;
+  }
+
+  private void write(final List<Pending> batch) {
+    try {
+      commit(batch);
+    } catch (final RuntimeException ex) {
+      if (batch.size() == 1) {
+        batch.get(0).result.completeExceptionally(ex);
+        return;
+      }
+      LOGGER.warn("Unable to store batch of {} payloads, storing each on its own", batch.size());
+      LOGGER.debug(null, ex);
+      batch.stream().filter(pending -> !pending.result.isDone()).forEach(p -> write(List.of(p)));
+    }
+  }
+
+  private void commit(final List<Pending> batch) {
+    final Set<MessageHash> hashes =
+        batch.stream()
+            .map(pending -> pending.hash)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+    final Map<MessageHash, EncryptedTransaction> stored = new HashMap<>();
+    encryptedTransactionDAO.findByHashes(hashes).forEach(tx -> stored.put(tx.getHash(), tx));
+
+    final Map<MessageHash, EncryptedTransaction> created = new LinkedHashMap<>();
+    final Map<MessageHash, EncryptedTransaction> updated = new LinkedHashMap<>();
+    final List<Pending> accepted = new ArrayList<>(batch.size());
+    for (final Pending pending : batch) {
+      final MessageHash hash = pending.hash;
+      try {
+        if (created.containsKey(hash)) {
+          TransactionManagerImpl.addRecipient(
+                  created.get(hash), pending.encodedPayload, pending.payload)
+              .ifPresent(tx -> created.put(hash, tx));
+        } else if (stored.containsKey(hash)) {
+          TransactionManagerImpl.addRecipient(
+                  stored.get(hash), pending.encodedPayload, pending.payload)
+              .ifPresent(tx -> updated.put(hash, tx));
+        } else {
+          created.put(hash, new EncryptedTransaction(hash, pending.encodedPayload));
+        }
+        accepted.add(pending);
+      } catch (final RuntimeException ex) {
+        pending.result.completeExceptionally(ex);
+      }
+    }
+
+    if (!created.isEmpty() || !updated.isEmpty()) {
+      encryptedTransactionDAO.saveAll(created.values(), updated.values());
+    }
+    LOGGER.debug(
+        "Stored {} payloads as {} new and {} updated transactions",
+        accepted.size(),
+        created.size(),
+        updated.size());
+
+    accepted.forEach(pending -> pending.result.complete(pending.hash));
+  }
+
+  private static final class Pending {
+
+    private final MessageHash hash;
+
+    private final EncodedPayload encodedPayload;
+
+    private final EncodedPayload payload;
+
+    private final CompletableFuture<MessageHash> result = new CompletableFuture<>();
+
+    private Pending(
+        final MessageHash hash, final EncodedPayload encodedPayload, final EncodedPayload payload) {
+      this.hash = hash;
+      this.encodedPayload = encodedPayload;
+      this.payload = payload;
+    }
+  }
+}
@@ -5,9 +5,9 @@ import static java.util.function.Predicate.not;
 import com.quorum.tessera.data.*;
 import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.enclave.PayloadDigest;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.threading.StripedLocks;
 import com.quorum.tessera.transaction.*;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotAvailableException;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
@@ -15,6 +15,7 @@ import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -24,6 +25,8 @@ public class TransactionManagerImpl implements TransactionManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TransactionManagerImpl.class);
 
+  private static final int LOCK_STRIPES = 256;
+
   private final EncryptedTransactionDAO encryptedTransactionDAO;
 
   private final EncryptedRawTransactionDAO encryptedRawTransactionDAO;
@@ -38,6 +41,12 @@ public class TransactionManagerImpl implements TransactionManager {
 
   private final PayloadDigest payloadDigest;
 
+  private final GroupCommitPayloadStore groupCommitPayloadStore;
+
+  private final OutboxDAO outboxDAO;
+
+  private final StripedLocks storeLocks = new StripedLocks(LOCK_STRIPES);
+
   public TransactionManagerImpl(
       Enclave enclave,
       EncryptedTransactionDAO encryptedTransactionDAO,
@@ -46,6 +55,56 @@ public class TransactionManagerImpl implements TransactionManager {
       BatchPayloadPublisher batchPayloadPublisher,
       PrivacyHelper privacyHelper,
       PayloadDigest payloadDigest) {
+    this(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        payloadDigest,
+        null);
+  }
+
+  /**
+   * @param groupCommitPayloadStore stores payloads received from other nodes in batches, or null to
+   *     store each as it is received
+   */
+  public TransactionManagerImpl(
+      Enclave enclave,
+      EncryptedTransactionDAO encryptedTransactionDAO,
+      EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+      ResendManager resendManager,
+      BatchPayloadPublisher batchPayloadPublisher,
+      PrivacyHelper privacyHelper,
+      PayloadDigest payloadDigest,
+      GroupCommitPayloadStore groupCommitPayloadStore) {
+    this(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        payloadDigest,
+        groupCommitPayloadStore,
+        null);
+  }
+
+  /**
+   * @param outboxDAO records sent transactions to be pushed to remote recipients in the
+   *     background, or null to push them before the send returns
+   */
+  public TransactionManagerImpl(
+      Enclave enclave,
+      EncryptedTransactionDAO encryptedTransactionDAO,
+      EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+      ResendManager resendManager,
+      BatchPayloadPublisher batchPayloadPublisher,
+      PrivacyHelper privacyHelper,
+      PayloadDigest payloadDigest,
+      GroupCommitPayloadStore groupCommitPayloadStore,
+      OutboxDAO outboxDAO) {
     this.encryptedTransactionDAO =
         Objects.requireNonNull(encryptedTransactionDAO, "encryptedTransactionDAO is required");
     this.batchPayloadPublisher =
@@ -57,6 +116,8 @@ public class TransactionManagerImpl implements TransactionManager {
     this.resendManager = Objects.requireNonNull(resendManager, "resendManager is required");
     this.privacyHelper = Objects.requireNonNull(privacyHelper, "privacyHelper is required");
     this.payloadDigest = Objects.requireNonNull(payloadDigest, "payloadDigest is required");
+    this.groupCommitPayloadStore = groupCommitPayloadStore;
+    this.outboxDAO = outboxDAO;
   }
 
   @Override
@@ -118,12 +179,7 @@ public class TransactionManagerImpl implements TransactionManager {
             .filter(not(managedPublicKeys::contains))
             .collect(Collectors.toList());
 
-    this.encryptedTransactionDAO.save(
-        newTransaction,
-        () -> {
-          batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
-          return null;
-        });
+    this.saveAndPublish(newTransaction, payload, recipientListRemotesOnly);
 
     return SendResponse.Builder.create()
         .withMessageHash(transactionHash)
@@ -194,12 +250,7 @@ public class TransactionManagerImpl implements TransactionManager {
             .filter(not(managedPublicKeys::contains))
             .collect(Collectors.toList());
 
-    this.encryptedTransactionDAO.save(
-        newTransaction,
-        () -> {
-          batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
-          return null;
-        });
+    this.saveAndPublish(newTransaction, payload, recipientListRemotesOnly);
 
     return SendResponse.Builder.create()
         .withMessageHash(messageHash)
@@ -208,8 +259,35 @@ public class TransactionManagerImpl implements TransactionManager {
         .build();
   }
 
+  private void saveAndPublish(
+      final EncryptedTransaction transaction,
+      final EncodedPayload payload,
+      final List<PublicKey> remoteRecipients) {
+    if (outboxDAO == null) {
+      this.encryptedTransactionDAO.save(
+          transaction,
+          () -> {
+            batchPayloadPublisher.publishPayload(payload, remoteRecipients);
+            return null;
+          });
+      return;
+    }
+
+    // the send returns before the pushes are made, so a recipient that could never accept the
+    // payload is reported now rather than being retried in the background
+    batchPayloadPublisher.checkRecipients(payload, remoteRecipients);
+
+    // the entries are stored with the transaction, in the same database transaction where the
+    // store allows it, and a dispatcher pushes them once both are stored
+    final List<OutboxEntry> entries =
+        remoteRecipients.stream()
+            .map(recipient -> new OutboxEntry(transaction.getHash(), recipient))
+            .collect(Collectors.toList());
+    this.encryptedTransactionDAO.save(transaction, entries, outboxDAO);
+  }
+
   @Override
-  public synchronized MessageHash storePayload(final EncodedPayload payload) {
+  public MessageHash storePayload(final EncodedPayload payload) {
 
     final byte[] digest = payloadDigest.digest(payload.getCipherText());
     final MessageHash transactionHash = new MessageHash(digest);
@@ -245,6 +323,30 @@ public class TransactionManagerImpl implements TransactionManager {
     }
 
     // This is a transaction with a different node as the sender
+    if (groupCommitPayloadStore != null) {
+      return groupCommitPayloadStore.store(transactionHash, encodedPayload, payload);
+    }
+    // only payloads for the same transaction need to be stored one at a time
+    final Lock lock = storeLocks.get(transactionHash);
+    lock.lock();
+    try {
+      return store(transactionHash, encodedPayload, payload);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private MessageHash store(
+      final MessageHash transactionHash,
+      final EncodedPayload encodedPayload,
+      final EncodedPayload payload) {
+    // most boxes for a stored transaction can be added without reading it back
+    if (encodedPayload.getPrivacyMode() == PrivacyMode.STANDARD_PRIVATE
+        && this.encryptedTransactionDAO.addRecipientBox(transactionHash, encodedPayload)) {
+      LOGGER.info("Added recipient to existing payload with hash {}", transactionHash);
+      return transactionHash;
+    }
+
     final Optional<EncryptedTransaction> tx =
         this.encryptedTransactionDAO.retrieveByHash(transactionHash);
     if (tx.isEmpty()) {
@@ -254,7 +356,31 @@ public class TransactionManagerImpl implements TransactionManager {
       return transactionHash;
     }
 
-    final EncryptedTransaction encryptedTransaction = tx.get();
+    final Optional<EncryptedTransaction> updated = addRecipient(tx.get(), encodedPayload, payload);
+    if (updated.isPresent()) {
+      this.encryptedTransactionDAO.update(updated.get());
+      LOGGER.info("Updated existing payload with hash {}", transactionHash);
+    }
+    return transactionHash;
+  }
+
+  /**
+   * Adds the recipients of a payload received from another node to the transaction already stored
+   * with the same hash.
+   *
+   * @param encryptedTransaction the stored transaction
+   * @param encodedPayload the received payload, with any invalid security hashes removed
+   * @param payload the received payload as it was sent
+   * @return the transaction with its payload replaced, or empty if the recipients are already
+   *     stored
+   * @throws RuntimeException if the payload does not match the stored transaction, in which case
+   *     the stored transaction is left unchanged
+   */
+  static Optional<EncryptedTransaction> addRecipient(
+      final EncryptedTransaction encryptedTransaction,
+      final EncodedPayload encodedPayload,
+      final EncodedPayload payload) {
+    final MessageHash transactionHash = encryptedTransaction.getHash();
     final EncodedPayload existing = encryptedTransaction.getPayload();
 
     // check all the other bits of the payload match
@@ -282,55 +408,56 @@ public class TransactionManagerImpl implements TransactionManager {
       throw new RuntimeException("Invalid existing transaction");
     }
 
-    // check if the box already exists
-    // this is the easiest way to tell if a recipient has already been included
-    for (RecipientBox existingBox : existing.getRecipientBoxes()) {
-      if (Objects.equals(existingBox, encodedPayload.getRecipientBoxes().get(0))) {
-        // recipient must already exist, so just act as though things went normally
+    final List<RecipientBox> existingBoxes = new ArrayList<>(existing.getRecipientBoxes());
+    final List<PublicKey> existingKeys = new ArrayList<>(existing.getRecipientKeys());
+    boolean added = false;
+
+    // A payload from a node that groups its recipients carries a box for each of them, with the
+    // key for each box at the same position. Going from the last box to the first, and prepending
+    // each, keeps the boxes in the order they were sent, in front of the existing ones.
+    final List<RecipientBox> newBoxes = encodedPayload.getRecipientBoxes();
+    for (int i = newBoxes.size() - 1; i >= 0; i--) {
+      final RecipientBox newBox = newBoxes.get(i);
+
+      // check if the box already exists
+      // this is the easiest way to tell if a recipient has already been included
+      if (existingBoxes.contains(newBox)) {
         LOGGER.info("Recipient already existed in payload with hash {}", transactionHash);
-        return transactionHash;
+        continue;
       }
-    }
-
-    final EncodedPayload.Builder existingPayloadBuilder = EncodedPayload.Builder.from(existing);
+      existingBoxes.add(0, newBox);
+      added = true;
 
-    // Boxes are all handled the same way. The new payload will only contain one box, and this will
-    // be prepended
-    // to the the list of existing boxes.
-    final List<RecipientBox> existingBoxes = new ArrayList<>(existing.getRecipientBoxes());
-    existingBoxes.add(0, encodedPayload.getRecipientBoxes().get(0));
-    existingPayloadBuilder.withRecipientBoxes(
-        existingBoxes.stream().map(RecipientBox::getData).collect(Collectors.toList()));
-
-    // The case where a legacy transaction, which contains no recipients, is sent to us
-    // is handled implicitly, as we don't need to add anything to the recipients list
-    if (PrivacyMode.PRIVATE_STATE_VALIDATION == encodedPayload.getPrivacyMode()) {
-      // PSV transaction, we have one box, and the relevant key is the first value
-      // the existing payload will contain the key, but we can remove it and prepend the key again,
-      // along with the
-      // box
-      final List<PublicKey> existingKeys = new ArrayList<>(existing.getRecipientKeys());
-      final PublicKey newRecipient = encodedPayload.getRecipientKeys().get(0);
-      if (!existingKeys.contains(newRecipient)) {
-        throw new RuntimeException("expected recipient not found");
+      // The case where a legacy transaction, which contains no recipients, is sent to us
+      // is handled implicitly, as we don't need to add anything to the recipients list
+      if (i >= encodedPayload.getRecipientKeys().size()) {
+        continue;
+      }
+      final PublicKey newRecipient = encodedPayload.getRecipientKeys().get(i);
+      if (PrivacyMode.PRIVATE_STATE_VALIDATION == encodedPayload.getPrivacyMode()) {
+        // PSV transaction, the existing payload will contain the key, but we can remove it and
+        // prepend the key again, along with the box
+        if (!existingKeys.remove(newRecipient)) {
+          throw new RuntimeException("expected recipient not found");
+        }
       }
-      existingKeys.remove(newRecipient);
+      // Regular tx, or PSV with the key removed, so add the recipient along with the box
       existingKeys.add(0, newRecipient);
-      existingPayloadBuilder.withNewRecipientKeys(existingKeys);
-    } else if (!encodedPayload.getRecipientKeys().isEmpty()) {
-      // Regular tx, add the recipient and the box
-      final List<PublicKey> existingKeys = new ArrayList<>(existing.getRecipientKeys());
-      final PublicKey newRecipient = encodedPayload.getRecipientKeys().get(0);
+    }
 
-      existingKeys.add(0, newRecipient);
-      existingPayloadBuilder.withNewRecipientKeys(existingKeys);
+    if (!added) {
+      // recipients must already exist, so just act as though things went normally
+      return Optional.empty();
     }
 
-    encryptedTransaction.setPayload(existingPayloadBuilder.build());
-    this.encryptedTransactionDAO.update(encryptedTransaction);
+    final EncodedPayload.Builder existingPayloadBuilder =
+        EncodedPayload.Builder.from(existing)
+            .withRecipientBoxes(
+                existingBoxes.stream().map(RecipientBox::getData).collect(Collectors.toList()))
+            .withNewRecipientKeys(existingKeys);
 
-    LOGGER.info("Updated existing payload with hash {}", transactionHash);
-    return transactionHash;
+    encryptedTransaction.setPayload(existingPayloadBuilder.build());
+    return Optional.of(encryptedTransaction);
   }
 
   @Override
@@ -414,12 +541,17 @@ public class TransactionManagerImpl implements TransactionManager {
     Set<PublicKey> managedParties = new HashSet<>();
     if (payload.getRecipientKeys().isEmpty()) {
       // legacy tx
-      for (RecipientBox box : payload.getRecipientBoxes()) {
-        EncodedPayload singleBoxPayload =
-            EncodedPayload.Builder.from(payload).withRecipientBoxes(List.of(box.getData())).build();
-        Optional<PublicKey> possibleRecipient = searchForRecipientKey(singleBoxPayload);
-        possibleRecipient.ifPresent(managedParties::add);
-      }
+      final List<EncodedPayload> singleBoxPayloads =
+          payload.getRecipientBoxes().stream()
+              .map(
+                  box ->
+                      EncodedPayload.Builder.from(payload)
+                          .withRecipientBoxes(List.of(box.getData()))
+                          .build())
+              .collect(Collectors.toList());
+      enclave.findRecipientKeys(singleBoxPayloads).stream()
+          .flatMap(Optional::stream)
+          .forEach(managedParties::add);
     } else {
       managedParties =
           enclave.getPublicKeys().stream()
@@ -441,15 +573,7 @@ public class TransactionManagerImpl implements TransactionManager {
   }
 
   private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-    for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
-      try {
-        enclave.unencryptTransaction(payload, potentialMatchingKey);
-        return Optional.of(potentialMatchingKey);
-      } catch (EnclaveException | IndexOutOfBoundsException | EncryptorException ex) {
-        LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
-      }
-    }
-    return Optional.empty();
+    return enclave.findRecipientKeys(List.of(payload)).get(0);
   }
 
   @Override
@@ -500,6 +624,23 @@ public class TransactionManagerImpl implements TransactionManager {
     return payload.getMandatoryRecipients();
   }
 
+  @Override
+  public List<DeliveryStatus> getDeliveryStatus(MessageHash transactionHash) {
+    if (outboxDAO == null) {
+      return List.of();
+    }
+    return outboxDAO.retrieveByHash(transactionHash).stream()
+        .map(
+            entry ->
+                DeliveryStatus.Builder.create()
+                    .withRecipient(entry.getRecipient())
+                    .withState(DeliveryStatus.State.valueOf(entry.getStatus().name()))
+                    .withAttempts(entry.getAttempts())
+                    .withLastError(entry.getLastError())
+                    .build())
+        .collect(Collectors.toList());
+  }
+
   @Override
   public PublicKey defaultPublicKey() {
     return enclave.defaultPublicKey();
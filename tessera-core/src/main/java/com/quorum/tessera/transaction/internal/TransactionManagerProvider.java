@@ -1,7 +1,13 @@
 package com.quorum.tessera.transaction.internal;
 
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.config.util.OutboxPropertyHelper;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.OutboxDAO;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.PayloadDigest;
 import com.quorum.tessera.transaction.PrivacyHelper;
@@ -9,6 +15,7 @@ import com.quorum.tessera.transaction.TransactionManager;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +55,33 @@ public class TransactionManagerProvider {
     final PayloadDigest messageHashFactory = PayloadDigest.create();
     LOGGER.debug("Created PayloadDigest {}", messageHashFactory);
 
+    final Config config = ConfigFactory.create().getConfig();
+    final Optional<JdbcConfig> jdbcConfig = Optional.of(config).map(Config::getJdbcConfig);
+    final int storeBatchSize = jdbcConfig.map(JdbcConfig::getStoreBatchSize).orElse(0);
+    final GroupCommitPayloadStore groupCommitPayloadStore;
+    if (storeBatchSize > 0) {
+      final long storeBatchDelay = jdbcConfig.get().getStoreBatchDelay();
+      LOGGER.debug("Storing received payloads in batches of up to {}", storeBatchSize);
+      groupCommitPayloadStore =
+          new GroupCommitPayloadStore(encryptedTransactionDAO, storeBatchSize, storeBatchDelay);
+    } else {
+      groupCommitPayloadStore = null;
+    }
+
+    final boolean outbox =
+        Optional.ofNullable(config.getP2PServerConfig())
+            .map(ServerConfig::getProperties)
+            .map(OutboxPropertyHelper::new)
+            .map(OutboxPropertyHelper::outbox)
+            .orElse(false);
+    final OutboxDAO outboxDAO;
+    if (outbox) {
+      LOGGER.debug("Pushing sent transactions to remote recipients from the outbox");
+      outboxDAO = OutboxDAO.create();
+    } else {
+      outboxDAO = null;
+    }
+
     return transactionManagerHolder.store(
         new TransactionManagerImpl(
             enclave,
@@ -56,6 +90,8 @@ public class TransactionManagerProvider {
             resendManager,
             batchPayloadPublisher,
             privacyHelper,
-            messageHashFactory));
+            messageHashFactory,
+            groupCommitPayloadStore,
+            outboxDAO));
   }
 }
@@ -17,6 +17,15 @@ public interface BatchPayloadPublisher {
    */
   void publishPayload(EncodedPayload payload, List<PublicKey> recipientKeys);
 
+  /**
+   * Checks, without publishing anything, that each recipient's node can accept the payload, as
+   * {@link PayloadPublisher#checkRecipient} does.
+   *
+   * @param payload the payload object to be checked
+   * @param recipientKeys list of public keys identifying the target nodes
+   */
+  default void checkRecipients(EncodedPayload payload, List<PublicKey> recipientKeys) {}
+
   static BatchPayloadPublisher create() {
     return ServiceLoaderUtil.loadSingle(ServiceLoader.load(BatchPayloadPublisher.class));
   }
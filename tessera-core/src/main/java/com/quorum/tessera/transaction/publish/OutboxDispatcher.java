@@ -0,0 +1,268 @@
+package com.quorum.tessera.transaction.publish;
+
+import com.quorum.tessera.config.util.OutboxPropertyHelper;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.encryption.KeyNotFoundException;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.threading.IoScheduler;
+import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
+import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes sent transactions recorded in the outbox to their remote recipients, retrying with an
+ * exponential backoff until they are delivered.
+ *
+ * <p>Each run reads the entries that are due and gives each recipient's entries, in the order they
+ * were sent, to one task on the {@link IoScheduler}, counted against the node hosting the recipient
+ * so that the scheduler's limit per node applies. A task stops at the first entry it can't push and
+ * holds back all the recipient's pending entries, so no transaction reaches a recipient before one
+ * that was sent to it earlier. A recipient isn't given another task while one is running.
+ *
+ * <p>An entry the recipient's node can never accept, because it doesn't support the payload's
+ * privacy mode, is marked failed at once. Sends in outbox mode check for this before storing the
+ * transaction, so such an entry is only left when the node has changed since.
+ *
+ * <p>A store that can't write the entries in the same unit of work as their transaction writes them
+ * first, so an entry whose transaction can't be found is held back for a while in case it is still
+ * being saved, and only marked failed once it is older than that.
+ */
+public class OutboxDispatcher implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+  private static final long CLEANUP_INTERVAL = 60000L;
+
+  private static final int MAX_ERROR_LENGTH = 255;
+
+  private static final long MISSING_TRANSACTION_GRACE = 60000L;
+
+  private final OutboxDAO outboxDAO;
+
+  private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private final PayloadPublisher payloadPublisher;
+
+  private final IoScheduler scheduler;
+
+  private final Discovery discovery;
+
+  private final int batchSize;
+
+  private final long initialBackoff;
+
+  private final long maxBackoff;
+
+  private final int maxAttempts;
+
+  private final long retention;
+
+  private final LongSupplier clock;
+
+  // only used by the thread calling run
+  private final Set<PublicKey> inFlight = new HashSet<>();
+
+  private final Queue<PublicKey> finished = new ConcurrentLinkedQueue<>();
+
+  private long nextCleanup;
+
+  public OutboxDispatcher(
+      final OutboxDAO outboxDAO,
+      final EncryptedTransactionDAO encryptedTransactionDAO,
+      final PayloadPublisher payloadPublisher,
+      final IoScheduler scheduler,
+      final Discovery discovery,
+      final OutboxPropertyHelper properties) {
+    this(
+        outboxDAO,
+        encryptedTransactionDAO,
+        payloadPublisher,
+        scheduler,
+        discovery,
+        properties.outboxBatchSize(),
+        properties.outboxDispatchInterval(),
+        properties.outboxMaxBackoff(),
+        properties.outboxMaxAttempts(),
+        properties.outboxRetention(),
+        System::currentTimeMillis);
+  }
+
+  /**
+   * @param maxAttempts the number of times to try each entry before marking it failed, or 0 to
+   *     keep trying until it is delivered
+   * @param retention how long to keep delivered and failed entries, in milliseconds
+   */
+  OutboxDispatcher(
+      final OutboxDAO outboxDAO,
+      final EncryptedTransactionDAO encryptedTransactionDAO,
+      final PayloadPublisher payloadPublisher,
+      final IoScheduler scheduler,
+      final Discovery discovery,
+      final int batchSize,
+      final long initialBackoff,
+      final long maxBackoff,
+      final int maxAttempts,
+      final long retention,
+      final LongSupplier clock) {
+    this.outboxDAO = Objects.requireNonNull(outboxDAO);
+    this.encryptedTransactionDAO = Objects.requireNonNull(encryptedTransactionDAO);
+    this.payloadPublisher = Objects.requireNonNull(payloadPublisher);
+    this.scheduler = Objects.requireNonNull(scheduler);
+    this.discovery = Objects.requireNonNull(discovery);
+    this.batchSize = batchSize;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.maxAttempts = maxAttempts;
+    this.retention = retention;
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  public static OutboxDispatcher create(
+      final IoScheduler scheduler, final OutboxPropertyHelper properties) {
+    return new OutboxDispatcher(
+        OutboxDAO.create(),
+        EncryptedTransactionDAO.create(),
+        PayloadPublisher.create(),
+        scheduler,
+        Discovery.create(),
+        properties);
+  }
+
+  @Override
+  public void run() {
+    // a finished task has written back its entries, so they are read again as they now are
+    for (PublicKey recipient = finished.poll(); recipient != null; recipient = finished.poll()) {
+      inFlight.remove(recipient);
+    }
+
+    final long now = clock.getAsLong();
+    if (now >= nextCleanup) {
+      nextCleanup = now + CLEANUP_INTERVAL;
+      outboxDAO.deleteFinished(now - retention);
+    }
+
+    final Map<PublicKey, List<OutboxEntry>> dueByRecipient =
+        outboxDAO.retrieveDue(now, batchSize).stream()
+            .collect(
+                Collectors.groupingBy(
+                    OutboxEntry::getRecipient, LinkedHashMap::new, Collectors.toList()));
+
+    dueByRecipient.forEach(
+        (recipient, entries) -> {
+          if (!inFlight.add(recipient)) {
+            return;
+          }
+          try {
+            scheduler.execute(
+                destinationOf(recipient),
+                () -> {
+                  try {
+                    push(entries);
+                  } finally {
+                    finished.add(recipient);
+                  }
+                });
+          } catch (RejectedExecutionException ex) {
+            inFlight.remove(recipient);
+            LOGGER.debug("Too many calls waiting, will push to {} on a later run", recipient);
+          }
+        });
+  }
+
+  /** @return the node hosting the recipient, so that pushes to a slow node can be limited */
+  private String destinationOf(final PublicKey recipient) {
+    try {
+      return discovery.getRemoteNodeInfo(recipient).getUrl();
+    } catch (KeyNotFoundException ex) {
+      // the push itself reports the unknown recipient
+      return recipient.encodeToBase64();
+    }
+  }
+
+  private void push(final List<OutboxEntry> entries) {
+    for (final OutboxEntry entry : entries) {
+      if (!push(entry)) {
+        return;
+      }
+    }
+  }
+
+  // whether the recipient's later entries can be pushed after this one
+  private boolean push(final OutboxEntry entry) {
+    final Optional<EncryptedTransaction> transaction =
+        encryptedTransactionDAO.retrieveByHash(entry.getMessageHash());
+    if (transaction.isEmpty()) {
+      final long now = clock.getAsLong();
+      if (entry.getTimestamp() > now - MISSING_TRANSACTION_GRACE) {
+        // may still be being saved, so try again without counting it as an attempt
+        LOGGER.debug("Transaction {} not stored yet", entry.getMessageHash());
+        outboxDAO.postpone(entry.getRecipientKey(), now + initialBackoff);
+        return false;
+      }
+      // deleted since it was sent, or never stored because saving it failed
+      entry.setStatus(OutboxEntry.Status.FAILED);
+      entry.setLastError("Transaction not found");
+      outboxDAO.update(entry);
+      return true;
+    }
+
+    entry.setAttempts(entry.getAttempts() + 1);
+    try {
+      payloadPublisher.publishPayload(
+          new PayloadTemplates(transaction.get().getPayload()), entry.getRecipient());
+    } catch (EnhancedPrivacyNotSupportedException | MandatoryRecipientsNotSupportedException ex) {
+      // trying again can't help, so the recipient's later entries are pushed after it
+      LOGGER.warn(
+          "Unable to push transaction {} to {}: {}",
+          entry.getMessageHash(),
+          entry.getRecipient(),
+          ex.getMessage());
+      entry.setStatus(OutboxEntry.Status.FAILED);
+      entry.setLastError(truncate(String.valueOf(ex.getMessage())));
+      outboxDAO.update(entry);
+      return true;
+    } catch (RuntimeException ex) {
+      final long nextAttempt = clock.getAsLong() + backoff(entry.getAttempts());
+      LOGGER.debug("Unable to push to {}, will try again at {}", entry.getRecipient(), nextAttempt);
+      entry.setLastError(truncate(String.valueOf(ex.getMessage())));
+      if (maxAttempts > 0 && entry.getAttempts() >= maxAttempts) {
+        LOGGER.warn(
+            "Giving up pushing transaction {} to {} after {} attempts",
+            entry.getMessageHash(),
+            entry.getRecipient(),
+            entry.getAttempts());
+        entry.setStatus(OutboxEntry.Status.FAILED);
+      }
+      outboxDAO.update(entry);
+      outboxDAO.postpone(entry.getRecipientKey(), nextAttempt);
+      return false;
+    }
+
+    entry.setStatus(OutboxEntry.Status.DELIVERED);
+    outboxDAO.update(entry);
+    return true;
+  }
+
+  private long backoff(final int attempts) {
+    long delay = initialBackoff;
+    for (int i = 1; i < attempts && delay < maxBackoff; i++) {
+      delay *= 2;
+    }
+    return Math.min(delay, maxBackoff);
+  }
+
+  private static String truncate(final String error) {
+    return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+  }
+}
@@ -0,0 +1,12 @@
+package com.quorum.tessera.transaction.publish;
+
+/**
+ * An exception thrown when a payload can't be encoded for a recipient. The fault is local, so
+ * unlike a {@link NodeOfflineException} it says nothing about whether the recipient can be reached.
+ */
+public class PayloadEncodingException extends PublishPayloadException {
+
+  public PayloadEncodingException(final String message, final Throwable cause) {
+    super(message, cause);
+  }
+}
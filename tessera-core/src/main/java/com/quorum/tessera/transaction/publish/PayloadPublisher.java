@@ -1,9 +1,13 @@
 package com.quorum.tessera.transaction.publish;
 
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.serviceloader.ServiceLoaderUtil;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.stream.Collectors;
 
 /** Publishes messages from one node to another */
 public interface PayloadPublisher {
@@ -16,6 +20,57 @@ public interface PayloadPublisher {
    */
   void publishPayload(EncodedPayload payload, PublicKey recipientKey);
 
+  /**
+   * Publishes the payload, stripped of any data not relevant to the recipient, to the recipient
+   * identified by the provided key. Publishers that encode the payload can use the templates to
+   * avoid encoding the parts that are the same for every recipient again.
+   *
+   * @param templates the full payload, and its templates shared by all of its recipients
+   * @param recipientKey the public key identifying the target node
+   */
+  default void publishPayload(PayloadTemplates templates, PublicKey recipientKey) {
+    final EncodedPayload outgoing =
+        EncodedPayload.Builder.forRecipient(templates.getPayload(), recipientKey).build();
+    publishPayload(outgoing, recipientKey);
+  }
+
+  /**
+   * Groups the recipients of a payload so that each group can be published in one request.
+   * Publishers that can't send more than one recipient's data at once give each recipient a group
+   * of its own.
+   *
+   * @param recipientKeys the public keys identifying the target nodes
+   * @return the recipients, in groups that can each be published together
+   */
+  default List<List<PublicKey>> groupRecipients(List<PublicKey> recipientKeys) {
+    return recipientKeys.stream().map(List::of).collect(Collectors.toList());
+  }
+
+  /**
+   * Publishes the payload, stripped of any data not relevant to the recipients, to a group of
+   * recipients given by {@link #groupRecipients(List)}.
+   *
+   * @param templates the full payload, and its templates shared by all of its recipients
+   * @param recipientKeys the public keys identifying the target nodes
+   */
+  default void publishPayload(PayloadTemplates templates, List<PublicKey> recipientKeys) {
+    recipientKeys.forEach(recipientKey -> publishPayload(templates, recipientKey));
+  }
+
+  /**
+   * Checks, without publishing anything, that the recipient's node can accept a payload with the
+   * given privacy mode, so that one it never could is rejected before it is stored. Recipients that
+   * can't be checked yet pass, and are reported when the payload is published.
+   *
+   * @param privacyMode the privacy mode of the payload
+   * @param recipientKey the public key identifying the target node
+   * @throws com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException if the
+   *     node doesn't support enhanced privacy and the payload uses it
+   * @throws com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException if
+   *     the node doesn't support mandatory recipients and the payload uses them
+   */
+  default void checkRecipient(PrivacyMode privacyMode, PublicKey recipientKey) {}
+
   static PayloadPublisher create() {
     return ServiceLoaderUtil.loadSingle(ServiceLoader.load(PayloadPublisher.class));
   }
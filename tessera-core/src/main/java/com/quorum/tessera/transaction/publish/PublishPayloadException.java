@@ -6,4 +6,8 @@ public class PublishPayloadException extends RuntimeException {
   public PublishPayloadException(final String message) {
     super(message);
   }
+
+  public PublishPayloadException(final String message, final Throwable cause) {
+    super(message, cause);
+  }
 }
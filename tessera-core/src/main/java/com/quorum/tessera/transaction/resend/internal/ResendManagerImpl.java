@@ -5,17 +5,25 @@ import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.threading.StripedLocks;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
 
 public class ResendManagerImpl implements ResendManager {
 
+  private static final int LOCK_STRIPES = 256;
+
   private final EncryptedTransactionDAO encryptedTransactionDAO;
 
   private final Enclave enclave;
 
   private final PayloadDigest payloadDigest;
 
+  private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
   public ResendManagerImpl(
       final EncryptedTransactionDAO dao, final Enclave enclave, final PayloadDigest payloadDigest) {
     this.encryptedTransactionDAO = dao;
@@ -23,10 +31,10 @@ public class ResendManagerImpl implements ResendManager {
     this.payloadDigest = payloadDigest;
   }
 
-  // TODO: synchronize based on messagehash, so different message don't lock each other
-  public synchronized void acceptOwnMessage(final EncodedPayload payload) {
+  public void acceptOwnMessage(final EncodedPayload payload) {
     // check the payload can be decrypted to ensure it isn't rubbish being sent to us
-    final byte[] newDecrypted;
+    // the enclave is left to do so while the existing transaction is looked up
+    final CompletableFuture<byte[]> decryption;
     if (payload.getPrivacyMode() == PrivacyMode.PRIVATE_STATE_VALIDATION) {
       // if it is PSV, then the enclave would be expected our own box to be available,
       // but it isn't (since we are rebuilding)
@@ -39,9 +47,9 @@ public class ResendManagerImpl implements ResendManager {
               .withNewRecipientKeys(List.of(payload.getRecipientKeys().get(0)))
               .withRecipientBoxes(List.of(payload.getRecipientBoxes().get(0).getData()))
               .build();
-      newDecrypted = enclave.unencryptTransaction(tempPayload, payload.getSenderKey());
+      decryption = enclave.unencryptTransactionAsync(tempPayload, payload.getSenderKey());
     } else {
-      newDecrypted = enclave.unencryptTransaction(payload, payload.getSenderKey());
+      decryption = enclave.unencryptTransactionAsync(payload, payload.getSenderKey());
     }
 
     final MessageHash transactionHash =
@@ -51,18 +59,38 @@ public class ResendManagerImpl implements ResendManager {
             .map(MessageHash::new)
             .get();
 
+    // only messages for the same transaction need to be rebuilt one at a time
+    final Lock lock = locks.get(transactionHash);
+    lock.lock();
+    try {
+      acceptOwnMessage(payload, transactionHash, decryption);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void acceptOwnMessage(
+      final EncodedPayload payload,
+      final MessageHash transactionHash,
+      final CompletableFuture<byte[]> decryption) {
     final PublicKey sender = payload.getSenderKey();
-    if (!enclave.getPublicKeys().contains(sender)) {
+    final boolean isOwnSender = enclave.getPublicKeys().contains(sender);
+
+    // this is a tx which we created
+    final Optional<EncryptedTransaction> tx =
+        isOwnSender
+            ? this.encryptedTransactionDAO.retrieveByHash(transactionHash)
+            : Optional.empty();
+
+    final byte[] newDecrypted = join(decryption);
+
+    if (!isOwnSender) {
       throw new IllegalArgumentException(
           "Message "
               + transactionHash.toString()
               + " does not have one the nodes own keys as a sender");
     }
 
-    // this is a tx which we created
-    final Optional<EncryptedTransaction> tx =
-        this.encryptedTransactionDAO.retrieveByHash(transactionHash);
-
     if (tx.isPresent()) {
 
       // we just need to add the recipient
@@ -116,10 +144,13 @@ public class ResendManagerImpl implements ResendManager {
       }
 
       // add recipient boxes for all recipients (applicable for PSV transactions)
-      for (int i = payload.getRecipientBoxes().size(); i < recipientKeys.size(); i++) {
-        PublicKey recipient = recipientKeys.get(i);
-        byte[] newBox = enclave.createNewRecipientBox(payload, recipient);
-        payloadBuilder.withRecipientBox(newBox);
+      final int existingBoxCount = payload.getRecipientBoxes().size();
+      if (existingBoxCount < recipientKeys.size()) {
+        final List<PublicKey> missingRecipients =
+            recipientKeys.subList(existingBoxCount, recipientKeys.size());
+        enclave
+            .createNewRecipientBoxes(payload, missingRecipients)
+            .forEach(payloadBuilder::withRecipientBox);
       }
 
       final EncryptedTransaction txToSave =
@@ -128,4 +159,16 @@ public class ResendManagerImpl implements ResendManager {
       this.encryptedTransactionDAO.save(txToSave);
     }
   }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException ex) {
+      // pass on the enclave's own exception, as a synchronous call would have thrown it
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
 }
@@ -0,0 +1,42 @@
+package com.quorum.tessera.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.encryption.PublicKey;
+import org.junit.Test;
+
+public class DeliveryStatusTest {
+
+  @Test
+  public void build() {
+    DeliveryStatus status =
+        DeliveryStatus.Builder.create()
+            .withRecipient(PublicKey.from("recipient".getBytes()))
+            .withState(DeliveryStatus.State.PENDING)
+            .withAttempts(2)
+            .withLastError("unreachable")
+            .build();
+
+    assertThat(status.getRecipient()).isEqualTo(PublicKey.from("recipient".getBytes()));
+    assertThat(status.getState()).isEqualTo(DeliveryStatus.State.PENDING);
+    assertThat(status.getAttempts()).isEqualTo(2);
+    assertThat(status.getLastError()).contains("unreachable");
+  }
+
+  @Test
+  public void lastErrorIsOptional() {
+    DeliveryStatus status =
+        DeliveryStatus.Builder.create()
+            .withRecipient(PublicKey.from("recipient".getBytes()))
+            .withState(DeliveryStatus.State.DELIVERED)
+            .build();
+
+    assertThat(status.getAttempts()).isZero();
+    assertThat(status.getLastError()).isEmpty();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void buildWithNothing() {
+    DeliveryStatus.Builder.create().withState(DeliveryStatus.State.FAILED).build();
+  }
+}
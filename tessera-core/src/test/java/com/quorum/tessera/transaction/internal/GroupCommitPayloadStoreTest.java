@@ -0,0 +1,231 @@
+package com.quorum.tessera.transaction.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class GroupCommitPayloadStoreTest {
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private List<Runnable> tasks;
+
+  private GroupCommitPayloadStore groupCommitPayloadStore;
+
+  @Before
+  public void onSetUp() {
+    encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+    tasks = new ArrayList<>();
+    Executor executor = tasks::add;
+    groupCommitPayloadStore = new GroupCommitPayloadStore(encryptedTransactionDAO, 10, 0, executor);
+  }
+
+  @After
+  public void onTearDown() {
+    verifyNoMoreInteractions(encryptedTransactionDAO);
+  }
+
+  private static EncodedPayload payload(String cipherText, String recipient) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("sender".getBytes()))
+        .withCipherText(cipherText.getBytes())
+        .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+        .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+        .withRecipientBoxes(List.of(("box-" + recipient).getBytes()))
+        .withRecipientKeys(List.of(PublicKey.from(recipient.getBytes())))
+        .build();
+  }
+
+  private CompletableFuture<MessageHash> submit(String hash, EncodedPayload payload) {
+    return groupCommitPayloadStore.submit(new MessageHash(hash.getBytes()), payload, payload);
+  }
+
+  private void runTasks() {
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+  }
+
+  @Test
+  public void payloadsQueuedTogetherAreWrittenTogether() {
+    EncodedPayload first = payload("cipherText", "recipient1");
+    EncodedPayload second = payload("cipherText", "recipient2");
+    EncodedPayload other = payload("other", "recipient1");
+
+    EncryptedTransaction stored =
+        new EncryptedTransaction(
+            new MessageHash("other".getBytes()), payload("other", "recipient3"));
+    when(encryptedTransactionDAO.findByHashes(anyCollection())).thenReturn(List.of(stored));
+
+    CompletableFuture<MessageHash> firstResult = submit("hash", first);
+    CompletableFuture<MessageHash> secondResult = submit("hash", second);
+    CompletableFuture<MessageHash> otherResult = submit("other", other);
+
+    assertThat(firstResult).isNotDone();
+    runTasks();
+
+    assertThat(firstResult).isCompletedWithValue(new MessageHash("hash".getBytes()));
+    assertThat(secondResult).isCompletedWithValue(new MessageHash("hash".getBytes()));
+    assertThat(otherResult).isCompletedWithValue(new MessageHash("other".getBytes()));
+
+    ArgumentCaptor<Collection<EncryptedTransaction>> created =
+        ArgumentCaptor.forClass(Collection.class);
+    ArgumentCaptor<Collection<EncryptedTransaction>> updated =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(encryptedTransactionDAO).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO).saveAll(created.capture(), updated.capture());
+
+    assertThat(created.getValue()).hasSize(1);
+    EncodedPayload createdPayload = created.getValue().iterator().next().getPayload();
+    assertThat(createdPayload.getRecipientKeys())
+        .containsExactly(
+            PublicKey.from("recipient2".getBytes()), PublicKey.from("recipient1".getBytes()));
+    assertThat(createdPayload.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box-recipient2".getBytes()),
+            RecipientBox.from("box-recipient1".getBytes()));
+
+    assertThat(updated.getValue()).containsExactly(stored);
+    assertThat(stored.getPayload().getRecipientKeys())
+        .containsExactly(
+            PublicKey.from("recipient1".getBytes()), PublicKey.from("recipient3".getBytes()));
+  }
+
+  @Test
+  public void batchIsLimitedToMaxBatchSize() {
+    groupCommitPayloadStore =
+        new GroupCommitPayloadStore(encryptedTransactionDAO, 2, 0, tasks::add);
+
+    submit("hash1", payload("cipherText1", "recipient"));
+    submit("hash2", payload("cipherText2", "recipient"));
+    CompletableFuture<MessageHash> last = submit("hash3", payload("cipherText3", "recipient"));
+    runTasks();
+
+    assertThat(last).isCompleted();
+    verify(encryptedTransactionDAO, times(2)).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO, times(2)).saveAll(anyCollection(), anyCollection());
+  }
+
+  @Test
+  public void recipientAlreadyStoredIsNotWritten() {
+    EncodedPayload payload = payload("cipherText", "recipient");
+    EncryptedTransaction stored =
+        new EncryptedTransaction(new MessageHash("hash".getBytes()), payload);
+    when(encryptedTransactionDAO.findByHashes(anyCollection())).thenReturn(List.of(stored));
+
+    CompletableFuture<MessageHash> result = submit("hash", payload);
+    runTasks();
+
+    assertThat(result).isCompletedWithValue(stored.getHash());
+
+    verify(encryptedTransactionDAO).findByHashes(anyCollection());
+  }
+
+  @Test
+  public void mismatchedPayloadFailsOnItsOwn() {
+    EncryptedTransaction stored =
+        new EncryptedTransaction(
+            new MessageHash("hash".getBytes()), payload("differentCipherText", "recipient1"));
+    when(encryptedTransactionDAO.findByHashes(anyCollection())).thenReturn(List.of(stored));
+
+    CompletableFuture<MessageHash> mismatched = submit("hash", payload("cipherText", "recipient2"));
+    CompletableFuture<MessageHash> other = submit("other", payload("other", "recipient2"));
+    runTasks();
+
+    assertThat(catchThrowable(mismatched::join))
+        .hasMessageContaining("Invalid existing transaction");
+    assertThat(other).isCompletedWithValue(new MessageHash("other".getBytes()));
+
+    verify(encryptedTransactionDAO).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO).saveAll(anyCollection(), anyCollection());
+  }
+
+  @Test
+  public void failedBatchIsWrittenOneByOne() {
+    RuntimeException exception = new RuntimeException("OUCH");
+    doThrow(exception)
+        .doNothing()
+        .doThrow(exception)
+        .when(encryptedTransactionDAO)
+        .saveAll(anyCollection(), anyCollection());
+
+    CompletableFuture<MessageHash> first = submit("hash1", payload("cipherText1", "recipient"));
+    CompletableFuture<MessageHash> second = submit("hash2", payload("cipherText2", "recipient"));
+    runTasks();
+
+    assertThat(first).isCompletedWithValue(new MessageHash("hash1".getBytes()));
+    assertThat(catchThrowable(second::join)).hasCause(exception);
+
+    verify(encryptedTransactionDAO, times(3)).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO, times(3)).saveAll(anyCollection(), anyCollection());
+  }
+
+  @Test
+  public void storeWaitsForCommitAndRethrowsFailure() {
+    groupCommitPayloadStore =
+        new GroupCommitPayloadStore(encryptedTransactionDAO, 10, 0, Runnable::run);
+    EncodedPayload payload = payload("cipherText", "recipient");
+    MessageHash hash = new MessageHash("hash".getBytes());
+
+    assertThat(groupCommitPayloadStore.store(hash, payload, payload)).isEqualTo(hash);
+
+    RuntimeException exception = new RuntimeException("OUCH");
+    doThrow(exception).when(encryptedTransactionDAO).saveAll(anyCollection(), anyCollection());
+
+    assertThat(catchThrowable(() -> groupCommitPayloadStore.store(hash, payload, payload)))
+        .isSameAs(exception);
+
+    verify(encryptedTransactionDAO, times(2)).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO, times(2)).saveAll(anyCollection(), anyCollection());
+  }
+
+  @Test
+  public void writerWaitsForMorePayloadsUpToDelay() throws Exception {
+    groupCommitPayloadStore =
+        new GroupCommitPayloadStore(encryptedTransactionDAO, 2, 5000, tasks::add);
+
+    CompletableFuture<MessageHash> first = submit("hash1", payload("cipherText1", "recipient"));
+    Thread writer = new Thread(tasks.remove(0));
+    writer.start();
+    CompletableFuture<MessageHash> second = submit("hash2", payload("cipherText2", "recipient"));
+    writer.join(5000);
+
+    assertThat(first).isCompleted();
+    assertThat(second).isCompleted();
+    assertThat(tasks).isEmpty();
+    verify(encryptedTransactionDAO).findByHashes(anyCollection());
+    verify(encryptedTransactionDAO).saveAll(anyCollection(), anyCollection());
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    Throwable throwable =
+        catchThrowable(() -> new GroupCommitPayloadStore(encryptedTransactionDAO, 0, 0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void createWithDefaultExecutor() {
+    assertThat(new GroupCommitPayloadStore(encryptedTransactionDAO, 1, 0)).isNotNull();
+    verify(encryptedTransactionDAO, never()).saveAll(any(), any());
+  }
+}
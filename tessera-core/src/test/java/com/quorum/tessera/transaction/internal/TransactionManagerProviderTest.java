@@ -5,15 +5,21 @@ import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
 import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadDigest;
 import com.quorum.tessera.transaction.PrivacyHelper;
 import com.quorum.tessera.transaction.TransactionManager;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
+import java.util.Map;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -104,6 +110,119 @@ public class TransactionManagerProviderTest {
     }
   }
 
+  @Test
+  public void providerWithStoreBatching() {
+
+    try (var mockedStaticConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedStaticEncryptedTransactionDAO = mockStatic(EncryptedTransactionDAO.class);
+        var mockedStaticEnclave = mockStatic(Enclave.class);
+        var mockedStaticEncryptedRawTransactionDAO = mockStatic(EncryptedRawTransactionDAO.class);
+        var mockedStaticPayloadPublisher = mockStatic(PayloadPublisher.class);
+        var mockedStaticBatchPayloadPublisher = mockStatic(BatchPayloadPublisher.class);
+        var mockedStaticPrivacyHelper = mockStatic(PrivacyHelper.class);
+        var mockedStaticResendManager = mockStatic(ResendManager.class);
+        var mockedStaticPayloadDigest = mockStatic(PayloadDigest.class)) {
+
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.getStoreBatchSize()).thenReturn(10);
+      Config config = mock(Config.class);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+      mockedStaticConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedStaticPayloadPublisher
+          .when(PayloadPublisher::create)
+          .thenReturn(mock(PayloadPublisher.class));
+      mockedStaticBatchPayloadPublisher
+          .when(BatchPayloadPublisher::create)
+          .thenReturn(mock(BatchPayloadPublisher.class));
+      mockedStaticEncryptedRawTransactionDAO
+          .when(EncryptedRawTransactionDAO::create)
+          .thenReturn(mock(EncryptedRawTransactionDAO.class));
+      mockedStaticEnclave.when(Enclave::create).thenReturn(mock(Enclave.class));
+
+      EncryptedTransactionDAO encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+      mockedStaticEncryptedTransactionDAO
+          .when(EncryptedTransactionDAO::create)
+          .thenReturn(encryptedTransactionDAO);
+
+      PrivacyHelper privacyHelper = mock(PrivacyHelper.class);
+      when(privacyHelper.validatePayload(any(), any(), any())).thenReturn(true);
+      mockedStaticPrivacyHelper.when(PrivacyHelper::create).thenReturn(privacyHelper);
+
+      mockedStaticResendManager.when(ResendManager::create).thenReturn(mock(ResendManager.class));
+
+      PayloadDigest payloadDigest = cipherText -> cipherText;
+      mockedStaticPayloadDigest.when(PayloadDigest::create).thenReturn(payloadDigest);
+
+      TransactionManager transactionManager = TransactionManagerProvider.provider();
+
+      EncodedPayload payload = mock(EncodedPayload.class);
+      when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+      assertThat(transactionManager.storePayload(payload))
+          .isEqualTo(new MessageHash("CIPHERTEXT".getBytes()));
+
+      verify(encryptedTransactionDAO).findByHashes(anyCollection());
+      verify(encryptedTransactionDAO).saveAll(anyCollection(), anyCollection());
+      verifyNoMoreInteractions(encryptedTransactionDAO);
+    }
+  }
+
+  @Test
+  public void providerWithOutbox() {
+
+    try (var mockedStaticConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedStaticEncryptedTransactionDAO = mockStatic(EncryptedTransactionDAO.class);
+        var mockedStaticEnclave = mockStatic(Enclave.class);
+        var mockedStaticEncryptedRawTransactionDAO = mockStatic(EncryptedRawTransactionDAO.class);
+        var mockedStaticPayloadPublisher = mockStatic(PayloadPublisher.class);
+        var mockedStaticBatchPayloadPublisher = mockStatic(BatchPayloadPublisher.class);
+        var mockedStaticPrivacyHelper = mockStatic(PrivacyHelper.class);
+        var mockedStaticResendManager = mockStatic(ResendManager.class);
+        var mockedStaticPayloadDigest = mockStatic(PayloadDigest.class);
+        var mockedStaticOutboxDAO = mockStatic(OutboxDAO.class)) {
+
+      ServerConfig p2pServerConfig = mock(ServerConfig.class);
+      when(p2pServerConfig.getProperties()).thenReturn(Map.of("outbox", "true"));
+      Config config = mock(Config.class);
+      when(config.getP2PServerConfig()).thenReturn(p2pServerConfig);
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+      mockedStaticConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedStaticPayloadPublisher
+          .when(PayloadPublisher::create)
+          .thenReturn(mock(PayloadPublisher.class));
+      mockedStaticBatchPayloadPublisher
+          .when(BatchPayloadPublisher::create)
+          .thenReturn(mock(BatchPayloadPublisher.class));
+      mockedStaticEncryptedRawTransactionDAO
+          .when(EncryptedRawTransactionDAO::create)
+          .thenReturn(mock(EncryptedRawTransactionDAO.class));
+      mockedStaticEnclave.when(Enclave::create).thenReturn(mock(Enclave.class));
+      mockedStaticEncryptedTransactionDAO
+          .when(EncryptedTransactionDAO::create)
+          .thenReturn(mock(EncryptedTransactionDAO.class));
+      mockedStaticPrivacyHelper.when(PrivacyHelper::create).thenReturn(mock(PrivacyHelper.class));
+      mockedStaticResendManager.when(ResendManager::create).thenReturn(mock(ResendManager.class));
+      mockedStaticPayloadDigest.when(PayloadDigest::create).thenReturn(mock(PayloadDigest.class));
+
+      OutboxDAO outboxDAO = mock(OutboxDAO.class);
+      mockedStaticOutboxDAO.when(OutboxDAO::create).thenReturn(outboxDAO);
+
+      TransactionManager transactionManager = TransactionManagerProvider.provider();
+
+      MessageHash transactionHash = new MessageHash("HASH".getBytes());
+      assertThat(transactionManager.getDeliveryStatus(transactionHash)).isEmpty();
+
+      verify(outboxDAO).retrieveByHash(transactionHash);
+      verifyNoMoreInteractions(outboxDAO);
+      mockedStaticOutboxDAO.verify(OutboxDAO::create);
+      mockedStaticOutboxDAO.verifyNoMoreInteractions();
+    }
+  }
+
   @Test
   public void defaultConstructorForCoverage() {
     assertThat(new TransactionManagerProvider()).isNotNull();
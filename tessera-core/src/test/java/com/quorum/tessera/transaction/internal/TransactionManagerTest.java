@@ -6,10 +6,10 @@ import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.data.*;
 import com.quorum.tessera.enclave.*;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.*;
+import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotAvailableException;
 import com.quorum.tessera.transaction.exception.PrivacyViolationException;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
@@ -466,6 +466,203 @@ public class TransactionManagerTest {
     verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
   }
 
+  @Test
+  public void storePayloadAsRecipientWithGroupCommit() {
+    GroupCommitPayloadStore groupCommitPayloadStore = mock(GroupCommitPayloadStore.class);
+    transactionManager =
+        new TransactionManagerImpl(
+            enclave,
+            encryptedTransactionDAO,
+            encryptedRawTransactionDAO,
+            resendManager,
+            batchPayloadPublisher,
+            privacyHelper,
+            mockDigest,
+            groupCommitPayloadStore);
+
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    MessageHash messageHash = new MessageHash("CIPHERTEXT".getBytes());
+    when(groupCommitPayloadStore.store(messageHash, payload, payload)).thenReturn(messageHash);
+
+    assertThat(transactionManager.storePayload(payload)).isEqualTo(messageHash);
+
+    verify(groupCommitPayloadStore).store(messageHash, payload, payload);
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(), any());
+    verifyNoMoreInteractions(groupCommitPayloadStore);
+  }
+
+  @Test
+  public void sendWithOutboxRecordsRemoteRecipientsInsteadOfPublishing() {
+    OutboxDAO outboxDAO = mock(OutboxDAO.class);
+    transactionManager =
+        new TransactionManagerImpl(
+            enclave,
+            encryptedTransactionDAO,
+            encryptedRawTransactionDAO,
+            resendManager,
+            batchPayloadPublisher,
+            privacyHelper,
+            mockDigest,
+            null,
+            outboxDAO);
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(enclave.encryptPayload(any(), any(), any(), any())).thenReturn(encodedPayload);
+
+    PublicKey sender = PublicKey.from("SENDER".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+
+    SendRequest sendRequest = mock(SendRequest.class);
+    when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+    when(sendRequest.getSender()).thenReturn(sender);
+    when(sendRequest.getRecipients()).thenReturn(List.of(receiver));
+    when(sendRequest.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    SendResponse result = transactionManager.send(sendRequest);
+
+    assertThat(result.getTransactionHash()).isEqualTo(new MessageHash("CIPHERTEXT".getBytes()));
+
+    ArgumentCaptor<List<OutboxEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(encryptedTransactionDAO)
+        .save(any(EncryptedTransaction.class), entriesCaptor.capture(), same(outboxDAO));
+    assertThat(entriesCaptor.getValue()).hasSize(1);
+    assertThat(entriesCaptor.getValue().get(0).getRecipient()).isEqualTo(receiver);
+    assertThat(entriesCaptor.getValue().get(0).getMessageHash())
+        .isEqualTo(new MessageHash("CIPHERTEXT".getBytes()));
+    verify(batchPayloadPublisher).checkRecipients(encodedPayload, List.of(receiver));
+    verifyNoInteractions(outboxDAO);
+
+    verify(enclave).encryptPayload(any(), any(), any(), any());
+    verify(enclave).getForwardingKeys();
+    verify(enclave).getPublicKeys();
+  }
+
+  @Test
+  public void sendWithOutboxToLocalRecipientsOnlyRecordsNothing() {
+    OutboxDAO outboxDAO = mock(OutboxDAO.class);
+    transactionManager =
+        new TransactionManagerImpl(
+            enclave,
+            encryptedTransactionDAO,
+            encryptedRawTransactionDAO,
+            resendManager,
+            batchPayloadPublisher,
+            privacyHelper,
+            mockDigest,
+            null,
+            outboxDAO);
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(enclave.encryptPayload(any(), any(), any(), any())).thenReturn(encodedPayload);
+
+    PublicKey sender = PublicKey.from("SENDER".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender, receiver));
+
+    SendRequest sendRequest = mock(SendRequest.class);
+    when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+    when(sendRequest.getSender()).thenReturn(sender);
+    when(sendRequest.getRecipients()).thenReturn(List.of(receiver));
+    when(sendRequest.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    transactionManager.send(sendRequest);
+
+    verify(encryptedTransactionDAO)
+        .save(any(EncryptedTransaction.class), eq(List.of()), same(outboxDAO));
+    verify(batchPayloadPublisher).checkRecipients(encodedPayload, List.of());
+    verifyNoInteractions(outboxDAO);
+    verify(enclave).encryptPayload(any(), any(), any(), any());
+    verify(enclave).getForwardingKeys();
+    verify(enclave).getPublicKeys();
+  }
+
+  @Test
+  public void sendWithOutboxToRecipientThatCannotAcceptItStoresNothing() {
+    OutboxDAO outboxDAO = mock(OutboxDAO.class);
+    transactionManager =
+        new TransactionManagerImpl(
+            enclave,
+            encryptedTransactionDAO,
+            encryptedRawTransactionDAO,
+            resendManager,
+            batchPayloadPublisher,
+            privacyHelper,
+            mockDigest,
+            null,
+            outboxDAO);
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(enclave.encryptPayload(any(), any(), any(), any())).thenReturn(encodedPayload);
+
+    PublicKey sender = PublicKey.from("SENDER".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+    doThrow(new EnhancedPrivacyNotSupportedException("not supported"))
+        .when(batchPayloadPublisher)
+        .checkRecipients(encodedPayload, List.of(receiver));
+
+    SendRequest sendRequest = mock(SendRequest.class);
+    when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+    when(sendRequest.getSender()).thenReturn(sender);
+    when(sendRequest.getRecipients()).thenReturn(List.of(receiver));
+    when(sendRequest.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+
+    assertThatExceptionOfType(EnhancedPrivacyNotSupportedException.class)
+        .isThrownBy(() -> transactionManager.send(sendRequest));
+
+    verify(batchPayloadPublisher).checkRecipients(encodedPayload, List.of(receiver));
+    verifyNoInteractions(outboxDAO);
+    verify(enclave).encryptPayload(any(), any(), any(), any());
+    verify(enclave).getForwardingKeys();
+    verify(enclave).getPublicKeys();
+  }
+
+  @Test
+  public void getDeliveryStatusFromOutbox() {
+    OutboxDAO outboxDAO = mock(OutboxDAO.class);
+    transactionManager =
+        new TransactionManagerImpl(
+            enclave,
+            encryptedTransactionDAO,
+            encryptedRawTransactionDAO,
+            resendManager,
+            batchPayloadPublisher,
+            privacyHelper,
+            mockDigest,
+            null,
+            outboxDAO);
+
+    MessageHash transactionHash = new MessageHash("HASH".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+    OutboxEntry entry = new OutboxEntry(transactionHash, receiver);
+    entry.setStatus(OutboxEntry.Status.PENDING);
+    entry.setAttempts(2);
+    entry.setLastError("Unable to push payload to recipient url http://other");
+    when(outboxDAO.retrieveByHash(transactionHash)).thenReturn(List.of(entry));
+
+    List<DeliveryStatus> result = transactionManager.getDeliveryStatus(transactionHash);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getRecipient()).isEqualTo(receiver);
+    assertThat(result.get(0).getState()).isEqualTo(DeliveryStatus.State.PENDING);
+    assertThat(result.get(0).getAttempts()).isEqualTo(2);
+    assertThat(result.get(0).getLastError())
+        .contains("Unable to push payload to recipient url http://other");
+    verify(outboxDAO).retrieveByHash(transactionHash);
+    verifyNoMoreInteractions(outboxDAO);
+  }
+
+  @Test
+  public void getDeliveryStatusWithoutOutboxIsEmpty() {
+    assertThat(transactionManager.getDeliveryStatus(new MessageHash("HASH".getBytes()))).isEmpty();
+  }
+
   @Test
   public void storePayloadWhenWeAreSender() {
     final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
@@ -868,6 +1065,60 @@ public class TransactionManagerTest {
             RecipientBox.from("recipient_box2".getBytes()),
             RecipientBox.from("recipient_box1".getBytes()));
 
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), eq(payloadToStore));
+    verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
+  @Test
+  public void storePayloadWithExistingRecipientAddsEachNewRecipient() {
+    PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+    PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+    PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+    EncodedPayload existingPayload = mock(EncodedPayload.class);
+    when(existingPayload.getCipherText()).thenReturn("ct1".getBytes());
+    when(existingPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(existingPayload.getRecipientKeys()).thenReturn(List.of(recipient1));
+    when(existingPayload.getRecipientBoxes())
+        .thenReturn(List.of(RecipientBox.from("recipient_box1".getBytes())));
+
+    EncryptedTransaction existingDatabaseEntry =
+        new EncryptedTransaction(mock(MessageHash.class), existingPayload);
+
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.of(existingDatabaseEntry));
+
+    EncodedPayload payloadToStore = mock(EncodedPayload.class);
+    when(payloadToStore.getCipherText()).thenReturn("ct1".getBytes());
+    when(payloadToStore.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payloadToStore.getRecipientKeys()).thenReturn(List.of(recipient2, recipient1, recipient3));
+    when(payloadToStore.getRecipientBoxes())
+        .thenReturn(
+            List.of(
+                RecipientBox.from("recipient_box2".getBytes()),
+                RecipientBox.from("recipient_box1".getBytes()),
+                RecipientBox.from("recipient_box3".getBytes())));
+
+    MessageHash response = transactionManager.storePayload(payloadToStore);
+
+    assertThat(response.toString()).isEqualTo("Y3Qx");
+
+    ArgumentCaptor<EncryptedTransaction> txCaptor =
+        ArgumentCaptor.forClass(EncryptedTransaction.class);
+    verify(encryptedTransactionDAO).update(txCaptor.capture());
+
+    EncodedPayload updatedTransaction = txCaptor.getValue().getPayload();
+    assertThat(updatedTransaction.getRecipientKeys())
+        .containsExactly(recipient2, recipient3, recipient1);
+    assertThat(updatedTransaction.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("recipient_box2".getBytes()),
+            RecipientBox.from("recipient_box3".getBytes()),
+            RecipientBox.from("recipient_box1".getBytes()));
+
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), eq(payloadToStore));
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
     verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
@@ -902,11 +1153,32 @@ public class TransactionManagerTest {
 
     assertThat(response.toString()).isEqualTo("Y3Qx");
 
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), eq(payloadToStore));
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
     verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
   }
 
+  @Test
+  public void storePayloadAddsRecipientBoxWithoutReadingExistingTransaction() {
+    EncodedPayload payloadToStore = mock(EncodedPayload.class);
+    when(payloadToStore.getCipherText()).thenReturn("ct1".getBytes());
+    when(payloadToStore.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payloadToStore.getRecipientBoxes())
+        .thenReturn(List.of(RecipientBox.from("recipient_box2".getBytes())));
+
+    when(encryptedTransactionDAO.addRecipientBox(any(MessageHash.class), eq(payloadToStore)))
+        .thenReturn(true);
+
+    MessageHash response = transactionManager.storePayload(payloadToStore);
+
+    assertThat(response.toString()).isEqualTo("Y3Qx");
+
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), eq(payloadToStore));
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
   @Test
   public void storePayloadWithExistingRecipientLegacyNoRecipients() {
 
@@ -942,6 +1214,7 @@ public class TransactionManagerTest {
             RecipientBox.from("recipient_box2".getBytes()),
             RecipientBox.from("recipient_box1".getBytes()));
 
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), eq(payloadToStore));
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
     verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
@@ -972,11 +1245,11 @@ public class TransactionManagerTest {
 
     byte[] expectedOutcome = "Encrypted payload".getBytes();
 
-    when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
+    when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class)))
         .thenReturn(expectedOutcome);
 
     PublicKey publicKey = mock(PublicKey.class);
-    when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(publicKey)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -986,8 +1259,9 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.getPrivacyGroupId()).isNotPresent();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).findRecipientKeys(List.of());
   }
 
   @Test
@@ -1019,7 +1293,7 @@ public class TransactionManagerTest {
         .thenReturn(expectedOutcome);
 
     PublicKey publicKey = mock(PublicKey.class);
-    when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(publicKey)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -1031,8 +1305,9 @@ public class TransactionManagerTest {
         .isEqualTo(PrivacyGroup.Id.fromBytes("group".getBytes()));
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).findRecipientKeys(List.of());
   }
 
   @Test
@@ -1067,7 +1342,7 @@ public class TransactionManagerTest {
         .thenReturn(expectedOutcome);
 
     PublicKey publicKey = mock(PublicKey.class);
-    when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(publicKey)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -1079,8 +1354,9 @@ public class TransactionManagerTest {
         .isEqualTo(PrivacyGroup.Id.fromBytes("group".getBytes()));
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).findRecipientKeys(List.of());
   }
 
   @Test
@@ -1113,6 +1389,7 @@ public class TransactionManagerTest {
     when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class)))
         .thenReturn(expectedOutcome);
     when(enclave.getPublicKeys()).thenReturn(Set.of(recipient1, recipient2));
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(recipient1)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -1123,8 +1400,9 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).getPublicKeys();
   }
 
   @Test
@@ -1154,7 +1432,7 @@ public class TransactionManagerTest {
 
     when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class)))
         .thenReturn(expectedOutcome);
-    when(enclave.getPublicKeys()).thenReturn(Set.of(recipient1));
+    when(enclave.findRecipientKeys(anyList())).thenReturn(List.of(Optional.of(recipient1)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -1164,8 +1442,9 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(3)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    // once for the recipient key, then once for all the boxes of the legacy payload
+    verify(enclave, times(2)).findRecipientKeys(anyList());
   }
 
   @Test
@@ -1247,7 +1526,7 @@ public class TransactionManagerTest {
         .thenReturn(expectedOutcome);
 
     PublicKey publicKey = mock(PublicKey.class);
-    when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.of(publicKey)));
 
     ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
 
@@ -1259,8 +1538,9 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+    verify(enclave).findRecipientKeys(List.of(payload));
+    verify(enclave).findRecipientKeys(List.of());
   }
 
   @Test
@@ -1309,19 +1589,14 @@ public class TransactionManagerTest {
     when(encryptedTransactionDAO.retrieveByHash(eq(messageHash)))
         .thenReturn(Optional.of(encryptedTransaction));
 
-    PublicKey publicKey = mock(PublicKey.class);
-    when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
-
-    when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class)))
-        .thenThrow(EncryptorException.class);
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.empty()));
 
     try {
       transactionManager.receive(receiveRequest);
       failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
     } catch (RecipientKeyNotFoundException ex) {
       verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-      verify(enclave).getPublicKeys();
-      verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+      verify(enclave).findRecipientKeys(List.of(payload));
     }
   }
 
@@ -1368,18 +1643,14 @@ public class TransactionManagerTest {
     when(encryptedTransactionDAO.retrieveByHash(eq(transactionHash)))
         .thenReturn(Optional.of(encryptedTransaction));
 
-    when(enclave.getPublicKeys()).thenReturn(Set.of(mock(PublicKey.class)));
-
-    when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class)))
-        .thenThrow(EncryptorException.class);
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.empty()));
 
     try {
       transactionManager.receive(receiveRequest);
       failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
     } catch (RecipientKeyNotFoundException ex) {
       verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-      verify(enclave).getPublicKeys();
-      verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+      verify(enclave).findRecipientKeys(List.of(payload));
     }
   }
 
@@ -1400,18 +1671,14 @@ public class TransactionManagerTest {
     when(encryptedTransactionDAO.retrieveByHash(eq(transactionHash)))
         .thenReturn(Optional.of(encryptedTransaction));
 
-    when(enclave.getPublicKeys()).thenReturn(Set.of(mock(PublicKey.class)));
-
-    when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
-        .thenThrow(EncryptorException.class);
+    when(enclave.findRecipientKeys(List.of(payload))).thenReturn(List.of(Optional.empty()));
 
     try {
       transactionManager.receive(receiveRequest);
       failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
     } catch (RecipientKeyNotFoundException ex) {
       verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-      verify(enclave).getPublicKeys();
-      verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+      verify(enclave).findRecipientKeys(List.of(payload));
     }
   }
 
@@ -0,0 +1,445 @@
+package com.quorum.tessera.transaction.publish;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.config.util.OutboxPropertyHelper;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.encryption.KeyNotFoundException;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.IoScheduler;
+import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class OutboxDispatcherTest {
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  private static final PublicKey OTHER_RECIPIENT = PublicKey.from("OTHER_RECIPIENT".getBytes());
+
+  private static final String NODE = "http://node1.com/";
+
+  private static final String OTHER_NODE = "http://node2.com/";
+
+  private OutboxDAO outboxDAO;
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private PayloadPublisher payloadPublisher;
+
+  private IoScheduler scheduler;
+
+  private Discovery discovery;
+
+  private List<Runnable> tasks;
+
+  private AtomicLong clock;
+
+  private OutboxDispatcher outboxDispatcher;
+
+  @Before
+  public void beforeTest() {
+    outboxDAO = mock(OutboxDAO.class);
+    encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+    payloadPublisher = mock(PayloadPublisher.class);
+    scheduler = mock(IoScheduler.class);
+    tasks = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              tasks.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(scheduler)
+        .execute(anyString(), any(Runnable.class));
+    discovery = mock(Discovery.class);
+    final NodeInfo node = NodeInfo.Builder.create().withUrl(NODE).build();
+    final NodeInfo otherNode = NodeInfo.Builder.create().withUrl(OTHER_NODE).build();
+    when(discovery.getRemoteNodeInfo(RECIPIENT)).thenReturn(node);
+    when(discovery.getRemoteNodeInfo(OTHER_RECIPIENT)).thenReturn(otherNode);
+    clock = new AtomicLong(1000000L);
+
+    outboxDispatcher =
+        new OutboxDispatcher(
+            outboxDAO,
+            encryptedTransactionDAO,
+            payloadPublisher,
+            scheduler,
+            discovery,
+            100,
+            1000L,
+            5000L,
+            3,
+            60000L,
+            clock::get);
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(outboxDAO, encryptedTransactionDAO, payloadPublisher, scheduler);
+  }
+
+  @Test
+  public void pushesEachRecipientsEntriesInOrder() {
+    final OutboxEntry first = entry("first", RECIPIENT);
+    final OutboxEntry second = entry("second", RECIPIENT);
+    final OutboxEntry other = entry("first", OTHER_RECIPIENT);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(first, other, second));
+    final EncodedPayload firstPayload = stored("first");
+    final EncodedPayload secondPayload = stored("second");
+
+    outboxDispatcher.run();
+
+    assertThat(tasks).hasSize(2);
+    verify(scheduler).execute(eq(NODE), any(Runnable.class));
+    verify(scheduler).execute(eq(OTHER_NODE), any(Runnable.class));
+
+    tasks.get(0).run();
+
+    final ArgumentCaptor<PayloadTemplates> templates =
+        ArgumentCaptor.forClass(PayloadTemplates.class);
+    verify(payloadPublisher, times(2)).publishPayload(templates.capture(), eq(RECIPIENT));
+    assertThat(templates.getAllValues())
+        .extracting(PayloadTemplates::getPayload)
+        .containsExactly(firstPayload, secondPayload);
+    assertThat(first.getStatus()).isEqualTo(OutboxEntry.Status.DELIVERED);
+    assertThat(first.getAttempts()).isEqualTo(1);
+    assertThat(second.getStatus()).isEqualTo(OutboxEntry.Status.DELIVERED);
+    assertThat(other.getStatus()).isEqualTo(OutboxEntry.Status.PENDING);
+
+    verify(outboxDAO).deleteFinished(clock.get() - 60000L);
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(outboxDAO).update(first);
+    verify(outboxDAO).update(second);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("first"));
+    verify(encryptedTransactionDAO).retrieveByHash(hash("second"));
+  }
+
+  @Test
+  public void failedPushHoldsBackTheRecipient() {
+    final OutboxEntry first = entry("first", RECIPIENT);
+    final OutboxEntry second = entry("second", RECIPIENT);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(first, second));
+    stored("first");
+    doThrow(new PublishPayloadException("Unable to push"))
+        .when(payloadPublisher)
+        .publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    assertThat(first.getStatus()).isEqualTo(OutboxEntry.Status.PENDING);
+    assertThat(first.getAttempts()).isEqualTo(1);
+    assertThat(first.getLastError()).isEqualTo("Unable to push");
+    assertThat(second.getAttempts()).isZero();
+
+    verify(payloadPublisher).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(outboxDAO).update(first);
+    verify(outboxDAO).postpone(RECIPIENT.getKeyBytes(), clock.get() + 1000L);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("first"));
+    verify(scheduler).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void backoffDoublesUpToTheMaximum() {
+    final OutboxEntry entry = entry("first", RECIPIENT);
+    entry.setAttempts(1);
+    final OutboxEntry later = entry("first", RECIPIENT);
+    later.setAttempts(10);
+    stored("first");
+    doThrow(new PublishPayloadException("Unable to push"))
+        .when(payloadPublisher)
+        .publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+
+    outboxDispatcher =
+        new OutboxDispatcher(
+            outboxDAO,
+            encryptedTransactionDAO,
+            payloadPublisher,
+            scheduler,
+            discovery,
+            100,
+            1000L,
+            5000L,
+            0,
+            60000L,
+            clock::get);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(entry));
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    clock.addAndGet(2000L);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(later));
+    outboxDispatcher.run();
+    tasks.get(1).run();
+
+    verify(outboxDAO).postpone(RECIPIENT.getKeyBytes(), 1000000L + 2000L);
+    verify(outboxDAO).postpone(RECIPIENT.getKeyBytes(), 1002000L + 5000L);
+    assertThat(later.getStatus()).isEqualTo(OutboxEntry.Status.PENDING);
+    assertThat(later.getAttempts()).isEqualTo(11);
+
+    verify(outboxDAO).update(entry);
+    verify(outboxDAO).update(later);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO, times(2)).retrieveDue(anyLong(), eq(100));
+    verify(encryptedTransactionDAO, times(2)).retrieveByHash(hash("first"));
+    verify(payloadPublisher, times(2)).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(scheduler, times(2)).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void entryIsFailedAfterTheLastAttempt() {
+    final OutboxEntry entry = entry("first", RECIPIENT);
+    entry.setAttempts(2);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(entry));
+    stored("first");
+    doThrow(new PublishPayloadException("Unable to push"))
+        .when(payloadPublisher)
+        .publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    assertThat(entry.getStatus()).isEqualTo(OutboxEntry.Status.FAILED);
+    assertThat(entry.getAttempts()).isEqualTo(3);
+
+    verify(outboxDAO).update(entry);
+    verify(outboxDAO).postpone(RECIPIENT.getKeyBytes(), clock.get() + 4000L);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("first"));
+    verify(payloadPublisher).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(scheduler).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void entryTheRecipientCanNeverAcceptIsFailedAtOnce() {
+    final OutboxEntry unsupported = entry("unsupported", RECIPIENT);
+    final OutboxEntry next = entry("next", RECIPIENT);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(unsupported, next));
+    final EncodedPayload unsupportedPayload = stored("unsupported");
+    stored("next");
+    doThrow(new MandatoryRecipientsNotSupportedException("Not supported"))
+        .when(payloadPublisher)
+        .publishPayload(
+            argThat((PayloadTemplates t) -> t.getPayload() == unsupportedPayload), eq(RECIPIENT));
+
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    assertThat(unsupported.getStatus()).isEqualTo(OutboxEntry.Status.FAILED);
+    assertThat(unsupported.getAttempts()).isEqualTo(1);
+    assertThat(unsupported.getLastError()).isEqualTo("Not supported");
+    assertThat(next.getStatus()).isEqualTo(OutboxEntry.Status.DELIVERED);
+
+    verify(outboxDAO).update(unsupported);
+    verify(outboxDAO).update(next);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("unsupported"));
+    verify(encryptedTransactionDAO).retrieveByHash(hash("next"));
+    verify(payloadPublisher, times(2)).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(scheduler).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void missingTransactionIsFailedAndSkipped() {
+    final OutboxEntry missing = entry("missing", RECIPIENT);
+    missing.setTimestamp(clock.get() - 60000L);
+    final OutboxEntry next = entry("next", RECIPIENT);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(missing, next));
+    when(encryptedTransactionDAO.retrieveByHash(hash("missing"))).thenReturn(Optional.empty());
+    stored("next");
+
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    assertThat(missing.getStatus()).isEqualTo(OutboxEntry.Status.FAILED);
+    assertThat(missing.getLastError()).isEqualTo("Transaction not found");
+    assertThat(missing.getAttempts()).isZero();
+    assertThat(next.getStatus()).isEqualTo(OutboxEntry.Status.DELIVERED);
+
+    verify(outboxDAO).update(missing);
+    verify(outboxDAO).update(next);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("missing"));
+    verify(encryptedTransactionDAO).retrieveByHash(hash("next"));
+    verify(payloadPublisher).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(scheduler).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void recentEntryWithMissingTransactionHoldsBackTheRecipient() {
+    final OutboxEntry missing = entry("missing", RECIPIENT);
+    missing.setTimestamp(clock.get() - 59999L);
+    final OutboxEntry next = entry("next", RECIPIENT);
+    when(outboxDAO.retrieveDue(clock.get(), 100)).thenReturn(List.of(missing, next));
+    when(encryptedTransactionDAO.retrieveByHash(hash("missing"))).thenReturn(Optional.empty());
+
+    outboxDispatcher.run();
+    tasks.get(0).run();
+
+    assertThat(missing.getStatus()).isEqualTo(OutboxEntry.Status.PENDING);
+    assertThat(missing.getAttempts()).isZero();
+    assertThat(next.getStatus()).isEqualTo(OutboxEntry.Status.PENDING);
+
+    verify(outboxDAO).postpone(RECIPIENT.getKeyBytes(), clock.get() + 1000L);
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+    verify(encryptedTransactionDAO).retrieveByHash(hash("missing"));
+    verify(scheduler).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void recipientIsNotGivenAnotherTaskWhileOneIsRunning() {
+    when(outboxDAO.retrieveDue(anyLong(), eq(100))).thenReturn(List.of(entry("first", RECIPIENT)));
+    stored("first");
+
+    outboxDispatcher.run();
+    outboxDispatcher.run();
+    assertThat(tasks).hasSize(1);
+
+    tasks.get(0).run();
+    outboxDispatcher.run();
+    assertThat(tasks).hasSize(2);
+
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO, times(3)).retrieveDue(anyLong(), eq(100));
+    verify(outboxDAO).update(any(OutboxEntry.class));
+    verify(encryptedTransactionDAO).retrieveByHash(hash("first"));
+    verify(payloadPublisher).publishPayload(any(PayloadTemplates.class), eq(RECIPIENT));
+    verify(scheduler, times(2)).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void rejectedRecipientIsTriedOnTheNextRun() {
+    when(outboxDAO.retrieveDue(anyLong(), eq(100))).thenReturn(List.of(entry("first", RECIPIENT)));
+    doThrow(new RejectedExecutionException())
+        .doAnswer(
+            invocation -> {
+              tasks.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(scheduler)
+        .execute(anyString(), any(Runnable.class));
+
+    outboxDispatcher.run();
+    assertThat(tasks).isEmpty();
+
+    outboxDispatcher.run();
+    assertThat(tasks).hasSize(1);
+
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO, times(2)).retrieveDue(anyLong(), eq(100));
+    verify(scheduler, times(2)).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void recipientsOnTheSameNodeAreCountedAgainstIt() {
+    final PublicKey unknown = PublicKey.from("UNKNOWN".getBytes());
+    final NodeInfo node = NodeInfo.Builder.create().withUrl(NODE).build();
+    when(discovery.getRemoteNodeInfo(OTHER_RECIPIENT)).thenReturn(node);
+    when(discovery.getRemoteNodeInfo(unknown)).thenThrow(new KeyNotFoundException("unknown"));
+    when(outboxDAO.retrieveDue(clock.get(), 100))
+        .thenReturn(
+            List.of(
+                entry("first", RECIPIENT),
+                entry("first", OTHER_RECIPIENT),
+                entry("first", unknown)));
+
+    outboxDispatcher.run();
+
+    // each recipient still gets its own task, so one can't hold up another's entries
+    assertThat(tasks).hasSize(3);
+    verify(scheduler, times(2)).execute(eq(NODE), any(Runnable.class));
+    verify(scheduler).execute(eq(unknown.encodeToBase64()), any(Runnable.class));
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(clock.get(), 100);
+  }
+
+  @Test
+  public void finishedEntriesAreDeletedOncePerInterval() {
+    when(outboxDAO.retrieveDue(anyLong(), eq(100))).thenReturn(List.of());
+
+    outboxDispatcher.run();
+    clock.addAndGet(59999L);
+    outboxDispatcher.run();
+    clock.addAndGet(1L);
+    outboxDispatcher.run();
+
+    verify(outboxDAO).deleteFinished(1000000L - 60000L);
+    verify(outboxDAO).deleteFinished(1060000L - 60000L);
+    verify(outboxDAO, times(3)).retrieveDue(anyLong(), eq(100));
+  }
+
+  @Test
+  public void constructFromProperties() {
+    final OutboxDispatcher dispatcher =
+        new OutboxDispatcher(
+            outboxDAO,
+            encryptedTransactionDAO,
+            payloadPublisher,
+            scheduler,
+            discovery,
+            new OutboxPropertyHelper(Map.of("outboxBatchSize", "10")));
+    when(outboxDAO.retrieveDue(anyLong(), eq(10))).thenReturn(List.of());
+
+    dispatcher.run();
+
+    verify(outboxDAO).deleteFinished(anyLong());
+    verify(outboxDAO).retrieveDue(anyLong(), eq(10));
+  }
+
+  @Test
+  public void create() {
+    try (var mockedOutboxDAO = mockStatic(OutboxDAO.class);
+        var mockedEncryptedTransactionDAO = mockStatic(EncryptedTransactionDAO.class);
+        var mockedPayloadPublisher = mockStatic(PayloadPublisher.class);
+        var mockedDiscovery = mockStatic(Discovery.class)) {
+      mockedOutboxDAO.when(OutboxDAO::create).thenReturn(outboxDAO);
+      mockedEncryptedTransactionDAO
+          .when(EncryptedTransactionDAO::create)
+          .thenReturn(encryptedTransactionDAO);
+      mockedPayloadPublisher.when(PayloadPublisher::create).thenReturn(payloadPublisher);
+      mockedDiscovery.when(Discovery::create).thenReturn(discovery);
+
+      assertThat(OutboxDispatcher.create(scheduler, new OutboxPropertyHelper(Map.of())))
+          .isNotNull();
+    }
+  }
+
+  private EncodedPayload stored(final String hash) {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final EncryptedTransaction transaction = mock(EncryptedTransaction.class);
+    when(transaction.getPayload()).thenReturn(payload);
+    when(encryptedTransactionDAO.retrieveByHash(hash(hash))).thenReturn(Optional.of(transaction));
+    return payload;
+  }
+
+  private static OutboxEntry entry(final String hash, final PublicKey recipient) {
+    return new OutboxEntry(hash(hash), recipient);
+  }
+
+  private static MessageHash hash(final String value) {
+    return new MessageHash(value.getBytes());
+  }
+}
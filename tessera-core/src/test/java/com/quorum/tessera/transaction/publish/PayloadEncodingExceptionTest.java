@@ -0,0 +1,18 @@
+package com.quorum.tessera.transaction.publish;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class PayloadEncodingExceptionTest {
+
+  @Test
+  public void createWithMessageAndCause() {
+    final String msg = "msg";
+    final Throwable cause = new IllegalStateException();
+    PayloadEncodingException exception = new PayloadEncodingException(msg, cause);
+
+    assertThat(exception).isInstanceOf(PublishPayloadException.class);
+    assertThat(exception).hasMessage(msg).hasCause(cause);
+  }
+}
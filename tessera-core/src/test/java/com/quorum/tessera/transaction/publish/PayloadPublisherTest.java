@@ -1,10 +1,16 @@
 package com.quorum.tessera.transaction.publish;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.serviceloader.ServiceLoaderUtil;
+import java.util.List;
 import java.util.ServiceLoader;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class PayloadPublisherTest {
 
@@ -28,4 +34,26 @@ public class PayloadPublisherTest {
       verifyNoInteractions(serviceLoader);
     }
   }
+
+  @Test
+  public void publishTemplatesPublishesPayloadStrippedForRecipient() {
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("SENDER".getBytes()))
+            .withRecipientKeys(List.of(recipient, otherRecipient))
+            .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+            .build();
+
+    final PayloadPublisher publisher = mock(PayloadPublisher.class);
+    doCallRealMethod().when(publisher).publishPayload(any(PayloadTemplates.class), any());
+
+    publisher.publishPayload(new PayloadTemplates(payload), otherRecipient);
+
+    final ArgumentCaptor<EncodedPayload> outgoing = ArgumentCaptor.forClass(EncodedPayload.class);
+    verify(publisher).publishPayload(outgoing.capture(), eq(otherRecipient));
+    assertThat(outgoing.getValue())
+        .isEqualTo(EncodedPayload.Builder.forRecipient(payload, otherRecipient).build());
+  }
 }
@@ -13,4 +13,13 @@ public class PublishPayloadExceptionTest {
 
     assertThat(exception).hasMessage(msg);
   }
+
+  @Test
+  public void createWithMessageAndCause() {
+    final String msg = "msg";
+    final Throwable cause = new IllegalStateException();
+    PublishPayloadException exception = new PublishPayloadException(msg, cause);
+
+    assertThat(exception).hasMessage(msg).hasCause(cause);
+  }
 }
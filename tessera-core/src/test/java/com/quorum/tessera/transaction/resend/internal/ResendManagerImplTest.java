@@ -37,6 +37,7 @@ public class ResendManagerImplTest {
   public void init() {
     this.encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
     this.enclave = mock(Enclave.class);
+    when(enclave.unencryptTransactionAsync(any(), any())).thenCallRealMethod();
     PayloadDigest payloadDigest = cipherText -> cipherText;
 
     this.resendManager = new ResendManagerImpl(encryptedTransactionDAO, enclave, payloadDigest);
@@ -61,7 +62,8 @@ public class ResendManagerImplTest {
     when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
     when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
         .thenReturn(Optional.empty());
-    when(enclave.createNewRecipientBox(any(), any())).thenReturn(newEncryptedMasterKey);
+    when(enclave.createNewRecipientBoxes(encodedPayload, List.of(senderKey)))
+        .thenReturn(List.of(newEncryptedMasterKey));
 
     resendManager.acceptOwnMessage(encodedPayload);
 
@@ -82,10 +84,54 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
-    verify(enclave).createNewRecipientBox(any(), any());
+    verify(enclave).createNewRecipientBoxes(encodedPayload, List.of(senderKey));
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
   }
 
+  @Test
+  public void storePsvPayloadAsSenderCreatesAllMissingBoxesInOneCall() {
+    final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+    final PublicKey recipientKey1 = PublicKey.from("RECIPIENT-KEY1".getBytes());
+    final PublicKey recipientKey2 = PublicKey.from("RECIPIENT-KEY2".getBytes());
+
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(encodedPayload.getSenderKey()).thenReturn(senderKey);
+    when(encodedPayload.getRecipientKeys())
+        .thenReturn(List.of(recipientKey1, recipientKey2, senderKey));
+    when(encodedPayload.getRecipientBoxes())
+        .thenReturn(List.of(RecipientBox.from("BOX1".getBytes())));
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    when(encodedPayload.getExecHash()).thenReturn("EXEC_HASH".getBytes());
+
+    when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.empty());
+    when(enclave.createNewRecipientBoxes(encodedPayload, List.of(recipientKey2, senderKey)))
+        .thenReturn(List.of("BOX2".getBytes(), "BOX3".getBytes()));
+
+    resendManager.acceptOwnMessage(encodedPayload);
+
+    ArgumentCaptor<EncryptedTransaction> savedTxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransaction.class);
+
+    verify(encryptedTransactionDAO).save(savedTxCaptor.capture());
+
+    final EncodedPayload savedPayload = savedTxCaptor.getValue().getPayload();
+    assertThat(savedPayload.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("BOX1".getBytes()),
+            RecipientBox.from("BOX2".getBytes()),
+            RecipientBox.from("BOX3".getBytes()));
+
+    verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+    verify(enclave).getPublicKeys();
+    verify(enclave).createNewRecipientBoxes(encodedPayload, List.of(recipientKey2, senderKey));
+    verify(enclave).unencryptTransactionAsync(any(EncodedPayload.class), eq(senderKey));
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), eq(senderKey));
+  }
+
   @Test
   public void storePayloadAsSenderWhenTxIsPresent() {
 
@@ -136,6 +182,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(existingEncodedPayload, senderKey);
   }
@@ -187,6 +234,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(any(EncodedPayload.class), eq(senderKey));
     verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), eq(senderKey));
   }
 
@@ -221,6 +269,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
   }
 
@@ -247,6 +296,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
   }
 
@@ -270,6 +320,7 @@ public class ResendManagerImplTest {
         .hasMessage("Message Q0lQSEVSVEVYVA== does not have one the nodes own keys as a sender");
 
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, someSender);
     verify(enclave).unencryptTransaction(encodedPayload, someSender);
   }
 
@@ -307,6 +358,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
     verify(enclave).unencryptTransaction(existingEncodedPayload, senderKey);
   }
@@ -316,4 +368,27 @@ public class ResendManagerImplTest {
     assertThat(new ResendManagerImpl(encryptedTransactionDAO, enclave, mock(PayloadDigest.class)))
         .isNotNull();
   }
+
+  @Test
+  public void payloadThatCannotBeDecryptedIsRejected() {
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getSenderKey()).thenReturn(senderKey);
+    when(encodedPayload.getCipherText()).thenReturn(cipherText);
+
+    final EnclaveException exception = new EnclaveException("rubbish");
+    when(enclave.unencryptTransaction(encodedPayload, senderKey)).thenThrow(exception);
+    when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.empty());
+
+    final Throwable throwable =
+        catchThrowable(() -> resendManager.acceptOwnMessage(encodedPayload));
+
+    assertThat(throwable).isSameAs(exception);
+
+    verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransactionAsync(encodedPayload, senderKey);
+    verify(enclave).unencryptTransaction(encodedPayload, senderKey);
+  }
 }
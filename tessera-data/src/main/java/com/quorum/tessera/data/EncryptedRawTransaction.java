@@ -12,9 +12,6 @@ import java.util.Objects;
   @NamedQuery(
       name = "EncryptedRawTransaction.DeleteByHash",
       query = "delete from EncryptedRawTransaction where hash.hashBytes = :hash"),
-  @NamedQuery(
-      name = "EncryptedRawTransaction.Upcheck",
-      query = "select count(c.timestamp) from EncryptedRawTransaction c"),
   @NamedQuery(
       name = "EncryptedRawTransaction.FindAll",
       query = "select ert from EncryptedRawTransaction ert order by ert.timestamp, ert.hash"),
@@ -2,9 +2,12 @@ package com.quorum.tessera.data;
 
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PrivacyMode;
 import jakarta.persistence.*;
 import java.io.Serializable;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * The JPA entity that contains the transaction information A simple key/value pair
@@ -20,12 +23,29 @@ import java.util.Objects;
       name = "EncryptedTransaction.FindAll",
       query = "select et from EncryptedTransaction et order by et.timestamp,et.hash"),
   @NamedQuery(
-      name = "EncryptedTransaction.Upcheck",
-      query = "select count(c.timestamp) from EncryptedTransaction c")
+      name = "EncryptedTransaction.FindByParty",
+      query =
+          "select et from EncryptedTransaction et join et.parties p"
+              + " where p.publicKey = :publicKey"),
+  @NamedQuery(
+      name = "EncryptedTransaction.CountByParty",
+      query =
+          "select count(distinct et) from EncryptedTransaction et join et.parties p"
+              + " where p.publicKey = :publicKey"),
+  @NamedQuery(
+      name = "EncryptedTransaction.UpdateMetadata",
+      query =
+          "update EncryptedTransaction et set et.senderKey = :senderKey,"
+              + " et.privacyMode = :privacyMode, et.recipientCount = :recipientCount,"
+              + " et.privacyGroupId = :privacyGroupId where et.hash.hashBytes = :hash")
 })
 @Entity
 @EntityListeners(EncryptedTransactionListener.class)
-@Table(name = "ENCRYPTED_TRANSACTION")
+@Table(
+    name = "ENCRYPTED_TRANSACTION",
+    indexes = {
+      @Index(name = "ENCRYPTED_TX_TIMESTAMP_HASH", columnList = "TIMESTAMP,HASH")
+    })
 public class EncryptedTransaction implements Serializable {
 
   @EmbeddedId
@@ -45,6 +65,37 @@ public class EncryptedTransaction implements Serializable {
   @Column(name = "TIMESTAMP", updatable = false)
   private long timestamp;
 
+  // the columns below repeat parts of the payload, so that scans can filter on them without
+  // reading and decoding it, and are empty for transactions stored before they were added
+
+  @Column(name = "SENDER_KEY")
+  private byte[] senderKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "PRIVACY_MODE", length = 50)
+  private PrivacyMode privacyMode;
+
+  @Column(name = "RECIPIENT_COUNT")
+  private Integer recipientCount;
+
+  @Column(name = "PRIVACY_GROUP_ID")
+  private byte[] privacyGroupId;
+
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(
+      name = "ENCRYPTED_TRANSACTION_PARTY",
+      joinColumns = @JoinColumn(name = "HASH", referencedColumnName = "HASH"),
+      indexes = {@Index(name = "ENCRYPTED_TX_PARTY_KEY", columnList = "PUBLIC_KEY,PARTY_ROLE")})
+  private Set<TransactionParty> parties = new HashSet<>();
+
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(
+      name = "ENCRYPTED_TRANSACTION_BOX",
+      joinColumns = @JoinColumn(name = "HASH", referencedColumnName = "HASH"),
+      uniqueConstraints =
+          @UniqueConstraint(name = "ENCRYPTED_TX_BOX_UNIQUE", columnNames = {"HASH", "BOX"}))
+  private Set<TransactionRecipientBox> recipientBoxes = new HashSet<>();
+
   @Transient private transient EncodedPayload payload;
 
   public EncryptedTransaction(final MessageHash hash, final EncodedPayload payload) {
@@ -83,6 +134,54 @@ public class EncryptedTransaction implements Serializable {
     this.encodedPayloadCodec = encodedPayloadCodec;
   }
 
+  public byte[] getSenderKey() {
+    return senderKey;
+  }
+
+  public void setSenderKey(final byte[] senderKey) {
+    this.senderKey = senderKey;
+  }
+
+  public PrivacyMode getPrivacyMode() {
+    return privacyMode;
+  }
+
+  public void setPrivacyMode(final PrivacyMode privacyMode) {
+    this.privacyMode = privacyMode;
+  }
+
+  public Integer getRecipientCount() {
+    return recipientCount;
+  }
+
+  public void setRecipientCount(final Integer recipientCount) {
+    this.recipientCount = recipientCount;
+  }
+
+  public byte[] getPrivacyGroupId() {
+    return privacyGroupId;
+  }
+
+  public void setPrivacyGroupId(final byte[] privacyGroupId) {
+    this.privacyGroupId = privacyGroupId;
+  }
+
+  public Set<TransactionParty> getParties() {
+    return parties;
+  }
+
+  public void setParties(final Set<TransactionParty> parties) {
+    this.parties = parties;
+  }
+
+  public Set<TransactionRecipientBox> getRecipientBoxes() {
+    return recipientBoxes;
+  }
+
+  public void setRecipientBoxes(final Set<TransactionRecipientBox> recipientBoxes) {
+    this.recipientBoxes = recipientBoxes;
+  }
+
   public EncodedPayload getPayload() {
     return payload;
   }
@@ -95,6 +194,10 @@ public class EncryptedTransaction implements Serializable {
     return this.timestamp;
   }
 
+  public void setTimestamp(final long timestamp) {
+    this.timestamp = timestamp;
+  }
+
   @Override
   public int hashCode() {
     return 47 * 3 + Objects.hashCode(this.hash);
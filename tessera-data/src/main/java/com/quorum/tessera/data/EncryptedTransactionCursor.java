@@ -0,0 +1,161 @@
+package com.quorum.tessera.data;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads every stored transaction a page at a time, ordered by timestamp and then hash. Each page
+ * seeks past the last transaction of the page before it, rather than skipping an offset, so the
+ * database can start each page from the ENCRYPTED_TX_TIMESTAMP_HASH index instead of
+ * sorting and skipping all the rows read so far.
+ *
+ * <p>Transactions stored before the timestamp column was added have no timestamp, and are read
+ * first, ordered by hash.
+ *
+ * <p>A {@link TransactionFilter} can narrow the scan, so that only the rows it matches are read.
+ *
+ * <p>Transactions stored or removed during the scan may or may not be returned, but every
+ * transaction present for the whole scan is returned exactly once.
+ */
+public class EncryptedTransactionCursor implements Iterator<EncryptedTransaction> {
+
+  private static final String SELECT = "SELECT * FROM ENCRYPTED_TRANSACTION WHERE ";
+
+  private static final String WITHOUT_TIMESTAMP = " AND TIMESTAMP IS NULL";
+
+  private static final String WITH_TIMESTAMP = " AND TIMESTAMP IS NOT NULL";
+
+  private static final String AFTER_HASH = " AND HASH > ?";
+
+  private static final String AFTER_TIMESTAMP_AND_HASH =
+      " AND (TIMESTAMP > ? OR (TIMESTAMP = ? AND HASH > ?))";
+
+  private static final String BY_HASH = " ORDER BY HASH";
+
+  private static final String BY_TIMESTAMP_AND_HASH = " ORDER BY TIMESTAMP, HASH";
+
+  private final Function<
+          EntityManagerCallback<List<EncryptedTransaction>>, List<EncryptedTransaction>>
+      executor;
+
+  private final int fetchSize;
+
+  private final TransactionFilter filter;
+
+  private boolean withTimestamp;
+
+  private EncryptedTransaction last;
+
+  private Iterator<EncryptedTransaction> page = List.<EncryptedTransaction>of().iterator();
+
+  private boolean exhausted;
+
+  /**
+   * @param executor runs a callback against an entity manager to read a page, such as {@link
+   *     EntityManagerTemplate#execute(EntityManagerCallback)}
+   * @param fetchSize the most transactions to read in one page
+   */
+  public EncryptedTransactionCursor(
+      final Function<
+              EntityManagerCallback<List<EncryptedTransaction>>, List<EncryptedTransaction>>
+          executor,
+      final int fetchSize) {
+    this(executor, fetchSize, TransactionFilter.ALL);
+  }
+
+  /**
+   * @param executor runs a callback against an entity manager to read a page, such as {@link
+   *     EntityManagerTemplate#execute(EntityManagerCallback)}
+   * @param fetchSize the most transactions to read in one page
+   * @param filter the transactions to read
+   */
+  public EncryptedTransactionCursor(
+      final Function<
+              EntityManagerCallback<List<EncryptedTransaction>>, List<EncryptedTransaction>>
+          executor,
+      final int fetchSize,
+      final TransactionFilter filter) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("Fetch size must be at least 1");
+    }
+    this.executor = Objects.requireNonNull(executor);
+    this.fetchSize = fetchSize;
+    this.filter = Objects.requireNonNull(filter);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!page.hasNext() && !exhausted) {
+      final List<EncryptedTransaction> next = executor.apply(this::nextPage);
+      if (next.size() < fetchSize) {
+        // a short page means this part of the scan is done
+        if (withTimestamp) {
+          exhausted = true;
+        } else {
+          withTimestamp = true;
+          last = null;
+        }
+      } else {
+        last = next.get(next.size() - 1);
+      }
+      page = next.iterator();
+    }
+    return page.hasNext();
+  }
+
+  @Override
+  public EncryptedTransaction next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  /** @return the remaining transactions, read a page at a time as the stream is consumed */
+  public Stream<EncryptedTransaction> stream() {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+  }
+
+  private List<EncryptedTransaction> nextPage(final EntityManager entityManager) {
+    final StringBuilder sql = new StringBuilder(SELECT).append(filter.where());
+    final List<Object> parameters = new ArrayList<>(filter.parameters());
+    if (withTimestamp) {
+      sql.append(WITH_TIMESTAMP);
+      if (last != null) {
+        sql.append(AFTER_TIMESTAMP_AND_HASH);
+        parameters.add(last.getTimestamp());
+        parameters.add(last.getTimestamp());
+        parameters.add(last.getHash().getHashBytes());
+      }
+      sql.append(BY_TIMESTAMP_AND_HASH);
+    } else {
+      sql.append(WITHOUT_TIMESTAMP);
+      if (last != null) {
+        sql.append(AFTER_HASH);
+        parameters.add(last.getHash().getHashBytes());
+      }
+      sql.append(BY_HASH);
+    }
+
+    final Query query = entityManager.createNativeQuery(sql.toString(), EncryptedTransaction.class);
+    for (int i = 0; i < parameters.size(); i++) {
+      query.setParameter(i + 1, parameters.get(i));
+    }
+
+    @SuppressWarnings("unchecked")
+    final List<EncryptedTransaction> results = query.setMaxResults(fetchSize).getResultList();
+    return results;
+  }
+}
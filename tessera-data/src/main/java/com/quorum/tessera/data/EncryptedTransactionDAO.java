@@ -1,5 +1,6 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.encryption.PublicKey;
 
 import java.util.Collection;
@@ -7,6 +8,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 /** A data store for transactions that need to be retrieved later */
 public interface EncryptedTransactionDAO {
@@ -27,6 +29,32 @@ public interface EncryptedTransactionDAO {
    */
   EncryptedTransaction update(EncryptedTransaction entity);
 
+  /**
+   * Save new transactions and update existing ones together, as a single unit of work
+   *
+   * @param transactions the new entities to be persisted
+   * @param updates the existing entities whose payloads are to be replaced
+   * @throws jakarta.persistence.EntityNotFoundException if any of the updates doesn't exist
+   */
+  void saveAll(
+      Collection<EncryptedTransaction> transactions, Collection<EncryptedTransaction> updates);
+
+  /**
+   * Adds the recipient box of a payload received from another node to the stored transaction with
+   * the same hash, using a single insert rather than reading, rebuilding and writing back the
+   * stored payload. The added box is included in the payload whenever the transaction is read.
+   *
+   * <p>This only applies to standard private transactions, whose boxes are kept in their own table,
+   * and only checks the sender of the received payload against the stored transaction. Nothing is
+   * added if the stored transaction is missing or not eligible, or already has the box, in which
+   * case the caller should add the box by updating the whole transaction instead.
+   *
+   * @param hash the hash of the stored transaction
+   * @param payload the received payload, with a single recipient box
+   * @return true if the box was added
+   */
+  boolean addRecipientBox(MessageHash hash, EncodedPayload payload);
+
   /**
    * Retrieve a transaction based on its hash
    *
@@ -52,6 +80,27 @@ public interface EncryptedTransactionDAO {
    */
   List<EncryptedTransaction> retrieveTransactions(int offset, int maxResult);
 
+  /**
+   * Retrieves every transaction stored in the database, reading them a page at a time as the
+   * stream is consumed
+   *
+   * @param fetchSize the maximum number of records to read at once
+   * @return all stored transactions, ordered by timestamp and then hash
+   * @see EncryptedTransactionCursor
+   */
+  Stream<EncryptedTransaction> streamTransactions(int fetchSize);
+
+  /**
+   * Retrieves the stored transactions that the filter matches, reading them a page at a time as
+   * the stream is consumed
+   *
+   * @param fetchSize the maximum number of records to read at once
+   * @param filter the transactions to retrieve
+   * @return the matching transactions, ordered by timestamp and then hash
+   * @see EncryptedTransactionCursor
+   */
+  Stream<EncryptedTransaction> streamTransactions(int fetchSize, TransactionFilter filter);
+
   /**
    * Retrieve the total transaction count.
    *
@@ -59,6 +108,22 @@ public interface EncryptedTransactionDAO {
    */
   long transactionCount();
 
+  /**
+   * Retrieve the number of transactions that the given key sent or received.
+   *
+   * @param publicKey the key to count the transactions of
+   * @return the transaction count
+   */
+  long transactionCount(PublicKey publicKey);
+
+  /**
+   * Retrieve the number of stored transactions that the filter matches.
+   *
+   * @param filter the transactions to count
+   * @return the transaction count
+   */
+  long transactionCount(TransactionFilter filter);
+
   /**
    * Deletes a transaction that has the given hash as its digest
    *
@@ -77,6 +142,30 @@ public interface EncryptedTransactionDAO {
    */
   <T> EncryptedTransaction save(EncryptedTransaction transaction, Callable<T> consumer);
 
+  /**
+   * Save a new transaction along with the outbox entries for pushing it to its remote recipients.
+   * A store in the same database as the outbox writes them in one unit of work, so that an entry is
+   * never seen without its transaction. Otherwise the entries are saved as the callback of {@link
+   * #save(EncryptedTransaction, Callable)}, so a failure to save them leaves no transaction behind,
+   * and entries whose transaction then fails to save are given up on by the dispatcher.
+   *
+   * @param transaction the entity to be persisted
+   * @param outboxEntries the entries to be persisted with it
+   * @param outboxDAO the outbox, for a store that can't write the entries itself
+   * @return the entity that was persisted
+   */
+  default EncryptedTransaction save(
+      EncryptedTransaction transaction, List<OutboxEntry> outboxEntries, OutboxDAO outboxDAO) {
+    return save(
+        transaction,
+        () -> {
+          if (!outboxEntries.isEmpty()) {
+            outboxDAO.save(outboxEntries);
+          }
+          return null;
+        });
+  }
+
   /**
    * Check whether data store is available
    *
@@ -84,6 +173,11 @@ public interface EncryptedTransactionDAO {
    */
   boolean upcheck();
 
+  /**
+   * Deletes every transaction that the given key sent or received
+   *
+   * @param publicKey the key whose transactions are to be deleted
+   */
   void deleteAll(PublicKey publicKey);
 
   static EncryptedTransactionDAO create() {
@@ -3,10 +3,20 @@ package com.quorum.tessera.data;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyGroup;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.PostLoad;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,6 +33,11 @@ public class EncryptedTransactionListener {
     final PayloadEncoder payloadEncoder = PayloadEncoder.create(encodedPayloadCodec);
     final byte[] encodedPayloadData = payloadEncoder.encode(encodedPayload);
     encryptedTransaction.setEncodedPayload(encodedPayloadData);
+    describe(encryptedTransaction, encodedPayload);
+
+    replace(encryptedTransaction.getParties(), TransactionParty.from(encodedPayload));
+    replace(
+        encryptedTransaction.getRecipientBoxes(), TransactionRecipientBox.from(encodedPayload));
   }
 
   @PrePersist
@@ -35,6 +50,9 @@ public class EncryptedTransactionListener {
     final byte[] encodedPayloadData = payloadEncoder.encode(encodedPayload);
     encryptedTransaction.setEncodedPayloadCodec(encodedPayloadCodec);
     encryptedTransaction.setEncodedPayload(encodedPayloadData);
+    encryptedTransaction.setParties(TransactionParty.from(encodedPayload));
+    encryptedTransaction.setRecipientBoxes(TransactionRecipientBox.from(encodedPayload));
+    describe(encryptedTransaction, encodedPayload);
   }
 
   @PostLoad
@@ -46,8 +64,75 @@ public class EncryptedTransactionListener {
             .orElse(EncodedPayloadCodec.LEGACY);
     final byte[] encodedPayloadData = encryptedTransaction.getEncodedPayload();
     final PayloadEncoder payloadEncoder = PayloadEncoder.create(encodedPayloadCodec);
-    final EncodedPayload encodedPayload = payloadEncoder.decode(encodedPayloadData);
-    encryptedTransaction.setPayload(encodedPayload);
+    // most callers only need some of the fields, so each is decoded when first used
+    final EncodedPayload encodedPayload = payloadEncoder.decodeLazily(encodedPayloadData);
+
+    // boxes added since the payload was written are only in the box table, and are counted
+    // without copying the boxes so that loading a transaction that has none stays cheap
+    final Integer recipientCount = encryptedTransaction.getRecipientCount();
+    if (recipientCount != null && recipientCount > encodedPayload.getRecipientBoxCount()) {
+      encryptedTransaction.setPayload(
+          withAddedBoxes(encodedPayload, encryptedTransaction.getRecipientBoxes()));
+    } else {
+      encryptedTransaction.setPayload(encodedPayload);
+    }
     encryptedTransaction.setEncodedPayloadCodec(encodedPayloadCodec);
   }
+
+  /**
+   * Adds the boxes that are not already in the payload, the same way a received box is added to a
+   * payload that is written back. A key is paired with the box at the same position, so boxes whose
+   * key is known go to the front of the payload along with their keys, and those without one go to
+   * the end, after any boxes that already have no key.
+   */
+  static EncodedPayload withAddedBoxes(
+      final EncodedPayload encodedPayload, final Collection<TransactionRecipientBox> boxes) {
+    final List<RecipientBox> payloadBoxes = encodedPayload.getRecipientBoxes();
+    final List<TransactionRecipientBox> added =
+        boxes.stream()
+            .filter(box -> !payloadBoxes.contains(RecipientBox.from(box.getBox())))
+            // the table has no order, so sort them to assemble the same payload every time
+            .sorted(Comparator.comparing(TransactionRecipientBox::getBox, Arrays::compare))
+            .collect(Collectors.toList());
+
+    final List<byte[]> recipientBoxes = new ArrayList<>();
+    final List<PublicKey> recipientKeys = new ArrayList<>(encodedPayload.getRecipientKeys());
+    for (final TransactionRecipientBox box : added) {
+      if (box.getRecipientKey() != null) {
+        recipientBoxes.add(0, box.getBox());
+        recipientKeys.add(0, PublicKey.from(box.getRecipientKey()));
+      }
+    }
+    payloadBoxes.forEach(box -> recipientBoxes.add(box.getData()));
+    for (final TransactionRecipientBox box : added) {
+      if (box.getRecipientKey() == null) {
+        recipientBoxes.add(box.getBox());
+      }
+    }
+
+    return EncodedPayload.Builder.from(encodedPayload)
+        .withRecipientBoxes(recipientBoxes)
+        .withNewRecipientKeys(recipientKeys)
+        .build();
+  }
+
+  /** Copies the parts of the payload that are stored in their own columns onto the entity */
+  static void describe(
+      final EncryptedTransaction encryptedTransaction, final EncodedPayload encodedPayload) {
+    final byte[] senderKey =
+        Optional.ofNullable(encodedPayload.getSenderKey()).map(PublicKey::getKeyBytes).orElse(null);
+    encryptedTransaction.setSenderKey(senderKey);
+    encryptedTransaction.setPrivacyMode(encodedPayload.getPrivacyMode());
+    encryptedTransaction.setRecipientCount(encodedPayload.getRecipientBoxes().size());
+    encryptedTransaction.setPrivacyGroupId(
+        encodedPayload.getPrivacyGroupId().map(PrivacyGroup.Id::getBytes).orElse(null));
+  }
+
+  // only touch the collection if it changed, so an unchanged one isn't rewritten
+  private static <T> void replace(final Set<T> current, final Set<T> replacement) {
+    if (!replacement.equals(current)) {
+      current.retainAll(replacement);
+      current.addAll(replacement);
+    }
+  }
 }
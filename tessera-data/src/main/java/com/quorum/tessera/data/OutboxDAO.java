@@ -0,0 +1,67 @@
+package com.quorum.tessera.data;
+
+import java.util.List;
+import java.util.ServiceLoader;
+
+/** A data store for transactions waiting to be pushed to remote recipients */
+public interface OutboxDAO {
+
+  /**
+   * Save new entries, each with an id after those of the entries saved before it
+   *
+   * @param entries the entries to be persisted
+   */
+  void save(List<OutboxEntry> entries);
+
+  /**
+   * Retrieve the pending entries that are due to be attempted, in the order they were saved. None
+   * of a recipient's entries are due while an earlier pending one for it is held back.
+   *
+   * @param now the current time in milliseconds
+   * @param maxResult the maximum number of entries to return
+   * @return the due entries
+   */
+  List<OutboxEntry> retrieveDue(long now, int maxResult);
+
+  /**
+   * Retrieve every entry for a transaction, whatever its status
+   *
+   * @param hash the hash of the transaction
+   * @return the entries for the transaction, one per remote recipient
+   */
+  List<OutboxEntry> retrieveByHash(MessageHash hash);
+
+  /**
+   * Write back the status, attempts and error of an entry
+   *
+   * @param entry the entry to update
+   */
+  void update(OutboxEntry entry);
+
+  /**
+   * Hold back every pending entry for a recipient until the given time, so that none of its later
+   * entries are attempted before an earlier one that failed
+   *
+   * @param recipientKey the key of the recipient
+   * @param nextAttempt the time in milliseconds at which to try again
+   */
+  void postpone(byte[] recipientKey, long nextAttempt);
+
+  /**
+   * @param status the status to count
+   * @return the number of entries with the status
+   */
+  long count(OutboxEntry.Status status);
+
+  /**
+   * Delete the delivered and failed entries written before the given time
+   *
+   * @param before the time in milliseconds
+   * @return the number of entries deleted
+   */
+  int deleteFinished(long before);
+
+  static OutboxDAO create() {
+    return ServiceLoader.load(OutboxDAO.class).findFirst().get();
+  }
+}
@@ -0,0 +1,170 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * A stored transaction that is still to be pushed to, or has been pushed to, one remote recipient.
+ * Entries are written alongside the transaction when it is sent, and worked through in the order
+ * of their ids by a background dispatcher, so each recipient gets its transactions in the order
+ * they were sent. An entry isn't due while an earlier pending entry for the same recipient is held
+ * back, so one written while the recipient is being retried waits behind the others.
+ */
+@NamedQueries({
+  @NamedQuery(
+      name = "OutboxEntry.FindDue",
+      query =
+          "select e from OutboxEntry e where e.status = :status and e.nextAttempt <= :now"
+              + " and not exists (select p from OutboxEntry p"
+              + " where p.recipientKey = e.recipientKey and p.status = :status"
+              + " and p.id < e.id and p.nextAttempt > :now)"
+              + " order by e.id"),
+  @NamedQuery(
+      name = "OutboxEntry.FindByHash",
+      query = "select e from OutboxEntry e where e.hash = :hash order by e.id"),
+  @NamedQuery(
+      name = "OutboxEntry.CountByStatus",
+      query = "select count(e) from OutboxEntry e where e.status = :status"),
+  @NamedQuery(
+      name = "OutboxEntry.Postpone",
+      query =
+          "update OutboxEntry e set e.nextAttempt = :nextAttempt"
+              + " where e.recipientKey = :recipientKey and e.status = :status"),
+  @NamedQuery(
+      name = "OutboxEntry.DeleteFinished",
+      query = "delete from OutboxEntry e where e.status <> :status and e.timestamp < :before")
+})
+@Entity
+@Table(
+    name = "OUTBOX_ENTRY",
+    indexes = {
+      @Index(name = "OUTBOX_ENTRY_DUE", columnList = "STATUS,NEXT_ATTEMPT"),
+      @Index(name = "OUTBOX_ENTRY_HASH", columnList = "HASH")
+    })
+public class OutboxEntry implements Serializable {
+
+  public enum Status {
+    PENDING,
+    DELIVERED,
+    FAILED
+  }
+
+  @Id
+  @TableGenerator(
+      name = "OUTBOX_ENTRY_ID",
+      table = "OUTBOX_SEQUENCE",
+      pkColumnName = "SEQ_NAME",
+      valueColumnName = "SEQ_COUNT",
+      pkColumnValue = "OUTBOX_ENTRY",
+      allocationSize = 50)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "OUTBOX_ENTRY_ID")
+  @Column(name = "ID")
+  private Long id;
+
+  @Column(name = "HASH", nullable = false, updatable = false)
+  private byte[] hash;
+
+  @Column(name = "RECIPIENT_KEY", nullable = false, updatable = false)
+  private byte[] recipientKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "STATUS", length = 20, nullable = false)
+  private Status status = Status.PENDING;
+
+  @Column(name = "ATTEMPTS")
+  private int attempts;
+
+  @Column(name = "NEXT_ATTEMPT")
+  private long nextAttempt;
+
+  @Column(name = "LAST_ERROR")
+  private String lastError;
+
+  @Column(name = "TIMESTAMP", updatable = false)
+  private long timestamp;
+
+  public OutboxEntry(final MessageHash hash, final PublicKey recipient) {
+    this.hash = hash.getHashBytes();
+    this.recipientKey = recipient.getKeyBytes();
+  }
+
+  public OutboxEntry() {}
+
+  @PrePersist
+  public void onPersist() {
+    this.timestamp = System.currentTimeMillis();
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public byte[] getHash() {
+    return hash;
+  }
+
+  public void setHash(final byte[] hash) {
+    this.hash = hash;
+  }
+
+  public byte[] getRecipientKey() {
+    return recipientKey;
+  }
+
+  public void setRecipientKey(final byte[] recipientKey) {
+    this.recipientKey = recipientKey;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(final Status status) {
+    this.status = status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(final int attempts) {
+    this.attempts = attempts;
+  }
+
+  public long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(final long nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(final String lastError) {
+    this.lastError = lastError;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(final long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public MessageHash getMessageHash() {
+    return new MessageHash(hash);
+  }
+
+  public PublicKey getRecipient() {
+    return PublicKey.from(recipientKey);
+  }
+}
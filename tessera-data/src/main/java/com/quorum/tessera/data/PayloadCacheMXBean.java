@@ -0,0 +1,23 @@
+package com.quorum.tessera.data;
+
+/** Statistics of the in-memory cache of transactions read from the data store */
+public interface PayloadCacheMXBean {
+
+  /** @return how many lookups were answered from the cache */
+  long getHitCount();
+
+  /** @return how many lookups had to go to the data store */
+  long getMissCount();
+
+  /** @return how many transactions were dropped to make room for others */
+  long getEvictionCount();
+
+  /** @return how many transactions are held */
+  int getEntryCount();
+
+  /** @return the total size in bytes of the encoded payloads held */
+  long getSize();
+
+  /** @return the most the total size of the encoded payloads held may be */
+  long getMaxSize();
+}
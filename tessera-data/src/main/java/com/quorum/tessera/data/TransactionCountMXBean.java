@@ -0,0 +1,14 @@
+package com.quorum.tessera.data;
+
+/**
+ * Counts of the stored transactions, kept up to date as transactions are stored and deleted so that
+ * they can be read without counting the rows of the data store
+ */
+public interface TransactionCountMXBean {
+
+  /** @return about how many transactions are stored, or -1 if they have not been counted yet */
+  long getEncryptedTransactionCount();
+
+  /** @return about how many raw transactions are stored, or -1 if they have not been counted yet */
+  long getEncryptedRawTransactionCount();
+}
@@ -0,0 +1,113 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Narrows a scan of stored transactions using the columns written alongside each payload, so that
+ * rows which can't match are never read from the database.
+ *
+ * <p>Transactions stored before those columns existed, and not yet backfilled by {@link
+ * TransactionMetadataBackfill}, always match, so callers must still check each transaction they
+ * are given.
+ */
+public final class TransactionFilter {
+
+  /** Matches every stored transaction */
+  public static final TransactionFilter ALL =
+      new TransactionFilter(List.of(), List.of(), transaction -> true);
+
+  // rows without a privacy mode haven't been described yet
+  private static final String UNDESCRIBED = "PRIVACY_MODE IS NULL";
+
+  private final List<String> conditions;
+
+  private final List<Object> parameters;
+
+  private final Predicate<EncryptedTransaction> predicate;
+
+  private TransactionFilter(
+      final List<String> conditions,
+      final List<Object> parameters,
+      final Predicate<EncryptedTransaction> predicate) {
+    this.conditions = conditions;
+    this.parameters = parameters;
+    this.predicate = predicate;
+  }
+
+  /**
+   * @param publicKey the key to filter by
+   * @return a filter matching the transactions that the given key sent, or is a recipient of
+   */
+  public static TransactionFilter involving(final PublicKey publicKey) {
+    final byte[] keyBytes = Objects.requireNonNull(publicKey).getKeyBytes();
+    final TransactionParty recipient =
+        new TransactionParty(keyBytes, TransactionParty.Role.RECIPIENT);
+    return ALL.and(
+        UNDESCRIBED
+            + " OR SENDER_KEY = ? OR EXISTS (SELECT 1 FROM ENCRYPTED_TRANSACTION_PARTY p"
+            + " WHERE p.HASH = ENCRYPTED_TRANSACTION.HASH AND p.PUBLIC_KEY = ?"
+            + " AND p.PARTY_ROLE = 'RECIPIENT')",
+        transaction ->
+            Arrays.equals(transaction.getSenderKey(), keyBytes)
+                || transaction.getParties().contains(recipient),
+        keyBytes,
+        keyBytes);
+  }
+
+  /**
+   * @param privacyMode the privacy mode to filter by
+   * @return a filter matching the transactions this filter matches that have the given mode
+   */
+  public TransactionFilter withPrivacyMode(final PrivacyMode privacyMode) {
+    return and(
+        UNDESCRIBED + " OR PRIVACY_MODE = ?",
+        transaction -> transaction.getPrivacyMode() == privacyMode,
+        privacyMode.name());
+  }
+
+  /** @return the SQL condition on ENCRYPTED_TRANSACTION rows, with positional parameters */
+  public String where() {
+    if (conditions.isEmpty()) {
+      return "1 = 1";
+    }
+    return "(" + String.join(") AND (", conditions) + ")";
+  }
+
+  /** @return the values of the parameters of {@link #where()}, in order */
+  public List<Object> parameters() {
+    return parameters;
+  }
+
+  /**
+   * Applies the same conditions as {@link #where()} to a transaction read from a store that isn't
+   * queried with SQL, using its columns and parties rather than its payload.
+   *
+   * @param transaction the transaction to check
+   * @return true if the transaction's row would match {@link #where()}
+   */
+  public boolean matches(final EncryptedTransaction transaction) {
+    return predicate.test(transaction);
+  }
+
+  // each condition on a row which has been described, as undescribed rows always match
+  private TransactionFilter and(
+      final String condition,
+      final Predicate<EncryptedTransaction> described,
+      final Object... values) {
+    final List<String> newConditions = new ArrayList<>(conditions);
+    newConditions.add(condition);
+    final List<Object> newParameters = new ArrayList<>(parameters);
+    newParameters.addAll(List.of(values));
+    final Predicate<EncryptedTransaction> newPredicate =
+        predicate.and(
+            transaction -> transaction.getPrivacyMode() == null || described.test(transaction));
+    return new TransactionFilter(
+        List.copyOf(newConditions), List.copyOf(newParameters), newPredicate);
+  }
+}
@@ -0,0 +1,71 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.internal.EncryptedTransactionDAOImpl;
+import com.quorum.tessera.data.internal.LogEncryptedTransactionDAO;
+import com.quorum.tessera.data.internal.LogStore;
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies the encrypted transactions stored in a database into an embedded transaction log, for a
+ * node that is moving to the log by setting its transaction log path. Each transaction keeps the
+ * time it was first stored, so is resent in the same order as before.
+ *
+ * <p>The node must be stopped while the copy is made. Transactions that are already in the log are
+ * skipped, so the copy can be run again if interrupted.
+ */
+public class TransactionLogImport {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogImport.class);
+
+  private final EncryptedTransactionDAO source;
+
+  private final Path transactionLogPath;
+
+  private final int batchSize;
+
+  /**
+   * @param entityManagerFactory the database to copy from
+   * @param transactionLogPath the directory of the log to copy into
+   * @param batchSize the most transactions to read and append at once
+   */
+  public TransactionLogImport(
+      final EntityManagerFactory entityManagerFactory,
+      final Path transactionLogPath,
+      final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.source = new EncryptedTransactionDAOImpl(Objects.requireNonNull(entityManagerFactory));
+    this.transactionLogPath = Objects.requireNonNull(transactionLogPath);
+    this.batchSize = batchSize;
+  }
+
+  /** @return the number of transactions that were copied */
+  public long run() {
+    long copied = 0;
+    long read = 0;
+    try (LogEncryptedTransactionDAO target =
+            new LogEncryptedTransactionDAO(LogStore.open(transactionLogPath, Long.MAX_VALUE));
+        Stream<EncryptedTransaction> transactions = source.streamTransactions(batchSize)) {
+      final Iterator<EncryptedTransaction> iterator = transactions.iterator();
+      while (iterator.hasNext()) {
+        final List<EncryptedTransaction> batch = new ArrayList<>(batchSize);
+        while (iterator.hasNext() && batch.size() < batchSize) {
+          batch.add(iterator.next());
+        }
+        copied += target.copyAll(batch);
+        read += batch.size();
+        LOGGER.info("Copied {} of {} transactions read", copied, read);
+      }
+    }
+    return copied;
+  }
+}
@@ -0,0 +1,98 @@
+package com.quorum.tessera.data;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills in the sender key, privacy mode, recipient count and privacy group columns of transactions
+ * stored before they existed. New and updated transactions have them written with the payload, so
+ * this only needs to be run once against an existing database, and can be run again safely if
+ * interrupted.
+ *
+ * <p>Scans narrowed by a {@link TransactionFilter} use the {@link TransactionParty} index of a
+ * transaction once these columns are filled in, so {@link TransactionPartyBackfill} should be run
+ * first.
+ */
+public class TransactionMetadataBackfill {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionMetadataBackfill.class);
+
+  private static final String UNDESCRIBED =
+      "SELECT * FROM ENCRYPTED_TRANSACTION WHERE PRIVACY_MODE IS NULL";
+
+  private static final String FIRST_UNDESCRIBED = UNDESCRIBED + " ORDER BY HASH";
+
+  private static final String NEXT_UNDESCRIBED = UNDESCRIBED + " AND HASH > ? ORDER BY HASH";
+
+  private final EntityManagerTemplate entityManagerTemplate;
+
+  private final int batchSize;
+
+  /**
+   * @param entityManagerFactory the database to fill in
+   * @param batchSize the most transactions to fill in in one database transaction
+   */
+  public TransactionMetadataBackfill(
+      final EntityManagerFactory entityManagerFactory, final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.entityManagerTemplate =
+        new EntityManagerTemplate(Objects.requireNonNull(entityManagerFactory));
+    this.batchSize = batchSize;
+  }
+
+  /** @return the number of transactions that were filled in */
+  public long run() {
+    long described = 0;
+    MessageHash last = null;
+    while (true) {
+      final MessageHash after = last;
+      final List<EncryptedTransaction> batch =
+          entityManagerTemplate.execute(entityManager -> describe(entityManager, after));
+      if (batch.isEmpty()) {
+        break;
+      }
+      described += batch.size();
+      last = batch.get(batch.size() - 1).getHash();
+      LOGGER.info("Filled in the metadata of {} transactions", described);
+    }
+    return described;
+  }
+
+  private List<EncryptedTransaction> describe(
+      final EntityManager entityManager, final MessageHash after) {
+    final Query query;
+    if (after == null) {
+      query = entityManager.createNativeQuery(FIRST_UNDESCRIBED, EncryptedTransaction.class);
+    } else {
+      query =
+          entityManager
+              .createNativeQuery(NEXT_UNDESCRIBED, EncryptedTransaction.class)
+              .setParameter(1, after.getHashBytes());
+    }
+
+    @SuppressWarnings("unchecked")
+    final List<EncryptedTransaction> batch = query.setMaxResults(batchSize).getResultList();
+
+    // detach the batch and update only the new columns, so the payloads aren't written back
+    entityManager.clear();
+    for (final EncryptedTransaction transaction : batch) {
+      EncryptedTransactionListener.describe(transaction, transaction.getPayload());
+      entityManager
+          .createNamedQuery("EncryptedTransaction.UpdateMetadata")
+          .setParameter("senderKey", transaction.getSenderKey())
+          .setParameter("privacyMode", transaction.getPrivacyMode())
+          .setParameter("recipientCount", transaction.getRecipientCount())
+          .setParameter("privacyGroupId", transaction.getPrivacyGroupId())
+          .setParameter("hash", transaction.getHash().getHashBytes())
+          .executeUpdate();
+    }
+    return batch;
+  }
+}
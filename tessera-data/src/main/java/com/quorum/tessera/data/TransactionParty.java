@@ -0,0 +1,83 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A public key taking part in a stored transaction, and whether it sent or received it. These are
+ * kept in their own table, indexed by key, so that transactions can be found by key without
+ * decoding every stored payload.
+ */
+@Embeddable
+public class TransactionParty implements Serializable {
+
+  public enum Role {
+    SENDER,
+    RECIPIENT
+  }
+
+  @Column(name = "PUBLIC_KEY", nullable = false, updatable = false)
+  private byte[] publicKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "PARTY_ROLE", length = 20, nullable = false, updatable = false)
+  private Role role;
+
+  public TransactionParty(final byte[] publicKey, final Role role) {
+    this.publicKey = publicKey;
+    this.role = role;
+  }
+
+  public TransactionParty() {}
+
+  /**
+   * @param payload the payload of a stored transaction
+   * @return the sender and each recipient of the payload
+   */
+  public static Set<TransactionParty> from(final EncodedPayload payload) {
+    final Set<TransactionParty> parties = new HashSet<>();
+    if (payload.getSenderKey() != null) {
+      parties.add(new TransactionParty(payload.getSenderKey().getKeyBytes(), Role.SENDER));
+    }
+    for (final PublicKey recipient : payload.getRecipientKeys()) {
+      parties.add(new TransactionParty(recipient.getKeyBytes(), Role.RECIPIENT));
+    }
+    return parties;
+  }
+
+  public byte[] getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(final byte[] publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public Role getRole() {
+    return role;
+  }
+
+  public void setRole(final Role role) {
+    this.role = role;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (!(obj instanceof TransactionParty)) {
+      return false;
+    }
+    final TransactionParty other = (TransactionParty) obj;
+    return Arrays.equals(publicKey, other.publicKey) && role == other.role;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(publicKey) + Objects.hashCode(role);
+  }
+}
@@ -0,0 +1,83 @@
+package com.quorum.tessera.data;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills in the {@link TransactionParty} index for transactions stored before it existed. New and
+ * updated transactions are indexed as they are written, so this only needs to be run once against
+ * an existing database, and can be run again safely if interrupted.
+ */
+public class TransactionPartyBackfill {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionPartyBackfill.class);
+
+  private static final String UNINDEXED =
+      "SELECT * FROM ENCRYPTED_TRANSACTION et WHERE NOT EXISTS"
+          + " (SELECT 1 FROM ENCRYPTED_TRANSACTION_PARTY p WHERE p.HASH = et.HASH)";
+
+  private static final String FIRST_UNINDEXED = UNINDEXED + " ORDER BY HASH";
+
+  private static final String NEXT_UNINDEXED = UNINDEXED + " AND et.HASH > ? ORDER BY HASH";
+
+  private final EntityManagerTemplate entityManagerTemplate;
+
+  private final int batchSize;
+
+  /**
+   * @param entityManagerFactory the database to index
+   * @param batchSize the most transactions to index in one database transaction
+   */
+  public TransactionPartyBackfill(
+      final EntityManagerFactory entityManagerFactory, final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.entityManagerTemplate =
+        new EntityManagerTemplate(Objects.requireNonNull(entityManagerFactory));
+    this.batchSize = batchSize;
+  }
+
+  /** @return the number of transactions that were indexed */
+  public long run() {
+    long indexed = 0;
+    MessageHash last = null;
+    while (true) {
+      final MessageHash after = last;
+      final List<EncryptedTransaction> batch =
+          entityManagerTemplate.execute(entityManager -> index(entityManager, after));
+      if (batch.isEmpty()) {
+        break;
+      }
+      indexed += batch.size();
+      last = batch.get(batch.size() - 1).getHash();
+      LOGGER.info("Indexed the parties of {} transactions", indexed);
+    }
+    return indexed;
+  }
+
+  private List<EncryptedTransaction> index(
+      final EntityManager entityManager, final MessageHash after) {
+    final Query query;
+    if (after == null) {
+      query = entityManager.createNativeQuery(FIRST_UNINDEXED, EncryptedTransaction.class);
+    } else {
+      query =
+          entityManager
+              .createNativeQuery(NEXT_UNINDEXED, EncryptedTransaction.class)
+              .setParameter(1, after.getHashBytes());
+    }
+
+    @SuppressWarnings("unchecked")
+    final List<EncryptedTransaction> batch = query.setMaxResults(batchSize).getResultList();
+
+    // the batch is managed, so the new parties are written when the transaction commits
+    batch.forEach(tx -> tx.getParties().addAll(TransactionParty.from(tx.getPayload())));
+    return batch;
+  }
+}
@@ -0,0 +1,79 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A recipient box of a stored transaction, and the key of the recipient it is for if known. These
+ * are kept in their own table, unique per transaction, so that a box received for a transaction
+ * that is already stored can be added with a single insert, rather than by reading, rebuilding and
+ * writing back the whole payload.
+ */
+@Embeddable
+public class TransactionRecipientBox implements Serializable {
+
+  @Column(name = "BOX", nullable = false, updatable = false)
+  private byte[] box;
+
+  @Column(name = "RECIPIENT_KEY", updatable = false)
+  private byte[] recipientKey;
+
+  public TransactionRecipientBox(final byte[] box, final byte[] recipientKey) {
+    this.box = box;
+    this.recipientKey = recipientKey;
+  }
+
+  public TransactionRecipientBox() {}
+
+  /**
+   * @param payload the payload of a stored transaction
+   * @return each recipient box of the payload, with the key at the same position if there is one
+   */
+  public static Set<TransactionRecipientBox> from(final EncodedPayload payload) {
+    final List<PublicKey> recipientKeys = payload.getRecipientKeys();
+    final Set<TransactionRecipientBox> boxes = new HashSet<>();
+    for (int i = 0; i < payload.getRecipientBoxes().size(); i++) {
+      final byte[] recipientKey =
+          i < recipientKeys.size() ? recipientKeys.get(i).getKeyBytes() : null;
+      boxes.add(
+          new TransactionRecipientBox(payload.getRecipientBoxes().get(i).getData(), recipientKey));
+    }
+    return boxes;
+  }
+
+  public byte[] getBox() {
+    return box;
+  }
+
+  public void setBox(final byte[] box) {
+    this.box = box;
+  }
+
+  public byte[] getRecipientKey() {
+    return recipientKey;
+  }
+
+  public void setRecipientKey(final byte[] recipientKey) {
+    this.recipientKey = recipientKey;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (!(obj instanceof TransactionRecipientBox)) {
+      return false;
+    }
+    final TransactionRecipientBox other = (TransactionRecipientBox) obj;
+    return Arrays.equals(box, other.box) && Arrays.equals(recipientKey, other.recipientKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(box) + Arrays.hashCode(recipientKey);
+  }
+}
@@ -0,0 +1,184 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.data.TransactionFilter;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * A data store that answers reads of single transactions from an {@link EncryptedTransactionCache}
+ * where it can, and otherwise reads from another data store and holds the result. Any change made
+ * through this data store drops the affected transactions from the cache.
+ *
+ * <p>Transactions read page by page are not held, as each is usually read only once.
+ */
+public class CachingEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private final EncryptedTransactionDAO delegate;
+
+  private final EncryptedTransactionCache cache;
+
+  CachingEncryptedTransactionDAO(
+      final EncryptedTransactionDAO delegate, final EncryptedTransactionCache cache) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    try {
+      return delegate.save(entity);
+    } finally {
+      cache.invalidate(entity.getHash());
+    }
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    try {
+      return delegate.update(entity);
+    } finally {
+      cache.invalidate(entity.getHash());
+    }
+  }
+
+  @Override
+  public void saveAll(
+      final Collection<EncryptedTransaction> transactions,
+      final Collection<EncryptedTransaction> updates) {
+    try {
+      delegate.saveAll(transactions, updates);
+    } finally {
+      transactions.forEach(transaction -> cache.invalidate(transaction.getHash()));
+      updates.forEach(update -> cache.invalidate(update.getHash()));
+    }
+  }
+
+  @Override
+  public boolean addRecipientBox(final MessageHash hash, final EncodedPayload payload) {
+    try {
+      return delegate.addRecipientBox(hash, payload);
+    } finally {
+      cache.invalidate(hash);
+    }
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    final Optional<EncryptedTransaction> cached = cache.get(hash);
+    if (cached.isPresent()) {
+      return cached;
+    }
+
+    final long version = cache.version();
+    final Optional<EncryptedTransaction> transaction = delegate.retrieveByHash(hash);
+    transaction.ifPresent(t -> cache.put(t, version));
+    return transaction;
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    final List<EncryptedTransaction> transactions = new ArrayList<>(messageHashes.size());
+    final List<MessageHash> missing = new ArrayList<>();
+    for (final MessageHash hash : messageHashes) {
+      cache.get(hash).ifPresentOrElse(transactions::add, () -> missing.add(hash));
+    }
+    if (missing.isEmpty()) {
+      return transactions;
+    }
+
+    final long version = cache.version();
+    for (final EncryptedTransaction transaction : delegate.findByHashes(missing)) {
+      cache.put(transaction, version);
+      transactions.add(transaction);
+    }
+    return transactions;
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    return delegate.retrieveTransactions(offset, maxResult);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(final int fetchSize) {
+    return delegate.streamTransactions(fetchSize);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(
+      final int fetchSize, final TransactionFilter filter) {
+    return delegate.streamTransactions(fetchSize, filter);
+  }
+
+  @Override
+  public long transactionCount() {
+    return delegate.transactionCount();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return delegate.transactionCount(publicKey);
+  }
+
+  @Override
+  public long transactionCount(final TransactionFilter filter) {
+    return delegate.transactionCount(filter);
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    try {
+      delegate.delete(hash);
+    } finally {
+      cache.invalidate(hash);
+    }
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    try {
+      return delegate.save(transaction, consumer);
+    } finally {
+      cache.invalidate(transaction.getHash());
+    }
+  }
+
+  @Override
+  public EncryptedTransaction save(
+      final EncryptedTransaction transaction,
+      final List<OutboxEntry> outboxEntries,
+      final OutboxDAO outboxDAO) {
+    try {
+      return delegate.save(transaction, outboxEntries, outboxDAO);
+    } finally {
+      cache.invalidate(transaction.getHash());
+    }
+  }
+
+  @Override
+  public boolean upcheck() {
+    return delegate.upcheck();
+  }
+
+  @Override
+  public void deleteAll(final PublicKey publicKey) {
+    try {
+      delegate.deleteAll(publicKey);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+}
@@ -3,9 +3,13 @@ package com.quorum.tessera.data.internal;
 import com.quorum.tessera.data.*;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
@@ -17,10 +21,20 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
   private static final Logger LOGGER =
       LoggerFactory.getLogger(EncryptedRawTransactionDAOImpl.class);
 
+  private static final int UPCHECK_TIMEOUT_SECONDS = 5;
+
   private final EntityManagerTemplate entityManagerTemplate;
 
+  private final RowCounter rowCounter;
+
   public EncryptedRawTransactionDAOImpl(EntityManagerFactory entityManagerFactory) {
+    this(entityManagerFactory, new RowCounter());
+  }
+
+  EncryptedRawTransactionDAOImpl(
+      final EntityManagerFactory entityManagerFactory, final RowCounter rowCounter) {
     this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+    this.rowCounter = Objects.requireNonNull(rowCounter);
   }
 
   @Override
@@ -33,11 +47,14 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
         toHexString(entity.getNonce()),
         toHexString(entity.getSender()));
 
-    return entityManagerTemplate.execute(
-        entityManager -> {
-          entityManager.persist(entity);
-          return entity;
-        });
+    final EncryptedRawTransaction saved =
+        entityManagerTemplate.execute(
+            entityManager -> {
+              entityManager.persist(entity);
+              return entity;
+            });
+    rowCounter.add(1);
+    return saved;
   }
 
   @Override
@@ -68,18 +85,20 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
 
           return txn;
         });
+    rowCounter.add(-1);
   }
 
   @Override
   public boolean upcheck() {
-    // if query succeeds then DB is up and running (else get exception)
+    // a valid connection means the DB is up and running, without reading any table
     try {
       return entityManagerTemplate.execute(
           entityManager -> {
-            Object result =
-                entityManager.createNamedQuery("EncryptedRawTransaction.Upcheck").getSingleResult();
-
-            return true;
+            try {
+              return entityManager.unwrap(Connection.class).isValid(UPCHECK_TIMEOUT_SECONDS);
+            } catch (SQLException ex) {
+              throw new PersistenceException(ex);
+            }
           });
     } catch (Exception e) {
       return false;
@@ -88,7 +107,10 @@ public class EncryptedRawTransactionDAOImpl implements EncryptedRawTransactionDA
 
   @Override
   public long transactionCount() {
-    upcheck();
+    return rowCounter.get(this::countRows);
+  }
+
+  private long countRows() {
     return entityManagerTemplate.execute(
         entityManager -> {
           CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
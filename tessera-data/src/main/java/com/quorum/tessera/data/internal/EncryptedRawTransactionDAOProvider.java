@@ -41,6 +41,7 @@ public class EncryptedRawTransactionDAOProvider {
         Persistence.createEntityManagerFactory("tessera", properties);
     LOGGER.debug("Created EntityManagerFactory from {}", properties);
 
-    return new EncryptedRawTransactionDAOImpl(entityManagerFactory);
+    return new EncryptedRawTransactionDAOImpl(
+        entityManagerFactory, TransactionCounts.shared().encryptedRawTransactions());
   }
 }
@@ -0,0 +1,213 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.PayloadCacheMXBean;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds transactions that have been read from the data store along with their decoded payloads, so
+ * that repeated reads of the same transaction neither query the data store nor decode the payload
+ * again. The least recently used transactions are dropped once the total size of the encoded
+ * payloads held would go over the maximum.
+ *
+ * <p>Every change to the held transactions moves the cache on a version, so that a transaction read
+ * before it was changed is not put back afterwards.
+ */
+class EncryptedTransactionCache implements PayloadCacheMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedTransactionCache.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=PayloadCache";
+
+  private static EncryptedTransactionCache shared;
+
+  private final long maxSize;
+
+  private final Map<MessageHash, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size;
+
+  private long version;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  EncryptedTransactionCache(final long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * The cache shared by every data store in this process, as a change made through one must be seen
+   * by reads made through any other.
+   *
+   * @param maxSize the most the total size of the encoded payloads held may be, if not yet created
+   * @return the shared cache
+   */
+  static synchronized EncryptedTransactionCache shared(final long maxSize) {
+    if (shared == null) {
+      shared = new EncryptedTransactionCache(maxSize);
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(shared, new ObjectName(OBJECT_NAME));
+      } catch (final JMException ex) {
+        LOGGER.warn("Unable to register payload cache statistics", ex);
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * @param hash the hash of the transaction to find
+   * @return a copy of the held transaction, so that callers may change it freely
+   */
+  Optional<EncryptedTransaction> get(final MessageHash hash) {
+    final Entry entry;
+    synchronized (entries) {
+      entry = entries.get(hash);
+    }
+    if (entry == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(entry.toTransaction(hash));
+  }
+
+  /** @return the version to give when putting a transaction that is about to be read */
+  long version() {
+    synchronized (entries) {
+      return version;
+    }
+  }
+
+  /**
+   * Holds a transaction that has been read from the data store, unless the cache has been changed
+   * since it was read.
+   *
+   * @param transaction the transaction that was read
+   * @param version the version of the cache before the transaction was read
+   */
+  void put(final EncryptedTransaction transaction, final long version) {
+    final Entry entry = new Entry(transaction);
+    if (entry.encodedPayload == null || entry.payload == null || entry.size() > maxSize) {
+      return;
+    }
+
+    synchronized (entries) {
+      if (this.version != version) {
+        return;
+      }
+      final Entry previous = entries.put(transaction.getHash(), entry);
+      if (previous != null) {
+        size -= previous.size();
+      }
+      size += entry.size();
+
+      final Iterator<Entry> eldest = entries.values().iterator();
+      while (size > maxSize) {
+        size -= eldest.next().size();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /** @param hash the hash of a transaction that has been changed or deleted */
+  void invalidate(final MessageHash hash) {
+    synchronized (entries) {
+      version++;
+      final Entry removed = entries.remove(hash);
+      if (removed != null) {
+        size -= removed.size();
+      }
+    }
+  }
+
+  /** Drops every transaction, for when changes cannot be tied to particular hashes */
+  void invalidateAll() {
+    synchronized (entries) {
+      version++;
+      entries.clear();
+      size = 0;
+    }
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public int getEntryCount() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @Override
+  public long getSize() {
+    synchronized (entries) {
+      return size;
+    }
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  private static final class Entry {
+
+    private final byte[] encodedPayload;
+
+    private final EncodedPayloadCodec encodedPayloadCodec;
+
+    private final EncodedPayload payload;
+
+    private final long timestamp;
+
+    private Entry(final EncryptedTransaction transaction) {
+      this.encodedPayload = transaction.getEncodedPayload();
+      this.encodedPayloadCodec = transaction.getEncodedPayloadCodec();
+      this.payload = transaction.getPayload();
+      this.timestamp = transaction.getTimestamp();
+    }
+
+    private long size() {
+      return encodedPayload.length;
+    }
+
+    private EncryptedTransaction toTransaction(final MessageHash hash) {
+      final EncryptedTransaction transaction = new EncryptedTransaction(hash, payload);
+      transaction.setEncodedPayload(encodedPayload);
+      transaction.setEncodedPayloadCodec(encodedPayloadCodec);
+      transaction.setTimestamp(timestamp);
+      return transaction;
+    }
+  }
+}
@@ -1,18 +1,28 @@
 package com.quorum.tessera.data.internal;
 
 import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionCursor;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.EntityManagerTemplate;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.data.TransactionFilter;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,20 +31,55 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedTransactionDAOImpl.class);
 
+  private static final int DELETE_PAGE_SIZE = 100;
+
+  private static final int UPCHECK_TIMEOUT_SECONDS = 5;
+
+  // a standard private transaction from the same sender whose boxes are in the box table,
+  // which doesn't have the box yet
+  private static final String ADD_RECIPIENT_BOX =
+      "INSERT INTO ENCRYPTED_TRANSACTION_BOX (HASH, BOX%s) SELECT et.HASH, ?%s"
+          + " FROM ENCRYPTED_TRANSACTION et WHERE et.HASH = ? AND et.SENDER_KEY = ?"
+          + " AND et.PRIVACY_MODE = 'STANDARD_PRIVATE'"
+          + " AND EXISTS (SELECT 1 FROM ENCRYPTED_TRANSACTION_BOX b WHERE b.HASH = et.HASH)"
+          + " AND NOT EXISTS (SELECT 1 FROM ENCRYPTED_TRANSACTION_BOX b"
+          + " WHERE b.HASH = et.HASH AND b.BOX = ?)";
+
+  private static final String COUNT_ADDED_RECIPIENT_BOX =
+      "UPDATE ENCRYPTED_TRANSACTION SET RECIPIENT_COUNT = RECIPIENT_COUNT + 1 WHERE HASH = ?";
+
+  // the recipient of an added box, unless it is already a recipient of the transaction
+  private static final String ADD_RECIPIENT_PARTY =
+      "INSERT INTO ENCRYPTED_TRANSACTION_PARTY (HASH, PUBLIC_KEY, PARTY_ROLE)"
+          + " SELECT et.HASH, ?, 'RECIPIENT' FROM ENCRYPTED_TRANSACTION et WHERE et.HASH = ?"
+          + " AND NOT EXISTS (SELECT 1 FROM ENCRYPTED_TRANSACTION_PARTY p"
+          + " WHERE p.HASH = et.HASH AND p.PUBLIC_KEY = ? AND p.PARTY_ROLE = 'RECIPIENT')";
+
   private EntityManagerTemplate entityManagerTemplate;
 
+  private final RowCounter rowCounter;
+
   public EncryptedTransactionDAOImpl(EntityManagerFactory entityManagerFactory) {
+    this(entityManagerFactory, new RowCounter());
+  }
+
+  EncryptedTransactionDAOImpl(
+      final EntityManagerFactory entityManagerFactory, final RowCounter rowCounter) {
     this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+    this.rowCounter = Objects.requireNonNull(rowCounter);
   }
 
   @Override
   public EncryptedTransaction save(final EncryptedTransaction entity) {
-    return entityManagerTemplate.execute(
-        entityManager -> {
-          entityManager.persist(entity);
-          LOGGER.debug("Stored transaction {}", entity.getHash());
-          return entity;
-        });
+    final EncryptedTransaction saved =
+        entityManagerTemplate.execute(
+            entityManager -> {
+              entityManager.persist(entity);
+              LOGGER.debug("Stored transaction {}", entity.getHash());
+              return entity;
+            });
+    rowCounter.add(1);
+    return saved;
   }
 
   @Override
@@ -52,6 +97,103 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         });
   }
 
+  @Override
+  public void saveAll(
+      final Collection<EncryptedTransaction> transactions,
+      final Collection<EncryptedTransaction> updates) {
+    entityManagerTemplate.execute(
+        entityManager -> {
+          transactions.forEach(entityManager::persist);
+
+          if (!updates.isEmpty()) {
+            final Map<MessageHash, EncryptedTransaction> updatesByHash = new HashMap<>();
+            updates.forEach(update -> updatesByHash.put(update.getHash(), update));
+
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<EncryptedTransaction> query =
+                criteriaBuilder.createQuery(EncryptedTransaction.class);
+            Root<EncryptedTransaction> root = query.from(EncryptedTransaction.class);
+
+            final List<EncryptedTransaction> existing =
+                entityManager
+                    .createQuery(
+                        query.select(root).where(root.get("hash").in(updatesByHash.keySet())))
+                    .getResultList();
+            if (existing.size() != updatesByHash.size()) {
+              throw new EntityNotFoundException();
+            }
+
+            // the payloads are encoded again when the changes are written on commit
+            existing.forEach(
+                e -> {
+                  e.setPayload(updatesByHash.get(e.getHash()).getPayload());
+                  e.setEncodedPayload(null);
+                });
+          }
+
+          LOGGER.debug(
+              "Stored {} and updated {} transactions", transactions.size(), updates.size());
+          return null;
+        });
+    rowCounter.add(transactions.size());
+  }
+
+  @Override
+  public boolean addRecipientBox(final MessageHash hash, final EncodedPayload payload) {
+    if (payload.getPrivacyMode() != PrivacyMode.STANDARD_PRIVATE
+        || payload.getSenderKey() == null
+        || payload.getRecipientBoxes().size() != 1) {
+      return false;
+    }
+    final byte[] box = payload.getRecipientBoxes().get(0).getData();
+    // payloads from before recipient keys were sent have a box but no key
+    final Optional<byte[]> recipientKey =
+        payload.getRecipientKeys().stream().findFirst().map(PublicKey::getKeyBytes);
+
+    final List<Object> parameters = new ArrayList<>();
+    parameters.add(box);
+    recipientKey.ifPresent(parameters::add);
+    parameters.add(hash.getHashBytes());
+    parameters.add(payload.getSenderKey().getKeyBytes());
+    parameters.add(box);
+    final String insert =
+        recipientKey.isPresent()
+            ? String.format(ADD_RECIPIENT_BOX, ", RECIPIENT_KEY", ", ?")
+            : String.format(ADD_RECIPIENT_BOX, "", "");
+
+    try {
+      return entityManagerTemplate.execute(
+          entityManager -> {
+            final Query query = entityManager.createNativeQuery(insert);
+            for (int i = 0; i < parameters.size(); i++) {
+              query.setParameter(i + 1, parameters.get(i));
+            }
+            if (query.executeUpdate() == 0) {
+              return false;
+            }
+            entityManager
+                .createNativeQuery(COUNT_ADDED_RECIPIENT_BOX)
+                .setParameter(1, hash.getHashBytes())
+                .executeUpdate();
+            // indexed by key as well, as the whole payload would have been if written back
+            recipientKey.ifPresent(
+                key ->
+                    entityManager
+                        .createNativeQuery(ADD_RECIPIENT_PARTY)
+                        .setParameter(1, key)
+                        .setParameter(2, hash.getHashBytes())
+                        .setParameter(3, key)
+                        .executeUpdate());
+            LOGGER.debug("Added recipient box to transaction {}", hash);
+            return true;
+          });
+    } catch (final PersistenceException ex) {
+      // the same box was added by someone else at the same time
+      LOGGER.debug("Unable to add recipient box to transaction {}", hash, ex);
+      return false;
+    }
+  }
+
   @Override
   public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
     LOGGER.debug("Retrieving payload with hash {}", hash);
@@ -79,8 +221,27 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
                 .getResultList());
   }
 
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(final int fetchSize) {
+    LOGGER.debug("Streaming EncryptedTransaction database rows in batches of {}", fetchSize);
+    return new EncryptedTransactionCursor(entityManagerTemplate::execute, fetchSize).stream();
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(
+      final int fetchSize, final TransactionFilter filter) {
+    LOGGER.debug(
+        "Streaming filtered EncryptedTransaction database rows in batches of {}", fetchSize);
+    return new EncryptedTransactionCursor(entityManagerTemplate::execute, fetchSize, filter)
+        .stream();
+  }
+
   @Override
   public long transactionCount() {
+    return rowCounter.get(this::countRows);
+  }
+
+  private long countRows() {
     return entityManagerTemplate.execute(
         entityManager -> {
           CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
@@ -110,53 +271,117 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
           entityManager.remove(message);
           return message;
         });
+    rowCounter.add(-1);
   }
 
   @Override
-  public void deleteAll(final PublicKey publicKey) {
+  public long transactionCount(final PublicKey publicKey) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("EncryptedTransaction.CountByParty", Long.class)
+                .setParameter("publicKey", publicKey.getKeyBytes())
+                .getSingleResult());
+  }
 
-    LOGGER.info("Deleting transaction with hash {}", publicKey);
+  @Override
+  public long transactionCount(final TransactionFilter filter) {
+    return entityManagerTemplate.execute(
+        entityManager -> {
+          final Query query =
+              entityManager.createNativeQuery(
+                  "SELECT COUNT(*) FROM ENCRYPTED_TRANSACTION WHERE " + filter.where());
+          final List<Object> parameters = filter.parameters();
+          for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+          }
+          return ((Number) query.getSingleResult()).longValue();
+        });
+  }
 
-    entityManagerTemplate.execute(
-      entityManager -> {
-        final List<EncryptedTransaction> messages =
-          entityManager
-            .createNamedQuery("EncryptedTransaction.FindAll", EncryptedTransaction.class)
-            .getResultList();
+  @Override
+  public void deleteAll(final PublicKey publicKey) {
 
-        messages.stream().filter(msg-> publicKey.equals(msg.getPayload().getSenderKey()) || msg.getPayload().getRecipientKeys().contains(publicKey)).forEach(msg-> entityManager.remove(msg));
-        return messages;
-      });
+    LOGGER.info("Deleting transactions of key {}", publicKey);
+
+    final long deleted =
+        entityManagerTemplate.execute(
+            entityManager -> {
+              // the transactions are found through the party index, and removed a page at a time
+              // so that only one page is held in memory
+              long removed = 0;
+              List<EncryptedTransaction> page;
+              do {
+                page =
+                    entityManager
+                        .createNamedQuery(
+                            "EncryptedTransaction.FindByParty", EncryptedTransaction.class)
+                        .setParameter("publicKey", publicKey.getKeyBytes())
+                        .setMaxResults(DELETE_PAGE_SIZE)
+                        .getResultList();
+                page.forEach(entityManager::remove);
+                entityManager.flush();
+                entityManager.clear();
+                removed += page.size();
+              } while (!page.isEmpty());
+              return removed;
+            });
+    rowCounter.add(-deleted);
   }
 
   @Override
   public <T> EncryptedTransaction save(EncryptedTransaction transaction, Callable<T> consumer) {
 
-    return entityManagerTemplate.execute(
-        entityManager -> {
-          entityManager.persist(transaction);
-          try {
-            entityManager.flush();
-            consumer.call();
-            return transaction;
-          } catch (RuntimeException ex) {
-            throw ex;
-          } catch (Exception e) {
-            throw new PersistenceException(e);
-          }
-        });
+    final EncryptedTransaction saved =
+        entityManagerTemplate.execute(
+            entityManager -> {
+              entityManager.persist(transaction);
+              try {
+                entityManager.flush();
+                consumer.call();
+                return transaction;
+              } catch (RuntimeException ex) {
+                throw ex;
+              } catch (Exception e) {
+                throw new PersistenceException(e);
+              }
+            });
+    rowCounter.add(1);
+    return saved;
+  }
+
+  @Override
+  public EncryptedTransaction save(
+      final EncryptedTransaction transaction,
+      final List<OutboxEntry> outboxEntries,
+      final OutboxDAO outboxDAO) {
+    // the outbox is in the same database, so the entries are committed with the transaction
+    final EncryptedTransaction saved =
+        entityManagerTemplate.execute(
+            entityManager -> {
+              entityManager.persist(transaction);
+              outboxEntries.forEach(entityManager::persist);
+              LOGGER.debug(
+                  "Stored transaction {} with {} outbox entries",
+                  transaction.getHash(),
+                  outboxEntries.size());
+              return transaction;
+            });
+    rowCounter.add(1);
+    return saved;
   }
 
   @Override
   public boolean upcheck() {
-    // if query succeeds then DB is up and running (else get exception)
+    // a valid connection means the DB is up and running, without reading any table
     try {
       return entityManagerTemplate.execute(
           entityManager -> {
-            Object result =
-                entityManager.createNamedQuery("EncryptedTransaction.Upcheck").getSingleResult();
-
-            return true;
+            try {
+              return entityManager.unwrap(Connection.class).isValid(UPCHECK_TIMEOUT_SECONDS);
+            } catch (SQLException ex) {
+              throw new PersistenceException(ex);
+            }
           });
     } catch (Exception e) {
       return false;
@@ -6,6 +6,7 @@ import com.quorum.tessera.data.DataSourceFactory;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import javax.sql.DataSource;
@@ -21,6 +22,14 @@ public class EncryptedTransactionDAOProvider {
 
     Config config = ConfigFactory.create().getConfig();
 
+    final long payloadCacheSize = config.getJdbcConfig().getPayloadCacheSize();
+
+    final Path transactionLogPath = config.getJdbcConfig().getTransactionLogPath();
+    if (transactionLogPath != null) {
+      LOGGER.debug("Storing transactions in {}", transactionLogPath);
+      return withCache(LogEncryptedTransactionDAO.shared(transactionLogPath), payloadCacheSize);
+    }
+
     final DataSource dataSource = DataSourceFactory.create().create(config.getJdbcConfig());
 
     Map properties = new HashMap();
@@ -37,11 +46,32 @@ public class EncryptedTransactionDAOProvider {
         "jakarta.persistence.schema-generation.database.action",
         config.getJdbcConfig().isAutoCreateTables() ? "create" : "none");
 
+    final int storeBatchSize = config.getJdbcConfig().getStoreBatchSize();
+    if (storeBatchSize > 1) {
+      // payloads stored together are sent to the database together
+      properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+      properties.put("eclipselink.jdbc.batch-writing.size", String.valueOf(storeBatchSize));
+    }
+
     LOGGER.debug("Creating EntityManagerFactory from {}", properties);
     final EntityManagerFactory entityManagerFactory =
         Persistence.createEntityManagerFactory("tessera", properties);
     LOGGER.debug("Created EntityManagerFactory from {}", properties);
 
-    return new EncryptedTransactionDAOImpl(entityManagerFactory);
+    final EncryptedTransactionDAO encryptedTransactionDAO =
+        new EncryptedTransactionDAOImpl(
+            entityManagerFactory, TransactionCounts.shared().encryptedTransactions());
+    return withCache(encryptedTransactionDAO, payloadCacheSize);
+  }
+
+  private static EncryptedTransactionDAO withCache(
+      final EncryptedTransactionDAO encryptedTransactionDAO, final long payloadCacheSize) {
+    if (payloadCacheSize <= 0) {
+      return encryptedTransactionDAO;
+    }
+
+    LOGGER.debug("Caching up to {} bytes of transactions", payloadCacheSize);
+    return new CachingEncryptedTransactionDAO(
+        encryptedTransactionDAO, EncryptedTransactionCache.shared(payloadCacheSize));
   }
 }
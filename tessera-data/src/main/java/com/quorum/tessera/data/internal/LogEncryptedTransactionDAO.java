@@ -0,0 +1,538 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.EncryptedTransactionListener;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.TransactionFilter;
+import com.quorum.tessera.data.TransactionParty;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link EncryptedTransactionDAO} that keeps transactions in a {@link
+ * LogStore}, so needs no database. Each transaction is stored under its hash as one value, which
+ * holds the time it was stored, its codec, the keys of its sender and recipients, and its encoded
+ * payload. Scans are ordered by an index of the time and hash of every transaction, held in memory,
+ * and filtered on the keys and privacy mode without copying the payload out of the store.
+ *
+ * <p>Every change is appended as one entry, so a batch of saves and updates is still a single unit
+ * of work. Changes are checked and appended one at a time, but wait for their sync to disk
+ * together.
+ */
+public class LogEncryptedTransactionDAO implements EncryptedTransactionDAO, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogEncryptedTransactionDAO.class);
+
+  /** The size in bytes a store must reach before space taken by replaced payloads is reclaimed */
+  static final long COMPACTION_THRESHOLD = 256L * 1024 * 1024;
+
+  private static final int DELETE_PAGE_SIZE = 100;
+
+  private static final Map<Path, LogEncryptedTransactionDAO> SHARED = new HashMap<>();
+
+  private final LogStore store;
+
+  private final EncryptedTransactionListener listener = new EncryptedTransactionListener();
+
+  // checks that a change can be made and appends it, so that no other change comes in between
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  private final NavigableSet<Position> positions = new ConcurrentSkipListSet<>();
+
+  public LogEncryptedTransactionDAO(final LogStore store) {
+    this.store = Objects.requireNonNull(store);
+    for (final byte[] hash : store.keys()) {
+      store.get(hash).ifPresent(value -> positions.add(new Position(value.getLong(0), hash)));
+    }
+  }
+
+  /**
+   * The data store kept in the given directory, opened the first time it is asked for, as a store
+   * can only be opened once and a change made through one data store must be seen by all.
+   *
+   * @param directory the directory the store is kept in
+   * @return the data store for the directory
+   */
+  static synchronized LogEncryptedTransactionDAO shared(final Path directory) {
+    return SHARED.computeIfAbsent(
+        directory.toAbsolutePath().normalize(),
+        path -> new LogEncryptedTransactionDAO(LogStore.open(path, COMPACTION_THRESHOLD)));
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    append(entity).await();
+
+    LOGGER.debug("Stored transaction {}", entity.getHash());
+    return entity;
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    final EncryptedTransaction existing =
+        read(entity.getHash(), TransactionFilter.ALL, false)
+            .orElseThrow(EntityNotFoundException::new);
+    final byte[] value = prepareUpdate(existing, entity.getPayload());
+
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      requirePresent(existing.getHash());
+      commit = store.append(new LogStore.Batch().put(existing.getHash().getHashBytes(), value));
+    } finally {
+      writeLock.unlock();
+    }
+    commit.await();
+
+    LOGGER.debug("Updated transaction {}", entity.getHash());
+    return existing;
+  }
+
+  @Override
+  public void saveAll(
+      final Collection<EncryptedTransaction> transactions,
+      final Collection<EncryptedTransaction> updates) {
+    final LogStore.Batch batch = new LogStore.Batch();
+    final Set<MessageHash> saved = new HashSet<>();
+    for (final EncryptedTransaction transaction : transactions) {
+      if (!saved.add(transaction.getHash())) {
+        throw new EntityExistsException("Transaction " + transaction.getHash() + " is repeated");
+      }
+      batch.put(transaction.getHash().getHashBytes(), prepareSave(transaction));
+    }
+    final List<MessageHash> updated = new ArrayList<>();
+    for (final EncryptedTransaction update : updates) {
+      final EncryptedTransaction existing =
+          read(update.getHash(), TransactionFilter.ALL, false)
+              .orElseThrow(EntityNotFoundException::new);
+      batch.put(update.getHash().getHashBytes(), prepareUpdate(existing, update.getPayload()));
+      updated.add(update.getHash());
+    }
+
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      saved.forEach(this::requireAbsent);
+      updated.forEach(this::requirePresent);
+      commit = store.append(batch);
+      transactions.forEach(transaction -> positions.add(new Position(transaction)));
+    } finally {
+      writeLock.unlock();
+    }
+    commit.await();
+
+    LOGGER.debug("Stored {} and updated {} transactions", transactions.size(), updates.size());
+  }
+
+  /**
+   * Always adds nothing, as the whole payload is written back with a single append anyway, so the
+   * caller should update the transaction instead.
+   */
+  @Override
+  public boolean addRecipientBox(final MessageHash hash, final EncodedPayload payload) {
+    return false;
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    LOGGER.debug("Retrieving payload with hash {}", hash);
+    return read(hash, TransactionFilter.ALL, true);
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    if (Objects.isNull(messageHashes)) {
+      return List.of();
+    }
+    return messageHashes.stream()
+        .map(hash -> read(hash, TransactionFilter.ALL, true))
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    return positions.stream()
+        .skip(offset)
+        .limit(maxResult)
+        .map(position -> read(new MessageHash(position.hash), TransactionFilter.ALL, true))
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(final int fetchSize) {
+    return streamTransactions(fetchSize, TransactionFilter.ALL);
+  }
+
+  /**
+   * Reads each transaction as the stream reaches it, so the fetch size has no effect. Transactions
+   * stored or deleted while the stream is consumed may or may not be included.
+   */
+  @Override
+  public Stream<EncryptedTransaction> streamTransactions(
+      final int fetchSize, final TransactionFilter filter) {
+    return positions.stream()
+        .map(position -> read(new MessageHash(position.hash), filter, true))
+        .flatMap(Optional::stream);
+  }
+
+  @Override
+  public long transactionCount() {
+    return store.size();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return positions.stream()
+        .map(position -> read(new MessageHash(position.hash), TransactionFilter.ALL, false))
+        .flatMap(Optional::stream)
+        .filter(transaction -> involves(transaction, publicKey))
+        .count();
+  }
+
+  @Override
+  public long transactionCount(final TransactionFilter filter) {
+    return positions.stream()
+        .map(position -> read(new MessageHash(position.hash), filter, false))
+        .flatMap(Optional::stream)
+        .count();
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    LOGGER.info("Deleting transaction with hash {}", hash);
+
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      final long timestamp =
+          store
+              .get(hash.getHashBytes())
+              .orElseThrow(EntityNotFoundException::new)
+              .getLong(0);
+      commit = store.append(new LogStore.Batch().delete(hash.getHashBytes()));
+      positions.remove(new Position(timestamp, hash.getHashBytes()));
+    } finally {
+      writeLock.unlock();
+    }
+    commit.await();
+  }
+
+  @Override
+  public void deleteAll(final PublicKey publicKey) {
+    LOGGER.info("Deleting transactions of key {}", publicKey);
+
+    final List<EncryptedTransaction> involved =
+        positions.stream()
+            .map(position -> read(new MessageHash(position.hash), TransactionFilter.ALL, false))
+            .flatMap(Optional::stream)
+            .filter(transaction -> involves(transaction, publicKey))
+            .collect(Collectors.toList());
+
+    for (int start = 0; start < involved.size(); start += DELETE_PAGE_SIZE) {
+      final List<EncryptedTransaction> page =
+          involved.subList(start, Math.min(start + DELETE_PAGE_SIZE, involved.size()));
+      final LogStore.Batch batch = new LogStore.Batch();
+      final LogStore.Commit commit;
+      writeLock.lock();
+      try {
+        for (final EncryptedTransaction transaction : page) {
+          if (store.contains(transaction.getHash().getHashBytes())) {
+            batch.delete(transaction.getHash().getHashBytes());
+            positions.remove(new Position(transaction));
+          }
+        }
+        commit = store.append(batch);
+      } finally {
+        writeLock.unlock();
+      }
+      commit.await();
+    }
+  }
+
+  /**
+   * Appends the transaction before calling the consumer and waits for it to reach the disk after,
+   * so that the consumer overlaps the sync without holding up other changes. If the consumer fails
+   * the transaction is deleted again.
+   */
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    final LogStore.Commit commit = append(transaction);
+    try {
+      consumer.call();
+    } catch (Exception ex) {
+      discard(transaction);
+      if (ex instanceof RuntimeException) {
+        throw (RuntimeException) ex;
+      }
+      throw new PersistenceException(ex);
+    }
+    commit.await();
+
+    LOGGER.debug("Stored transaction {}", transaction.getHash());
+    return transaction;
+  }
+
+  @Override
+  public boolean upcheck() {
+    return store.isOpen();
+  }
+
+  /**
+   * Stores copies of transactions read from another data store, keeping the time each was first
+   * stored and the codec of its payload. Transactions that are already stored are skipped, so that
+   * an interrupted copy can be run again.
+   *
+   * @param transactions the transactions to copy, with their payloads
+   * @return the number of transactions that were copied
+   */
+  public int copyAll(final Collection<EncryptedTransaction> transactions) {
+    final Map<EncryptedTransaction, byte[]> copies = new LinkedHashMap<>();
+    for (final EncryptedTransaction transaction : transactions) {
+      final EncryptedTransaction copy =
+          new EncryptedTransaction(transaction.getHash(), transaction.getPayload());
+      copy.setTimestamp(transaction.getTimestamp());
+      copy.setEncodedPayloadCodec(
+          Optional.ofNullable(transaction.getEncodedPayloadCodec())
+              .orElse(EncodedPayloadCodec.LEGACY));
+      // encoded again, as the payload may include boxes that were only stored in the box table
+      listener.onUpdate(copy);
+      copies.put(copy, encode(copy));
+    }
+
+    final LogStore.Batch batch = new LogStore.Batch();
+    final List<EncryptedTransaction> copied = new ArrayList<>();
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      for (final Map.Entry<EncryptedTransaction, byte[]> copy : copies.entrySet()) {
+        final MessageHash hash = copy.getKey().getHash();
+        if (!store.contains(hash.getHashBytes())) {
+          batch.put(hash.getHashBytes(), copy.getValue());
+          copied.add(copy.getKey());
+        }
+      }
+      commit = store.append(batch);
+      copied.forEach(copy -> positions.add(new Position(copy)));
+    } finally {
+      writeLock.unlock();
+    }
+    commit.await();
+    return copied.size();
+  }
+
+  @Override
+  public void close() {
+    store.close();
+  }
+
+  private LogStore.Commit append(final EncryptedTransaction entity) {
+    final byte[] value = prepareSave(entity);
+
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      requireAbsent(entity.getHash());
+      commit = store.append(new LogStore.Batch().put(entity.getHash().getHashBytes(), value));
+      positions.add(new Position(entity));
+    } finally {
+      writeLock.unlock();
+    }
+    return commit;
+  }
+
+  private void discard(final EncryptedTransaction entity) {
+    final LogStore.Commit commit;
+    writeLock.lock();
+    try {
+      commit = store.append(new LogStore.Batch().delete(entity.getHash().getHashBytes()));
+      positions.remove(new Position(entity));
+    } finally {
+      writeLock.unlock();
+    }
+    commit.await();
+  }
+
+  private byte[] prepareSave(final EncryptedTransaction entity) {
+    listener.onSave(entity);
+    entity.onPersist();
+    return encode(entity);
+  }
+
+  private byte[] prepareUpdate(final EncryptedTransaction existing, final EncodedPayload payload) {
+    existing.setPayload(payload);
+    listener.onUpdate(existing);
+    return encode(existing);
+  }
+
+  private void requireAbsent(final MessageHash hash) {
+    if (store.contains(hash.getHashBytes())) {
+      throw new EntityExistsException("Transaction " + hash + " already exists");
+    }
+  }
+
+  private void requirePresent(final MessageHash hash) {
+    if (!store.contains(hash.getHashBytes())) {
+      throw new EntityNotFoundException("Transaction " + hash + " doesn't exist");
+    }
+  }
+
+  private static boolean involves(final EncryptedTransaction transaction, final PublicKey key) {
+    return transaction.getParties().stream()
+        .anyMatch(party -> Arrays.equals(party.getPublicKey(), key.getKeyBytes()));
+  }
+
+  /*
+   * A stored value is the timestamp, the codec and privacy mode names, the sender key, the
+   * recipient keys and then the encoded payload. Names and keys are written with their length
+   * first, where a length of -1 is a missing value.
+   */
+
+  private static byte[] encode(final EncryptedTransaction transaction) {
+    final List<byte[]> recipients =
+        transaction.getParties().stream()
+            .filter(party -> party.getRole() == TransactionParty.Role.RECIPIENT)
+            .map(TransactionParty::getPublicKey)
+            .collect(Collectors.toList());
+    final byte[] payload = transaction.getEncodedPayload();
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 256);
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeLong(transaction.getTimestamp());
+      writeBytes(
+          output, transaction.getEncodedPayloadCodec().name().getBytes(StandardCharsets.UTF_8));
+      writeBytes(
+          output,
+          Optional.ofNullable(transaction.getPrivacyMode())
+              .map(mode -> mode.name().getBytes(StandardCharsets.UTF_8))
+              .orElse(null));
+      writeBytes(output, transaction.getSenderKey());
+      output.writeInt(recipients.size());
+      for (final byte[] recipient : recipients) {
+        writeBytes(output, recipient);
+      }
+      writeBytes(output, payload);
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeBytes(final DataOutputStream output, final byte[] value)
+      throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+    } else {
+      output.writeInt(value.length);
+      output.write(value);
+    }
+  }
+
+  private static byte[] readBytes(final ByteBuffer value) {
+    final int length = value.getInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    value.get(bytes);
+    return bytes;
+  }
+
+  // the payload is only copied out of the store if the transaction matches
+  private Optional<EncryptedTransaction> read(
+      final MessageHash hash, final TransactionFilter filter, final boolean withPayload) {
+    final Optional<ByteBuffer> stored = store.get(hash.getHashBytes());
+    if (stored.isEmpty()) {
+      return Optional.empty();
+    }
+    final ByteBuffer value = stored.get();
+
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(hash);
+    transaction.setTimestamp(value.getLong());
+    transaction.setEncodedPayloadCodec(
+        EncodedPayloadCodec.valueOf(new String(readBytes(value), StandardCharsets.UTF_8)));
+    final byte[] privacyMode = readBytes(value);
+    if (privacyMode != null) {
+      transaction.setPrivacyMode(
+          PrivacyMode.valueOf(new String(privacyMode, StandardCharsets.UTF_8)));
+    }
+    final byte[] senderKey = readBytes(value);
+    final Set<TransactionParty> parties = new HashSet<>();
+    if (senderKey != null) {
+      transaction.setSenderKey(senderKey);
+      parties.add(new TransactionParty(senderKey, TransactionParty.Role.SENDER));
+    }
+    final int recipients = value.getInt();
+    for (int i = 0; i < recipients; i++) {
+      parties.add(new TransactionParty(readBytes(value), TransactionParty.Role.RECIPIENT));
+    }
+    transaction.setParties(parties);
+
+    if (!filter.matches(transaction)) {
+      return Optional.empty();
+    }
+    if (withPayload) {
+      transaction.setEncodedPayload(readBytes(value));
+      listener.onLoad(transaction);
+    }
+    return Optional.of(transaction);
+  }
+
+  /** Where a transaction comes in scans, by the time it was stored and then its hash */
+  private static final class Position implements Comparable<Position> {
+
+    private final long timestamp;
+
+    private final byte[] hash;
+
+    private Position(final long timestamp, final byte[] hash) {
+      this.timestamp = timestamp;
+      this.hash = hash;
+    }
+
+    private Position(final EncryptedTransaction transaction) {
+      this(transaction.getTimestamp(), transaction.getHash().getHashBytes());
+    }
+
+    @Override
+    public int compareTo(final Position other) {
+      final int byTimestamp = Long.compare(timestamp, other.timestamp);
+      return byTimestamp != 0 ? byTimestamp : Arrays.compareUnsigned(hash, other.hash);
+    }
+  }
+}
@@ -0,0 +1,807 @@
+package com.quorum.tessera.data.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded key/value store kept in a single append-only file, for values that are written once
+ * and then looked up by key.
+ *
+ * <p>Every write is appended to the end of the file as one checksummed entry, holding all the
+ * values it puts and the keys it deletes, so a write is either wholly applied or not at all. The
+ * position of the latest value of each key is held in memory, and values are read through a memory
+ * mapping of the file, so a lookup costs no more than a hash lookup and a copy. The index is
+ * rebuilt by reading the file when it is opened. Only the last entry can have been cut short by
+ * the node stopping while writing it, and it is dropped; if an entry that can't be read has
+ * anything written after it, the file is corrupt and the store isn't opened, rather than losing
+ * the entries that follow.
+ *
+ * <p>Writes are visible as soon as they are appended, and made durable by {@link Commit#await()},
+ * which syncs the file to disk. Writers waiting at the same time share one sync, so each sync
+ * covers as many writes as arrive while the previous one runs.
+ *
+ * <p>Replaced and deleted values stay in the file until it is compacted, which copies the live
+ * values to a new file and switches to it. This happens once the file reaches the compaction
+ * threshold and more than half of it is no longer live, and writes wait while it runs.
+ */
+public class LogStore implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogStore.class);
+
+  // "TLOG"
+  private static final int MAGIC = 0x544c4f47;
+
+  private static final int VERSION = 1;
+
+  private static final int FILE_HEADER_SIZE = 8;
+
+  // the length and checksum of the records that follow
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  private static final byte PUT = 1;
+
+  private static final byte DELETE = 2;
+
+  private static final String FILE_PREFIX = "store-";
+
+  private static final String FILE_SUFFIX = ".log";
+
+  private static final String COMPACTING_SUFFIX = ".compacting";
+
+  private static final String LOCK_FILE = "store.lock";
+
+  private static final boolean WINDOWS =
+      System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+  // a single mapping can be at most 2GB, so the file is mapped in windows
+  static final int WINDOW_SIZE = 1 << 30;
+
+  // the file is extended ahead of the writes, so that the mapping of its end is rarely replaced
+  static final long PREALLOCATION = 64 * 1024 * 1024;
+
+  // the most bytes of live values to copy into one entry when compacting
+  private static final int COMPACTION_ENTRY_SIZE = 1024 * 1024;
+
+  private final Path directory;
+
+  private final long compactionThreshold;
+
+  private final FileChannel lockChannel;
+
+  private final FileLock fileLock;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+
+  private volatile Segment segment;
+
+  private boolean closed;
+
+  private LogStore(
+      final Path directory,
+      final long compactionThreshold,
+      final FileChannel lockChannel,
+      final FileLock fileLock,
+      final Segment segment) {
+    this.directory = directory;
+    this.compactionThreshold = compactionThreshold;
+    this.lockChannel = lockChannel;
+    this.fileLock = fileLock;
+    this.segment = segment;
+  }
+
+  /**
+   * Opens the store in the given directory, creating it if it doesn't exist. Only one store can
+   * be open in a directory at a time.
+   *
+   * @param directory the directory to keep the store's files in
+   * @param compactionThreshold the size in bytes the file must reach before it is compacted
+   * @return the opened store
+   * @throws UncheckedIOException if the store can't be read, or is corrupt
+   * @throws IllegalStateException if the store is already open
+   */
+  public static LogStore open(final Path directory, final long compactionThreshold) {
+    Objects.requireNonNull(directory);
+    try {
+      Files.createDirectories(directory);
+      final FileChannel lockChannel =
+          FileChannel.open(
+              directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      final FileLock fileLock;
+      try {
+        fileLock = lockChannel.tryLock();
+      } catch (final OverlappingFileLockException ex) {
+        lockChannel.close();
+        throw new IllegalStateException("Store at " + directory + " is already open", ex);
+      }
+      if (fileLock == null) {
+        lockChannel.close();
+        throw new IllegalStateException("Store at " + directory + " is in use by another process");
+      }
+
+      final Segment segment = Segment.open(directory);
+      LOGGER.info(
+          "Opened store {} with {} values in {} bytes",
+          segment.path,
+          segment.index.size(),
+          segment.size);
+      return new LogStore(directory, compactionThreshold, lockChannel, fileLock, segment);
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * @param key the key to look up
+   * @return a read only view of the latest value of the key, if it has one
+   */
+  public Optional<ByteBuffer> get(final byte[] key) {
+    final ByteBuffer indexKey = ByteBuffer.wrap(key);
+    while (true) {
+      final Segment current = segment;
+      final Location location = current.index.get(indexKey);
+      if (location == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(current.read(location));
+      } catch (final ClosedChannelException ex) {
+        // replaced by compaction while reading, so look again in the new file
+        if (current == segment) {
+          throw new UncheckedIOException(ex);
+        }
+      } catch (final IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /**
+   * @param key the key to look up
+   * @return true if the key has a value
+   */
+  public boolean contains(final byte[] key) {
+    return segment.index.containsKey(ByteBuffer.wrap(key));
+  }
+
+  /** @return the number of keys with a value */
+  public int size() {
+    return segment.index.size();
+  }
+
+  /** @return a copy of every key with a value, in no particular order */
+  public List<byte[]> keys() {
+    return segment.index.keySet().stream()
+        .map(key -> Arrays.copyOf(key.array(), key.capacity()))
+        .collect(Collectors.toList());
+  }
+
+  /** @return true if the store can be read and written */
+  public boolean isOpen() {
+    return segment.channel.isOpen();
+  }
+
+  /**
+   * Appends a batch of changes as one entry and waits until it is durable.
+   *
+   * @param batch the changes to make
+   */
+  public void write(final Batch batch) {
+    append(batch).await();
+  }
+
+  /**
+   * Appends a batch of changes as one entry, making them visible straight away, but doesn't wait
+   * for them to be durable. This lets a caller make its checks and append while holding a lock,
+   * and then wait for the sync without it.
+   *
+   * @param batch the changes to make
+   * @return the appended entry, to wait on
+   */
+  public Commit append(final Batch batch) {
+    if (batch.records.isEmpty()) {
+      return new Commit(this, segment, 0);
+    }
+    appendLock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Store at " + directory + " is closed");
+      }
+      final Segment current = segment;
+      return new Commit(this, current, current.append(batch.records));
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Copies the live values to a new file and switches to it, removing the space taken by replaced
+   * and deleted values. Writes wait until it is done, but reads carry on.
+   */
+  public void compact() {
+    compact(null);
+  }
+
+  @Override
+  public void close() {
+    appendLock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      segment.retire();
+      fileLock.release();
+      lockChannel.close();
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private void compactIfNeeded(final Segment written) {
+    if (written == segment && isWasteful(written)) {
+      compact(written);
+    }
+  }
+
+  private boolean isWasteful(final Segment segment) {
+    return segment.size >= compactionThreshold && segment.liveBytes * 2 < segment.size;
+  }
+
+  // compacts the current file, or only the expected one if it still needs it
+  private void compact(final Segment expected) {
+    appendLock.lock();
+    try {
+      final Segment old = segment;
+      if (closed || (expected != null && (expected != old || !isWasteful(old)))) {
+        return;
+      }
+      final Segment compacted = old.compact(directory);
+      segment = compacted;
+      old.retire();
+      LOGGER.info(
+          "Compacted store {} from {} to {} bytes", compacted.path, old.size, compacted.size);
+      try {
+        Files.deleteIfExists(old.path);
+      } catch (final IOException ex) {
+        // it is deleted the next time the store is opened instead
+        LOGGER.warn("Unable to delete compacted store file {}", old.path, ex);
+      }
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** Changes to the store that are appended together, as one entry */
+  public static final class Batch {
+
+    private final List<Record> records = new ArrayList<>();
+
+    /**
+     * @param key the key to set
+     * @param value the value to set it to
+     * @return this batch
+     */
+    public Batch put(final byte[] key, final byte[] value) {
+      records.add(new Record(PUT, key, ByteBuffer.wrap(value)));
+      return this;
+    }
+
+    /**
+     * @param key the key to remove the value of
+     * @return this batch
+     */
+    public Batch delete(final byte[] key) {
+      records.add(new Record(DELETE, key, null));
+      return this;
+    }
+  }
+
+  /** An appended entry, which may not be durable yet */
+  public static final class Commit {
+
+    private final LogStore store;
+
+    private final Segment segment;
+
+    private final long position;
+
+    private Commit(final LogStore store, final Segment segment, final long position) {
+      this.store = store;
+      this.segment = segment;
+      this.position = position;
+    }
+
+    /** Waits until the entry, and every entry appended before it, is synced to disk */
+    public void await() {
+      try {
+        segment.sync(position);
+      } catch (final IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      store.compactIfNeeded(segment);
+    }
+  }
+
+  private static final class Record {
+
+    private final byte operation;
+
+    private final byte[] key;
+
+    private final ByteBuffer value;
+
+    private Record(final byte operation, final byte[] key, final ByteBuffer value) {
+      this.operation = operation;
+      this.key = Objects.requireNonNull(key);
+      this.value = value;
+    }
+
+    private int size() {
+      return 1 + 4 + key.length + (value == null ? 0 : 4 + value.remaining());
+    }
+  }
+
+  private static final class Location {
+
+    private final long position;
+
+    private final int length;
+
+    private final int recordSize;
+
+    private Location(final long position, final int length, final int recordSize) {
+      this.position = position;
+      this.length = length;
+      this.recordSize = recordSize;
+    }
+  }
+
+  /** One file of the store, and the index of the values in it */
+  private static final class Segment {
+
+    private final Path path;
+
+    private final int generation;
+
+    private final FileChannel channel;
+
+    private final Map<ByteBuffer, Location> index;
+
+    private final Object syncLock = new Object();
+
+    private final AtomicBoolean grown = new AtomicBoolean();
+
+    // the end of the last entry, past which the file is only preallocated
+    private volatile long size;
+
+    private volatile long syncedPosition;
+
+    // the bytes taken by the records of live values, only changed while appending
+    private long liveBytes;
+
+    private long allocated;
+
+    private volatile MappedByteBuffer[] windows = new MappedByteBuffer[0];
+
+    private Segment(
+        final Path path,
+        final int generation,
+        final FileChannel channel,
+        final Map<ByteBuffer, Location> index,
+        final long size,
+        final long liveBytes)
+        throws IOException {
+      this.path = path;
+      this.generation = generation;
+      this.channel = channel;
+      this.index = index;
+      this.size = size;
+      this.syncedPosition = size;
+      this.liveBytes = liveBytes;
+      this.allocated = channel.size();
+    }
+
+    static Segment open(final Path directory) throws IOException {
+      int generation = 0;
+      final List<Path> superseded = new ArrayList<>();
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (final Path file : files) {
+          final String name = file.getFileName().toString();
+          if (name.endsWith(COMPACTING_SUFFIX)) {
+            // an unfinished compaction, whose file was never switched to
+            Files.delete(file);
+          } else if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+            final int found = generationOf(name);
+            if (found == 0) {
+              continue;
+            }
+            if (found > generation) {
+              if (generation > 0) {
+                superseded.add(directory.resolve(fileName(generation)));
+              }
+              generation = found;
+            } else {
+              superseded.add(file);
+            }
+          }
+        }
+      }
+      // a compaction finished, but the file it replaced wasn't deleted
+      for (final Path file : superseded) {
+        Files.delete(file);
+      }
+
+      if (generation == 0) {
+        generation = 1;
+        final Path path = directory.resolve(fileName(generation));
+        final FileChannel channel = create(path);
+        channel.force(true);
+        syncDirectory(directory);
+        return new Segment(
+            path, generation, channel, new ConcurrentHashMap<>(), FILE_HEADER_SIZE, 0);
+      }
+      return recover(directory.resolve(fileName(generation)), generation);
+    }
+
+    private static Segment recover(final Path path, final int generation) throws IOException {
+      final FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      final ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+      readFully(channel, fileHeader, 0);
+      fileHeader.flip();
+      if (fileHeader.getInt() != MAGIC || fileHeader.getInt() != VERSION) {
+        channel.close();
+        throw new IOException(path + " is not a store file");
+      }
+
+      final Map<ByteBuffer, Location> index = new ConcurrentHashMap<>();
+      final long fileSize = channel.size();
+      final ByteBuffer entryHeader = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+      long liveBytes = 0;
+      long position = FILE_HEADER_SIZE;
+      // where the first entry that can't be read ends, after which the file must be unwritten
+      long unreadableEnd = fileSize;
+      while (position + ENTRY_HEADER_SIZE <= fileSize) {
+        entryHeader.clear();
+        readFully(channel, entryHeader, position);
+        entryHeader.flip();
+        final int length = entryHeader.getInt();
+        final int checksum = entryHeader.getInt();
+        // preallocated space is zeros, and a partly written entry won't match its checksum
+        if (length <= 0) {
+          unreadableEnd = position;
+          break;
+        }
+        if (position + ENTRY_HEADER_SIZE + length > fileSize) {
+          break;
+        }
+        final ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, position + ENTRY_HEADER_SIZE);
+        final CRC32 crc = new CRC32();
+        crc.update(body.array());
+        if ((int) crc.getValue() != checksum) {
+          unreadableEnd = position + ENTRY_HEADER_SIZE + length;
+          break;
+        }
+        liveBytes += apply(index, body.flip(), position + ENTRY_HEADER_SIZE);
+        position += ENTRY_HEADER_SIZE + length;
+      }
+
+      if (position < fileSize) {
+        final long writtenAfter = firstWritten(channel, unreadableEnd, fileSize);
+        if (writtenAfter >= 0) {
+          channel.close();
+          throw new IOException(
+              String.format(
+                  "%s is corrupt: the entry at offset %d can't be read, but there is more written"
+                      + " after it at offset %d",
+                  path, position, writtenAfter));
+        }
+        if (firstWritten(channel, position, unreadableEnd) >= 0) {
+          LOGGER.warn(
+              "Discarding the partly written last entry at offset {} of {}", position, path);
+        }
+        // so that stale bytes can't be read as part of the entries written after them
+        channel.truncate(position);
+        channel.force(true);
+      }
+      return new Segment(path, generation, channel, index, position, liveBytes);
+    }
+
+    // adds the records of an entry to the index, returning the change in live bytes
+    private static long apply(
+        final Map<ByteBuffer, Location> index, final ByteBuffer body, final long bodyPosition) {
+      long liveBytes = 0;
+      final int count = body.getInt();
+      for (int i = 0; i < count; i++) {
+        final int recordStart = body.position();
+        final byte operation = body.get();
+        final byte[] key = new byte[body.getInt()];
+        body.get(key);
+        final Location previous;
+        if (operation == PUT) {
+          final int length = body.getInt();
+          final long position = bodyPosition + body.position();
+          body.position(body.position() + length);
+          final int recordSize = body.position() - recordStart;
+          previous = index.put(ByteBuffer.wrap(key), new Location(position, length, recordSize));
+          liveBytes += recordSize;
+        } else {
+          previous = index.remove(ByteBuffer.wrap(key));
+        }
+        if (previous != null) {
+          liveBytes -= previous.recordSize;
+        }
+      }
+      return liveBytes;
+    }
+
+    // appends the records as one entry, returning the position of its end
+    long append(final List<Record> records) throws IOException {
+      final int length = 4 + records.stream().mapToInt(Record::size).sum();
+      final ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + length);
+      entry.position(ENTRY_HEADER_SIZE);
+      entry.putInt(records.size());
+      for (final Record record : records) {
+        entry.put(record.operation);
+        entry.putInt(record.key.length);
+        entry.put(record.key);
+        if (record.value != null) {
+          entry.putInt(record.value.remaining());
+          entry.put(record.value.duplicate());
+        }
+      }
+      final CRC32 crc = new CRC32();
+      crc.update(entry.array(), ENTRY_HEADER_SIZE, length);
+      entry.putInt(0, length);
+      entry.putInt(4, (int) crc.getValue());
+      entry.flip();
+
+      final long position = size;
+      final long end = position + entry.remaining();
+      if (end > allocated) {
+        allocated = ((end / PREALLOCATION) + 1) * PREALLOCATION;
+        // writing the last byte extends the file, which reads as zeros up to it
+        channel.write(ByteBuffer.wrap(new byte[1]), allocated - 1);
+        grown.set(true);
+      }
+      writeFully(channel, entry, position);
+
+      // positions within the entry are relative to its start
+      entry.position(ENTRY_HEADER_SIZE);
+      liveBytes += apply(index, entry, position);
+      size = end;
+      return end;
+    }
+
+    void sync(final long position) throws IOException {
+      if (syncedPosition >= position) {
+        return;
+      }
+      synchronized (syncLock) {
+        if (syncedPosition >= position) {
+          return;
+        }
+        // covers every entry appended so far, including those of writers waiting behind this one
+        final long target = size;
+        channel.force(grown.getAndSet(false));
+        syncedPosition = target;
+      }
+    }
+
+    ByteBuffer read(final Location location) throws IOException {
+      final long end = location.position + location.length;
+      final int first = (int) (location.position / WINDOW_SIZE);
+      final int offset = (int) (location.position - (long) first * WINDOW_SIZE);
+      if (location.length == 0 || end <= (long) (first + 1) * WINDOW_SIZE) {
+        final ByteBuffer view = window(first, end).duplicate();
+        view.position(offset).limit(offset + location.length);
+        return view.slice().asReadOnlyBuffer();
+      }
+
+      // the value crosses from one window into the next, so is copied out of both
+      final ByteBuffer copy = ByteBuffer.allocate(location.length);
+      long position = location.position;
+      while (copy.hasRemaining()) {
+        final int windowIndex = (int) (position / WINDOW_SIZE);
+        final long windowStart = (long) windowIndex * WINDOW_SIZE;
+        final int windowOffset = (int) (position - windowStart);
+        final int count = Math.min(copy.remaining(), WINDOW_SIZE - windowOffset);
+        final ByteBuffer view =
+            window(windowIndex, Math.min(end, windowStart + WINDOW_SIZE)).duplicate();
+        view.position(windowOffset).limit(windowOffset + count);
+        copy.put(view);
+        position += count;
+      }
+      return copy.flip().asReadOnlyBuffer();
+    }
+
+    private MappedByteBuffer window(final int windowIndex, final long end) throws IOException {
+      final long start = (long) windowIndex * WINDOW_SIZE;
+      MappedByteBuffer[] current = windows;
+      if (windowIndex < current.length
+          && current[windowIndex] != null
+          && start + current[windowIndex].capacity() >= end) {
+        return current[windowIndex];
+      }
+      synchronized (this) {
+        current = windows;
+        if (windowIndex < current.length
+            && current[windowIndex] != null
+            && start + current[windowIndex].capacity() >= end) {
+          return current[windowIndex];
+        }
+        // map as far as the file has been extended, so later values are covered too
+        final long mapSize = Math.min(WINDOW_SIZE, Math.max(channel.size(), end) - start);
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, mapSize);
+        final MappedByteBuffer[] updated =
+            Arrays.copyOf(current, Math.max(current.length, windowIndex + 1));
+        updated[windowIndex] = mapped;
+        windows = updated;
+        return mapped;
+      }
+    }
+
+    // writes the live values to a new file, switched to only once it is complete
+    Segment compact(final Path directory) throws IOException {
+      final int nextGeneration = generation + 1;
+      final Path path = directory.resolve(fileName(nextGeneration));
+      final Path compacting = directory.resolve(fileName(nextGeneration) + COMPACTING_SUFFIX);
+
+      final Map<ByteBuffer, Location> compactedIndex = new ConcurrentHashMap<>();
+      long compactedSize;
+      long compactedLiveBytes = 0;
+      try (FileChannel target = create(compacting)) {
+        final Segment compacted =
+            new Segment(compacting, nextGeneration, target, compactedIndex, FILE_HEADER_SIZE, 0);
+        List<Record> records = new ArrayList<>();
+        int batchBytes = 0;
+        for (final Map.Entry<ByteBuffer, Location> live : index.entrySet()) {
+          final ByteBuffer key = live.getKey();
+          records.add(
+              new Record(
+                  PUT, Arrays.copyOf(key.array(), key.capacity()), read(live.getValue())));
+          batchBytes += live.getValue().recordSize;
+          if (batchBytes >= COMPACTION_ENTRY_SIZE) {
+            compacted.append(records);
+            records = new ArrayList<>();
+            batchBytes = 0;
+          }
+        }
+        if (!records.isEmpty()) {
+          compacted.append(records);
+        }
+        compactedSize = compacted.size;
+        compactedLiveBytes = compacted.liveBytes;
+        target.force(true);
+      }
+
+      Files.move(compacting, path, StandardCopyOption.ATOMIC_MOVE);
+      // the new name is only durable once the directory is synced too
+      syncDirectory(directory);
+      final FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      return new Segment(
+          path, nextGeneration, channel, compactedIndex, compactedSize, compactedLiveBytes);
+    }
+
+    // stops using the file, whose mappings stay readable for anyone still holding them
+    void retire() throws IOException {
+      synchronized (syncLock) {
+        if (channel.isOpen()) {
+          channel.force(true);
+        }
+        // anything appended since was either copied by compaction or is now on disk
+        syncedPosition = Long.MAX_VALUE;
+      }
+      channel.close();
+    }
+
+    private static FileChannel create(final Path path) throws IOException {
+      final FileChannel channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).flip();
+      writeFully(channel, header, 0);
+      return channel;
+    }
+
+    private static void syncDirectory(final Path directory) throws IOException {
+      // directories can't be opened to be synced on Windows
+      if (WINDOWS) {
+        return;
+      }
+      try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+        channel.force(true);
+      }
+    }
+
+    // the position of the first byte in the range that isn't zero, or -1 if they all are
+    private static long firstWritten(final FileChannel channel, final long from, final long to)
+        throws IOException {
+      final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      long position = from;
+      while (position < to) {
+        buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+        readFully(channel, buffer, position);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          if (buffer.get() != 0) {
+            return position + buffer.position() - 1;
+          }
+        }
+        position += buffer.limit();
+      }
+      return -1;
+    }
+
+    private static String fileName(final int generation) {
+      return FILE_PREFIX + generation + FILE_SUFFIX;
+    }
+
+    private static int generationOf(final String fileName) {
+      try {
+        return Integer.parseInt(
+            fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length()));
+      } catch (final NumberFormatException ex) {
+        return 0;
+      }
+    }
+
+    private static void readFully(
+        final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+      long next = position;
+      while (buffer.hasRemaining()) {
+        final int read = channel.read(buffer, next);
+        if (read < 0) {
+          throw new IOException("Unexpected end of store file");
+        }
+        next += read;
+      }
+    }
+
+    private static void writeFully(
+        final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+      long next = position;
+      while (buffer.hasRemaining()) {
+        next += channel.write(buffer, next);
+      }
+    }
+  }
+}
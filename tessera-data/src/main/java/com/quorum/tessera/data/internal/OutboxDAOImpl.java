@@ -0,0 +1,100 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EntityManagerTemplate;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** A JPA implementation of {@link OutboxDAO} */
+public class OutboxDAOImpl implements OutboxDAO {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDAOImpl.class);
+
+  private final EntityManagerTemplate entityManagerTemplate;
+
+  public OutboxDAOImpl(final EntityManagerFactory entityManagerFactory) {
+    this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+  }
+
+  @Override
+  public void save(final List<OutboxEntry> entries) {
+    LOGGER.debug("Persisting {} outbox entries", entries.size());
+    entityManagerTemplate.execute(
+        entityManager -> {
+          entries.forEach(entityManager::persist);
+          return entries;
+        });
+  }
+
+  @Override
+  public List<OutboxEntry> retrieveDue(final long now, final int maxResult) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("OutboxEntry.FindDue", OutboxEntry.class)
+                .setParameter("status", OutboxEntry.Status.PENDING)
+                .setParameter("now", now)
+                .setMaxResults(maxResult)
+                .getResultList());
+  }
+
+  @Override
+  public List<OutboxEntry> retrieveByHash(final MessageHash hash) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("OutboxEntry.FindByHash", OutboxEntry.class)
+                .setParameter("hash", hash.getHashBytes())
+                .getResultList());
+  }
+
+  @Override
+  public void update(final OutboxEntry entry) {
+    LOGGER.debug(
+        "Updating outbox entry {} to {} after {} attempts",
+        entry.getId(),
+        entry.getStatus(),
+        entry.getAttempts());
+    entityManagerTemplate.execute(entityManager -> entityManager.merge(entry));
+  }
+
+  @Override
+  public void postpone(final byte[] recipientKey, final long nextAttempt) {
+    entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("OutboxEntry.Postpone")
+                .setParameter("nextAttempt", nextAttempt)
+                .setParameter("recipientKey", recipientKey)
+                .setParameter("status", OutboxEntry.Status.PENDING)
+                .executeUpdate());
+  }
+
+  @Override
+  public long count(final OutboxEntry.Status status) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("OutboxEntry.CountByStatus", Long.class)
+                .setParameter("status", status)
+                .getSingleResult());
+  }
+
+  @Override
+  public int deleteFinished(final long before) {
+    final int deleted =
+        entityManagerTemplate.execute(
+            entityManager ->
+                entityManager
+                    .createNamedQuery("OutboxEntry.DeleteFinished")
+                    .setParameter("status", OutboxEntry.Status.PENDING)
+                    .setParameter("before", before)
+                    .executeUpdate());
+    LOGGER.debug("Deleted {} finished outbox entries", deleted);
+    return deleted;
+  }
+}
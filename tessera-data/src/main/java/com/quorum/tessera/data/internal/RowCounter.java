@@ -0,0 +1,48 @@
+package com.quorum.tessera.data.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The number of rows in a table, counted from the table the first time it is asked for and from
+ * then on moved up and down by the rows this process stores and deletes, so that later reads are
+ * free.
+ *
+ * <p>The count is approximate: rows stored by another process sharing the database, or stored while
+ * the table is first being counted, are not reflected in it.
+ */
+class RowCounter {
+
+  private static final long UNCOUNTED = -1;
+
+  private final AtomicLong count = new AtomicLong(UNCOUNTED);
+
+  /**
+   * @param countRows counts the rows of the table, if they have not been counted yet
+   * @return the number of rows
+   */
+  long get(final LongSupplier countRows) {
+    final long current = count.get();
+    if (current != UNCOUNTED) {
+      return current;
+    }
+    final long counted = countRows.getAsLong();
+    count.compareAndSet(UNCOUNTED, counted);
+    return counted;
+  }
+
+  /** @return the number of rows, or -1 if they have not been counted yet */
+  long get() {
+    return count.get();
+  }
+
+  /**
+   * Moves the count by rows that have been stored or deleted, once they have been committed.
+   * Changes made before the rows have been counted are left to the count.
+   *
+   * @param delta the number of rows stored, or the negated number deleted
+   */
+  void add(final long delta) {
+    count.getAndUpdate(current -> current == UNCOUNTED ? current : Math.max(0, current + delta));
+  }
+}
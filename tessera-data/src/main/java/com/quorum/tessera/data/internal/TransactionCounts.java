@@ -0,0 +1,59 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.TransactionCountMXBean;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** The row counts of the transaction tables, shared by every data store in this process */
+class TransactionCounts implements TransactionCountMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionCounts.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=TransactionCounts";
+
+  private static TransactionCounts shared;
+
+  private final RowCounter encryptedTransactions = new RowCounter();
+
+  private final RowCounter encryptedRawTransactions = new RowCounter();
+
+  /**
+   * The counts shared by every data store in this process, as a transaction stored through one must
+   * be counted by all of them.
+   *
+   * @return the shared counts
+   */
+  static synchronized TransactionCounts shared() {
+    if (shared == null) {
+      shared = new TransactionCounts();
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(shared, new ObjectName(OBJECT_NAME));
+      } catch (final JMException ex) {
+        LOGGER.warn("Unable to register transaction counts", ex);
+      }
+    }
+    return shared;
+  }
+
+  RowCounter encryptedTransactions() {
+    return encryptedTransactions;
+  }
+
+  RowCounter encryptedRawTransactions() {
+    return encryptedRawTransactions;
+  }
+
+  @Override
+  public long getEncryptedTransactionCount() {
+    return encryptedTransactions.get();
+  }
+
+  @Override
+  public long getEncryptedRawTransactionCount() {
+    return encryptedRawTransactions.get();
+  }
+}
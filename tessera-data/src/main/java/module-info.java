@@ -1,5 +1,6 @@
 open module tessera.data {
   requires java.instrument;
+  requires java.management;
   requires jakarta.persistence;
   requires org.bouncycastle.provider;
   requires org.slf4j;
@@ -25,6 +26,7 @@ open module tessera.data {
   uses com.quorum.tessera.data.staging.StagingEntityDAO;
   uses com.quorum.tessera.data.DataSourceFactory;
   uses com.quorum.tessera.data.PrivacyGroupDAO;
+  uses com.quorum.tessera.data.OutboxDAO;
 
   provides com.quorum.tessera.data.EncryptedTransactionDAO with
       com.quorum.tessera.data.internal.EncryptedTransactionDAOProvider;
@@ -34,6 +36,8 @@ open module tessera.data {
       com.quorum.tessera.data.staging.internal.StagingEntityDAOProvider;
   provides com.quorum.tessera.data.PrivacyGroupDAO with
       com.quorum.tessera.data.internal.PrivacyGroupDAOProvider;
+  provides com.quorum.tessera.data.OutboxDAO with
+      com.quorum.tessera.data.internal.OutboxDAOProvider;
   provides com.quorum.tessera.data.DataSourceFactory with
       com.quorum.tessera.data.internal.DataSourceFactoryProvider;
 }
@@ -6,6 +6,13 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyGroup;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,7 +51,7 @@ public class EncryptedTransactionListenerTest {
 
     byte[] payloadData = "PayloadData".getBytes();
     EncodedPayload payload = mock(EncodedPayload.class);
-    when(payloadEncoder.decode(payloadData)).thenReturn(payload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(payload);
 
     EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
     encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
@@ -52,7 +59,7 @@ public class EncryptedTransactionListenerTest {
 
     encryptedTransactionListener.onLoad(encryptedTransaction);
 
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
 
     payloadEncoderFactoryFunction.verify(
         () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
@@ -60,19 +67,104 @@ public class EncryptedTransactionListenerTest {
     assertThat(encryptedTransaction.getPayload()).isEqualTo(payload);
   }
 
+  @Test
+  public void onLoadWithoutAddedBoxesOnlyCountsThem() {
+
+    byte[] payloadData = "PayloadData".getBytes();
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getRecipientBoxCount()).thenReturn(2);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(payload);
+
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setEncodedPayload(payloadData);
+    encryptedTransaction.setRecipientCount(2);
+
+    encryptedTransactionListener.onLoad(encryptedTransaction);
+
+    verify(payloadEncoder).decodeLazily(payloadData);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+
+    assertThat(encryptedTransaction.getPayload()).isSameAs(payload);
+    verify(payload).getRecipientBoxCount();
+    verifyNoMoreInteractions(payload);
+  }
+
+  @Test
+  public void onLoadIncludesAddedRecipientBoxes() {
+    final PublicKey first = PublicKey.from("first".getBytes());
+    final PublicKey second = PublicKey.from("second".getBytes());
+    byte[] payloadData = "PayloadData".getBytes();
+    EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("sender".getBytes()))
+            .withCipherText("cipherText".getBytes())
+            .withRecipientBox("box1".getBytes())
+            .withRecipientKeys(List.of(first))
+            .build();
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(payload);
+
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setEncodedPayload(payloadData);
+    encryptedTransaction.setRecipientCount(2);
+    encryptedTransaction.setRecipientBoxes(
+        Set.of(
+            new TransactionRecipientBox("box1".getBytes(), first.getKeyBytes()),
+            new TransactionRecipientBox("box2".getBytes(), second.getKeyBytes())));
+
+    encryptedTransactionListener.onLoad(encryptedTransaction);
+
+    verify(payloadEncoder).decodeLazily(payloadData);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+
+    assertThat(encryptedTransaction.getPayload().getRecipientKeys()).containsExactly(second, first);
+    assertThat(encryptedTransaction.getPayload().getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box2".getBytes()), RecipientBox.from("box1".getBytes()));
+  }
+
+  @Test
+  public void addedBoxesWithoutKeysKeepTheOthersPairedWithTheirKeys() {
+    final PublicKey first = PublicKey.from("first".getBytes());
+    final PublicKey third = PublicKey.from("third".getBytes());
+    EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("sender".getBytes()))
+            .withCipherText("cipherText".getBytes())
+            .withRecipientBox("box1".getBytes())
+            .withRecipientKeys(List.of(first))
+            .build();
+
+    final EncodedPayload withAddedBoxes =
+        EncryptedTransactionListener.withAddedBoxes(
+            payload,
+            Set.of(
+                new TransactionRecipientBox("box1".getBytes(), first.getKeyBytes()),
+                new TransactionRecipientBox("box2".getBytes(), null),
+                new TransactionRecipientBox("box3".getBytes(), third.getKeyBytes())));
+
+    assertThat(withAddedBoxes.getRecipientKeys()).containsExactly(third, first);
+    assertThat(withAddedBoxes.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box3".getBytes()),
+            RecipientBox.from("box1".getBytes()),
+            RecipientBox.from("box2".getBytes()));
+  }
+
   @Test
   public void onLoadLegacyEncodedData() {
 
     byte[] payloadData = "PayloadData".getBytes();
     EncodedPayload payload = mock(EncodedPayload.class);
-    when(payloadEncoder.decode(payloadData)).thenReturn(payload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(payload);
 
     EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
     encryptedTransaction.setEncodedPayload(payloadData);
 
     encryptedTransactionListener.onLoad(encryptedTransaction);
 
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
 
     payloadEncoderFactoryFunction.verify(
         () -> PayloadEncoder.create(eq(EncodedPayloadCodec.LEGACY)));
@@ -97,4 +189,76 @@ public class EncryptedTransactionListenerTest {
         () -> PayloadEncoder.create(EncodedPayloadCodec.current()));
     assertThat(encryptedTransaction.getEncodedPayload()).isEqualTo(payloadData);
   }
+
+  @Test
+  public void onSaveIndexesSenderAndRecipients() {
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getSenderKey()).thenReturn(sender);
+    when(encodedPayload.getRecipientKeys()).thenReturn(List.of(sender, recipient));
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setPayload(encodedPayload);
+
+    encryptedTransactionListener.onSave(encryptedTransaction);
+
+    verify(payloadEncoder).encode(encodedPayload);
+    payloadEncoderFactoryFunction.verify(
+        () -> PayloadEncoder.create(EncodedPayloadCodec.current()));
+    assertThat(encryptedTransaction.getParties())
+        .containsExactlyInAnyOrder(
+            new TransactionParty(sender.getKeyBytes(), TransactionParty.Role.SENDER),
+            new TransactionParty(sender.getKeyBytes(), TransactionParty.Role.RECIPIENT),
+            new TransactionParty(recipient.getKeyBytes(), TransactionParty.Role.RECIPIENT));
+  }
+
+  @Test
+  public void onUpdateIndexesNewRecipients() {
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getSenderKey()).thenReturn(sender);
+    when(encodedPayload.getRecipientKeys()).thenReturn(List.of(recipient));
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setPayload(encodedPayload);
+    final Set<TransactionParty> parties = encryptedTransaction.getParties();
+    parties.add(new TransactionParty(sender.getKeyBytes(), TransactionParty.Role.SENDER));
+
+    encryptedTransactionListener.onUpdate(encryptedTransaction);
+
+    verify(payloadEncoder).encode(encodedPayload);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+    assertThat(encryptedTransaction.getParties())
+        .isSameAs(parties)
+        .containsExactlyInAnyOrder(
+            new TransactionParty(sender.getKeyBytes(), TransactionParty.Role.SENDER),
+            new TransactionParty(recipient.getKeyBytes(), TransactionParty.Role.RECIPIENT));
+  }
+
+  @Test
+  public void onSaveDescribesPayload() {
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PrivacyGroup.Id privacyGroupId = PrivacyGroup.Id.fromBytes("group".getBytes());
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getSenderKey()).thenReturn(sender);
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    when(encodedPayload.getRecipientBoxes())
+        .thenReturn(
+            List.of(RecipientBox.from("box1".getBytes()), RecipientBox.from("box2".getBytes())));
+    when(encodedPayload.getPrivacyGroupId()).thenReturn(Optional.of(privacyGroupId));
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setPayload(encodedPayload);
+
+    encryptedTransactionListener.onSave(encryptedTransaction);
+
+    verify(payloadEncoder).encode(encodedPayload);
+    payloadEncoderFactoryFunction.verify(
+        () -> PayloadEncoder.create(EncodedPayloadCodec.current()));
+    assertThat(encryptedTransaction.getSenderKey()).isEqualTo(sender.getKeyBytes());
+    assertThat(encryptedTransaction.getPrivacyMode())
+        .isEqualTo(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    assertThat(encryptedTransaction.getRecipientCount()).isEqualTo(2);
+    assertThat(encryptedTransaction.getPrivacyGroupId()).isEqualTo("group".getBytes());
+  }
 }
@@ -49,6 +49,9 @@ public class OpenPojoEntityTest {
             MessageHash.class, validatorBuilder.with(new NoPrimitivesRule()).build(),
             EncryptedRawTransaction.class, defaultValidator,
             EncryptedTransaction.class, defaultValidator,
+            TransactionParty.class, defaultValidator,
+            TransactionRecipientBox.class, defaultValidator,
+            OutboxEntry.class, defaultValidator,
             StagingTransaction.class, defaultValidator)
         .entrySet();
   }
@@ -0,0 +1,147 @@
+package com.quorum.tessera.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+import com.quorum.tessera.data.internal.EncryptedTransactionDAOImpl;
+import com.quorum.tessera.data.internal.LogEncryptedTransactionDAO;
+import com.quorum.tessera.data.internal.LogStore;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TransactionLogImportTest {
+
+  private static final PublicKey SENDER = PublicKey.from("SENDER".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private final TestConfig testConfig;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private Path transactionLogPath;
+
+  public TransactionLogImportTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put("eclipselink.cache.shared.default", "false");
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+    encryptedTransactionDAO = new EncryptedTransactionDAOImpl(entityManagerFactory);
+    transactionLogPath = workDir.getRoot().toPath().resolve("transactions");
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_BOX").executeUpdate();
+    entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @Test
+  public void copiesEveryTransactionInOrder() {
+    for (int i = 0; i < 5; i++) {
+      encryptedTransactionDAO.save(
+          new EncryptedTransaction(new MessageHash(("hash" + i).getBytes()), payload()));
+    }
+    final List<EncryptedTransaction> stored =
+        encryptedTransactionDAO.streamTransactions(10).collect(Collectors.toList());
+
+    final long copied = new TransactionLogImport(entityManagerFactory, transactionLogPath, 2).run();
+
+    assertThat(copied).isEqualTo(5);
+    try (LogEncryptedTransactionDAO log = open()) {
+      final List<EncryptedTransaction> copies =
+          log.streamTransactions(10).collect(Collectors.toList());
+      assertThat(copies).containsExactlyElementsOf(stored);
+      for (int i = 0; i < stored.size(); i++) {
+        assertThat(copies.get(i).getTimestamp()).isEqualTo(stored.get(i).getTimestamp());
+        assertThat(copies.get(i).getEncodedPayloadCodec())
+            .isEqualTo(stored.get(i).getEncodedPayloadCodec());
+        assertThat(copies.get(i).getPayload().getSenderKey()).isEqualTo(SENDER);
+        assertThat(copies.get(i).getPayload().getRecipientKeys()).containsExactly(RECIPIENT);
+      }
+      assertThat(log.transactionCount(RECIPIENT)).isEqualTo(5);
+    }
+  }
+
+  @Test
+  public void copyCanBeRunAgain() {
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(new MessageHash("hash".getBytes()), payload()));
+    new TransactionLogImport(entityManagerFactory, transactionLogPath, 2).run();
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(new MessageHash("later".getBytes()), payload()));
+    final long copied = new TransactionLogImport(entityManagerFactory, transactionLogPath, 2).run();
+
+    assertThat(copied).isEqualTo(1);
+    try (LogEncryptedTransactionDAO log = open()) {
+      assertThat(log.transactionCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                new TransactionLogImport(
+                    mock(EntityManagerFactory.class), transactionLogPath, 0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  private LogEncryptedTransactionDAO open() {
+    return new LogEncryptedTransactionDAO(LogStore.open(transactionLogPath, Long.MAX_VALUE));
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(SENDER)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(RECIPIENT))
+        .build();
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
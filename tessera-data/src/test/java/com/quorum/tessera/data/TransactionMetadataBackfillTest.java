@@ -0,0 +1,125 @@
+package com.quorum.tessera.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+import com.quorum.tessera.data.internal.EncryptedTransactionDAOImpl;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TransactionMetadataBackfillTest {
+
+  private static final PublicKey SENDER = PublicKey.from("SENDER".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  private final TestConfig testConfig;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  public TransactionMetadataBackfillTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put("eclipselink.cache.shared.default", "false");
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+    encryptedTransactionDAO = new EncryptedTransactionDAOImpl(entityManagerFactory);
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_BOX").executeUpdate();
+    entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @Test
+  public void describesTransactionsStoredBeforeTheColumnsExisted() {
+    for (int i = 0; i < 5; i++) {
+      encryptedTransactionDAO.save(
+          new EncryptedTransaction(new MessageHash(("hash" + i).getBytes()), payload()));
+    }
+    // as if they had been stored by an earlier version
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager
+        .createNativeQuery(
+            "UPDATE ENCRYPTED_TRANSACTION SET SENDER_KEY = NULL, PRIVACY_MODE = NULL,"
+                + " RECIPIENT_COUNT = NULL, PRIVACY_GROUP_ID = NULL")
+        .executeUpdate();
+    entityManager.getTransaction().commit();
+
+    final long described = new TransactionMetadataBackfill(entityManagerFactory, 2).run();
+
+    assertThat(described).isEqualTo(5);
+    final EncryptedTransaction stored =
+        encryptedTransactionDAO.retrieveByHash(new MessageHash("hash3".getBytes())).orElseThrow();
+    assertThat(stored.getSenderKey()).isEqualTo(SENDER.getKeyBytes());
+    assertThat(stored.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
+    assertThat(stored.getRecipientCount()).isEqualTo(1);
+    assertThat(stored.getPrivacyGroupId()).isNull();
+    assertThat(stored.getPayload().getSenderKey()).isEqualTo(SENDER);
+  }
+
+  @Test
+  public void alreadyDescribedTransactionsAreSkipped() {
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(new MessageHash("hash".getBytes()), payload()));
+
+    final long described = new TransactionMetadataBackfill(entityManagerFactory, 2).run();
+
+    assertThat(described).isZero();
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    final Throwable throwable =
+        catchThrowable(() -> new TransactionMetadataBackfill(mock(EntityManagerFactory.class), 0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(SENDER)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(RECIPIENT))
+        .build();
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
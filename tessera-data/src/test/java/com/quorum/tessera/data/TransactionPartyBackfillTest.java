@@ -0,0 +1,117 @@
+package com.quorum.tessera.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+import com.quorum.tessera.data.internal.EncryptedTransactionDAOImpl;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TransactionPartyBackfillTest {
+
+  private static final PublicKey SENDER = PublicKey.from("SENDER".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  private final TestConfig testConfig;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  public TransactionPartyBackfillTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put("eclipselink.cache.shared.default", "false");
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+    encryptedTransactionDAO = new EncryptedTransactionDAOImpl(entityManagerFactory);
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_BOX").executeUpdate();
+    entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @Test
+  public void indexesTransactionsStoredBeforeTheIndexExisted() {
+    for (int i = 0; i < 5; i++) {
+      encryptedTransactionDAO.save(
+          new EncryptedTransaction(new MessageHash(("hash" + i).getBytes()), payload()));
+    }
+    // as if they had been stored by an earlier version
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager.getTransaction().commit();
+    assertThat(encryptedTransactionDAO.transactionCount(SENDER)).isZero();
+
+    final long indexed = new TransactionPartyBackfill(entityManagerFactory, 2).run();
+
+    assertThat(indexed).isEqualTo(5);
+    assertThat(encryptedTransactionDAO.transactionCount(SENDER)).isEqualTo(5);
+    assertThat(encryptedTransactionDAO.transactionCount(RECIPIENT)).isEqualTo(5);
+  }
+
+  @Test
+  public void alreadyIndexedTransactionsAreSkipped() {
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(new MessageHash("hash".getBytes()), payload()));
+
+    final long indexed = new TransactionPartyBackfill(entityManagerFactory, 2).run();
+
+    assertThat(indexed).isZero();
+    assertThat(encryptedTransactionDAO.transactionCount(SENDER)).isEqualTo(1);
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    final Throwable throwable =
+        catchThrowable(() -> new TransactionPartyBackfill(mock(EntityManagerFactory.class), 0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(SENDER)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(RECIPIENT))
+        .build();
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
@@ -0,0 +1,231 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.data.TransactionFilter;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingEncryptedTransactionDAOTest {
+
+  private EncryptedTransactionDAO delegate;
+
+  private EncryptedTransactionCache cache;
+
+  private CachingEncryptedTransactionDAO dao;
+
+  private EncryptedTransaction transaction;
+
+  @Before
+  public void onSetUp() {
+    delegate = mock(EncryptedTransactionDAO.class);
+    cache = new EncryptedTransactionCache(1000);
+    dao = new CachingEncryptedTransactionDAO(delegate, cache);
+
+    transaction =
+        new EncryptedTransaction(new MessageHash("hash".getBytes()), mock(EncodedPayload.class));
+    transaction.setEncodedPayload(new byte[10]);
+  }
+
+  @After
+  public void onTearDown() {
+    verifyNoMoreInteractions(delegate);
+  }
+
+  @Test
+  public void retrieveByHashIsOnlyReadOnce() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+
+    assertThat(dao.retrieveByHash(transaction.getHash())).containsSame(transaction);
+    assertThat(dao.retrieveByHash(transaction.getHash())).contains(transaction);
+
+    verify(delegate).retrieveByHash(transaction.getHash());
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retrieveByHashNotFoundIsNotHeld() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.empty());
+
+    assertThat(dao.retrieveByHash(transaction.getHash())).isEmpty();
+    assertThat(dao.retrieveByHash(transaction.getHash())).isEmpty();
+
+    verify(delegate, times(2)).retrieveByHash(transaction.getHash());
+  }
+
+  @Test
+  public void findByHashesOnlyReadsMissingTransactions() {
+    EncryptedTransaction other =
+        new EncryptedTransaction(new MessageHash("other".getBytes()), mock(EncodedPayload.class));
+    other.setEncodedPayload(new byte[10]);
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    when(delegate.findByHashes(List.of(other.getHash()))).thenReturn(List.of(other));
+    dao.retrieveByHash(transaction.getHash());
+
+    List<EncryptedTransaction> result =
+        dao.findByHashes(List.of(transaction.getHash(), other.getHash()));
+
+    assertThat(result).containsExactly(transaction, other);
+    verify(delegate).retrieveByHash(transaction.getHash());
+    verify(delegate).findByHashes(List.of(other.getHash()));
+
+    assertThat(dao.findByHashes(List.of(transaction.getHash(), other.getHash())))
+        .containsExactly(transaction, other);
+  }
+
+  @Test
+  public void updateInvalidates() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    when(delegate.update(transaction)).thenReturn(transaction);
+    dao.retrieveByHash(transaction.getHash());
+
+    assertThat(dao.update(transaction)).isSameAs(transaction);
+    dao.retrieveByHash(transaction.getHash());
+
+    verify(delegate).update(transaction);
+    verify(delegate, times(2)).retrieveByHash(transaction.getHash());
+  }
+
+  @Test
+  public void failedUpdateStillInvalidates() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    RuntimeException exception = new RuntimeException("OUCH");
+    when(delegate.update(transaction)).thenThrow(exception);
+    dao.retrieveByHash(transaction.getHash());
+
+    assertThat(catchThrowable(() -> dao.update(transaction))).isSameAs(exception);
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).retrieveByHash(transaction.getHash());
+    verify(delegate).update(transaction);
+  }
+
+  @Test
+  public void addRecipientBoxInvalidates() {
+    EncodedPayload received = mock(EncodedPayload.class);
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    when(delegate.addRecipientBox(transaction.getHash(), received)).thenReturn(true);
+    dao.retrieveByHash(transaction.getHash());
+
+    assertThat(dao.addRecipientBox(transaction.getHash(), received)).isTrue();
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).retrieveByHash(transaction.getHash());
+    verify(delegate).addRecipientBox(transaction.getHash(), received);
+  }
+
+  @Test
+  public void deleteInvalidates() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    dao.retrieveByHash(transaction.getHash());
+
+    dao.delete(transaction.getHash());
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).retrieveByHash(transaction.getHash());
+    verify(delegate).delete(transaction.getHash());
+  }
+
+  @Test
+  public void deleteAllInvalidatesEverything() {
+    when(delegate.retrieveByHash(transaction.getHash())).thenReturn(Optional.of(transaction));
+    dao.retrieveByHash(transaction.getHash());
+    PublicKey publicKey = PublicKey.from("key".getBytes());
+    TransactionFilter filter = TransactionFilter.involving(publicKey);
+
+    dao.deleteAll(publicKey);
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).retrieveByHash(transaction.getHash());
+    verify(delegate).deleteAll(publicKey);
+  }
+
+  @Test
+  public void saveInvalidates() throws Exception {
+    cache.put(transaction, cache.version());
+    when(delegate.save(transaction)).thenReturn(transaction);
+
+    assertThat(dao.save(transaction)).isSameAs(transaction);
+    assertThat(cache.getEntryCount()).isZero();
+
+    cache.put(transaction, cache.version());
+    Callable<Object> callback = mock(Callable.class);
+    when(delegate.save(transaction, callback)).thenReturn(transaction);
+
+    assertThat(dao.save(transaction, callback)).isSameAs(transaction);
+    assertThat(cache.getEntryCount()).isZero();
+
+    cache.put(transaction, cache.version());
+    List<OutboxEntry> outboxEntries = List.of(mock(OutboxEntry.class));
+    OutboxDAO outboxDAO = mock(OutboxDAO.class);
+    when(delegate.save(transaction, outboxEntries, outboxDAO)).thenReturn(transaction);
+
+    assertThat(dao.save(transaction, outboxEntries, outboxDAO)).isSameAs(transaction);
+    assertThat(cache.getEntryCount()).isZero();
+
+    verify(delegate).save(transaction);
+    verify(delegate).save(transaction, callback);
+    verify(delegate).save(transaction, outboxEntries, outboxDAO);
+  }
+
+  @Test
+  public void saveAllInvalidatesEachTransaction() {
+    EncryptedTransaction other =
+        new EncryptedTransaction(new MessageHash("other".getBytes()), mock(EncodedPayload.class));
+    other.setEncodedPayload(new byte[10]);
+    cache.put(transaction, cache.version());
+    cache.put(other, cache.version());
+
+    dao.saveAll(List.of(transaction), List.of(other));
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).saveAll(List.of(transaction), List.of(other));
+  }
+
+  @Test
+  public void otherOperationsAreDelegated() {
+    PublicKey publicKey = PublicKey.from("key".getBytes());
+    TransactionFilter filter = TransactionFilter.involving(publicKey);
+    when(delegate.retrieveTransactions(1, 2)).thenReturn(List.of(transaction));
+    when(delegate.streamTransactions(2)).thenAnswer(invocation -> Stream.of(transaction));
+    when(delegate.transactionCount()).thenReturn(3L);
+    when(delegate.transactionCount(publicKey)).thenReturn(1L);
+    when(delegate.streamTransactions(2, filter)).thenAnswer(invocation -> Stream.of(transaction));
+    when(delegate.transactionCount(filter)).thenReturn(1L);
+    when(delegate.upcheck()).thenReturn(true);
+
+    assertThat(dao.retrieveTransactions(1, 2)).containsExactly(transaction);
+    assertThat(dao.streamTransactions(2)).containsExactly(transaction);
+    assertThat(dao.transactionCount()).isEqualTo(3L);
+    assertThat(dao.transactionCount(publicKey)).isEqualTo(1L);
+    assertThat(dao.streamTransactions(2, filter)).containsExactly(transaction);
+    assertThat(dao.transactionCount(filter)).isEqualTo(1L);
+    assertThat(dao.upcheck()).isTrue();
+
+    assertThat(cache.getEntryCount()).isZero();
+    verify(delegate).retrieveTransactions(1, 2);
+    verify(delegate).streamTransactions(2);
+    verify(delegate).transactionCount();
+    verify(delegate).transactionCount(publicKey);
+    verify(delegate).streamTransactions(2, filter);
+    verify(delegate).transactionCount(filter);
+    verify(delegate).upcheck();
+    verify(delegate, never()).findByHashes(any());
+  }
+}
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.data.*;
 import jakarta.persistence.*;
+import java.sql.Connection;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -324,7 +325,50 @@ public class EncryptedRawTransactionDAOTest {
 
   @Test
   public void upcheckReturnsTrue() {
-    assertThat(encryptedRawTransactionDAO.upcheck());
+    assertThat(encryptedRawTransactionDAO.upcheck()).isTrue();
+  }
+
+  @Test
+  public void upcheckFailsWhenConnectionIsNotValid() throws Exception {
+    EntityManagerFactory mockEntityManagerFactory = mock(EntityManagerFactory.class);
+    EntityManager mockEntityManager = mock(EntityManager.class);
+    Connection connection = mock(Connection.class);
+
+    when(mockEntityManagerFactory.createEntityManager()).thenReturn(mockEntityManager);
+    when(mockEntityManager.getTransaction()).thenReturn(mock(EntityTransaction.class));
+    when(mockEntityManager.unwrap(Connection.class)).thenReturn(connection);
+    when(connection.isValid(anyInt())).thenReturn(false);
+
+    EncryptedRawTransactionDAO encryptedRawTransactionDAO =
+        new EncryptedRawTransactionDAOImpl(mockEntityManagerFactory);
+
+    assertThat(encryptedRawTransactionDAO.upcheck()).isFalse();
+  }
+
+  @Test
+  public void transactionCountIsKeptWithoutCountingAgain() {
+    final EncryptedRawTransactionDAO encryptedRawTransactionDAO =
+        new EncryptedRawTransactionDAOImpl(entityManagerFactory, new RowCounter());
+
+    encryptedRawTransactionDAO.save(rawTransaction(new MessageHash(new byte[] {1})));
+    assertThat(encryptedRawTransactionDAO.transactionCount()).isEqualTo(1);
+
+    encryptedRawTransactionDAO.save(rawTransaction(new MessageHash(new byte[] {2})));
+    encryptedRawTransactionDAO.save(rawTransaction(new MessageHash(new byte[] {3})));
+    encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {1}));
+    assertThat(encryptedRawTransactionDAO.transactionCount()).isEqualTo(2);
+
+    // a row stored behind the data store's back is not counted until the table is counted again
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.persist(rawTransaction(new MessageHash(new byte[] {4})));
+    entityManager.getTransaction().commit();
+    assertThat(encryptedRawTransactionDAO.transactionCount()).isEqualTo(2);
+  }
+
+  private static EncryptedRawTransaction rawTransaction(final MessageHash hash) {
+    return new EncryptedRawTransaction(
+        hash, "payload".getBytes(), "key".getBytes(), "nonce".getBytes(), "sender".getBytes());
   }
 
   @Test
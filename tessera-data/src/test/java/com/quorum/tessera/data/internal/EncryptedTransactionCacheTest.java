@@ -0,0 +1,154 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+public class EncryptedTransactionCacheTest {
+
+  private static EncryptedTransaction transaction(String hash, int size) {
+    EncryptedTransaction transaction =
+        new EncryptedTransaction(new MessageHash(hash.getBytes()), mock(EncodedPayload.class));
+    transaction.setEncodedPayload(new byte[size]);
+    transaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    transaction.setTimestamp(123L);
+    return transaction;
+  }
+
+  @Test
+  public void heldTransactionIsReturnedAsCopy() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+    EncryptedTransaction transaction = transaction("hash", 10);
+
+    cache.put(transaction, cache.version());
+
+    EncryptedTransaction result = cache.get(transaction.getHash()).get();
+    assertThat(result).isNotSameAs(transaction).isEqualTo(transaction);
+    assertThat(result.getPayload()).isSameAs(transaction.getPayload());
+    assertThat(result.getEncodedPayload()).isSameAs(transaction.getEncodedPayload());
+    assertThat(result.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR);
+    assertThat(result.getTimestamp()).isEqualTo(123L);
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isZero();
+    assertThat(cache.getEntryCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(10);
+    assertThat(cache.getMaxSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void unknownHashIsMiss() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+
+    assertThat(cache.get(new MessageHash("hash".getBytes()))).isEmpty();
+
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isZero();
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvictedWhenFull() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(25);
+    EncryptedTransaction first = transaction("first", 10);
+    EncryptedTransaction second = transaction("second", 10);
+    EncryptedTransaction third = transaction("third", 10);
+
+    cache.put(first, cache.version());
+    cache.put(second, cache.version());
+    cache.get(first.getHash());
+    cache.put(third, cache.version());
+
+    assertThat(cache.get(first.getHash())).isPresent();
+    assertThat(cache.get(second.getHash())).isEmpty();
+    assertThat(cache.get(third.getHash())).isPresent();
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(20);
+  }
+
+  @Test
+  public void transactionLargerThanCacheIsNotHeld() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(5);
+    EncryptedTransaction transaction = transaction("hash", 10);
+
+    cache.put(transaction, cache.version());
+
+    assertThat(cache.getEntryCount()).isZero();
+    assertThat(cache.getEvictionCount()).isZero();
+  }
+
+  @Test
+  public void transactionWithoutDecodedPayloadIsNotHeld() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+    EncryptedTransaction transaction = transaction("hash", 10);
+    transaction.setPayload(null);
+
+    cache.put(transaction, cache.version());
+
+    assertThat(cache.getEntryCount()).isZero();
+  }
+
+  @Test
+  public void replacingTransactionDoesNotCountTwice() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+
+    cache.put(transaction("hash", 10), cache.version());
+    cache.put(transaction("hash", 20), cache.version());
+
+    assertThat(cache.getEntryCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(20);
+  }
+
+  @Test
+  public void invalidateDropsTransaction() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+    EncryptedTransaction transaction = transaction("hash", 10);
+    cache.put(transaction, cache.version());
+
+    cache.invalidate(transaction.getHash());
+
+    assertThat(cache.get(transaction.getHash())).isEmpty();
+    assertThat(cache.getSize()).isZero();
+  }
+
+  @Test
+  public void invalidateAllDropsEverything() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+    cache.put(transaction("first", 10), cache.version());
+    cache.put(transaction("second", 10), cache.version());
+
+    cache.invalidateAll();
+
+    assertThat(cache.getEntryCount()).isZero();
+    assertThat(cache.getSize()).isZero();
+  }
+
+  @Test
+  public void transactionReadBeforeChangeIsNotHeld() {
+    EncryptedTransactionCache cache = new EncryptedTransactionCache(100);
+    EncryptedTransaction transaction = transaction("hash", 10);
+
+    long version = cache.version();
+    cache.invalidate(transaction.getHash());
+    cache.put(transaction, version);
+
+    assertThat(cache.get(transaction.getHash())).isEmpty();
+  }
+
+  @Test
+  public void sharedCacheIsRegisteredForMonitoring() throws Exception {
+    EncryptedTransactionCache cache = EncryptedTransactionCache.shared(100);
+
+    assertThat(EncryptedTransactionCache.shared(200)).isSameAs(cache);
+    assertThat(
+            ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(EncryptedTransactionCache.OBJECT_NAME), "MaxSize"))
+        .isEqualTo(cache.getMaxSize());
+  }
+}
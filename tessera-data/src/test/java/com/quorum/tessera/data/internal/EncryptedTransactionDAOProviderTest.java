@@ -14,13 +14,17 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import java.util.Collection;
 import java.util.List;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 @RunWith(Parameterized.class)
 public class EncryptedTransactionDAOProviderTest {
 
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
   private boolean autocreateTables;
 
   public EncryptedTransactionDAOProviderTest(boolean autocreateTables) {
@@ -65,6 +69,62 @@ public class EncryptedTransactionDAOProviderTest {
     }
   }
 
+  @Test
+  public void providesCachingDaoWhenPayloadCacheSizeIsSet() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(jdbcConfig.getPayloadCacheSize()).thenReturn(1024L);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedDataSourceFactory
+          .when(DataSourceFactory::create)
+          .thenReturn(mock(DataSourceFactory.class));
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(CachingEncryptedTransactionDAO.class);
+      assertThat(EncryptedTransactionCache.shared(1024L)).isNotNull();
+    }
+  }
+
+  @Test
+  public void providesLogDaoWhenTransactionLogPathIsSet() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(jdbcConfig.getTransactionLogPath())
+          .thenReturn(workDir.getRoot().toPath().resolve("transactions"));
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(LogEncryptedTransactionDAO.class);
+      assertThat(EncryptedTransactionDAOProvider.provider()).isSameAs(result);
+
+      mockedPersistence.verifyNoInteractions();
+    }
+  }
+
   @Parameterized.Parameters
   public static Collection<Boolean> autoCreateTables() {
     return List.of(true, false);
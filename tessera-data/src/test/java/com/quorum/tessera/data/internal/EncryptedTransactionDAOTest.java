@@ -9,11 +9,13 @@ import com.quorum.tessera.data.*;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.RecipientBox;
 import com.quorum.tessera.enclave.TxHash;
 import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.*;
-
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -61,7 +63,10 @@ public class EncryptedTransactionDAOTest {
 
     EntityManager entityManager = entityManagerFactory.createEntityManager();
     entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_PARTY").executeUpdate();
+    entityManager.createNativeQuery("DELETE FROM ENCRYPTED_TRANSACTION_BOX").executeUpdate();
     entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.createQuery("delete from OutboxEntry").executeUpdate();
     entityManager.getTransaction().commit();
   }
 
@@ -133,11 +138,11 @@ public class EncryptedTransactionDAOTest {
     final byte[] initialData = "DATA1".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(initialData);
-    when(payloadEncoder.decode(initialData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(initialData)).thenReturn(encodedPayload);
     final byte[] updatedData = "DATA2".getBytes();
     EncodedPayload updatedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(updatedPayload)).thenReturn(updatedData);
-    when(payloadEncoder.decode(updatedData)).thenReturn(updatedPayload);
+    when(payloadEncoder.decodeLazily(updatedData)).thenReturn(updatedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -174,10 +179,79 @@ public class EncryptedTransactionDAOTest {
       entityManager.getTransaction().rollback();
     }
     verify(payloadEncoder, times(2)).encode(any());
-    verify(payloadEncoder, times(3)).decode(any());
+    verify(payloadEncoder, times(3)).decodeLazily(any());
     verifyNoMoreInteractions(payloadEncoder);
   }
 
+  @Test
+  public void saveAllStoresNewAndUpdatesExistingTransactions() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    final byte[] initialData = "DATA1".getBytes();
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(initialData);
+    when(payloadEncoder.decodeLazily(initialData)).thenReturn(encodedPayload);
+    final byte[] updatedData = "DATA2".getBytes();
+    EncodedPayload updatedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(updatedPayload)).thenReturn(updatedData);
+    when(payloadEncoder.decodeLazily(updatedData)).thenReturn(updatedPayload);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransaction existing =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload);
+      encryptedTransactionDAO.save(existing);
+
+      final EncryptedTransaction update =
+          new EncryptedTransaction(existing.getHash(), updatedPayload);
+      final EncryptedTransaction created =
+          new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload);
+      final EncryptedTransaction other =
+          new EncryptedTransaction(new MessageHash(new byte[] {3}), encodedPayload);
+
+      encryptedTransactionDAO.saveAll(List.of(created, other), List.of(update));
+
+      EntityManager entityManager = entityManagerFactory.createEntityManager();
+      final EncryptedTransaction updated =
+          entityManager.find(EncryptedTransaction.class, existing.getHash());
+      assertThat(updated.getEncodedPayload()).isEqualTo(updatedData);
+      assertThat(updated.getTimestamp()).isEqualTo(existing.getTimestamp());
+
+      assertThat(entityManager.find(EncryptedTransaction.class, created.getHash())).isNotNull();
+      assertThat(entityManager.find(EncryptedTransaction.class, other.getHash())).isNotNull();
+      entityManager.close();
+    }
+  }
+
+  @Test
+  public void saveAllStoresNothingIfAnUpdateIsMissing() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn("DATA".getBytes());
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransaction created =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload);
+      final EncryptedTransaction missing =
+          new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload);
+
+      final Throwable throwable =
+          catchThrowable(
+              () -> encryptedTransactionDAO.saveAll(List.of(created), List.of(missing)));
+
+      assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+      assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+    }
+  }
+
   @Test
   public void cannotPersistMultipleOfSameHash() {
     PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
@@ -225,7 +299,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "PAYLOADATA".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
           .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
@@ -253,7 +327,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "I Love Sparrows".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -286,11 +360,82 @@ public class EncryptedTransactionDAOTest {
       assertThat(retrievedList).hasSameSizeAs(payloads);
       assertThat(retrievedList).hasSameElementsAs(payloads);
     }
-    verify(payloadEncoder, times(50)).decode(payloadData);
+    verify(payloadEncoder, times(50)).decodeLazily(payloadData);
     verify(payloadEncoder, times(50)).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
 
+  @Test
+  public void streamingAllTransactionsReturnsAllInTimestampAndHashOrder() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    final byte[] payloadData = "I Love Sparrows".getBytes();
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+      entityManager.getTransaction().begin();
+      final List<EncryptedTransaction> payloads =
+          IntStream.range(0, 50)
+              .mapToObj(i -> UUID.randomUUID().toString().getBytes())
+              .map(MessageHash::new)
+              .map(
+                  hash -> {
+                    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+                    encryptedTransaction.setHash(hash);
+                    encryptedTransaction.setPayload(encodedPayload);
+                    return encryptedTransaction;
+                  })
+              .peek(entityManager::persist)
+              .collect(Collectors.toList());
+      entityManager.getTransaction().commit();
+
+      // transactions stored before the timestamp column was added have none
+      final List<EncryptedTransaction> withoutTimestamp = payloads.subList(0, 8);
+      entityManager.getTransaction().begin();
+      withoutTimestamp.forEach(
+          tx ->
+              entityManager
+                  .createNativeQuery(
+                      "UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = NULL WHERE HASH = ?")
+                  .setParameter(1, tx.getHash().getHashBytes())
+                  .executeUpdate());
+      entityManager.getTransaction().commit();
+
+      final Comparator<EncryptedTransaction> byHash =
+          Comparator.comparing(tx -> new String(tx.getHash().getHashBytes()));
+      final List<EncryptedTransaction> expected = new ArrayList<>(withoutTimestamp);
+      expected.sort(byHash);
+      final List<EncryptedTransaction> withTimestamp =
+          new ArrayList<>(payloads.subList(withoutTimestamp.size(), payloads.size()));
+      withTimestamp.sort(
+          Comparator.comparingLong(EncryptedTransaction::getTimestamp).thenComparing(byHash));
+      expected.addAll(withTimestamp);
+
+      // page sizes that divide the rows exactly, that don't, and that exceed them
+      for (int fetchSize : List.of(1, 7, 8, 42, 100)) {
+        final List<EncryptedTransaction> streamed =
+            encryptedTransactionDAO.streamTransactions(fetchSize).collect(Collectors.toList());
+
+        assertThat(streamed).containsExactlyElementsOf(expected);
+      }
+    }
+  }
+
+  @Test
+  public void streamingTransactionsRequiresPositiveFetchSize() {
+    final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.streamTransactions(0));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
   @Test
   public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -328,7 +473,7 @@ public class EncryptedTransactionDAOTest {
       Long result2 = (Long) countQuery.setParameter("hash", messageHash).getSingleResult();
       assertThat(result2).isZero();
     }
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
     verify(payloadEncoder).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
@@ -348,7 +493,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "PAYLOADATA".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -373,7 +518,7 @@ public class EncryptedTransactionDAOTest {
       assertThat(retrieved.get()).usingRecursiveComparison().isEqualTo(encryptedTransaction);
     }
     verify(payloadEncoder).encode(encodedPayload);
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
     verifyNoMoreInteractions(payloadEncoder);
   }
 
@@ -394,7 +539,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "PAYLOADATA".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
           .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
@@ -416,7 +561,7 @@ public class EncryptedTransactionDAOTest {
       assertThat(retrieved).isNotNull();
       assertThat(retrieved.getTimestamp()).isNotZero().isGreaterThan(0L);
     }
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
     verify(payloadEncoder).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
@@ -478,7 +623,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = UUID.randomUUID().toString().getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -505,7 +650,7 @@ public class EncryptedTransactionDAOTest {
     }
 
     verify(payloadEncoder).encode(encodedPayload);
-    verify(payloadEncoder).decode(payloadData);
+    verify(payloadEncoder).decodeLazily(payloadData);
   }
 
   @Test
@@ -515,7 +660,7 @@ public class EncryptedTransactionDAOTest {
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     byte[] payloadData = "payloadData".getBytes();
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -555,7 +700,7 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "PAYLOADATA".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+    when(payloadEncoder.decodeLazily(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -638,9 +783,95 @@ public class EncryptedTransactionDAOTest {
     verify(payloadEncoder, times(2)).encode(encodedPayload);
   }
 
+  @Test
+  public void saveWithOutboxEntriesStoresThemTogether() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash(UUID.randomUUID().toString().getBytes());
+    final OutboxDAO outboxDAO = new OutboxDAOImpl(entityManagerFactory);
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, buildPayLoadFor(sender, List.of(recipient))),
+        List.of(new OutboxEntry(messageHash, recipient)),
+        mock(OutboxDAO.class));
+
+    assertThat(encryptedTransactionDAO.retrieveByHash(messageHash)).isPresent();
+    assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+    assertThat(outboxDAO.retrieveByHash(messageHash))
+        .extracting(OutboxEntry::getRecipient)
+        .containsExactly(recipient);
+
+    // nothing is stored if the transaction can't be
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                encryptedTransactionDAO.save(
+                    new EncryptedTransaction(
+                        messageHash, buildPayLoadFor(sender, List.of(recipient))),
+                    List.of(new OutboxEntry(messageHash, sender)),
+                    mock(OutboxDAO.class)));
+
+    assertThat(throwable).isInstanceOf(PersistenceException.class);
+    assertThat(outboxDAO.retrieveByHash(messageHash)).hasSize(1);
+  }
+
   @Test
   public void upcheckReturnsTrue() {
-    assertThat(encryptedTransactionDAO.upcheck());
+    assertThat(encryptedTransactionDAO.upcheck()).isTrue();
+  }
+
+  @Test
+  public void upcheckFailsWhenConnectionIsNotValid() throws Exception {
+    EntityManagerFactory mockEntityManagerFactory = mock(EntityManagerFactory.class);
+    EntityManager mockEntityManager = mock(EntityManager.class);
+    Connection connection = mock(Connection.class);
+
+    when(mockEntityManagerFactory.createEntityManager()).thenReturn(mockEntityManager);
+    when(mockEntityManager.getTransaction()).thenReturn(mock(EntityTransaction.class));
+    when(mockEntityManager.unwrap(Connection.class)).thenReturn(connection);
+    when(connection.isValid(anyInt())).thenReturn(false);
+
+    EncryptedTransactionDAO encryptedTransactionDAO =
+        new EncryptedTransactionDAOImpl(mockEntityManagerFactory);
+
+    assertThat(encryptedTransactionDAO.upcheck()).isFalse();
+    verify(mockEntityManager, never()).createQuery(any(String.class));
+  }
+
+  @Test
+  public void transactionCountIsKeptWithoutCountingAgain() {
+    final RowCounter rowCounter = new RowCounter();
+    final EncryptedTransactionDAO encryptedTransactionDAO =
+        new EncryptedTransactionDAOImpl(entityManagerFactory, rowCounter);
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash first = new MessageHash("first".getBytes());
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(first, buildPayLoadFor(sender, List.of(sender))));
+    assertThat(rowCounter.get()).isEqualTo(-1);
+    assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+
+    encryptedTransactionDAO.saveAll(
+        List.of(
+            new EncryptedTransaction(
+                new MessageHash("second".getBytes()), buildPayLoadFor(sender, List.of(sender))),
+            new EncryptedTransaction(
+                new MessageHash("third".getBytes()), buildPayLoadFor(sender, List.of(sender)))),
+        List.of());
+    encryptedTransactionDAO.delete(first);
+    assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(2);
+
+    // a row stored behind the data store's back is not counted until the table is counted again
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.persist(
+        new EncryptedTransaction(
+            new MessageHash("elsewhere".getBytes()), buildPayLoadFor(sender, List.of(sender))));
+    entityManager.getTransaction().commit();
+    assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(2);
+
+    encryptedTransactionDAO.deleteAll(sender);
+    assertThat(encryptedTransactionDAO.transactionCount()).isZero();
   }
 
   @Test
@@ -681,8 +912,8 @@ public class EncryptedTransactionDAOTest {
     entityManager.getTransaction().commit();
 
     Query countQuery =
-      entityManager.createQuery(
-        "select count(t) from EncryptedTransaction t where t.hash = :hash");
+        entityManager.createQuery(
+            "select count(t) from EncryptedTransaction t where t.hash = :hash");
     Long result = (Long) countQuery.setParameter("hash", messageHash).getSingleResult();
     assertThat(result).isEqualTo(1L);
 
@@ -691,8 +922,6 @@ public class EncryptedTransactionDAOTest {
     // check it is not longer in the database
     Long result2 = (Long) countQuery.setParameter("hash", messageHash).getSingleResult();
     assertThat(result2).isZero();
-
-
   }
 
   @Test
@@ -717,8 +946,8 @@ public class EncryptedTransactionDAOTest {
     entityManager.getTransaction().commit();
 
     Query countQuery =
-      entityManager.createQuery(
-        "select count(t) from EncryptedTransaction t where t.hash = :hash");
+        entityManager.createQuery(
+            "select count(t) from EncryptedTransaction t where t.hash = :hash");
     Long result = (Long) countQuery.setParameter("hash", messageHash).getSingleResult();
     assertThat(result).isEqualTo(1L);
 
@@ -729,7 +958,6 @@ public class EncryptedTransactionDAOTest {
     assertThat(result2).isZero();
   }
 
-
   @Test
   public void deleteAllRemovesFromSenderAndReceipientTransactionsFromDb() {
 
@@ -739,11 +967,13 @@ public class EncryptedTransactionDAOTest {
 
       List<PublicKey> receiverkeys = new ArrayList<>();
 
-      for (int j = i; j >= 0 ; j--) {
-        receiverkeys.add(PublicKey.from(("RECEIVERKEY"+j).getBytes(StandardCharsets.UTF_8)));
+      for (int j = i; j >= 0; j--) {
+        receiverkeys.add(PublicKey.from(("RECEIVERKEY" + j).getBytes(StandardCharsets.UTF_8)));
       }
 
-      EncodedPayload payload = buildPayLoadFor(PublicKey.from(("SENDERKEY"+i).getBytes(StandardCharsets.UTF_8)), receiverkeys);
+      EncodedPayload payload =
+          buildPayLoadFor(
+              PublicKey.from(("SENDERKEY" + i).getBytes(StandardCharsets.UTF_8)), receiverkeys);
       final MessageHash messageHash = new MessageHash(UUID.randomUUID().toString().getBytes());
       final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
       encryptedTransaction.setPayload(payload);
@@ -751,12 +981,9 @@ public class EncryptedTransactionDAOTest {
       entityManager.getTransaction().begin();
       entityManager.persist(encryptedTransaction);
       entityManager.getTransaction().commit();
-
     }
 
-    Query countQuery =
-      entityManager.createQuery(
-        "select count(t) from EncryptedTransaction t");
+    Query countQuery = entityManager.createQuery("select count(t) from EncryptedTransaction t");
     Long result = (Long) countQuery.getSingleResult();
     assertThat(result).isEqualTo(10L);
 
@@ -777,21 +1004,243 @@ public class EncryptedTransactionDAOTest {
     // check it is not longer in the database
     Long result4 = (Long) countQuery.getSingleResult();
     assertThat(result4).isEqualTo(0);
+  }
+
+  @Test
+  public void transactionCountOfKeyCountsSentAndReceived() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey other = PublicKey.from("OTHERKEY".getBytes(StandardCharsets.UTF_8));
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(
+            new MessageHash("sent".getBytes()), buildPayLoadFor(sender, List.of(recipient))));
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(
+            new MessageHash("sentToSelf".getBytes()),
+            buildPayLoadFor(sender, List.of(sender, recipient))));
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(
+            new MessageHash("received".getBytes()), buildPayLoadFor(other, List.of(sender))));
+
+    assertThat(encryptedTransactionDAO.transactionCount(sender)).isEqualTo(3);
+    assertThat(encryptedTransactionDAO.transactionCount(recipient)).isEqualTo(2);
+    assertThat(encryptedTransactionDAO.transactionCount(other)).isEqualTo(1);
+    assertThat(encryptedTransactionDAO.transactionCount(PublicKey.from("NONE".getBytes())))
+        .isZero();
+  }
 
+  @Test
+  public void updateIndexesAddedRecipients() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash(UUID.randomUUID().toString().getBytes());
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, buildPayLoadFor(sender, List.of())));
+    assertThat(encryptedTransactionDAO.transactionCount(recipient)).isZero();
+
+    encryptedTransactionDAO.update(
+        new EncryptedTransaction(messageHash, buildPayLoadFor(sender, List.of(recipient))));
+
+    assertThat(encryptedTransactionDAO.transactionCount(recipient)).isEqualTo(1);
+    assertThat(encryptedTransactionDAO.transactionCount(sender)).isEqualTo(1);
+  }
+
+  @Test
+  public void deleteAllRemovesPartiesOfDeletedTransactions() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(
+            new MessageHash(UUID.randomUUID().toString().getBytes()),
+            buildPayLoadFor(sender, List.of(recipient))));
+
+    encryptedTransactionDAO.deleteAll(sender);
+
+    assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    final Number parties =
+        (Number)
+            entityManager
+                .createNativeQuery("SELECT COUNT(*) FROM ENCRYPTED_TRANSACTION_PARTY")
+                .getSingleResult();
+    assertThat(parties.longValue()).isZero();
+  }
+
+  @Test
+  public void filteredStreamAndCountOnlyIncludeMatchingTransactions() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey other = PublicKey.from("OTHERKEY".getBytes(StandardCharsets.UTF_8));
+
+    final EncryptedTransaction sent =
+        new EncryptedTransaction(
+            new MessageHash("sent".getBytes()), buildPayLoadFor(sender, List.of(recipient)));
+    final EncryptedTransaction received =
+        new EncryptedTransaction(
+            new MessageHash("received".getBytes()), buildPayLoadFor(recipient, List.of(other)));
+    final EncryptedTransaction unrelated =
+        new EncryptedTransaction(
+            new MessageHash("unrelated".getBytes()), buildPayLoadFor(other, List.of(other)));
+    final EncryptedTransaction undescribed =
+        new EncryptedTransaction(
+            new MessageHash("undescribed".getBytes()), buildPayLoadFor(other, List.of(other)));
+    List.of(sent, received, unrelated, undescribed).forEach(encryptedTransactionDAO::save);
+
+    // as if stored before the metadata columns were added
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager
+        .createNativeQuery("UPDATE ENCRYPTED_TRANSACTION SET PRIVACY_MODE = NULL WHERE HASH = ?")
+        .setParameter(1, undescribed.getHash().getHashBytes())
+        .executeUpdate();
+    entityManager.getTransaction().commit();
+
+    final TransactionFilter involvingRecipient = TransactionFilter.involving(recipient);
+    assertThat(encryptedTransactionDAO.transactionCount(involvingRecipient)).isEqualTo(3);
+    assertThat(encryptedTransactionDAO.streamTransactions(1, involvingRecipient))
+        .containsExactlyInAnyOrder(sent, received, undescribed);
+
+    // the stored payloads are all private state validation
+    final TransactionFilter standardPrivate =
+        involvingRecipient.withPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+    assertThat(encryptedTransactionDAO.transactionCount(standardPrivate)).isEqualTo(1);
+    assertThat(encryptedTransactionDAO.streamTransactions(2, standardPrivate))
+        .containsExactly(undescribed);
+
+    assertThat(encryptedTransactionDAO.transactionCount(TransactionFilter.ALL)).isEqualTo(4);
+  }
+
+  @Test
+  public void savedTransactionsAreDescribed() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash("described".getBytes());
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, buildPayLoadFor(sender, List.of(sender))));
+
+    final EncryptedTransaction stored =
+        encryptedTransactionDAO.retrieveByHash(messageHash).orElseThrow();
+    assertThat(stored.getSenderKey()).isEqualTo(sender.getKeyBytes());
+    assertThat(stored.getPrivacyMode()).isEqualTo(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    assertThat(stored.getRecipientCount()).isEqualTo(1);
+    assertThat(stored.getPrivacyGroupId()).isNull();
+  }
+
+  @Test
+  public void addedRecipientBoxIsIncludedWhenRead() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey first = PublicKey.from("FIRSTKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey second = PublicKey.from("SECONDKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash("boxes".getBytes());
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, standardPrivatePayload(sender, first, "box1")));
+
+    final EncodedPayload received = standardPrivatePayload(sender, second, "box2");
+    assertThat(encryptedTransactionDAO.addRecipientBox(messageHash, received)).isTrue();
+    // the box is already there
+    assertThat(encryptedTransactionDAO.addRecipientBox(messageHash, received)).isFalse();
+    assertThat(
+            encryptedTransactionDAO.addRecipientBox(
+                messageHash, standardPrivatePayload(sender, first, "box1")))
+        .isFalse();
+
+    final EncryptedTransaction stored =
+        encryptedTransactionDAO.retrieveByHash(messageHash).orElseThrow();
+    assertThat(stored.getRecipientCount()).isEqualTo(2);
+    assertThat(stored.getPayload().getRecipientKeys()).containsExactly(second, first);
+    assertThat(stored.getPayload().getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box2".getBytes()), RecipientBox.from("box1".getBytes()));
+
+    // writing the whole payload back keeps each box once
+    encryptedTransactionDAO.update(stored);
+    final EncodedPayload updated =
+        encryptedTransactionDAO.retrieveByHash(messageHash).orElseThrow().getPayload();
+    assertThat(updated.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box2".getBytes()), RecipientBox.from("box1".getBytes()));
+  }
+
+  @Test
+  public void addedRecipientBoxIsIndexedByKey() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey first = PublicKey.from("FIRSTKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey second = PublicKey.from("SECONDKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash("boxes".getBytes());
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, standardPrivatePayload(sender, first, "box1")));
+    assertThat(encryptedTransactionDAO.transactionCount(second)).isZero();
+
+    assertThat(
+            encryptedTransactionDAO.addRecipientBox(
+                messageHash, standardPrivatePayload(sender, second, "box2")))
+        .isTrue();
+
+    assertThat(encryptedTransactionDAO.transactionCount(second)).isEqualTo(1);
+    assertThat(encryptedTransactionDAO.transactionCount(first)).isEqualTo(1);
+
+    encryptedTransactionDAO.deleteAll(second);
+
+    assertThat(encryptedTransactionDAO.retrieveByHash(messageHash)).isEmpty();
+    assertThat(encryptedTransactionDAO.transactionCount(second)).isZero();
+    assertThat(encryptedTransactionDAO.transactionCount(sender)).isZero();
+  }
+
+  @Test
+  public void recipientBoxIsNotAddedToMissingOrMismatchedTransaction() {
+    final PublicKey sender = PublicKey.from("SENDERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey other = PublicKey.from("OTHERKEY".getBytes(StandardCharsets.UTF_8));
+    final PublicKey recipient = PublicKey.from("RECEIVERKEY".getBytes(StandardCharsets.UTF_8));
+    final MessageHash messageHash = new MessageHash("boxes".getBytes());
+
+    assertThat(
+            encryptedTransactionDAO.addRecipientBox(
+                messageHash, standardPrivatePayload(sender, recipient, "box1")))
+        .isFalse();
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(messageHash, standardPrivatePayload(sender, recipient, "box1")));
+
+    assertThat(
+            encryptedTransactionDAO.addRecipientBox(
+                messageHash, standardPrivatePayload(other, recipient, "box2")))
+        .isFalse();
+    final EncryptedTransaction stored =
+        encryptedTransactionDAO.retrieveByHash(messageHash).orElseThrow();
+    assertThat(stored.getRecipientCount()).isEqualTo(1);
+  }
+
+  private static EncodedPayload standardPrivatePayload(
+      PublicKey sender, PublicKey recipient, String box) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(sender)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox(box.getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(recipient))
+        .build();
   }
 
   private EncodedPayload buildPayLoadFor(PublicKey senderkey, List<PublicKey> receiverkeys) {
     return EncodedPayload.Builder.create()
-      .withSenderKey(senderkey)
-      .withCipherText("cipherText".getBytes())
-      .withCipherTextNonce("cipherTextNonce".getBytes())
-      .withRecipientBox("recipientBox".getBytes())
-      .withRecipientNonce("recipientNonce".getBytes())
-      .withPrivacyFlag(3)
-      .withAffectedContractTransactions(Map.of(new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="), "transaction".getBytes()))
-      .withExecHash("execHash".getBytes())
-      .withRecipientKeys(receiverkeys)
-      .build();
+        .withSenderKey(senderkey)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("cipherTextNonce".getBytes())
+        .withRecipientBox("recipientBox".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withPrivacyFlag(3)
+        .withAffectedContractTransactions(
+            Map.of(
+                new TxHash(
+                    "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
+                "transaction".getBytes()))
+        .withExecHash("execHash".getBytes())
+        .withRecipientKeys(receiverkeys)
+        .build();
   }
 
   @Test
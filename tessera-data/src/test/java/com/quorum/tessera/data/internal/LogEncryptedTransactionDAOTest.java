@@ -0,0 +1,379 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.TransactionFilter;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.TxHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogEncryptedTransactionDAOTest {
+
+  private static final PublicKey SENDER = PublicKey.from("SENDER".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  private static final PublicKey OTHER = PublicKey.from("OTHER".getBytes());
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path directory;
+
+  private LogEncryptedTransactionDAO encryptedTransactionDAO;
+
+  @Before
+  public void onSetUp() {
+    directory = workDir.getRoot().toPath().resolve("transactions");
+    encryptedTransactionDAO = new LogEncryptedTransactionDAO(LogStore.open(directory, 4096));
+  }
+
+  @After
+  public void onTearDown() {
+    encryptedTransactionDAO.close();
+  }
+
+  @Test
+  public void savedTransactionCanBeRetrieved() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    final EncryptedTransaction saved =
+        encryptedTransactionDAO.save(
+            new EncryptedTransaction(hash, payload(SENDER, List.of(RECIPIENT))));
+
+    assertThat(saved.getTimestamp()).isPositive();
+
+    final EncryptedTransaction retrieved =
+        encryptedTransactionDAO.retrieveByHash(hash).orElseThrow();
+    assertThat(retrieved.getHash()).isEqualTo(hash);
+    assertThat(retrieved.getTimestamp()).isEqualTo(saved.getTimestamp());
+    assertThat(retrieved.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.current());
+    assertThat(retrieved.getEncodedPayload()).isEqualTo(saved.getEncodedPayload());
+    assertThat(retrieved.getPayload().getSenderKey()).isEqualTo(SENDER);
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(RECIPIENT);
+    assertThat(retrieved.getSenderKey()).isEqualTo(SENDER.getKeyBytes());
+    assertThat(retrieved.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
+    assertThat(retrieved.getParties()).isEqualTo(saved.getParties());
+
+    assertThat(encryptedTransactionDAO.retrieveByHash(new MessageHash("other".getBytes())))
+        .isEmpty();
+    assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void cannotSaveSameHashTwice() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload(SENDER, List.of())));
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                encryptedTransactionDAO.save(
+                    new EncryptedTransaction(hash, payload(OTHER, List.of()))));
+
+    assertThat(throwable).isInstanceOf(EntityExistsException.class);
+    final EncryptedTransaction retrieved =
+        encryptedTransactionDAO.retrieveByHash(hash).orElseThrow();
+    assertThat(retrieved.getPayload().getSenderKey()).isEqualTo(SENDER);
+  }
+
+  @Test
+  public void updateReplacesPayloadAndKeepsTimestamp() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    final EncryptedTransaction saved =
+        encryptedTransactionDAO.save(
+            new EncryptedTransaction(hash, payload(SENDER, List.of(RECIPIENT))));
+
+    encryptedTransactionDAO.update(
+        new EncryptedTransaction(hash, payload(SENDER, List.of(RECIPIENT, OTHER))));
+
+    final EncryptedTransaction retrieved =
+        encryptedTransactionDAO.retrieveByHash(hash).orElseThrow();
+    assertThat(retrieved.getTimestamp()).isEqualTo(saved.getTimestamp());
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(RECIPIENT, OTHER);
+    assertThat(encryptedTransactionDAO.transactionCount(OTHER)).isEqualTo(1);
+  }
+
+  @Test
+  public void updatingMissingTransactionFails() {
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                encryptedTransactionDAO.update(
+                    new EncryptedTransaction(
+                        new MessageHash("hash".getBytes()), payload(SENDER, List.of()))));
+
+    assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+  }
+
+  @Test
+  public void saveAllStoresNewAndUpdatesExistingTransactions() {
+    final MessageHash existing = new MessageHash("existing".getBytes());
+    final MessageHash created = new MessageHash("created".getBytes());
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(existing, payload(SENDER, List.of(RECIPIENT))));
+
+    encryptedTransactionDAO.saveAll(
+        List.of(new EncryptedTransaction(created, payload(SENDER, List.of()))),
+        List.of(new EncryptedTransaction(existing, payload(SENDER, List.of(RECIPIENT, OTHER)))));
+
+    assertThat(encryptedTransactionDAO.retrieveByHash(created)).isPresent();
+    assertThat(
+            encryptedTransactionDAO.retrieveByHash(existing).orElseThrow().getPayload()
+                .getRecipientKeys())
+        .containsExactly(RECIPIENT, OTHER);
+  }
+
+  @Test
+  public void saveAllStoresNothingIfAnUpdateIsMissing() {
+    final MessageHash created = new MessageHash("created".getBytes());
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                encryptedTransactionDAO.saveAll(
+                    List.of(new EncryptedTransaction(created, payload(SENDER, List.of()))),
+                    List.of(
+                        new EncryptedTransaction(
+                            new MessageHash("missing".getBytes()), payload(SENDER, List.of())))));
+
+    assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+    assertThat(encryptedTransactionDAO.retrieveByHash(created)).isEmpty();
+    assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+  }
+
+  @Test
+  public void copiedTransactionsAreStreamedInTimestampAndHashOrder() {
+    final EncryptedTransaction third = copy("c", 2000L);
+    final EncryptedTransaction first = copy("b", 1000L);
+    final EncryptedTransaction second = copy("d", 1000L);
+    final EncryptedTransaction earliest = copy("a", 500L);
+
+    assertThat(encryptedTransactionDAO.copyAll(List.of(third, first, second, earliest)))
+        .isEqualTo(4);
+    // already copied, so skipped
+    assertThat(encryptedTransactionDAO.copyAll(List.of(copy("a", 3000L)))).isZero();
+
+    assertThat(
+            encryptedTransactionDAO
+                .streamTransactions(10)
+                .map(EncryptedTransaction::getTimestamp)
+                .collect(Collectors.toList()))
+        .containsExactly(500L, 1000L, 1000L, 2000L);
+    assertThat(encryptedTransactionDAO.streamTransactions(10))
+        .containsExactly(earliest, first, second, third);
+    assertThat(encryptedTransactionDAO.retrieveTransactions(1, 2)).containsExactly(first, second);
+    assertThat(encryptedTransactionDAO.retrieveTransactions(3, 2)).containsExactly(third);
+    assertThat(encryptedTransactionDAO.retrieveTransactions(4, 2)).isEmpty();
+  }
+
+  @Test
+  public void filteredStreamAndCountOnlyIncludeMatchingTransactions() {
+    final EncryptedTransaction sent =
+        new EncryptedTransaction(
+            new MessageHash("sent".getBytes()), payload(SENDER, List.of(RECIPIENT)));
+    final EncryptedTransaction received =
+        new EncryptedTransaction(
+            new MessageHash("received".getBytes()), payload(RECIPIENT, List.of(OTHER)));
+    final EncryptedTransaction unrelated =
+        new EncryptedTransaction(
+            new MessageHash("unrelated".getBytes()), payload(OTHER, List.of(SENDER)));
+    final EncryptedTransaction validated =
+        new EncryptedTransaction(
+            new MessageHash("validated".getBytes()),
+            EncodedPayload.Builder.from(payload(OTHER, List.of(RECIPIENT)))
+                .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+                .withAffectedContractTransactions(
+                    Map.of(
+                        new TxHash(
+                            "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
+                        "transaction".getBytes()))
+                .withExecHash("execHash".getBytes())
+                .build());
+    List.of(sent, received, unrelated, validated).forEach(encryptedTransactionDAO::save);
+
+    final TransactionFilter involvingRecipient = TransactionFilter.involving(RECIPIENT);
+    assertThat(encryptedTransactionDAO.transactionCount(involvingRecipient)).isEqualTo(3);
+    assertThat(encryptedTransactionDAO.streamTransactions(1, involvingRecipient))
+        .containsExactlyInAnyOrder(sent, received, validated);
+
+    final TransactionFilter standardPrivate =
+        involvingRecipient.withPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+    assertThat(encryptedTransactionDAO.transactionCount(standardPrivate)).isEqualTo(2);
+    assertThat(encryptedTransactionDAO.streamTransactions(1, standardPrivate))
+        .containsExactlyInAnyOrder(sent, received);
+
+    assertThat(encryptedTransactionDAO.transactionCount(TransactionFilter.ALL)).isEqualTo(4);
+    assertThat(encryptedTransactionDAO.transactionCount(RECIPIENT)).isEqualTo(3);
+  }
+
+  @Test
+  public void deleteRemovesTransaction() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload(SENDER, List.of())));
+
+    encryptedTransactionDAO.delete(hash);
+
+    assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(encryptedTransactionDAO.streamTransactions(10)).isEmpty();
+    assertThat(catchThrowable(() -> encryptedTransactionDAO.delete(hash)))
+        .isInstanceOf(EntityNotFoundException.class);
+  }
+
+  @Test
+  public void deleteAllRemovesTransactionsSentOrReceivedByKey() {
+    final EncryptedTransaction sent =
+        new EncryptedTransaction(
+            new MessageHash("sent".getBytes()), payload(SENDER, List.of(RECIPIENT)));
+    final EncryptedTransaction received =
+        new EncryptedTransaction(
+            new MessageHash("received".getBytes()), payload(OTHER, List.of(SENDER)));
+    final EncryptedTransaction unrelated =
+        new EncryptedTransaction(
+            new MessageHash("unrelated".getBytes()), payload(OTHER, List.of(RECIPIENT)));
+    List.of(sent, received, unrelated).forEach(encryptedTransactionDAO::save);
+
+    encryptedTransactionDAO.deleteAll(SENDER);
+
+    assertThat(encryptedTransactionDAO.streamTransactions(10)).containsExactly(unrelated);
+    assertThat(encryptedTransactionDAO.transactionCount(SENDER)).isZero();
+  }
+
+  @Test
+  public void findByHashesReturnsThoseThatArePresent() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload(SENDER, List.of())));
+
+    assertThat(
+            encryptedTransactionDAO.findByHashes(
+                List.of(hash, new MessageHash("missing".getBytes()))))
+        .extracting(EncryptedTransaction::getHash)
+        .containsExactly(hash);
+    assertThat(encryptedTransactionDAO.findByHashes(null)).isEmpty();
+  }
+
+  @Test
+  public void failedCallbackStoresNothing() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                encryptedTransactionDAO.save(
+                    new EncryptedTransaction(hash, payload(SENDER, List.of())),
+                    () -> {
+                      throw new Exception("OUCH");
+                    }));
+
+    assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("OUCH");
+    assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(encryptedTransactionDAO.streamTransactions(10)).isEmpty();
+    assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(hash, payload(SENDER, List.of())), () -> true);
+    assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isPresent();
+  }
+
+  @Test
+  public void transactionIsStoredBeforeCallbackRuns() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+
+    final EncryptedTransaction saved =
+        encryptedTransactionDAO.save(
+            new EncryptedTransaction(hash, payload(SENDER, List.of())),
+            () -> encryptedTransactionDAO.retrieveByHash(hash).orElseThrow());
+
+    encryptedTransactionDAO.close();
+    encryptedTransactionDAO = new LogEncryptedTransactionDAO(LogStore.open(directory, 4096));
+    assertThat(encryptedTransactionDAO.retrieveByHash(hash).orElseThrow().getTimestamp())
+        .isEqualTo(saved.getTimestamp());
+  }
+
+  @Test
+  public void recipientBoxesAreAddedByUpdatingInstead() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    encryptedTransactionDAO.save(
+        new EncryptedTransaction(hash, payload(SENDER, List.of(RECIPIENT))));
+
+    assertThat(encryptedTransactionDAO.addRecipientBox(hash, payload(SENDER, List.of(OTHER))))
+        .isFalse();
+  }
+
+  @Test
+  public void transactionsAreReadBackWhenReopened() {
+    final EncryptedTransaction kept = copy("kept", 1000L);
+    final EncryptedTransaction deleted = copy("deleted", 2000L);
+    encryptedTransactionDAO.copyAll(List.of(kept, deleted));
+    encryptedTransactionDAO.delete(deleted.getHash());
+    // enough replaced payloads for the store to be compacted
+    for (int i = 0; i < 50; i++) {
+      encryptedTransactionDAO.update(
+          new EncryptedTransaction(kept.getHash(), payload(SENDER, List.of(RECIPIENT))));
+    }
+    encryptedTransactionDAO.close();
+
+    encryptedTransactionDAO = new LogEncryptedTransactionDAO(LogStore.open(directory, 4096));
+
+    assertThat(encryptedTransactionDAO.streamTransactions(10)).containsExactly(kept);
+    final EncryptedTransaction retrieved =
+        encryptedTransactionDAO.retrieveByHash(kept.getHash()).orElseThrow();
+    assertThat(retrieved.getTimestamp()).isEqualTo(1000L);
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(RECIPIENT);
+  }
+
+  @Test
+  public void upcheckReflectsWhetherStoreIsOpen() {
+    assertThat(encryptedTransactionDAO.upcheck()).isTrue();
+
+    encryptedTransactionDAO.close();
+
+    assertThat(encryptedTransactionDAO.upcheck()).isFalse();
+  }
+
+  @Test
+  public void sharedDataStoreIsOpenedOnce() {
+    final Path sharedDirectory = workDir.getRoot().toPath().resolve("shared");
+
+    final LogEncryptedTransactionDAO shared = LogEncryptedTransactionDAO.shared(sharedDirectory);
+
+    assertThat(LogEncryptedTransactionDAO.shared(sharedDirectory)).isSameAs(shared);
+  }
+
+  private static EncryptedTransaction copy(final String hash, final long timestamp) {
+    final EncryptedTransaction transaction =
+        new EncryptedTransaction(
+            new MessageHash(hash.getBytes()), payload(SENDER, List.of(RECIPIENT)));
+    transaction.setTimestamp(timestamp);
+    transaction.setEncodedPayloadCodec(EncodedPayloadCodec.LEGACY);
+    return transaction;
+  }
+
+  private static EncodedPayload payload(final PublicKey sender, final List<PublicKey> recipients) {
+    final EncodedPayload.Builder builder =
+        EncodedPayload.Builder.create()
+            .withSenderKey(sender)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("cipherTextNonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+            .withRecipientKeys(recipients);
+    recipients.forEach(recipient -> builder.withRecipientBox(recipient.getKeyBytes()));
+    return builder.build();
+  }
+}
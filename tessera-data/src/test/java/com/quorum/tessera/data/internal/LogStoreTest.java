@@ -0,0 +1,309 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStoreTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path directory;
+
+  private LogStore store;
+
+  @Before
+  public void onSetUp() {
+    directory = workDir.getRoot().toPath().resolve("store");
+    store = LogStore.open(directory, Long.MAX_VALUE);
+  }
+
+  @After
+  public void onTearDown() {
+    store.close();
+  }
+
+  @Test
+  public void writtenValuesCanBeRead() {
+    store.write(new LogStore.Batch().put(key(1), value("one")).put(key(2), value("two")));
+
+    assertThat(read(store, key(1))).contains("one");
+    assertThat(read(store, key(2))).contains("two");
+    assertThat(read(store, key(3))).isEmpty();
+    assertThat(store.contains(key(1))).isTrue();
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(store.keys()).containsExactlyInAnyOrder(key(1), key(2));
+    assertThat(store.isOpen()).isTrue();
+  }
+
+  @Test
+  public void laterValuesReplaceEarlierOnes() {
+    store.write(new LogStore.Batch().put(key(1), value("one")));
+    store.write(new LogStore.Batch().put(key(1), value("uno")));
+
+    assertThat(read(store, key(1))).contains("uno");
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void deletedValuesAreGone() {
+    store.write(new LogStore.Batch().put(key(1), value("one")).put(key(2), value("two")));
+    store.write(new LogStore.Batch().delete(key(1)));
+
+    assertThat(read(store, key(1))).isEmpty();
+    assertThat(store.contains(key(1))).isFalse();
+    assertThat(store.keys()).containsExactly(key(2));
+  }
+
+  @Test
+  public void valuesAreReadBackWhenReopened() {
+    store.write(new LogStore.Batch().put(key(1), value("one")).put(key(2), value("two")));
+    store.write(new LogStore.Batch().put(key(2), value("dos")).delete(key(1)));
+    store.close();
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+
+    assertThat(read(store, key(1))).isEmpty();
+    assertThat(read(store, key(2))).contains("dos");
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void partlyWrittenEntryIsDiscardedWhenReopened() throws IOException {
+    store.write(new LogStore.Batch().put(key(1), value("one")));
+    store.write(new LogStore.Batch().put(key(2), value("two")).put(key(3), value("three")));
+    store.close();
+
+    // cut the last entry short, as if the node stopped while writing it
+    final Path file = logFile();
+    final long end = lastEntryEnd(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(end - 3);
+    }
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+
+    assertThat(read(store, key(1))).contains("one");
+    assertThat(read(store, key(2))).isEmpty();
+    assertThat(read(store, key(3))).isEmpty();
+
+    // and the space it took is written over
+    store.write(new LogStore.Batch().put(key(4), value("four")));
+    store.close();
+    store = LogStore.open(directory, Long.MAX_VALUE);
+    assertThat(read(store, key(4))).contains("four");
+  }
+
+  @Test
+  public void lastEntryThatDoesNotMatchItsChecksumIsDiscardedWhenReopened() throws IOException {
+    store.write(new LogStore.Batch().put(key(1), value("one")));
+    store.write(new LogStore.Batch().put(key(2), value("two")));
+    store.close();
+
+    // the end of the last entry never reached the disk, leaving the preallocated zeros
+    final Path file = logFile();
+    overwrite(file, lastEntryEnd(file) - 3, new byte[3]);
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+
+    assertThat(read(store, key(1))).contains("one");
+    assertThat(read(store, key(2))).isEmpty();
+  }
+
+  @Test
+  public void corruptEntryBeforeTheLastIsNotDiscarded() throws IOException {
+    store.write(new LogStore.Batch().put(key(1), value("one")));
+    store.write(new LogStore.Batch().put(key(2), value("two")));
+    store.close();
+
+    // a byte of the first entry, just after the file and entry headers
+    final Path file = logFile();
+    overwrite(file, 8 + 8 + 2, new byte[] {(byte) 0xff});
+    final long size = Files.size(file);
+
+    final Throwable ex = catchThrowable(() -> LogStore.open(directory, Long.MAX_VALUE));
+
+    assertThat(ex)
+        .isInstanceOf(UncheckedIOException.class)
+        .hasMessageContaining(file.toString())
+        .hasMessageContaining("offset 8");
+    // and the entries after it are left as they were
+    assertThat(Files.size(file)).isEqualTo(size);
+  }
+
+  @Test
+  public void compactionKeepsOnlyLiveValues() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      store.write(new LogStore.Batch().put(key(i % 10), value("value" + i)));
+    }
+    store.write(new LogStore.Batch().delete(key(9)));
+    final long before = lastEntryEnd(logFile());
+
+    store.compact();
+
+    assertThat(lastEntryEnd(logFile())).isLessThan(before);
+    try (var files = Files.list(directory)) {
+      assertThat(files.filter(file -> file.toString().endsWith(".log")).count()).isEqualTo(1);
+    }
+    assertThat(store.size()).isEqualTo(9);
+    assertThat(read(store, key(3))).contains("value93");
+    assertThat(read(store, key(9))).isEmpty();
+
+    store.write(new LogStore.Batch().put(key(10), value("ten")));
+    store.close();
+    store = LogStore.open(directory, Long.MAX_VALUE);
+    assertThat(store.size()).isEqualTo(10);
+    assertThat(read(store, key(0))).contains("value90");
+    assertThat(read(store, key(10))).contains("ten");
+  }
+
+  @Test
+  public void storeIsCompactedOnceMostOfItIsReplaced() throws IOException {
+    store.close();
+    store = LogStore.open(directory, 1024);
+
+    for (int i = 0; i < 200; i++) {
+      store.write(new LogStore.Batch().put(key(1), value("value" + i)));
+    }
+
+    assertThat(lastEntryEnd(logFile())).isLessThan(1024);
+    assertThat(read(store, key(1))).contains("value199");
+  }
+
+  @Test
+  public void unfinishedCompactionIsDiscardedWhenReopened() throws IOException {
+    store.write(new LogStore.Batch().put(key(1), value("one")));
+    store.close();
+    Files.write(directory.resolve("store-2.log.compacting"), new byte[] {1, 2, 3});
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+
+    assertThat(read(store, key(1))).contains("one");
+    assertThat(Files.exists(directory.resolve("store-2.log.compacting"))).isFalse();
+  }
+
+  @Test
+  public void concurrentWritesAreAllStored() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<?>> writes =
+          IntStream.range(0, 200)
+              .mapToObj(
+                  i ->
+                      executor.submit(
+                          () -> store.write(new LogStore.Batch().put(key(i), value("v" + i)))))
+              .collect(Collectors.toList());
+      for (final Future<?> write : writes) {
+        write.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    store.close();
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+    assertThat(store.size()).isEqualTo(200);
+    assertThat(read(store, key(123))).contains("v123");
+  }
+
+  @Test
+  public void storeCanOnlyBeOpenedOnce() {
+    final Throwable throwable = catchThrowable(() -> LogStore.open(directory, Long.MAX_VALUE));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void closedStoreCantBeWritten() {
+    store.close();
+
+    final Throwable throwable =
+        catchThrowable(() -> store.write(new LogStore.Batch().put(key(1), value("one"))));
+
+    assertThat(throwable).isExactlyInstanceOf(IllegalStateException.class);
+    assertThat(store.isOpen()).isFalse();
+  }
+
+  @Test
+  public void otherFilesAreLeftAlone() throws IOException {
+    store.close();
+    Files.write(directory.resolve("store-backup.log"), new byte[] {1});
+
+    store = LogStore.open(directory, Long.MAX_VALUE);
+
+    assertThat(Files.exists(directory.resolve("store-backup.log"))).isTrue();
+  }
+
+  private Path logFile() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().matches("store-\\d+\\.log"))
+          .findFirst()
+          .orElseThrow();
+    }
+  }
+
+  private static void overwrite(final Path file, final long position, final byte[] bytes)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(bytes), position);
+    }
+  }
+
+  // the file is extended ahead of the entries, so find where they end
+  private static long lastEntryEnd(final Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer length = ByteBuffer.allocate(4);
+      long position = 8;
+      while (true) {
+        length.clear();
+        if (channel.read(length, position) < 4) {
+          return position;
+        }
+        final int entryLength = length.flip().getInt();
+        if (entryLength <= 0) {
+          return position;
+        }
+        position += 8 + entryLength;
+      }
+    }
+  }
+
+  private static Optional<String> read(final LogStore store, final byte[] key) {
+    return store
+        .get(key)
+        .map(
+            value -> {
+              final byte[] bytes = new byte[value.remaining()];
+              value.get(bytes);
+              return new String(bytes);
+            });
+  }
+
+  private static byte[] key(final int i) {
+    return ("key" + i).getBytes();
+  }
+
+  private static byte[] value(final String value) {
+    return value.getBytes();
+  }
+}
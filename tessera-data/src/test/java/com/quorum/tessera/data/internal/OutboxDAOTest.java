@@ -0,0 +1,179 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.OutboxEntry;
+import com.quorum.tessera.data.TestConfig;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class OutboxDAOTest {
+
+  private static final PublicKey RECIPIENT = PublicKey.from("RECIPIENT".getBytes());
+
+  private static final PublicKey OTHER_RECIPIENT = PublicKey.from("OTHER_RECIPIENT".getBytes());
+
+  private final TestConfig testConfig;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private OutboxDAO outboxDAO;
+
+  public OutboxDAOTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put("eclipselink.cache.shared.default", "false");
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+    outboxDAO = new OutboxDAOImpl(entityManagerFactory);
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createQuery("delete from OutboxEntry").executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @Test
+  public void dueEntriesAreRetrievedInTheOrderTheyWereSaved() {
+    outboxDAO.save(
+        List.of(
+            new OutboxEntry(hash("first"), RECIPIENT),
+            new OutboxEntry(hash("first"), OTHER_RECIPIENT)));
+    outboxDAO.save(List.of(new OutboxEntry(hash("second"), RECIPIENT)));
+
+    final List<OutboxEntry> due = outboxDAO.retrieveDue(System.currentTimeMillis(), 10);
+
+    assertThat(due)
+        .extracting(OutboxEntry::getMessageHash)
+        .containsExactly(hash("first"), hash("first"), hash("second"));
+    assertThat(due)
+        .extracting(OutboxEntry::getRecipient)
+        .containsExactly(RECIPIENT, OTHER_RECIPIENT, RECIPIENT);
+    assertThat(due).allMatch(entry -> entry.getStatus() == OutboxEntry.Status.PENDING);
+    assertThat(due).allMatch(entry -> entry.getTimestamp() > 0);
+    assertThat(outboxDAO.retrieveDue(System.currentTimeMillis(), 1)).hasSize(1);
+  }
+
+  @Test
+  public void postponedEntriesAreNotDue() {
+    outboxDAO.save(
+        List.of(
+            new OutboxEntry(hash("first"), RECIPIENT),
+            new OutboxEntry(hash("first"), OTHER_RECIPIENT)));
+    outboxDAO.save(List.of(new OutboxEntry(hash("second"), RECIPIENT)));
+    final long now = System.currentTimeMillis();
+
+    outboxDAO.postpone(RECIPIENT.getKeyBytes(), now + 1000);
+
+    assertThat(outboxDAO.retrieveDue(now, 10))
+        .extracting(OutboxEntry::getRecipient)
+        .containsExactly(OTHER_RECIPIENT);
+    assertThat(outboxDAO.retrieveDue(now + 1000, 10)).hasSize(3);
+  }
+
+  @Test
+  public void newEntryWaitsBehindARecipientsPostponedEntries() {
+    outboxDAO.save(List.of(new OutboxEntry(hash("first"), RECIPIENT)));
+    final long now = System.currentTimeMillis();
+    outboxDAO.postpone(RECIPIENT.getKeyBytes(), now + 1000);
+
+    outboxDAO.save(
+        List.of(
+            new OutboxEntry(hash("second"), RECIPIENT),
+            new OutboxEntry(hash("second"), OTHER_RECIPIENT)));
+
+    assertThat(outboxDAO.retrieveDue(now, 10))
+        .extracting(OutboxEntry::getRecipient)
+        .containsExactly(OTHER_RECIPIENT);
+    assertThat(outboxDAO.retrieveDue(now + 1000, 10))
+        .extracting(OutboxEntry::getMessageHash)
+        .containsExactly(hash("first"), hash("second"), hash("second"));
+  }
+
+  @Test
+  public void updatedEntriesAreNoLongerDue() {
+    outboxDAO.save(
+        List.of(
+            new OutboxEntry(hash("first"), RECIPIENT),
+            new OutboxEntry(hash("first"), OTHER_RECIPIENT)));
+    final List<OutboxEntry> due = outboxDAO.retrieveDue(System.currentTimeMillis(), 10);
+
+    due.get(0).setStatus(OutboxEntry.Status.DELIVERED);
+    due.get(0).setAttempts(1);
+    outboxDAO.update(due.get(0));
+    due.get(1).setStatus(OutboxEntry.Status.FAILED);
+    due.get(1).setAttempts(3);
+    due.get(1).setLastError("unreachable");
+    outboxDAO.update(due.get(1));
+
+    assertThat(outboxDAO.retrieveDue(System.currentTimeMillis(), 10)).isEmpty();
+    assertThat(outboxDAO.count(OutboxEntry.Status.PENDING)).isZero();
+    assertThat(outboxDAO.count(OutboxEntry.Status.DELIVERED)).isEqualTo(1);
+    assertThat(outboxDAO.count(OutboxEntry.Status.FAILED)).isEqualTo(1);
+
+    final Map<PublicKey, OutboxEntry> byRecipient =
+        outboxDAO.retrieveByHash(hash("first")).stream()
+            .collect(Collectors.toMap(OutboxEntry::getRecipient, entry -> entry));
+    assertThat(byRecipient.get(RECIPIENT).getStatus()).isEqualTo(OutboxEntry.Status.DELIVERED);
+    assertThat(byRecipient.get(OTHER_RECIPIENT).getAttempts()).isEqualTo(3);
+    assertThat(byRecipient.get(OTHER_RECIPIENT).getLastError()).isEqualTo("unreachable");
+  }
+
+  @Test
+  public void onlyFinishedEntriesAreDeleted() {
+    outboxDAO.save(
+        List.of(
+            new OutboxEntry(hash("first"), RECIPIENT),
+            new OutboxEntry(hash("first"), OTHER_RECIPIENT)));
+    final OutboxEntry delivered = outboxDAO.retrieveDue(System.currentTimeMillis(), 1).get(0);
+    delivered.setStatus(OutboxEntry.Status.DELIVERED);
+    outboxDAO.update(delivered);
+
+    final int deleted = outboxDAO.deleteFinished(System.currentTimeMillis() + 1);
+
+    assertThat(deleted).isEqualTo(1);
+    assertThat(outboxDAO.retrieveByHash(hash("first")))
+        .extracting(OutboxEntry::getStatus)
+        .containsExactly(OutboxEntry.Status.PENDING);
+  }
+
+  @Test
+  public void noEntriesForUnknownTransaction() {
+    assertThat(outboxDAO.retrieveByHash(hash("unknown"))).isEmpty();
+  }
+
+  private static MessageHash hash(final String value) {
+    return new MessageHash(value.getBytes());
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
@@ -0,0 +1,62 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+public class RowCounterTest {
+
+  private final RowCounter rowCounter = new RowCounter();
+
+  @Test
+  public void rowsAreCountedOnlyOnce() {
+    final AtomicInteger counted = new AtomicInteger();
+
+    assertThat(rowCounter.get(() -> counted.incrementAndGet() * 10L)).isEqualTo(10);
+    assertThat(rowCounter.get(() -> counted.incrementAndGet() * 10L)).isEqualTo(10);
+    assertThat(counted).hasValue(1);
+  }
+
+  @Test
+  public void changesMoveTheCount() {
+    rowCounter.get(() -> 10);
+
+    rowCounter.add(3);
+    rowCounter.add(-5);
+
+    assertThat(rowCounter.get()).isEqualTo(8);
+  }
+
+  @Test
+  public void changesBeforeCountingAreLeftToTheCount() {
+    rowCounter.add(3);
+
+    assertThat(rowCounter.get()).isEqualTo(-1);
+    assertThat(rowCounter.get(() -> 10)).isEqualTo(10);
+  }
+
+  @Test
+  public void countDoesNotGoBelowZero() {
+    rowCounter.get(() -> 1);
+
+    rowCounter.add(-2);
+
+    assertThat(rowCounter.get()).isZero();
+  }
+
+  @Test
+  public void sharedCountsAreRegistered() throws Exception {
+    final TransactionCounts counts = TransactionCounts.shared();
+    counts.encryptedRawTransactions().get(() -> 4);
+
+    assertThat(TransactionCounts.shared()).isSameAs(counts);
+    assertThat(
+            ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(
+                    new ObjectName(TransactionCounts.OBJECT_NAME), "EncryptedRawTransactionCount"))
+        .isEqualTo(counts.getEncryptedRawTransactionCount());
+  }
+}
@@ -2,6 +2,8 @@ package com.quorum.tessera.launcher;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.util.IntervalPropertyHelper;
+import com.quorum.tessera.config.util.IoSchedulerPropertyHelper;
+import com.quorum.tessera.config.util.OutboxPropertyHelper;
 import com.quorum.tessera.discovery.EnclaveKeySynchroniser;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.p2p.partyinfo.PartyInfoBroadcaster;
@@ -10,7 +12,9 @@ import com.quorum.tessera.p2p.resend.SyncPoller;
 import com.quorum.tessera.p2p.resend.TransactionRequester;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.service.ServiceContainer;
+import com.quorum.tessera.threading.IoScheduler;
 import com.quorum.tessera.threading.TesseraScheduledExecutor;
+import com.quorum.tessera.transaction.publish.OutboxDispatcher;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ServiceLoader;
@@ -47,6 +51,14 @@ public class ScheduledServiceFactory {
 
     IntervalPropertyHelper intervalPropertyHelper =
         new IntervalPropertyHelper(config.getP2PServerConfig().getProperties());
+    IoSchedulerPropertyHelper ioProperties =
+        new IoSchedulerPropertyHelper(config.getP2PServerConfig().getProperties());
+    IoScheduler ioScheduler =
+        IoScheduler.shared(
+            ioProperties.ioThreads(),
+            ioProperties.ioTasksPerDestination(),
+            ioProperties.ioQueueCapacity(),
+            ioProperties.ioVirtualThreads());
     LOGGER.info("Creating p2p client");
     P2pClient p2pClient = P2pClient.create();
     LOGGER.info("Created p2p client {}", p2pClient);
@@ -55,7 +67,8 @@ public class ScheduledServiceFactory {
 
       ResendPartyStore resendPartyStore = ResendPartyStore.create();
       TransactionRequester transactionRequester = TransactionRequester.create();
-      SyncPoller syncPoller = new SyncPoller(resendPartyStore, transactionRequester, p2pClient);
+      SyncPoller syncPoller =
+          new SyncPoller(ioScheduler, resendPartyStore, transactionRequester, p2pClient);
       ScheduledExecutorService scheduledExecutorService =
           java.util.concurrent.Executors.newSingleThreadScheduledExecutor();
       tesseraScheduledExecutors.add(
@@ -81,7 +94,7 @@ public class ScheduledServiceFactory {
 
     LOGGER.info("Creating PartyInfoBroadcaster");
 
-    PartyInfoBroadcaster partyInfoPoller = new PartyInfoBroadcaster(p2pClient);
+    PartyInfoBroadcaster partyInfoPoller = new PartyInfoBroadcaster(p2pClient, ioScheduler);
     LOGGER.info("Created PartyInfoBroadcaster {}", partyInfoPoller);
 
     tesseraScheduledExecutors.add(
@@ -91,6 +104,21 @@ public class ScheduledServiceFactory {
             intervalPropertyHelper.partyInfoInterval(),
             5000L));
 
+    OutboxPropertyHelper outboxProperties =
+        new OutboxPropertyHelper(config.getP2PServerConfig().getProperties());
+    if (outboxProperties.outbox()) {
+      LOGGER.info("Creating OutboxDispatcher");
+      OutboxDispatcher outboxDispatcher = OutboxDispatcher.create(ioScheduler, outboxProperties);
+      LOGGER.info("Created OutboxDispatcher {}", outboxDispatcher);
+
+      tesseraScheduledExecutors.add(
+          new TesseraScheduledExecutor(
+              java.util.concurrent.Executors.newSingleThreadScheduledExecutor(),
+              outboxDispatcher,
+              outboxProperties.outboxDispatchInterval(),
+              5000L));
+    }
+
     tesseraScheduledExecutors.forEach(TesseraScheduledExecutor::start);
 
     LOGGER.info("Creating Enclave");
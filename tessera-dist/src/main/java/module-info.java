@@ -18,6 +18,7 @@ module tessera.application {
   requires tessera.recovery;
   requires jakarta.json;
   requires tessera.server.jersey.unixsocket;
+  requires tessera.server.jersey.jetty;
   requires org.bouncycastle.provider;
   requires com.fasterxml.classmate;
   requires org.glassfish.json.jaxrs;
@@ -0,0 +1,57 @@
+package com.quorum.tessera.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Model representation of a JSON body on outgoing HTTP requests
+ *
+ * <p>How far a sent transaction has got in being pushed to one of its remote recipients
+ */
+public class DeliveryStatusResponse {
+
+  @Schema(description = "public key of the remote recipient", format = "base64")
+  private String recipient;
+
+  @Schema(
+      description = "whether the transaction is still to be pushed, was pushed, or was given up",
+      allowableValues = {"PENDING", "DELIVERED", "FAILED"})
+  private String status;
+
+  @Schema(description = "number of times the transaction has been pushed to the recipient")
+  private int attempts;
+
+  @Schema(description = "reason the last push to the recipient failed")
+  private String lastError;
+
+  public String getRecipient() {
+    return recipient;
+  }
+
+  public void setRecipient(final String recipient) {
+    this.recipient = recipient;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(final String status) {
+    this.status = status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(final int attempts) {
+    this.attempts = attempts;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(final String lastError) {
+    this.lastError = lastError;
+  }
+}
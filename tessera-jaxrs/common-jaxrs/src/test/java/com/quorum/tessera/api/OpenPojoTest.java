@@ -29,7 +29,8 @@ public class OpenPojoTest {
             PrivacyGroupRetrieveRequest.class,
             PrivacyGroupDeleteRequest.class,
             PrivacyGroupSearchRequest.class,
-            BesuReceiveResponse.class);
+            BesuReceiveResponse.class,
+            DeliveryStatusResponse.class);
 
     final Validator pojoValidator =
         ValidatorBuilder.create().with(new GetterTester()).with(new SetterTester()).build();
@@ -1,6 +1,7 @@
 package com.quorum.tessera.jaxrs.client;
 
 import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.config.util.ConnectionPoolPropertyHelper;
 import com.quorum.tessera.config.util.IntervalPropertyHelper;
 import com.quorum.tessera.context.RestClientFactory;
 import com.quorum.tessera.reflect.ReflectCallback;
@@ -22,6 +23,12 @@ import javax.net.ssl.SSLContext;
  */
 public class ClientFactory implements RestClientFactory {
 
+  private static final String UNIX_SOCKET_CONNECTOR_PROVIDER =
+      "com.quorum.tessera.jaxrs.unixsocket.JerseyUnixSocketConnectorProvider";
+
+  private static final String POOLED_CONNECTOR_PROVIDER =
+      "com.quorum.tessera.jaxrs.jetty.JerseyJettyConnectorProvider";
+
   private final SSLContextFactory sslContextFactory;
 
   public ClientFactory(final SSLContextFactory sslContextFactory) {
@@ -32,14 +39,12 @@ public class ClientFactory implements RestClientFactory {
     this(com.quorum.tessera.ssl.context.ClientSSLContextFactory.create());
   }
 
-  private static Configuration createUnixServerSocketConfig() {
+  private static Configuration createConnectorConfig(final String connectorProvider) {
 
     return ReflectCallback.execute(
         () -> {
           Class configType = Class.forName("org.glassfish.jersey.client.ClientConfig");
-          Class providerClass =
-              Class.forName(
-                  "com.quorum.tessera.jaxrs.unixsocket.JerseyUnixSocketConnectorProvider");
+          Class providerClass = Class.forName(connectorProvider);
           Object config = configType.getDeclaredConstructor().newInstance();
           Object provider = providerClass.getDeclaredConstructor().newInstance();
           Method connectorProviderMethod =
@@ -55,8 +60,8 @@ public class ClientFactory implements RestClientFactory {
   }
 
   /**
-   * Creates a new client, which may or may not be SSL enabled or a unix socket enabled depending on
-   * the configuration.
+   * Creates a new client, which may or may not be SSL enabled, a unix socket enabled or keep a pool
+   * of connections to each host depending on the configuration.
    *
    * @param config
    * @return
@@ -66,6 +71,17 @@ public class ClientFactory implements RestClientFactory {
 
     final ClientBuilder clientBuilder = ClientBuilder.newBuilder();
 
+    final ConnectionPoolPropertyHelper connectionPool =
+        new ConnectionPoolPropertyHelper(config.getProperties());
+    if (connectionPool.pooledConnections() && !config.isUnixSocket()) {
+      clientBuilder
+          .withConfig(createConnectorConfig(POOLED_CONNECTOR_PROVIDER))
+          .property("maxConnectionsPerDestination", connectionPool.maxConnectionsPerDestination())
+          .property(
+              "maxRequestsQueuedPerDestination", connectionPool.maxRequestsQueuedPerDestination())
+          .property("connectionIdleTimeout", connectionPool.connectionIdleTimeout());
+    }
+
     final long pollInterval =
         new IntervalPropertyHelper(config.getProperties()).partyInfoInterval();
     final long timeout = Math.round(Math.ceil(pollInterval * 0.75));
@@ -74,7 +90,7 @@ public class ClientFactory implements RestClientFactory {
     clientBuilder.register(VersionHeaderDecorator.class);
 
     if (config.isUnixSocket()) {
-      Configuration clientConfig = createUnixServerSocketConfig();
+      Configuration clientConfig = createConnectorConfig(UNIX_SOCKET_CONNECTOR_PROVIDER);
       URI unixfile = config.getServerUri();
       return ClientBuilder.newClient(clientConfig).property("unixfile", unixfile);
 
@@ -93,6 +93,25 @@ public class ClientFactoryTest {
         .isEqualTo("com.quorum.tessera.jaxrs.unixsocket.JerseyUnixSocketConnectorProvider");
   }
 
+  @Test
+  public void createPooledClient() {
+    ServerConfig serverConfig = mock(ServerConfig.class);
+    when(serverConfig.isSsl()).thenReturn(false);
+    when(serverConfig.getProperties())
+        .thenReturn(Map.of("pooledConnections", "true", "maxConnectionsPerDestination", "8"));
+
+    org.glassfish.jersey.client.JerseyClient result =
+        (org.glassfish.jersey.client.JerseyClient) factory.buildFrom(serverConfig);
+
+    assertThat(result.getConfiguration().getConnectorProvider().getClass().getName())
+        .isEqualTo("com.quorum.tessera.jaxrs.jetty.JerseyJettyConnectorProvider");
+    assertThat(result.getConfiguration().getProperty("maxConnectionsPerDestination"))
+        .isEqualTo(8);
+    assertThat(result.getConfiguration().getProperty("connectionIdleTimeout")).isEqualTo(30000L);
+    assertThat(result.getConfiguration().getProperty(ClientProperties.READ_TIMEOUT))
+        .isEqualTo(3750);
+  }
+
   @Test
   public void createDefaultInstance() {
     ClientFactory clientFactory = new ClientFactory();
@@ -6,13 +6,13 @@ import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.model.PartyInfoBuilder;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.IoScheduler;
 import jakarta.ws.rs.ProcessingException;
 import java.net.URI;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,16 +30,16 @@ public class PartyInfoBroadcaster implements Runnable {
 
   private final P2pClient p2pClient;
 
-  private final Executor executor;
+  private final IoScheduler scheduler;
 
   private final PartyStore partyStore;
 
-  public PartyInfoBroadcaster(final P2pClient p2pClient) {
+  public PartyInfoBroadcaster(final P2pClient p2pClient, final IoScheduler scheduler) {
     this(
         Discovery.create(),
         PartyInfoParser.create(),
         p2pClient,
-        Executors.newCachedThreadPool(),
+        scheduler,
         PartyStore.getInstance());
   }
 
@@ -47,12 +47,12 @@ public class PartyInfoBroadcaster implements Runnable {
       final Discovery discovery,
       final PartyInfoParser partyInfoParser,
       final P2pClient p2pClient,
-      final Executor executor,
+      final IoScheduler scheduler,
       final PartyStore partyStore) {
     this.discovery = Objects.requireNonNull(discovery);
     this.partyInfoParser = Objects.requireNonNull(partyInfoParser);
     this.p2pClient = Objects.requireNonNull(p2pClient);
-    this.executor = Objects.requireNonNull(executor);
+    this.scheduler = Objects.requireNonNull(scheduler);
     this.partyStore = Objects.requireNonNull(partyStore);
   }
 
@@ -107,24 +107,32 @@ public class PartyInfoBroadcaster implements Runnable {
    */
   protected void pollSingleParty(final String url, final byte[] encodedPartyInfo) {
     final NodeUri nodeUri = NodeUri.create(url);
-    CompletableFuture.runAsync(
-            () -> {
-              LOGGER.debug("Sending party info to {}", nodeUri.asString());
-              p2pClient.sendPartyInfo(url, encodedPartyInfo);
-              LOGGER.debug("Sent party info to {}", nodeUri.asString());
-            },
-            executor)
-        .exceptionally(
-            ex -> {
-              Throwable cause = Optional.of(ex).map(Throwable::getCause).orElse(ex);
-
-              LOGGER.warn("Failed to connect to node {}, due to {}", url, cause.getMessage());
-              LOGGER.debug("Send failure exception", cause);
-              if (ProcessingException.class.isInstance(cause)) {
-                discovery.onDisconnect(URI.create(url));
-                partyStore.remove(URI.create(url));
-              }
-              return null;
-            });
+    final CompletableFuture<Void> sent;
+    try {
+      sent =
+          CompletableFuture.runAsync(
+              () -> {
+                LOGGER.debug("Sending party info to {}", nodeUri.asString());
+                p2pClient.sendPartyInfo(url, encodedPartyInfo);
+                LOGGER.debug("Sent party info to {}", nodeUri.asString());
+              },
+              task -> scheduler.execute(url, task));
+    } catch (final RejectedExecutionException ex) {
+      // the node is told in the next round instead
+      LOGGER.warn("Unable to send party info to node {}, due to {}", url, ex.getMessage());
+      return;
+    }
+    sent.exceptionally(
+        ex -> {
+          Throwable cause = Optional.of(ex).map(Throwable::getCause).orElse(ex);
+
+          LOGGER.warn("Failed to connect to node {}, due to {}", url, cause.getMessage());
+          LOGGER.debug("Send failure exception", cause);
+          if (ProcessingException.class.isInstance(cause)) {
+            discovery.onDisconnect(URI.create(url));
+            partyStore.remove(URI.create(url));
+          }
+          return null;
+        });
   }
 }
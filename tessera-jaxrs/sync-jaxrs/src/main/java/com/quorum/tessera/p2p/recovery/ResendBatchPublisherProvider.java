@@ -1,8 +1,13 @@
 package com.quorum.tessera.p2p.recovery;
 
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.util.CircuitBreakerPropertyHelper;
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
+import com.quorum.tessera.threading.CircuitBreaker;
 
 public class ResendBatchPublisherProvider {
 
@@ -11,6 +16,15 @@ public class ResendBatchPublisherProvider {
     RecoveryClient client = RecoveryClient.create();
     PayloadEncoder payloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
 
-    return new RestResendBatchPublisher(payloadEncoder, client);
+    Config config = ConfigFactory.create().getConfig();
+    CircuitBreakerPropertyHelper circuitBreakerProperties =
+        new CircuitBreakerPropertyHelper(config.getP2PServerConfig().getProperties());
+    CircuitBreaker circuitBreaker =
+        CircuitBreaker.shared(
+            circuitBreakerProperties.circuitBreakerFailureThreshold(),
+            circuitBreakerProperties.circuitBreakerOpenDuration());
+
+    return new RestResendBatchPublisher(
+        payloadEncoder, client, Discovery.create(), circuitBreaker);
   }
 }
@@ -1,9 +1,14 @@
 package com.quorum.tessera.p2p.recovery;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
+import com.quorum.tessera.threading.CircuitBreaker;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import jakarta.ws.rs.ProcessingException;
+import java.net.URI;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -18,15 +23,29 @@ public class RestResendBatchPublisher implements ResendBatchPublisher {
 
   private final RecoveryClient resendClient;
 
+  private final Discovery discovery;
+
+  private final CircuitBreaker circuitBreaker;
+
   public RestResendBatchPublisher(
-      final PayloadEncoder payloadEncoder, final RecoveryClient resendClient) {
+      final PayloadEncoder payloadEncoder,
+      final RecoveryClient resendClient,
+      final Discovery discovery,
+      final CircuitBreaker circuitBreaker) {
     this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
     this.resendClient = Objects.requireNonNull(resendClient);
+    this.discovery = Objects.requireNonNull(discovery);
+    this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
   }
 
   @Override
   public void publishBatch(final List<EncodedPayload> payloads, final String targetUrl) {
 
+    if (!circuitBreaker.tryAcquire(targetUrl)) {
+      LOGGER.debug("{} could not be reached recently, not publishing message", targetUrl);
+      throw new NodeOfflineException(URI.create(targetUrl));
+    }
+
     LOGGER.info("Publishing message to {}", targetUrl);
 
     final List<byte[]> encodedPayloads =
@@ -34,7 +53,17 @@ public class RestResendBatchPublisher implements ResendBatchPublisher {
 
     final PushBatchRequest pushBatchRequest = new PushBatchRequest(encodedPayloads);
 
-    final boolean result = resendClient.pushBatch(targetUrl, pushBatchRequest);
+    final boolean result;
+    try {
+      result = resendClient.pushBatch(targetUrl, pushBatchRequest);
+    } catch (ProcessingException ex) {
+      LOGGER.debug("", ex);
+      if (circuitBreaker.onFailure(targetUrl)) {
+        discovery.onDisconnect(URI.create(targetUrl));
+      }
+      throw new NodeOfflineException(URI.create(targetUrl));
+    }
+    circuitBreaker.onSuccess(targetUrl);
 
     if (!result) {
       throw new PublishPayloadException("Unable to push payload batch to recipient " + targetUrl);
@@ -7,11 +7,11 @@ import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.model.PartyInfoBuilder;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.IoScheduler;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,7 +24,7 @@ public class SyncPoller implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SyncPoller.class);
 
-  private final ExecutorService executorService;
+  private final IoScheduler scheduler;
 
   private final ResendPartyStore resendPartyStore;
 
@@ -37,12 +37,13 @@ public class SyncPoller implements Runnable {
   private final PartyInfoParser partyInfoParser;
 
   public SyncPoller(
+      IoScheduler scheduler,
       ResendPartyStore resendPartyStore,
       TransactionRequester transactionRequester,
       P2pClient p2pClient) {
 
     this(
-        Executors.newCachedThreadPool(),
+        scheduler,
         resendPartyStore,
         transactionRequester,
         Discovery.create(),
@@ -51,13 +52,13 @@ public class SyncPoller implements Runnable {
   }
 
   public SyncPoller(
-      final ExecutorService executorService,
+      final IoScheduler scheduler,
       final ResendPartyStore resendPartyStore,
       final TransactionRequester transactionRequester,
       final Discovery discovery,
       final PartyInfoParser partyInfoParser,
       final P2pClient p2pClient) {
-    this.executorService = Objects.requireNonNull(executorService);
+    this.scheduler = Objects.requireNonNull(scheduler);
     this.resendPartyStore = Objects.requireNonNull(resendPartyStore);
     this.transactionRequester = Objects.requireNonNull(transactionRequester);
     this.discovery = Objects.requireNonNull(discovery);
@@ -67,8 +68,8 @@ public class SyncPoller implements Runnable {
 
   /**
    * Retrieves all of the outstanding parties and makes an attempt to make the resend request
-   * asynchronously. If the request fails then the party is submitted back to the store for a later
-   * attempt.
+   * asynchronously. If the request fails, or there is no room to make it, then the party is
+   * submitted back to the store for a later attempt.
    */
   @Override
   public void run() {
@@ -112,7 +113,12 @@ public class SyncPoller implements Runnable {
             }
           };
 
-      this.executorService.submit(action);
+      try {
+        this.scheduler.execute(url, action);
+      } catch (final RejectedExecutionException ex) {
+        LOGGER.warn("Unable to request transactions from node {}, due to {}", url, ex.getMessage());
+        this.resendPartyStore.incrementFailedAttempt(requestDetails);
+      }
 
       nextPartyToSend = this.resendPartyStore.getNextParty();
     }
@@ -8,11 +8,12 @@ import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.IoScheduler;
 import jakarta.ws.rs.ProcessingException;
 import java.net.URI;
 import java.util.Set;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,7 +37,7 @@ public class PartyInfoBroadcasterTest {
 
   private P2pClient p2pClient;
 
-  private Executor executor;
+  private IoScheduler scheduler;
 
   private PartyStore partyStore;
 
@@ -45,21 +46,21 @@ public class PartyInfoBroadcasterTest {
     this.discovery = mock(Discovery.class);
     this.partyInfoParser = mock(PartyInfoParser.class);
     this.p2pClient = mock(P2pClient.class);
-    this.executor = mock(Executor.class);
+    this.scheduler = mock(IoScheduler.class);
     this.partyStore = mock(PartyStore.class);
 
     doAnswer(
             (InvocationOnMock invocation) -> {
-              ((Runnable) invocation.getArguments()[0]).run();
+              ((Runnable) invocation.getArguments()[1]).run();
               return null;
             })
-        .when(executor)
-        .execute(any(Runnable.class));
+        .when(scheduler)
+        .execute(anyString(), any(Runnable.class));
 
     when(partyInfoParser.to(any(PartyInfo.class))).thenReturn(DATA);
 
     this.partyInfoBroadcaster =
-        new PartyInfoBroadcaster(discovery, partyInfoParser, p2pClient, executor, partyStore);
+        new PartyInfoBroadcaster(discovery, partyInfoParser, p2pClient, scheduler, partyStore);
   }
 
   @After
@@ -124,6 +125,19 @@ public class PartyInfoBroadcasterTest {
     verify(partyInfoParser).to(any(PartyInfo.class));
   }
 
+  @Test
+  public void rejectedSendIsSkipped() {
+    doThrow(new RejectedExecutionException("full"))
+        .when(scheduler)
+        .execute(anyString(), any(Runnable.class));
+
+    final Throwable throwable =
+        catchThrowable(() -> partyInfoBroadcaster.pollSingleParty(TARGET_URL, DATA));
+
+    assertThat(throwable).isNull();
+    verify(scheduler).execute(eq(TARGET_URL), any(Runnable.class));
+  }
+
   @Test
   public void constructWithMinimalArgs() {
 
@@ -134,7 +148,8 @@ public class PartyInfoBroadcasterTest {
       partyInfoParserMockedStatic.when(PartyInfoParser::create).thenReturn(partyInfoParser);
       partyStoreMockedStatic.when(PartyStore::getInstance).thenReturn(partyStore);
 
-      PartyInfoBroadcaster partyInfoBroadcaster = new PartyInfoBroadcaster(mock(P2pClient.class));
+      PartyInfoBroadcaster partyInfoBroadcaster =
+          new PartyInfoBroadcaster(mock(P2pClient.class), mock(IoScheduler.class));
       assertThat(partyInfoBroadcaster).isNotNull();
 
       discoveryMockedStatic.verify(Discovery::create);
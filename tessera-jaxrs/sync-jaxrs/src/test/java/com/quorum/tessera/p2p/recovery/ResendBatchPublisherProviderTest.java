@@ -3,7 +3,12 @@ package com.quorum.tessera.p2p.recovery;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
 
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
@@ -13,8 +18,15 @@ public class ResendBatchPublisherProviderTest {
 
   @Test
   public void provider() {
+    ConfigFactory configFactory = mock(ConfigFactory.class);
+    Config config = mock(Config.class);
+    when(config.getP2PServerConfig()).thenReturn(mock(ServerConfig.class));
+    when(configFactory.getConfig()).thenReturn(config);
+
     try (var recoveryClientMockedStatic = mockStatic(RecoveryClient.class);
-        var payloadEncoderMockedStatic = mockStatic(PayloadEncoder.class)) {
+        var payloadEncoderMockedStatic = mockStatic(PayloadEncoder.class);
+        var configFactoryMockedStatic = mockStatic(ConfigFactory.class);
+        var discoveryMockedStatic = mockStatic(Discovery.class)) {
 
       recoveryClientMockedStatic
           .when(RecoveryClient::create)
@@ -22,6 +34,8 @@ public class ResendBatchPublisherProviderTest {
       payloadEncoderMockedStatic
           .when(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY))
           .thenReturn(mock(PayloadEncoder.class));
+      configFactoryMockedStatic.when(ConfigFactory::create).thenReturn(configFactory);
+      discoveryMockedStatic.when(Discovery::create).thenReturn(mock(Discovery.class));
 
       ResendBatchPublisher resendBatchPublisher = ResendBatchPublisherProvider.provider();
       assertThat(resendBatchPublisher)
@@ -33,6 +47,12 @@ public class ResendBatchPublisherProviderTest {
 
       payloadEncoderMockedStatic.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
       payloadEncoderMockedStatic.verifyNoMoreInteractions();
+
+      configFactoryMockedStatic.verify(ConfigFactory::create);
+      configFactoryMockedStatic.verifyNoMoreInteractions();
+
+      discoveryMockedStatic.verify(Discovery::create);
+      discoveryMockedStatic.verifyNoMoreInteractions();
     }
   }
 
@@ -4,9 +4,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.threading.CircuitBreaker;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import jakarta.ws.rs.ProcessingException;
+import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -52,7 +57,8 @@ public class RestResendBatchPublisherTest {
             .collect(Collectors.toList());
 
     RestResendBatchPublisher restRecoveryClient =
-        new RestResendBatchPublisher(payloadEncoder, recoveryClient);
+        new RestResendBatchPublisher(
+            payloadEncoder, recoveryClient, mock(Discovery.class), new CircuitBreaker(1, 60000L));
     restRecoveryClient.publishBatch(encodedPayloads, targetUrl);
 
     verify(recoveryClient).pushBatch(targetUrl, requestArgumentCaptor.getValue());
@@ -90,7 +96,8 @@ public class RestResendBatchPublisherTest {
             .collect(Collectors.toList());
 
     RestResendBatchPublisher restRecoveryClient =
-        new RestResendBatchPublisher(payloadEncoder, recoveryClient);
+        new RestResendBatchPublisher(
+            payloadEncoder, recoveryClient, mock(Discovery.class), new CircuitBreaker(1, 60000L));
     PublishPayloadException ex =
         catchThrowableOfType(
             () -> restRecoveryClient.publishBatch(encodedPayloads, targetUrl),
@@ -112,6 +119,42 @@ public class RestResendBatchPublisherTest {
     verifyNoMoreInteractions(payloadEncoder);
   }
 
+  @Test
+  public void publishBatchToNodeThatCannotBeReached() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    RecoveryClient recoveryClient = mock(RecoveryClient.class);
+    Discovery discovery = mock(Discovery.class);
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 60000L);
+
+    when(recoveryClient.pushBatch(anyString(), any(PushBatchRequest.class)))
+        .thenThrow(ProcessingException.class);
+
+    List<EncodedPayload> encodedPayloads = List.of(mock(EncodedPayload.class));
+
+    RestResendBatchPublisher restRecoveryClient =
+        new RestResendBatchPublisher(payloadEncoder, recoveryClient, discovery, circuitBreaker);
+
+    NodeOfflineException ex =
+        catchThrowableOfType(
+            () -> restRecoveryClient.publishBatch(encodedPayloads, targetUrl),
+            NodeOfflineException.class);
+    assertThat(ex.getUri()).isEqualTo(URI.create(targetUrl));
+    assertThat(circuitBreaker.getState(targetUrl)).isEqualTo(CircuitBreaker.State.OPEN);
+
+    NodeOfflineException fastEx =
+        catchThrowableOfType(
+            () -> restRecoveryClient.publishBatch(encodedPayloads, targetUrl),
+            NodeOfflineException.class);
+    assertThat(fastEx.getUri()).isEqualTo(URI.create(targetUrl));
+
+    verify(recoveryClient).pushBatch(eq(targetUrl), any(PushBatchRequest.class));
+    verify(payloadEncoder).encode(encodedPayloads.get(0));
+    verify(discovery).onDisconnect(URI.create(targetUrl));
+
+    verifyNoMoreInteractions(recoveryClient, payloadEncoder, discovery);
+  }
+
   @Parameterized.Parameters(name = "{0}")
   public static Collection<Map.Entry<String, List<byte[]>>> fixtures() {
     return Map.of(
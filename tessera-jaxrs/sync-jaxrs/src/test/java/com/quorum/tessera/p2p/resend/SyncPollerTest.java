@@ -11,10 +11,11 @@ import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.Party;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.partyinfo.node.Recipient;
+import com.quorum.tessera.threading.IoScheduler;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,7 +23,7 @@ import org.mockito.ArgumentCaptor;
 
 public class SyncPollerTest {
 
-  private ExecutorService executorService;
+  private IoScheduler scheduler;
 
   private ResendPartyStore resendPartyStore;
 
@@ -39,7 +40,7 @@ public class SyncPollerTest {
   @Before
   public void init() {
 
-    this.executorService = mock(ExecutorService.class);
+    this.scheduler = mock(IoScheduler.class);
     this.resendPartyStore = mock(ResendPartyStore.class);
     this.transactionRequester = mock(TransactionRequester.class);
     this.partyInfoService = mock(Discovery.class);
@@ -53,7 +54,7 @@ public class SyncPollerTest {
 
     this.syncPoller =
         new SyncPoller(
-            executorService,
+            scheduler,
             resendPartyStore,
             transactionRequester,
             partyInfoService,
@@ -63,7 +64,7 @@ public class SyncPollerTest {
 
   @After
   public void after() {
-    verifyNoMoreInteractions(executorService, resendPartyStore, transactionRequester);
+    verifyNoMoreInteractions(scheduler, resendPartyStore, transactionRequester);
   }
 
   @Test
@@ -91,7 +92,7 @@ public class SyncPollerTest {
     syncPoller.run();
 
     final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
-    verify(executorService).submit(captor.capture());
+    verify(scheduler).execute(eq(targetUrl), captor.capture());
     verify(resendPartyStore, times(2)).getNextParty();
     verify(resendPartyStore).addUnseenParties(emptySet());
 
@@ -144,7 +145,7 @@ public class SyncPollerTest {
     syncPoller.run();
 
     final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
-    verify(executorService).submit(captor.capture());
+    verify(scheduler).execute(eq(targetUrl), captor.capture());
     verify(resendPartyStore, times(2)).getNextParty();
 
     final Runnable task = captor.getValue();
@@ -171,7 +172,7 @@ public class SyncPollerTest {
     syncPoller.run();
 
     final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
-    verify(executorService).submit(captor.capture());
+    verify(scheduler).execute(eq(targetUrl), captor.capture());
     verify(resendPartyStore, times(2)).getNextParty();
 
     final Runnable task = captor.getValue();
@@ -196,7 +197,7 @@ public class SyncPollerTest {
     syncPoller.run();
 
     final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
-    verify(executorService).submit(captor.capture());
+    verify(scheduler).execute(eq(targetUrl), captor.capture());
     verify(resendPartyStore, times(2)).getNextParty();
 
     final Runnable task = captor.getValue();
@@ -208,6 +209,27 @@ public class SyncPollerTest {
     verify(partyInfoService, times(2)).getCurrent();
   }
 
+  @Test
+  public void singlePartyTaskRejectedAndNotifiesStore() {
+
+    final String targetUrl = "fakeurl.com";
+    final SyncableParty syncableParty = new SyncableParty(new Party(targetUrl), 0);
+
+    doThrow(new RejectedExecutionException("full"))
+        .when(scheduler)
+        .execute(anyString(), any(Runnable.class));
+
+    doReturn(Optional.of(syncableParty), Optional.empty()).when(resendPartyStore).getNextParty();
+
+    syncPoller.run();
+
+    verify(scheduler).execute(eq(targetUrl), any(Runnable.class));
+    verify(resendPartyStore, times(2)).getNextParty();
+    verify(resendPartyStore).incrementFailedAttempt(syncableParty);
+    verify(resendPartyStore).addUnseenParties(emptySet());
+    verify(partyInfoService).getCurrent();
+  }
+
   @Test
   public void constructWithMinimalArgs() {
 
@@ -215,7 +237,8 @@ public class SyncPollerTest {
         var p = mockStatic(PartyInfoParser.class)) {
       d.when(Discovery::create).thenReturn(mock(Discovery.class));
       p.when(PartyInfoParser::create).thenReturn(mock(PartyInfoParser.class));
-      assertThat(new SyncPoller(resendPartyStore, transactionRequester, p2pClient)).isNotNull();
+      assertThat(new SyncPoller(scheduler, resendPartyStore, transactionRequester, p2pClient))
+          .isNotNull();
 
       d.verify(Discovery::create);
       p.verify(PartyInfoParser::create);
@@ -4,6 +4,7 @@ import static com.quorum.tessera.version.MultiTenancyVersion.MIME_TYPE_JSON_2_1;
 import static com.quorum.tessera.version.PrivacyGroupVersion.MIME_TYPE_JSON_3;
 import static jakarta.ws.rs.core.MediaType.*;
 
+import com.quorum.tessera.api.DeliveryStatusResponse;
 import com.quorum.tessera.api.ReceiveResponse;
 import com.quorum.tessera.api.SendRequest;
 import com.quorum.tessera.api.SendResponse;
@@ -15,6 +16,7 @@ import com.quorum.tessera.enclave.PrivacyGroup;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.privacygroup.PrivacyGroupManager;
+import com.quorum.tessera.transaction.DeliveryStatus;
 import com.quorum.tessera.transaction.TransactionManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -516,4 +518,47 @@ public class TransactionResource3 {
 
     return Response.ok(participantList).build();
   }
+
+  @Operation(
+      summary = "/transaction/{hash}/delivery",
+      operationId = "getDeliveryStatus",
+      description =
+          "get how far a sent transaction has got in being pushed to each of its remote recipients."
+              + " Empty unless the node pushes transactions from an outbox")
+  @ApiResponse(
+      responseCode = "200",
+      description = "delivery status for each remote recipient",
+      content =
+          @Content(
+              array =
+                  @ArraySchema(schema = @Schema(implementation = DeliveryStatusResponse.class))))
+  @GET
+  @Path("/transaction/{hash}/delivery")
+  @Produces(APPLICATION_JSON)
+  public Response getDeliveryStatus(
+      @Parameter(
+              description = "hash indicating encrypted payload to get delivery status for",
+              schema = @Schema(format = "base64"))
+          @PathParam("hash")
+          final String ptmHash) {
+    LOGGER.debug("Received delivery status API request for key {}", ptmHash);
+
+    final MessageHash transactionHash = new MessageHash(base64Decoder.decode(ptmHash));
+
+    final DeliveryStatusResponse[] statuses =
+        transactionManager.getDeliveryStatus(transactionHash).stream()
+            .map(TransactionResource3::toResponse)
+            .toArray(DeliveryStatusResponse[]::new);
+
+    return Response.ok(statuses).build();
+  }
+
+  private static DeliveryStatusResponse toResponse(final DeliveryStatus deliveryStatus) {
+    final DeliveryStatusResponse response = new DeliveryStatusResponse();
+    response.setRecipient(deliveryStatus.getRecipient().encodeToBase64());
+    response.setStatus(deliveryStatus.getState().name());
+    response.setAttempts(deliveryStatus.getAttempts());
+    deliveryStatus.getLastError().ifPresent(response::setLastError);
+    return response;
+  }
 }
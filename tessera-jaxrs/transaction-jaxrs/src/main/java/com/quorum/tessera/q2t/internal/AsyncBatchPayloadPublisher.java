@@ -1,15 +1,18 @@
 package com.quorum.tessera.q2t.internal;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
-import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.IoScheduler;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import java.util.List;
-import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,27 +20,33 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AsyncBatchPayloadPublisher.class);
 
-  private final Executor executor;
+  private final IoScheduler scheduler;
 
   private final CancellableCountDownLatchFactory countDownLatchFactory;
 
   private final PayloadPublisher publisher;
 
+  private final Discovery discovery;
+
   public AsyncBatchPayloadPublisher(
-      ExecutorFactory executorFactory,
+      IoScheduler scheduler,
       CancellableCountDownLatchFactory countDownLatchFactory,
-      PayloadPublisher publisher) {
-    this.executor = executorFactory.createCachedThreadPool();
+      PayloadPublisher publisher,
+      Discovery discovery) {
+    this.scheduler = scheduler;
     this.countDownLatchFactory = countDownLatchFactory;
     this.publisher = publisher;
+    this.discovery = discovery;
   }
 
   /**
    * Asynchronously strips (leaving data intended only for that particular recipient) and publishes
-   * the payload to each recipient identified by the provided keys.
+   * the payload to each recipient identified by the provided keys. Recipients the publisher groups
+   * together are published in one task.
    *
    * <p>This method blocks until all pushes return successfully; if a push fails with an exception,
-   * the method exits immediately and does not wait for the remaining responses.
+   * the method exits immediately and does not wait for the remaining responses. If the scheduler
+   * is too busy to take a push, the method fails in the same way.
    *
    * @param payload the payload object to be stripped and pushed
    * @param recipientKeys list of public keys identifying the target nodes
@@ -48,22 +57,33 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
       return;
     }
 
-    final CancellableCountDownLatch latch = countDownLatchFactory.create(recipientKeys.size());
+    // recipients on the same node can be sent the payload together
+    final List<List<PublicKey>> groups = publisher.groupRecipients(recipientKeys);
 
-    recipientKeys.forEach(
-        recipient ->
-            executor.execute(
-                () -> {
-                  try {
-                    final EncodedPayload outgoing =
-                        EncodedPayload.Builder.forRecipient(payload, recipient).build();
-                    publisher.publishPayload(outgoing, recipient);
-                    latch.countDown();
-                  } catch (RuntimeException e) {
-                    LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
-                    latch.cancelWithException(e);
-                  }
-                }));
+    final CancellableCountDownLatch latch = countDownLatchFactory.create(groups.size());
+
+    // the parts of the payload that every recipient receives are only encoded once
+    final PayloadTemplates templates = new PayloadTemplates(payload);
+
+    for (final List<PublicKey> group : groups) {
+      try {
+        scheduler.execute(
+            destinationOf(group),
+            () -> {
+              try {
+                publisher.publishPayload(templates, group);
+                latch.countDown();
+              } catch (RuntimeException e) {
+                LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
+                latch.cancelWithException(e);
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("unable to publish payload in batch: {}", e.getMessage());
+        latch.cancelWithException(new BatchPublishPayloadException(e));
+        break;
+      }
+    }
 
     try {
       latch.await();
@@ -71,4 +91,21 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
       throw new BatchPublishPayloadException(e);
     }
   }
+
+  @Override
+  public void checkRecipients(EncodedPayload payload, List<PublicKey> recipientKeys) {
+    recipientKeys.forEach(
+        recipientKey -> publisher.checkRecipient(payload.getPrivacyMode(), recipientKey));
+  }
+
+  /** @return the node hosting the recipients, so that pushes to a slow node can be limited */
+  private String destinationOf(List<PublicKey> group) {
+    final PublicKey recipientKey = group.get(0);
+    try {
+      return discovery.getRemoteNodeInfo(recipientKey).getUrl();
+    } catch (KeyNotFoundException e) {
+      // the push itself reports the unknown recipient
+      return recipientKey.encodeToBase64();
+    }
+  }
 }
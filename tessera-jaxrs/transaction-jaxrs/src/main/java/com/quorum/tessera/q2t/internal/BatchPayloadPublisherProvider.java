@@ -1,16 +1,29 @@
 package com.quorum.tessera.q2t.internal;
 
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.util.IoSchedulerPropertyHelper;
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
-import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.IoScheduler;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 
 public class BatchPayloadPublisherProvider {
 
   public static BatchPayloadPublisher provider() {
-    ExecutorFactory executorFactory = new ExecutorFactory();
+    Config config = ConfigFactory.create().getConfig();
+    IoSchedulerPropertyHelper ioProperties =
+        new IoSchedulerPropertyHelper(config.getP2PServerConfig().getProperties());
+    IoScheduler scheduler =
+        IoScheduler.shared(
+            ioProperties.ioThreads(),
+            ioProperties.ioTasksPerDestination(),
+            ioProperties.ioQueueCapacity(),
+            ioProperties.ioVirtualThreads());
     CancellableCountDownLatchFactory countDownLatchFactory = new CancellableCountDownLatchFactory();
     PayloadPublisher payloadPublisher = PayloadPublisher.create();
-    return new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, payloadPublisher);
+    return new AsyncBatchPayloadPublisher(
+        scheduler, countDownLatchFactory, payloadPublisher, Discovery.create());
   }
 }
@@ -2,8 +2,10 @@ package com.quorum.tessera.q2t.internal;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.util.CircuitBreakerPropertyHelper;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
+import com.quorum.tessera.threading.CircuitBreaker;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import jakarta.ws.rs.client.Client;
 
@@ -17,6 +19,13 @@ public class PayloadPublisherProvider {
     ClientFactory clientFactory = new ClientFactory();
     Client client = clientFactory.buildFrom(config.getP2PServerConfig());
 
-    return new RestPayloadPublisher(client, partyInfoService);
+    CircuitBreakerPropertyHelper circuitBreakerProperties =
+        new CircuitBreakerPropertyHelper(config.getP2PServerConfig().getProperties());
+    CircuitBreaker circuitBreaker =
+        CircuitBreaker.shared(
+            circuitBreakerProperties.circuitBreakerFailureThreshold(),
+            circuitBreakerProperties.circuitBreakerOpenDuration());
+
+    return new RestPayloadPublisher(client, partyInfoService, circuitBreaker);
   }
 }
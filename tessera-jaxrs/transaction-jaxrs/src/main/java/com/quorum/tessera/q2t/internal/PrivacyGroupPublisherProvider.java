@@ -2,9 +2,11 @@ package com.quorum.tessera.q2t.internal;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.util.CircuitBreakerPropertyHelper;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import com.quorum.tessera.privacygroup.publish.PrivacyGroupPublisher;
+import com.quorum.tessera.threading.CircuitBreaker;
 import jakarta.ws.rs.client.Client;
 
 public class PrivacyGroupPublisherProvider {
@@ -15,6 +17,13 @@ public class PrivacyGroupPublisherProvider {
     Config config = ConfigFactory.create().getConfig();
     Client client = new ClientFactory().buildFrom(config.getP2PServerConfig());
 
-    return new RestPrivacyGroupPublisher(discovery, client);
+    CircuitBreakerPropertyHelper circuitBreakerProperties =
+        new CircuitBreakerPropertyHelper(config.getP2PServerConfig().getProperties());
+    CircuitBreaker circuitBreaker =
+        CircuitBreaker.shared(
+            circuitBreakerProperties.circuitBreakerFailureThreshold(),
+            circuitBreakerProperties.circuitBreakerOpenDuration());
+
+    return new RestPrivacyGroupPublisher(discovery, client, circuitBreaker);
   }
 }
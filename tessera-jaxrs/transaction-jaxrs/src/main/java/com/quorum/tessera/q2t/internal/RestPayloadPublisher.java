@@ -4,24 +4,37 @@ import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PayloadTemplates;
 import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.CircuitBreaker;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException;
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PayloadEncodingException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import com.quorum.tessera.version.EnhancedPrivacyVersion;
 import com.quorum.tessera.version.MandatoryRecipientsVersion;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,49 +42,138 @@ public class RestPayloadPublisher implements PayloadPublisher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RestPayloadPublisher.class);
 
+  /**
+   * Has the client send the payload as it is encoded, instead of buffering the whole request to
+   * find its length first
+   */
+  static final String REQUEST_ENTITY_PROCESSING = "jersey.config.client.request.entity.processing";
+
   private final Client client;
 
   private final Discovery discovery;
 
-  RestPayloadPublisher(Client client, Discovery discovery) {
+  private final CircuitBreaker circuitBreaker;
+
+  RestPayloadPublisher(Client client, Discovery discovery, CircuitBreaker circuitBreaker) {
     this.client = Objects.requireNonNull(client);
     this.discovery = Objects.requireNonNull(discovery);
+    this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
   }
 
   @Override
   public void publishPayload(EncodedPayload payload, PublicKey recipientKey) {
+    publish(
+        payload.getPrivacyMode(),
+        recipientKey,
+        codec -> {
+          final PayloadEncoder payloadEncoder = PayloadEncoder.create(codec);
+          return output -> payloadEncoder.encodeTo(payload, output);
+        });
+  }
+
+  @Override
+  public void publishPayload(PayloadTemplates templates, PublicKey recipientKey) {
+    publish(
+        templates.getPayload().getPrivacyMode(),
+        recipientKey,
+        codec -> {
+          final List<ByteBuffer> encoded = templates.forCodec(codec).forRecipient(recipientKey);
+          return output -> {
+            for (final ByteBuffer buffer : encoded) {
+              output.write(
+                  buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+          };
+        });
+  }
+
+  /**
+   * Groups recipients hosted on the same node, if that node can store a payload with more than one
+   * recipient's box in it. Recipients on other nodes, or that aren't known, have a group of their
+   * own.
+   */
+  @Override
+  public List<List<PublicKey>> groupRecipients(List<PublicKey> recipientKeys) {
+    final Map<String, List<PublicKey>> groups = new LinkedHashMap<>();
+    for (final PublicKey recipientKey : recipientKeys) {
+      final String group = groupOf(recipientKey);
+      groups.computeIfAbsent(group, g -> new ArrayList<>()).add(recipientKey);
+    }
+    return List.copyOf(groups.values());
+  }
+
+  private String groupOf(PublicKey recipientKey) {
+    final NodeInfo remoteNodeInfo;
+    try {
+      remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+    } catch (KeyNotFoundException ex) {
+      // left for the publish to report
+      return recipientKey.encodeToBase64();
+    }
+    final Set<String> supportedApiVersions = remoteNodeInfo.supportedApiVersions();
+    if (supportedApiVersions.contains(MultiRecipientPushVersion.API_VERSION_6)) {
+      return remoteNodeInfo.getUrl();
+    }
+    return recipientKey.encodeToBase64();
+  }
+
+  @Override
+  public void publishPayload(PayloadTemplates templates, List<PublicKey> recipientKeys) {
+    if (recipientKeys.size() == 1) {
+      publishPayload(templates, recipientKeys.get(0));
+      return;
+    }
+    // the recipients are on the same node, so the first one identifies it for all of them
+    final EncodedPayload outgoing =
+        EncodedPayload.Builder.forRecipients(templates.getPayload(), recipientKeys).build();
+    publishPayload(outgoing, recipientKeys.get(0));
+  }
+
+  /**
+   * @param privacyMode the privacy mode of the payload
+   * @param recipientKey the public key identifying the target node
+   * @param encoder gives the request body that writes the payload with the recipient's codec
+   */
+  private void publish(
+      PrivacyMode privacyMode,
+      PublicKey recipientKey,
+      Function<EncodedPayloadCodec, StreamingOutput> encoder) {
 
     final NodeInfo remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
     final Set<String> supportedApiVersions = remoteNodeInfo.supportedApiVersions();
     final EncodedPayloadCodec preferredCodec =
         EncodedPayloadCodec.getPreferredCodec(supportedApiVersions);
-    final PayloadEncoder payloadEncoder = PayloadEncoder.create(preferredCodec);
 
-    if (PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()
-        && !supportedApiVersions.contains(EnhancedPrivacyVersion.API_VERSION_2)) {
-      throw new EnhancedPrivacyNotSupportedException(
-          "Transactions with enhanced privacy is not currently supported on recipient "
-              + recipientKey.encodeToBase64());
-    }
+    // encoded straight onto the connection as the request is sent, rather than into memory first,
+    // so failing to encode is marked to tell it apart from failing to send
+    final StreamingOutput encoding = encoder.apply(preferredCodec);
+    final StreamingOutput encoded =
+        output -> {
+          try {
+            encoding.write(output);
+          } catch (RuntimeException ex) {
+            throw new EncodeFailure(ex);
+          }
+        };
 
-    if (PrivacyMode.MANDATORY_RECIPIENTS == payload.getPrivacyMode()
-        && !supportedApiVersions.contains(MandatoryRecipientsVersion.API_VERSION_4)) {
-      throw new MandatoryRecipientsNotSupportedException(
-          "Transactions with mandatory recipients are not currently supported on recipient "
-              + recipientKey.encodeToBase64());
-    }
+    checkSupported(privacyMode, recipientKey, supportedApiVersions);
 
     final String targetUrl = remoteNodeInfo.getUrl();
-    LOGGER.info("Publishing message to {}", targetUrl);
+    if (!circuitBreaker.tryAcquire(targetUrl)) {
+      LOGGER.debug("{} could not be reached recently, not publishing message", targetUrl);
+      throw new NodeOfflineException(URI.create(targetUrl));
+    }
 
-    final byte[] encoded = payloadEncoder.encode(payload);
+    LOGGER.info("Publishing message to {}", targetUrl);
 
     try (Response response =
         client
             .target(targetUrl)
             .path("/push")
             .request()
+            .property(REQUEST_ENTITY_PROCESSING, "CHUNKED")
             .post(Entity.entity(encoded, MediaType.APPLICATION_OCTET_STREAM_TYPE))) {
+      circuitBreaker.onSuccess(targetUrl);
 
       if (Response.Status.OK.getStatusCode() != response.getStatus()
           && Response.Status.CREATED.getStatusCode() != response.getStatus()) {
@@ -80,8 +182,68 @@ public class RestPayloadPublisher implements PayloadPublisher {
 
       LOGGER.info("Published to {}", targetUrl);
     } catch (ProcessingException ex) {
+      final EncodeFailure encodeFailure = encodeFailureOf(ex);
+      if (encodeFailure != null) {
+        // the node wasn't at fault, so it isn't counted as a failure, but a probe of the node is
+        // given back so that the next call can find out whether it is reachable
+        circuitBreaker.onAbandon(targetUrl);
+        throw new PayloadEncodingException(
+            "Unable to encode payload for recipient url " + targetUrl, encodeFailure.getCause());
+      }
       LOGGER.debug("", ex);
+      if (circuitBreaker.onFailure(targetUrl)) {
+        discovery.onDisconnect(URI.create(targetUrl));
+      }
       throw new NodeOfflineException(URI.create(targetUrl));
     }
   }
+
+  @Override
+  public void checkRecipient(PrivacyMode privacyMode, PublicKey recipientKey) {
+    final NodeInfo remoteNodeInfo;
+    try {
+      remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+    } catch (KeyNotFoundException ex) {
+      // may be found by the time it is published
+      return;
+    }
+    checkSupported(privacyMode, recipientKey, remoteNodeInfo.supportedApiVersions());
+  }
+
+  private static void checkSupported(
+      PrivacyMode privacyMode, PublicKey recipientKey, Set<String> supportedApiVersions) {
+    if (PrivacyMode.STANDARD_PRIVATE != privacyMode
+        && !supportedApiVersions.contains(EnhancedPrivacyVersion.API_VERSION_2)) {
+      throw new EnhancedPrivacyNotSupportedException(
+          "Transactions with enhanced privacy is not currently supported on recipient "
+              + recipientKey.encodeToBase64());
+    }
+
+    if (PrivacyMode.MANDATORY_RECIPIENTS == privacyMode
+        && !supportedApiVersions.contains(MandatoryRecipientsVersion.API_VERSION_4)) {
+      throw new MandatoryRecipientsNotSupportedException(
+          "Transactions with mandatory recipients are not currently supported on recipient "
+              + recipientKey.encodeToBase64());
+    }
+  }
+
+  private static EncodeFailure encodeFailureOf(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof EncodeFailure) {
+        return (EncodeFailure) cause;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Carries a failure to encode the payload out of the request body, which may only throw an {@link
+   * IOException}
+   */
+  private static class EncodeFailure extends IOException {
+
+    private EncodeFailure(RuntimeException cause) {
+      super(cause);
+    }
+  }
 }
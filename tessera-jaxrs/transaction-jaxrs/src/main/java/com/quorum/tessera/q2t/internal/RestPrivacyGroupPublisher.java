@@ -6,6 +6,7 @@ import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.privacygroup.exception.PrivacyGroupNotSupportedException;
 import com.quorum.tessera.privacygroup.exception.PrivacyGroupPublishException;
 import com.quorum.tessera.privacygroup.publish.PrivacyGroupPublisher;
+import com.quorum.tessera.threading.CircuitBreaker;
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
 import com.quorum.tessera.version.PrivacyGroupVersion;
 import jakarta.ws.rs.ProcessingException;
@@ -14,6 +15,7 @@ import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
+import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,9 +27,13 @@ public class RestPrivacyGroupPublisher implements PrivacyGroupPublisher {
 
   private final Client restClient;
 
-  public RestPrivacyGroupPublisher(Discovery discovery, Client restClient) {
+  private final CircuitBreaker circuitBreaker;
+
+  public RestPrivacyGroupPublisher(
+      Discovery discovery, Client restClient, CircuitBreaker circuitBreaker) {
     this.discovery = discovery;
     this.restClient = restClient;
+    this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
   }
 
   @Override
@@ -42,6 +48,10 @@ public class RestPrivacyGroupPublisher implements PrivacyGroupPublisher {
     }
 
     final String targetUrl = remoteNodeInfo.getUrl();
+    if (!circuitBreaker.tryAcquire(targetUrl)) {
+      LOGGER.debug("{} could not be reached recently, not publishing privacy group", targetUrl);
+      throw new NodeOfflineException(URI.create(targetUrl));
+    }
 
     LOGGER.info("Publishing privacy group to {}", targetUrl);
 
@@ -51,6 +61,7 @@ public class RestPrivacyGroupPublisher implements PrivacyGroupPublisher {
             .path("/pushPrivacyGroup")
             .request()
             .post(Entity.entity(data, MediaType.APPLICATION_OCTET_STREAM_TYPE))) {
+      circuitBreaker.onSuccess(targetUrl);
 
       if (Response.Status.OK.getStatusCode() != response.getStatus()) {
         throw new PrivacyGroupPublishException(
@@ -59,6 +70,9 @@ public class RestPrivacyGroupPublisher implements PrivacyGroupPublisher {
       LOGGER.info("Published privacy group to {}", targetUrl);
     } catch (ProcessingException ex) {
       LOGGER.debug("", ex);
+      if (circuitBreaker.onFailure(targetUrl)) {
+        discovery.onDisconnect(URI.create(targetUrl));
+      }
       throw new NodeOfflineException(URI.create(targetUrl));
     }
   }
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.api.DeliveryStatusResponse;
 import com.quorum.tessera.api.SendRequest;
 import com.quorum.tessera.api.SendResponse;
 import com.quorum.tessera.api.SendSignedRequest;
@@ -12,6 +13,7 @@ import com.quorum.tessera.enclave.PrivacyGroup;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.privacygroup.PrivacyGroupManager;
+import com.quorum.tessera.transaction.DeliveryStatus;
 import com.quorum.tessera.transaction.ReceiveResponse;
 import com.quorum.tessera.transaction.TransactionManager;
 import jakarta.ws.rs.core.Response;
@@ -706,6 +708,45 @@ public class TransactionResource3Test {
     verify(transactionManager).getParticipants(any(MessageHash.class));
   }
 
+  @Test
+  public void getDeliveryStatusDelegates() {
+    final byte[] data = "DUMMY_HASH".getBytes();
+    final String dummyPtmHash = Base64.getEncoder().encodeToString(data);
+
+    final PublicKey delivered = PublicKey.from("DELIVERED".getBytes());
+    final PublicKey pending = PublicKey.from("PENDING".getBytes());
+    when(transactionManager.getDeliveryStatus(new MessageHash(data)))
+        .thenReturn(
+            List.of(
+                DeliveryStatus.Builder.create()
+                    .withRecipient(delivered)
+                    .withState(DeliveryStatus.State.DELIVERED)
+                    .withAttempts(1)
+                    .build(),
+                DeliveryStatus.Builder.create()
+                    .withRecipient(pending)
+                    .withState(DeliveryStatus.State.PENDING)
+                    .withAttempts(2)
+                    .withLastError("Unable to push")
+                    .build()));
+
+    final Response response = transactionResource.getDeliveryStatus(dummyPtmHash);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    final DeliveryStatusResponse[] statuses = (DeliveryStatusResponse[]) response.getEntity();
+    assertThat(statuses).hasSize(2);
+    assertThat(statuses[0].getRecipient()).isEqualTo(delivered.encodeToBase64());
+    assertThat(statuses[0].getStatus()).isEqualTo("DELIVERED");
+    assertThat(statuses[0].getAttempts()).isEqualTo(1);
+    assertThat(statuses[0].getLastError()).isNull();
+    assertThat(statuses[1].getRecipient()).isEqualTo(pending.encodeToBase64());
+    assertThat(statuses[1].getStatus()).isEqualTo("PENDING");
+    assertThat(statuses[1].getAttempts()).isEqualTo(2);
+    assertThat(statuses[1].getLastError()).isEqualTo("Unable to push");
+
+    verify(transactionManager).getDeliveryStatus(new MessageHash(data));
+  }
+
   // TODO: Ensure this is in integration tests
   //    @Test
   //    public void validationSendPayloadCannotBeNullOrEmpty() {
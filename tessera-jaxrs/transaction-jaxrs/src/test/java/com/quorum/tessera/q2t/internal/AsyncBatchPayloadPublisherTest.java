@@ -4,29 +4,32 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadTemplates;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
-import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.IoScheduler;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class AsyncBatchPayloadPublisherTest {
 
   private AsyncBatchPayloadPublisher asyncPublisher;
 
-  private Executor executor;
-
-  private ExecutorFactory executorFactory;
+  private IoScheduler scheduler;
 
   private CancellableCountDownLatch countDownLatch;
 
@@ -34,29 +37,36 @@ public class AsyncBatchPayloadPublisherTest {
 
   private PayloadPublisher publisher;
 
+  private Discovery discovery;
+
   @Before
   public void onSetup() {
-    this.executorFactory = mock(ExecutorFactory.class);
-    this.executor = mock(Executor.class);
-    when(executorFactory.createCachedThreadPool()).thenReturn(executor);
+    this.scheduler = mock(IoScheduler.class);
 
     this.countDownLatchFactory = mock(CancellableCountDownLatchFactory.class);
     this.countDownLatch = mock(CancellableCountDownLatch.class);
     when(countDownLatchFactory.create(anyInt())).thenReturn(countDownLatch);
 
     this.publisher = mock(PayloadPublisher.class);
+    when(publisher.groupRecipients(anyList())).thenCallRealMethod();
+    doCallRealMethod().when(publisher).publishPayload(any(PayloadTemplates.class), anyList());
+
+    this.discovery = mock(Discovery.class);
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.getUrl()).thenReturn("nodeUrl");
+    when(discovery.getRemoteNodeInfo(any(PublicKey.class))).thenReturn(nodeInfo);
+
     this.asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
+        new AsyncBatchPayloadPublisher(scheduler, countDownLatchFactory, publisher, discovery);
   }
 
   @After
   public void onTeardown() {
-    verifyNoMoreInteractions(
-        executor, executorFactory, countDownLatch, countDownLatchFactory, publisher);
+    verifyNoMoreInteractions(scheduler, countDownLatch, countDownLatchFactory, publisher);
   }
 
   @Test
-  public void publishPayloadUsesThreadForEachRecipient() throws InterruptedException {
+  public void publishPayloadUsesTaskForEachRecipient() throws InterruptedException {
     final EncodedPayload payload = mock(EncodedPayload.class);
 
     final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
@@ -66,20 +76,49 @@ public class AsyncBatchPayloadPublisherTest {
 
     asyncPublisher.publishPayload(payload, recipients);
 
+    verify(publisher).groupRecipients(recipients);
     verify(countDownLatchFactory).create(2);
-    verify(executorFactory).createCachedThreadPool();
-    verify(executor, times(2)).execute(any(Runnable.class));
+    verify(scheduler, times(2)).execute(eq("nodeUrl"), any(Runnable.class));
     verify(countDownLatch).await();
+    verify(discovery).getRemoteNodeInfo(recipient);
+    verify(discovery).getRemoteNodeInfo(otherRecipient);
   }
 
   @Test
-  public void publishPayloadStripsAndPublishes() throws InterruptedException {
-    final Executor realExecutor = Executors.newSingleThreadExecutor();
-    when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
+  public void publishPayloadUsesTaskForEachGroupOfRecipients() throws InterruptedException {
+    final EncodedPayload payload = mock(EncodedPayload.class);
 
-    asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+
+    final List<PublicKey> recipients = List.of(recipient, otherRecipient);
+    doReturn(List.of(recipients)).when(publisher).groupRecipients(recipients);
+
+    asyncPublisher.publishPayload(payload, recipients);
+
+    verify(publisher).groupRecipients(recipients);
+    verify(countDownLatchFactory).create(1);
+    verify(scheduler).execute(eq("nodeUrl"), any(Runnable.class));
+    verify(countDownLatch).await();
+  }
 
+  @Test
+  public void publishPayloadToUnknownRecipientIsScheduledByKey() throws InterruptedException {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+    when(discovery.getRemoteNodeInfo(recipient)).thenThrow(new KeyNotFoundException("unknown"));
+
+    asyncPublisher.publishPayload(payload, List.of(recipient));
+
+    verify(publisher).groupRecipients(List.of(recipient));
+    verify(countDownLatchFactory).create(1);
+    verify(scheduler).execute(eq(recipient.encodeToBase64()), any(Runnable.class));
+    verify(countDownLatch).await();
+  }
+
+  @Test
+  public void publishPayloadStripsAndPublishes() throws InterruptedException {
     final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
     final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
 
@@ -92,21 +131,24 @@ public class AsyncBatchPayloadPublisherTest {
             .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
             .build();
 
-    doAnswer(
-            invocation -> {
-              // sleep main thread so publish threads can work
-              Thread.sleep(200);
-              return null;
-            })
-        .when(countDownLatch)
-        .await();
-
     asyncPublisher.publishPayload(payload, recipients);
 
-    verify(executorFactory, times(2)).createCachedThreadPool();
+    final ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(2)).execute(eq("nodeUrl"), tasks.capture());
+    tasks.getAllValues().forEach(Runnable::run);
+
     verify(countDownLatchFactory).create(2);
-    verify(publisher).publishPayload(any(), eq(recipient));
-    verify(publisher).publishPayload(any(), eq(otherRecipient));
+    verify(publisher).groupRecipients(recipients);
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(List.of(recipient)));
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(List.of(otherRecipient)));
+    verify(publisher)
+        .publishPayload(
+            argThat((PayloadTemplates templates) -> templates.getPayload() == payload),
+            eq(recipient));
+    verify(publisher)
+        .publishPayload(
+            argThat((PayloadTemplates templates) -> templates.getPayload() == payload),
+            eq(otherRecipient));
     verify(countDownLatch, times(2)).countDown();
     verify(countDownLatch).await();
   }
@@ -117,8 +159,6 @@ public class AsyncBatchPayloadPublisherTest {
     final List<PublicKey> recipients = Collections.emptyList();
 
     asyncPublisher.publishPayload(payload, recipients);
-
-    verify(executorFactory).createCachedThreadPool();
   }
 
   @Test
@@ -138,20 +178,14 @@ public class AsyncBatchPayloadPublisherTest {
     assertThat(ex).isExactlyInstanceOf(BatchPublishPayloadException.class);
     assertThat(ex).hasCause(cause);
 
-    verify(executorFactory).createCachedThreadPool();
-    verify(executor, times(2)).execute(any(Runnable.class));
+    verify(publisher).groupRecipients(recipients);
+    verify(scheduler, times(2)).execute(eq("nodeUrl"), any(Runnable.class));
     verify(countDownLatchFactory).create(2);
     verify(countDownLatch).await();
   }
 
   @Test
   public void publishPayloadCancelsCountDownLatchIfOneTaskFails() throws InterruptedException {
-    final Executor realExecutor = Executors.newCachedThreadPool();
-    when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
-
-    asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
-
     final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
     final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
 
@@ -169,25 +203,62 @@ public class AsyncBatchPayloadPublisherTest {
     doThrow(cause)
         .doNothing()
         .when(publisher)
-        .publishPayload(any(EncodedPayload.class), any(PublicKey.class));
-
-    doAnswer(
-            invocation -> {
-              // sleep main thread so publish threads can work
-              Thread.sleep(200);
-              return null;
-            })
-        .when(countDownLatch)
-        .await();
+        .publishPayload(any(PayloadTemplates.class), any(PublicKey.class));
 
     asyncPublisher.publishPayload(payload, recipients);
 
-    verify(executorFactory, times(2)).createCachedThreadPool();
+    final ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(2)).execute(eq("nodeUrl"), tasks.capture());
+    tasks.getAllValues().forEach(Runnable::run);
+
     verify(countDownLatchFactory).create(2);
-    verify(publisher).publishPayload(any(), eq(recipient));
-    verify(publisher).publishPayload(any(), eq(otherRecipient));
+    verify(publisher).groupRecipients(recipients);
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(List.of(recipient)));
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(List.of(otherRecipient)));
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(recipient));
+    verify(publisher).publishPayload(any(PayloadTemplates.class), eq(otherRecipient));
     verify(countDownLatch).countDown();
     verify(countDownLatch).cancelWithException(cause);
     verify(countDownLatch).await();
   }
+
+  @Test
+  public void publishPayloadCancelsCountDownLatchIfSchedulerIsFull() throws InterruptedException {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+
+    final List<PublicKey> recipients = List.of(recipient, otherRecipient);
+
+    final RejectedExecutionException cause = new RejectedExecutionException("full");
+    doThrow(cause).when(scheduler).execute(anyString(), any(Runnable.class));
+
+    asyncPublisher.publishPayload(payload, recipients);
+
+    verify(publisher).groupRecipients(recipients);
+    verify(countDownLatchFactory).create(2);
+    verify(scheduler).execute(eq("nodeUrl"), any(Runnable.class));
+    verify(countDownLatch)
+        .cancelWithException(
+            argThat(
+                (RuntimeException ex) ->
+                    ex instanceof BatchPublishPayloadException && ex.getCause() == cause));
+    verify(countDownLatch).await();
+  }
+
+  @Test
+  public void checkRecipientsChecksEachOne() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+
+    asyncPublisher.checkRecipients(payload, List.of(recipient, otherRecipient));
+
+    verify(publisher).checkRecipient(PrivacyMode.PARTY_PROTECTION, recipient);
+    verify(publisher).checkRecipient(PrivacyMode.PARTY_PROTECTION, otherRecipient);
+    verifyNoInteractions(scheduler);
+  }
 }
@@ -7,14 +7,20 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.InvalidRecipientException;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PayloadTemplate;
+import com.quorum.tessera.enclave.PayloadTemplates;
 import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.partyinfo.node.Recipient;
+import com.quorum.tessera.threading.CircuitBreaker;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException;
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PayloadEncodingException;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import com.quorum.tessera.version.EnhancedPrivacyVersion;
 import jakarta.ws.rs.ProcessingException;
@@ -24,7 +30,13 @@ import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.assertj.core.api.Assertions;
@@ -44,6 +56,8 @@ public class RestPayloadPublisherTest {
 
   private Discovery discovery;
 
+  private CircuitBreaker circuitBreaker;
+
   private RestPayloadPublisher payloadPublisher;
 
   @Before
@@ -51,7 +65,8 @@ public class RestPayloadPublisherTest {
     client = mock(Client.class);
     payloadEncoder = mock(PayloadEncoder.class);
     discovery = mock(Discovery.class);
-    payloadPublisher = new RestPayloadPublisher(client, discovery);
+    circuitBreaker = new CircuitBreaker(1, 60000L);
+    payloadPublisher = new RestPayloadPublisher(client, discovery, circuitBreaker);
 
     payloadEncoderFactoryFunction
         .when(() -> PayloadEncoder.create(any(EncodedPayloadCodec.class)))
@@ -69,7 +84,7 @@ public class RestPayloadPublisherTest {
   }
 
   @Test
-  public void publish() {
+  public void publish() throws Exception {
     final String targetUrl = "nodeUrl";
     final EncodedPayload encodedPayload = mock(EncodedPayload.class);
     final PublicKey publicKey = mock(PublicKey.class);
@@ -87,7 +102,13 @@ public class RestPayloadPublisherTest {
         when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
 
         final byte[] payloadData = "Payload".getBytes();
-        when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+        doAnswer(
+                invocation -> {
+                  invocation.getArgument(1, OutputStream.class).write(payloadData);
+                  return null;
+                })
+            .when(payloadEncoder)
+            .encodeTo(same(encodedPayload), any(OutputStream.class));
 
         WebTarget webTarget = mock(WebTarget.class);
         when(client.target(targetUrl)).thenReturn(webTarget);
@@ -96,9 +117,20 @@ public class RestPayloadPublisherTest {
         Invocation.Builder invocationBuilder = mock(Invocation.Builder.class);
 
         Response response = Response.status(expectedResponseStatus).build();
-        when(invocationBuilder.post(
-                Entity.entity(payloadData, MediaType.APPLICATION_OCTET_STREAM_TYPE)))
-            .thenReturn(response);
+        when(invocationBuilder.property(RestPayloadPublisher.REQUEST_ENTITY_PROCESSING, "CHUNKED"))
+            .thenReturn(invocationBuilder);
+        when(invocationBuilder.post(any(Entity.class)))
+            .thenAnswer(
+                invocation -> {
+                  final Entity<?> entity = invocation.getArgument(0);
+                  assertThat(entity.getMediaType())
+                      .isEqualTo(MediaType.APPLICATION_OCTET_STREAM_TYPE);
+
+                  final ByteArrayOutputStream body = new ByteArrayOutputStream();
+                  ((StreamingOutput) entity.getEntity()).write(body);
+                  assertThat(body.toByteArray()).isEqualTo(payloadData);
+                  return response;
+                });
         when(webTarget.request()).thenReturn(invocationBuilder);
 
         if (expectedResponseStatus == Response.Status.OK
@@ -118,11 +150,175 @@ public class RestPayloadPublisherTest {
     int iterations = Response.Status.values().length * PrivacyMode.values().length;
     verify(client, times(iterations)).target(targetUrl);
     verify(discovery, times(iterations)).getRemoteNodeInfo(publicKey);
-    verify(payloadEncoder, times(iterations)).encode(encodedPayload);
+    verify(payloadEncoder, times(iterations))
+        .encodeTo(same(encodedPayload), any(OutputStream.class));
     payloadEncoderFactoryFunction.verify(
         times(iterations), () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
 
+  @Test
+  public void publishTemplateWritesBuffersForRecipient() throws Exception {
+    final String targetUrl = "nodeUrl";
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    final PublicKey publicKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("5.0"));
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
+
+    final PayloadTemplate template = mock(PayloadTemplate.class);
+    when(template.forRecipient(publicKey))
+        .thenReturn(
+            List.of(
+                ByteBuffer.wrap("xxShared".getBytes(), 2, 6),
+                ByteBuffer.wrap("Recipient".getBytes())));
+    when(payloadEncoder.template(encodedPayload)).thenReturn(template);
+
+    WebTarget webTarget = mock(WebTarget.class);
+    when(client.target(targetUrl)).thenReturn(webTarget);
+    when(webTarget.path("/push")).thenReturn(webTarget);
+    Invocation.Builder invocationBuilder = mock(Invocation.Builder.class);
+    when(webTarget.request()).thenReturn(invocationBuilder);
+    when(invocationBuilder.property(RestPayloadPublisher.REQUEST_ENTITY_PROCESSING, "CHUNKED"))
+        .thenReturn(invocationBuilder);
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    when(invocationBuilder.post(any(Entity.class)))
+        .thenAnswer(
+            invocation -> {
+              final Entity<?> entity = invocation.getArgument(0);
+              ((StreamingOutput) entity.getEntity()).write(body);
+              return Response.ok().build();
+            });
+
+    final PayloadTemplates templates = new PayloadTemplates(encodedPayload);
+    payloadPublisher.publishPayload(templates, publicKey);
+    payloadPublisher.publishPayload(templates, publicKey);
+
+    assertThat(body.toString()).isEqualTo("SharedRecipientSharedRecipient");
+
+    verify(client, times(2)).target(targetUrl);
+    verify(discovery, times(2)).getRemoteNodeInfo(publicKey);
+    verify(payloadEncoder).template(encodedPayload);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+  }
+
+  @Test
+  public void publishTemplateToKeyThatIsNotRecipient() {
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    final PublicKey publicKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of());
+    when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
+
+    final PayloadTemplate template = mock(PayloadTemplate.class);
+    when(template.forRecipient(publicKey)).thenThrow(new InvalidRecipientException("invalid"));
+    when(payloadEncoder.template(encodedPayload)).thenReturn(template);
+
+    assertThatExceptionOfType(InvalidRecipientException.class)
+        .isThrownBy(
+            () -> payloadPublisher.publishPayload(new PayloadTemplates(encodedPayload), publicKey));
+
+    verify(discovery).getRemoteNodeInfo(publicKey);
+    verify(payloadEncoder).template(encodedPayload);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
+  }
+
+  @Test
+  public void groupRecipientsOnNodesThatSupportMultipleRecipients() {
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("otherRecipient".getBytes());
+    final PublicKey olderNodeRecipient = PublicKey.from("olderNodeRecipient".getBytes());
+    final PublicKey otherOlderNodeRecipient = PublicKey.from("otherOlderNodeRecipient".getBytes());
+    final PublicKey unknownRecipient = PublicKey.from("unknownRecipient".getBytes());
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("5.0", "6.0"));
+    when(nodeInfo.getUrl()).thenReturn("nodeUrl");
+    final NodeInfo olderNodeInfo = mock(NodeInfo.class);
+    when(olderNodeInfo.supportedApiVersions()).thenReturn(Set.of("5.0"));
+    when(olderNodeInfo.getUrl()).thenReturn("olderNodeUrl");
+
+    when(discovery.getRemoteNodeInfo(recipient)).thenReturn(nodeInfo);
+    when(discovery.getRemoteNodeInfo(otherRecipient)).thenReturn(nodeInfo);
+    when(discovery.getRemoteNodeInfo(olderNodeRecipient)).thenReturn(olderNodeInfo);
+    when(discovery.getRemoteNodeInfo(otherOlderNodeRecipient)).thenReturn(olderNodeInfo);
+    when(discovery.getRemoteNodeInfo(unknownRecipient))
+        .thenThrow(new KeyNotFoundException("not found"));
+
+    final List<List<PublicKey>> groups =
+        payloadPublisher.groupRecipients(
+            List.of(
+                recipient,
+                olderNodeRecipient,
+                unknownRecipient,
+                otherRecipient,
+                otherOlderNodeRecipient));
+
+    assertThat(groups)
+        .containsExactly(
+            List.of(recipient, otherRecipient),
+            List.of(olderNodeRecipient),
+            List.of(unknownRecipient),
+            List.of(otherOlderNodeRecipient));
+
+    verify(discovery, times(5)).getRemoteNodeInfo(any(PublicKey.class));
+  }
+
+  @Test
+  public void publishGroupSendsOnePayloadForAllRecipients() throws Exception {
+    final String targetUrl = "nodeUrl";
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+    final PublicKey otherRecipient = PublicKey.from("otherRecipient".getBytes());
+    final PublicKey elsewhere = PublicKey.from("elsewhere".getBytes());
+
+    final EncodedPayload encodedPayload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("sender".getBytes()))
+            .withCipherText("cipherText".getBytes())
+            .withRecipientKeys(List.of(recipient, elsewhere, otherRecipient))
+            .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes(), "box3".getBytes()))
+            .build();
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("5.0", "6.0"));
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(recipient)).thenReturn(nodeInfo);
+
+    WebTarget webTarget = mock(WebTarget.class);
+    when(client.target(targetUrl)).thenReturn(webTarget);
+    when(webTarget.path("/push")).thenReturn(webTarget);
+    Invocation.Builder invocationBuilder = mock(Invocation.Builder.class);
+    when(webTarget.request()).thenReturn(invocationBuilder);
+    when(invocationBuilder.property(RestPayloadPublisher.REQUEST_ENTITY_PROCESSING, "CHUNKED"))
+        .thenReturn(invocationBuilder);
+    when(invocationBuilder.post(any(Entity.class)))
+        .thenAnswer(
+            invocation -> {
+              final Entity<?> entity = invocation.getArgument(0);
+              ((StreamingOutput) entity.getEntity()).write(new ByteArrayOutputStream());
+              return Response.ok().build();
+            });
+
+    payloadPublisher.publishPayload(
+        new PayloadTemplates(encodedPayload), List.of(recipient, otherRecipient));
+
+    verify(payloadEncoder)
+        .encodeTo(
+            argThat(
+                (EncodedPayload sent) ->
+                    sent.getRecipientKeys().equals(List.of(recipient, otherRecipient))
+                        && sent.getRecipientBoxes().size() == 2),
+            any(OutputStream.class));
+    verify(client).target(targetUrl);
+    verify(discovery).getRemoteNodeInfo(recipient);
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+  }
+
   @Test
   public void publishEnhancedTransactionsToNodesThatDoNotSupport() {
 
@@ -181,9 +377,9 @@ public class RestPayloadPublisherTest {
 
     final EncodedPayload payload = mock(EncodedPayload.class);
     when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
-    when(payloadEncoder.encode(payload)).thenReturn("SomeData".getBytes());
 
-    RestPayloadPublisher restPayloadPublisher = new RestPayloadPublisher(client, discovery);
+    RestPayloadPublisher restPayloadPublisher =
+        new RestPayloadPublisher(client, discovery, circuitBreaker);
 
     try {
       restPayloadPublisher.publishPayload(payload, recipientKey);
@@ -192,11 +388,121 @@ public class RestPayloadPublisherTest {
       assertThat(ex).hasMessageContaining(targetUri);
       verify(client).target(targetUri);
       verify(discovery).getRemoteNodeInfo(eq(recipientKey));
-      verify(payloadEncoder).encode(payload);
       verify(discovery).getRemoteNodeInfo(eq(recipientKey));
+      verify(discovery).onDisconnect(URI.create(targetUri));
       payloadEncoderFactoryFunction.verify(
           () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
     }
+    assertThat(circuitBreaker.getState(targetUri)).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  public void publishToNodeThatCouldNotBeReachedFailsFast() {
+    final String targetUri = "http://jimmywhite.com";
+    final PublicKey recipientKey = mock(PublicKey.class);
+
+    NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.getUrl()).thenReturn(targetUri);
+    when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    circuitBreaker.onFailure(targetUri);
+
+    assertThatExceptionOfType(NodeOfflineException.class)
+        .isThrownBy(() -> payloadPublisher.publishPayload(payload, recipientKey))
+        .withMessageContaining(targetUri);
+
+    verify(discovery).getRemoteNodeInfo(recipientKey);
+    payloadEncoderFactoryFunction.verify(
+        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
+  }
+
+  @Test
+  public void encodeFailureDoesNotCountAgainstTheNode() throws Exception {
+    final String targetUrl = "http://jimmywhite.com";
+    final PublicKey recipientKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    final IllegalStateException encodeFailure = new IllegalStateException("bad payload");
+    doThrow(encodeFailure).when(payloadEncoder).encodeTo(same(payload), any(OutputStream.class));
+    postWritesBody(targetUrl);
+
+    assertThatExceptionOfType(PayloadEncodingException.class)
+        .isThrownBy(() -> payloadPublisher.publishPayload(payload, recipientKey))
+        .withMessageContaining(targetUrl)
+        .withCause(encodeFailure);
+
+    assertThat(circuitBreaker.getState(targetUrl)).isEqualTo(CircuitBreaker.State.CLOSED);
+    verify(discovery, never()).onDisconnect(any(URI.class));
+
+    verify(client).target(targetUrl);
+    verify(discovery).getRemoteNodeInfo(recipientKey);
+    verify(payloadEncoder).encodeTo(same(payload), any(OutputStream.class));
+    payloadEncoderFactoryFunction.verify(
+        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
+  }
+
+  @Test
+  public void encodeFailureGivesBackTheProbeOfAHalfOpenNode() throws Exception {
+    final String targetUrl = "http://jimmywhite.com";
+    final PublicKey recipientKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    doThrow(new IllegalStateException("bad payload"))
+        .when(payloadEncoder)
+        .encodeTo(same(payload), any(OutputStream.class));
+    postWritesBody(targetUrl);
+
+    final CircuitBreaker halfOpen = mock(CircuitBreaker.class);
+    when(halfOpen.tryAcquire(targetUrl)).thenReturn(true);
+    payloadPublisher = new RestPayloadPublisher(client, discovery, halfOpen);
+
+    assertThatExceptionOfType(PayloadEncodingException.class)
+        .isThrownBy(() -> payloadPublisher.publishPayload(payload, recipientKey));
+
+    verify(halfOpen).tryAcquire(targetUrl);
+    verify(halfOpen).onAbandon(targetUrl);
+    verifyNoMoreInteractions(halfOpen);
+
+    verify(client).target(targetUrl);
+    verify(discovery).getRemoteNodeInfo(recipientKey);
+    verify(payloadEncoder).encodeTo(same(payload), any(OutputStream.class));
+    payloadEncoderFactoryFunction.verify(
+        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
+  }
+
+  private void postWritesBody(final String targetUrl) {
+    final WebTarget webTarget = mock(WebTarget.class);
+    when(client.target(targetUrl)).thenReturn(webTarget);
+    when(webTarget.path("/push")).thenReturn(webTarget);
+    final Invocation.Builder invocationBuilder = mock(Invocation.Builder.class);
+    when(webTarget.request()).thenReturn(invocationBuilder);
+    when(invocationBuilder.property(RestPayloadPublisher.REQUEST_ENTITY_PROCESSING, "CHUNKED"))
+        .thenReturn(invocationBuilder);
+    // the client reports whatever the body throws as a processing failure
+    when(invocationBuilder.post(any(Entity.class)))
+        .thenAnswer(
+            invocation -> {
+              final Entity<?> entity = invocation.getArgument(0);
+              try {
+                ((StreamingOutput) entity.getEntity()).write(new ByteArrayOutputStream());
+              } catch (Exception ex) {
+                throw new ProcessingException(ex);
+              }
+              return Response.ok().build();
+            });
   }
 
   @Test
@@ -229,4 +535,35 @@ public class RestPayloadPublisherTest {
     payloadEncoderFactoryFunction.verify(
         () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
+
+  @Test
+  public void checkRecipientWithoutPublishing() {
+    final PublicKey recipientKey = PublicKey.from("RECIPIENT".getBytes());
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("v2", "2.1", "3.0"));
+    when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+
+    payloadPublisher.checkRecipient(PrivacyMode.STANDARD_PRIVATE, recipientKey);
+    payloadPublisher.checkRecipient(PrivacyMode.PARTY_PROTECTION, recipientKey);
+    assertThatExceptionOfType(MandatoryRecipientsNotSupportedException.class)
+        .isThrownBy(
+            () -> payloadPublisher.checkRecipient(PrivacyMode.MANDATORY_RECIPIENTS, recipientKey));
+
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("v1"));
+    assertThatExceptionOfType(EnhancedPrivacyNotSupportedException.class)
+        .isThrownBy(
+            () -> payloadPublisher.checkRecipient(PrivacyMode.PARTY_PROTECTION, recipientKey));
+
+    verify(discovery, times(4)).getRemoteNodeInfo(recipientKey);
+  }
+
+  @Test
+  public void unknownRecipientIsLeftForThePublishToReport() {
+    final PublicKey recipientKey = PublicKey.from("UNKNOWN".getBytes());
+    when(discovery.getRemoteNodeInfo(recipientKey)).thenThrow(new KeyNotFoundException("unknown"));
+
+    payloadPublisher.checkRecipient(PrivacyMode.PARTY_PROTECTION, recipientKey);
+
+    verify(discovery).getRemoteNodeInfo(recipientKey);
+  }
 }
@@ -10,6 +10,7 @@ import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.privacygroup.exception.PrivacyGroupNotSupportedException;
 import com.quorum.tessera.privacygroup.exception.PrivacyGroupPublishException;
 import com.quorum.tessera.privacygroup.publish.PrivacyGroupPublisher;
+import com.quorum.tessera.threading.CircuitBreaker;
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
 import com.quorum.tessera.version.MultiTenancyVersion;
 import com.quorum.tessera.version.PrivacyGroupVersion;
@@ -20,6 +21,7 @@ import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.net.URI;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -36,11 +38,14 @@ public class RestPrivacyGroupPublisherTest {
 
   private Client client;
 
+  private CircuitBreaker circuitBreaker;
+
   @Before
   public void setUp() {
     client = mock(Client.class);
     discovery = mock(Discovery.class);
-    publisher = new RestPrivacyGroupPublisher(discovery, client);
+    circuitBreaker = new CircuitBreaker(1, 60000L);
+    publisher = new RestPrivacyGroupPublisher(discovery, client, circuitBreaker);
   }
 
   @After
@@ -136,8 +141,33 @@ public class RestPrivacyGroupPublisherTest {
       failBecauseExceptionWasNotThrown(NodeOfflineException.class);
     } catch (NodeOfflineException ex) {
       verify(discovery).getRemoteNodeInfo(recipient);
+      verify(discovery).onDisconnect(URI.create(targetUrl));
       verify(client).target(targetUrl);
     }
+    assertThat(circuitBreaker.getState(targetUrl)).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  public void publishToNodeThatCouldNotBeReachedFailsFast() {
+
+    String targetUrl = "https://sometargeturl.com";
+    PublicKey recipient = PublicKey.from("PUBLIC_KEY".getBytes());
+    NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(PrivacyGroupVersion.API_VERSION_3));
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+
+    when(discovery.getRemoteNodeInfo(recipient)).thenReturn(nodeInfo);
+
+    circuitBreaker.onFailure(targetUrl);
+
+    final byte[] data = new byte[5];
+    try {
+      publisher.publishPrivacyGroup(data, recipient);
+      failBecauseExceptionWasNotThrown(NodeOfflineException.class);
+    } catch (NodeOfflineException ex) {
+      assertThat(ex.getUri()).isEqualTo(URI.create(targetUrl));
+      verify(discovery).getRemoteNodeInfo(recipient);
+    }
   }
 
   @Test
@@ -106,7 +106,10 @@ class RecoveryImpl implements Recovery {
 
     final int maxResult = BATCH_SIZE;
 
-    for (int offset = 0; offset < stagingEntityDAO.countAll(); offset += maxResult) {
+    // syncing adds nothing to the staging table, so its rows are counted once
+    final long stagedCount = stagingEntityDAO.countAll();
+
+    for (int offset = 0; offset < stagedCount; offset += maxResult) {
 
       final List<StagingTransaction> transactions =
           stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(offset, maxResult);
@@ -3,9 +3,7 @@ package com.quorum.tessera.recovery.workflow;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.Enclave;
-import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
 import java.util.List;
@@ -13,13 +11,10 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.stream.IntStream;
 
 public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(SearchRecipientKeyForPayload.class);
-
   private final Enclave enclave;
 
   public SearchRecipientKeyForPayload(final Enclave enclave) {
@@ -38,13 +33,17 @@ public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
     }
 
     // the keys are not present, so we need to search for the relevant recipient
+    // this is a pre-PE tx, so find the recipient key of every payload in one enclave call
+    final List<EncodedPayload> payloads = List.copyOf(encodedPayloads);
+    final List<Optional<PublicKey>> recipientKeys = enclave.findRecipientKeys(payloads);
+
     final Set<EncodedPayload> adjustedPayloads =
-        encodedPayloads.stream()
-            .map(
-                payload -> {
-                  // this is a pre-PE tx, so find the recipient key
+        IntStream.range(0, payloads.size())
+            .mapToObj(
+                i -> {
                   final PublicKey recipientKey =
-                      searchForRecipientKey(payload)
+                      recipientKeys
+                          .get(i)
                           .orElseThrow(
                               () -> {
                                 final EncryptedTransaction encryptedTransaction =
@@ -55,7 +54,7 @@ public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
                                 return new RecipientKeyNotFoundException(message);
                               });
 
-                  return EncodedPayload.Builder.from(payload)
+                  return EncodedPayload.Builder.from(payloads.get(i))
                       .withRecipientKeys(List.of(recipientKey))
                       .build();
                 })
@@ -65,16 +64,4 @@ public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
 
     return true;
   }
-
-  private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-    for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
-      try {
-        enclave.unencryptTransaction(payload, potentialMatchingKey);
-        return Optional.of(potentialMatchingKey);
-      } catch (EnclaveNotAvailableException | IndexOutOfBoundsException | EncryptorException ex) {
-        LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
-      }
-    }
-    return Optional.empty();
-  }
 }
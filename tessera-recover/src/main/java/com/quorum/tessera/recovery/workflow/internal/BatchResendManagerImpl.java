@@ -1,6 +1,7 @@
 package com.quorum.tessera.recovery.workflow.internal;
 
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.TransactionFilter;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
 import com.quorum.tessera.data.staging.StagingTransactionUtils;
 import com.quorum.tessera.encryption.PublicKey;
@@ -12,9 +13,7 @@ import com.quorum.tessera.recovery.workflow.BatchWorkflow;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowContext;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowFactory;
 import java.util.Base64;
-import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
 
 public class BatchResendManagerImpl implements BatchResendManager {
 
@@ -39,10 +38,6 @@ public class BatchResendManagerImpl implements BatchResendManager {
     this.batchWorkflowFactory = batchWorkflowFactory;
   }
 
-  static int calculateBatchCount(long maxResults, long total) {
-    return (int) Math.ceil((double) total / maxResults);
-  }
-
   @Override
   public ResendBatchResponse resendBatch(ResendBatchRequest request) {
 
@@ -50,15 +45,15 @@ public class BatchResendManagerImpl implements BatchResendManager {
     final byte[] publicKeyData = Base64.getDecoder().decode(request.getPublicKey());
     final PublicKey recipientPublicKey = PublicKey.from(publicKeyData);
 
-    final long transactionCount = encryptedTransactionDAO.transactionCount();
-    final long batchCount = calculateBatchCount(maxResults, transactionCount);
+    // only transactions the recipient sent or received can pass the workflow's filters
+    final TransactionFilter filter = TransactionFilter.involving(recipientPublicKey);
+
+    final long transactionCount = encryptedTransactionDAO.transactionCount(filter);
 
     final BatchWorkflow batchWorkflow = batchWorkflowFactory.create(transactionCount);
 
-    IntStream.range(0, (int) batchCount)
-        .map(i -> i * maxResults)
-        .mapToObj(offset -> encryptedTransactionDAO.retrieveTransactions(offset, maxResults))
-        .flatMap(List::stream)
+    encryptedTransactionDAO
+        .streamTransactions(maxResults, filter)
         .forEach(
             encryptedTransaction -> {
               final BatchWorkflowContext context = new BatchWorkflowContext();
@@ -3,6 +3,7 @@ package com.quorum.tessera.recovery.workflow.internal;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.TransactionFilter;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
@@ -16,7 +17,6 @@ import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class LegacyResendManagerImpl implements LegacyResendManager {
 
@@ -54,13 +54,13 @@ public class LegacyResendManagerImpl implements LegacyResendManager {
 
     final BatchWorkflow batchWorkflow = batchWorkflowFactory.create();
 
-    final long transactionCount = encryptedTransactionDAO.transactionCount();
-    final long batchCount = calculateBatchCount(resendFetchSize, transactionCount);
+    // only standard private transactions the recipient sent or received can pass the workflow
+    final TransactionFilter filter =
+        TransactionFilter.involving(request.getRecipient())
+            .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
 
-    IntStream.range(0, (int) batchCount)
-        .map(i -> i * resendFetchSize)
-        .mapToObj(offset -> encryptedTransactionDAO.retrieveTransactions(offset, resendFetchSize))
-        .flatMap(List::stream)
+    encryptedTransactionDAO
+        .streamTransactions(resendFetchSize, filter)
         .forEach(
             encryptedTransaction -> {
               final BatchWorkflowContext context = new BatchWorkflowContext();
@@ -128,8 +128,4 @@ public class LegacyResendManagerImpl implements LegacyResendManager {
 
     return ResendResponse.Builder.create().withPayload(builder.build()).build();
   }
-
-  static int calculateBatchCount(long maxResults, long total) {
-    return (int) Math.ceil((double) total / maxResults);
-  }
 }
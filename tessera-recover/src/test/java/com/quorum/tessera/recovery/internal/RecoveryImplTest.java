@@ -185,7 +185,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     assertThat(result).isEqualTo(RecoveryResult.SUCCESS);
 
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-    verify(stagingEntityDAO, times(2)).countAll();
+    verify(stagingEntityDAO).countAll();
 
     verify(transactionManager).storePayload(firstPayload);
     verify(transactionManager).storePayload(secondPayload);
@@ -218,7 +218,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     assertThat(result).isEqualTo(RecoveryResult.PARTIAL_SUCCESS);
 
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-    verify(stagingEntityDAO, times(2)).countAll();
+    verify(stagingEntityDAO).countAll();
 
     verify(transactionManager).storePayload(encodedPayload);
     verify(transactionManager).storePayload(encodedPayload2);
@@ -252,7 +252,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     assertThat(result).isEqualTo(RecoveryResult.FAILURE);
 
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-    verify(stagingEntityDAO, times(2)).countAll();
+    verify(stagingEntityDAO).countAll();
 
     verify(transactionManager, times(2)).storePayload(any());
   }
@@ -290,7 +290,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     assertThat(result).isEqualTo(RecoveryResult.FAILURE);
 
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-    verify(stagingEntityDAO, times(2)).countAll();
+    verify(stagingEntityDAO).countAll();
 
     verify(transactionManager).storePayload(encodedPayload);
     verify(transactionManager).storePayload(encodedPayload2);
@@ -15,6 +15,8 @@ import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.partyinfo.node.Recipient;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
@@ -70,8 +72,7 @@ public class LegacyResendWorkflowFactoryTest {
     final EncryptedTransaction encryptedTx = mock(EncryptedTransaction.class);
 
     when(enclave.getPublicKeys()).thenReturn(Set.of(localRecipient));
-    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(localRecipient)))
-        .thenReturn(new byte[0]);
+    when(enclave.findRecipientKeys(anyList())).thenReturn(List.of(Optional.of(localRecipient)));
 
     final BatchWorkflow batchWorkflow = wfFactory.create();
     final BatchWorkflowContext context = new BatchWorkflowContext();
@@ -86,8 +87,8 @@ public class LegacyResendWorkflowFactoryTest {
     verify(discovery).getCurrent();
     verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(targetResendKey));
     verify(enclave).status();
-    verify(enclave, times(2)).getPublicKeys();
-    verify(enclave).unencryptTransaction(any(EncodedPayload.class), eq(localRecipient));
+    verify(enclave).getPublicKeys();
+    verify(enclave).findRecipientKeys(anyList());
   }
 
   @Test
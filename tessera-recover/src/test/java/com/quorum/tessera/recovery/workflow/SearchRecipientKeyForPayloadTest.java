@@ -7,14 +7,14 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.Enclave;
-import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -76,18 +76,18 @@ public class SearchRecipientKeyForPayloadTest {
     final PublicKey recipient1 = PublicKey.from("sample-public-key-1".getBytes());
     final PublicKey recipient2 = PublicKey.from("sample-public-key-2".getBytes());
 
-    // Using this LinkedHashSet instead of Set.of(...) to provide a defined iteration order.
-    final LinkedHashSet<PublicKey> enclaveKeys = new LinkedHashSet<>();
-    enclaveKeys.add(recipient1);
-    enclaveKeys.add(recipient2);
+    final Map<EncodedPayload, PublicKey> enclaveKeys =
+        Map.of(encodedPayloadForRecipient1, recipient1, encodedPayloadForRecipient2, recipient2);
 
-    when(enclave.getPublicKeys()).thenReturn(enclaveKeys);
-    when(enclave.unencryptTransaction(encodedPayloadForRecipient1, recipient1))
-        .thenReturn(new byte[0]);
-    when(enclave.unencryptTransaction(encodedPayloadForRecipient2, recipient2))
-        .thenReturn(new byte[0]);
-    when(enclave.unencryptTransaction(encodedPayloadForRecipient2, recipient1))
-        .thenThrow(EncryptorException.class);
+    when(enclave.findRecipientKeys(anyList()))
+        .thenAnswer(
+            invocation -> {
+              final List<EncodedPayload> payloads = invocation.getArgument(0);
+              return payloads.stream()
+                  .map(enclaveKeys::get)
+                  .map(Optional::of)
+                  .collect(Collectors.toList());
+            });
 
     searchRecipientKeyForPayload.execute(workflowEvent);
 
@@ -101,48 +101,31 @@ public class SearchRecipientKeyForPayloadTest {
                 .withRecipientKey(recipient2)
                 .build());
 
-    verify(enclave).unencryptTransaction(encodedPayloadForRecipient1, recipient1);
-    verify(enclave).unencryptTransaction(encodedPayloadForRecipient2, recipient1);
-    verify(enclave).unencryptTransaction(encodedPayloadForRecipient2, recipient2);
-    verify(enclave, times(2)).getPublicKeys();
+    // both payloads are searched in a single call to the enclave
+    verify(enclave).findRecipientKeys(anyList());
 
     verifyNoMoreInteractions(enclave);
   }
 
   @Test
-  public void executeHandleEnclaveExceptions() {
-    final List<Class<? extends Exception>> handledExceptionTypes =
-        List.of(
-            EnclaveNotAvailableException.class,
-            IndexOutOfBoundsException.class,
-            EncryptorException.class);
-
-    handledExceptionTypes.forEach(
-        t -> {
-          final BatchWorkflowContext workflowEvent = new BatchWorkflowContext();
-
-          final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
-          encryptedTransaction.setHash(new MessageHash("sampleHash".getBytes()));
-          workflowEvent.setEncryptedTransaction(encryptedTransaction);
-
-          final EncodedPayload encodedPayload = EncodedPayload.Builder.create().build();
-          workflowEvent.setPayloadsToPublish(Set.of(encodedPayload));
-
-          final PublicKey publicKey = PublicKey.from("sample-public-key".getBytes());
-          when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
-          when(enclave.unencryptTransaction(encodedPayload, publicKey)).thenThrow(t);
-
-          final Throwable throwable =
-              catchThrowable(() -> searchRecipientKeyForPayload.execute(workflowEvent));
-          assertThat(throwable)
-              .isInstanceOf(RecipientKeyNotFoundException.class)
-              .hasMessage("No key found as recipient of message c2FtcGxlSGFzaA==");
-
-          verify(enclave).unencryptTransaction(encodedPayload, publicKey);
-          verify(enclave).getPublicKeys();
-
-          verifyNoMoreInteractions(enclave);
-          reset(enclave);
-        });
+  public void executeRecipientKeyNotFound() {
+    final BatchWorkflowContext workflowEvent = new BatchWorkflowContext();
+
+    final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setHash(new MessageHash("sampleHash".getBytes()));
+    workflowEvent.setEncryptedTransaction(encryptedTransaction);
+
+    final EncodedPayload encodedPayload = EncodedPayload.Builder.create().build();
+    workflowEvent.setPayloadsToPublish(Set.of(encodedPayload));
+
+    when(enclave.findRecipientKeys(List.of(encodedPayload))).thenReturn(List.of(Optional.empty()));
+
+    final Throwable throwable =
+        catchThrowable(() -> searchRecipientKeyForPayload.execute(workflowEvent));
+    assertThat(throwable)
+        .isInstanceOf(RecipientKeyNotFoundException.class)
+        .hasMessage("No key found as recipient of message c2FtcGxlSGFzaA==");
+
+    verify(enclave).findRecipientKeys(List.of(encodedPayload));
   }
 }
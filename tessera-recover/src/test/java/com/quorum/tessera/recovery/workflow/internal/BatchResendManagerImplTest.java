@@ -3,13 +3,12 @@ package com.quorum.tessera.recovery.workflow.internal;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.AdditionalMatchers.gt;
-import static org.mockito.AdditionalMatchers.lt;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.base64.Base64Codec;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.TransactionFilter;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
 import com.quorum.tessera.data.staging.StagingTransaction;
 import com.quorum.tessera.enclave.*;
@@ -30,6 +29,7 @@ import java.util.stream.IntStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class BatchResendManagerImplTest {
 
@@ -74,15 +74,14 @@ public class BatchResendManagerImplTest {
         ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
 
     List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
+        IntStream.range(0, 101)
             .mapToObj(i -> mock(EncryptedTransaction.class))
             .collect(Collectors.toUnmodifiableList());
 
-    when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
+    when(encryptedTransactionDAO.transactionCount(any(TransactionFilter.class))).thenReturn(101L);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamTransactions(eq(5), any(TransactionFilter.class)))
+        .thenReturn(transactions.stream());
 
     BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
     when(batchWorkflow.getPublishedMessageCount()).thenReturn(999L);
@@ -96,9 +95,13 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+    verify(encryptedTransactionDAO).streamTransactions(eq(5), any(TransactionFilter.class));
 
-    verify(encryptedTransactionDAO).transactionCount();
+    final ArgumentCaptor<TransactionFilter> filterCaptor =
+        ArgumentCaptor.forClass(TransactionFilter.class);
+    verify(encryptedTransactionDAO).transactionCount(filterCaptor.capture());
+    // the transactions sent or received by the requested key
+    assertThat(filterCaptor.getValue().parameters()).contains(publicKey.getKeyBytes());
 
     verify(batchWorkflowFactory).create(101L);
   }
@@ -110,11 +113,11 @@ public class BatchResendManagerImplTest {
         ResendBatchRequest.Builder.create().withPublicKey(KEY_STRING).build();
 
     List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
+        IntStream.range(0, 101)
             .mapToObj(i -> mock(EncryptedTransaction.class))
             .collect(Collectors.toUnmodifiableList());
 
-    when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
+    when(encryptedTransactionDAO.transactionCount(any(TransactionFilter.class))).thenReturn(101L);
 
     BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
 
@@ -123,9 +126,8 @@ public class BatchResendManagerImplTest {
 
     when(batchWorkflowFactory.create(101L)).thenReturn(batchWorkflow);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(List.of(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamTransactions(eq(5), any(TransactionFilter.class)))
+        .thenReturn(transactions.stream());
 
     final ResendBatchResponse result = manager.resendBatch(request);
 
@@ -133,8 +135,8 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
-    verify(encryptedTransactionDAO).transactionCount();
+    verify(encryptedTransactionDAO).streamTransactions(eq(5), any(TransactionFilter.class));
+    verify(encryptedTransactionDAO).transactionCount(any(TransactionFilter.class));
 
     verify(batchWorkflowFactory).create(101L);
   }
@@ -149,15 +151,14 @@ public class BatchResendManagerImplTest {
             .build();
 
     List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
+        IntStream.range(0, 101)
             .mapToObj(i -> mock(EncryptedTransaction.class))
             .collect(Collectors.toUnmodifiableList());
 
-    when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
+    when(encryptedTransactionDAO.transactionCount(any(TransactionFilter.class))).thenReturn(101L);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamTransactions(eq(5), any(TransactionFilter.class)))
+        .thenReturn(transactions.stream());
 
     final BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
     when(batchWorkflow.getPublishedMessageCount()).thenReturn(999L);
@@ -168,9 +169,9 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+    verify(encryptedTransactionDAO).streamTransactions(eq(5), any(TransactionFilter.class));
 
-    verify(encryptedTransactionDAO).transactionCount();
+    verify(encryptedTransactionDAO).transactionCount(any(TransactionFilter.class));
 
     verify(batchWorkflowFactory).create(101L);
   }
@@ -183,26 +184,6 @@ public class BatchResendManagerImplTest {
         .isNotNull();
   }
 
-  @Test
-  public void calculateBatchCount() {
-    long numberOfRecords = 10;
-    long maxResults = 3;
-
-    int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-    assertThat(batchCount).isEqualTo(4);
-  }
-
-  @Test
-  public void calculateBatchCountTotalLowerThanBatchSizeIsSingleBatch() {
-    long numberOfRecords = 100;
-    long maxResults = 10;
-
-    int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-    assertThat(batchCount).isEqualTo(10);
-  }
-
   @Test
   public void createBatchResendManager() {
     BatchResendManager expected = mock(BatchResendManager.class);
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.TransactionFilter;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
@@ -21,10 +22,11 @@ import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.stream.Stream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class LegacyResendManagerImplTest {
 
@@ -163,8 +165,7 @@ public class LegacyResendManagerImplTest {
             .build();
 
     when(dao.retrieveByHash(any(MessageHash.class))).thenReturn(Optional.of(databaseTx));
-    when(enclave.getPublicKeys()).thenReturn(Set.of(localRecipientKey));
-    when(enclave.unencryptTransaction(any(), eq(localRecipientKey))).thenReturn(new byte[0]);
+    when(enclave.findRecipientKeys(anyList())).thenReturn(List.of(Optional.of(localRecipientKey)));
 
     final ResendResponse response = resendManager.resend(request);
 
@@ -174,8 +175,7 @@ public class LegacyResendManagerImplTest {
     assertThat(response.getPayload()).isEqualToComparingFieldByFieldRecursively(expected);
 
     verify(dao).retrieveByHash(txHash);
-    verify(enclave).getPublicKeys();
-    verify(enclave).unencryptTransaction(any(), eq(localRecipientKey));
+    verify(enclave).findRecipientKeys(anyList());
   }
 
   @Test
@@ -192,17 +192,20 @@ public class LegacyResendManagerImplTest {
     // We are not testing the workflow itself, only that the workflow gets the right amount of
     // transactions
 
-    when(dao.transactionCount()).thenReturn(2L);
-    when(dao.retrieveTransactions(0, 1)).thenReturn(List.of(new EncryptedTransaction()));
-    when(dao.retrieveTransactions(1, 1)).thenReturn(List.of(new EncryptedTransaction()));
+    when(dao.streamTransactions(eq(1), any(TransactionFilter.class)))
+        .thenReturn(Stream.of(new EncryptedTransaction(), new EncryptedTransaction()));
 
     final ResendResponse response = resendManager.resend(request);
     assertThat(response).isNotNull();
     assertThat(response.getPayload()).isNull();
 
     verify(enclave, times(2)).status();
-    verify(dao).transactionCount();
-    verify(dao).retrieveTransactions(0, 1);
-    verify(dao).retrieveTransactions(1, 1);
+
+    final ArgumentCaptor<TransactionFilter> filterCaptor =
+        ArgumentCaptor.forClass(TransactionFilter.class);
+    verify(dao).streamTransactions(eq(1), filterCaptor.capture());
+    // only standard private transactions sent or received by the target
+    assertThat(filterCaptor.getValue().parameters())
+        .contains(targetResendKey.getKeyBytes(), PrivacyMode.STANDARD_PRIVATE.name());
   }
 }